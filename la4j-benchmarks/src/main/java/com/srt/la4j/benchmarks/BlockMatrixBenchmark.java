@@ -0,0 +1,85 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.BlockLUDecomposition;
+import com.srt.la4j.BlockMatrix;
+import com.srt.la4j.LUDecomposition;
+import com.srt.la4j.Matrix;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Products and LU factorizations of tiled matrices against the same operations on
+ * {@link Matrix}, over sizes and tile sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+public class BlockMatrixBenchmark {
+
+    @Param({"1024", "2048", "4096"})
+    public int size;
+
+    @Param({"128", "256", "512"})
+    public int tileSize;
+
+    private Matrix dense;
+    private BlockMatrix a;
+    private BlockMatrix b;
+
+    @Setup
+    public void setUp() {
+        dense = Matrices.random(size, size, 1);
+        a = BlockMatrix.of(dense, tileSize);
+        b = BlockMatrix.of(Matrices.random(size, size, 2), tileSize);
+    }
+
+    @Benchmark
+    public BlockMatrix multiply() throws MatrixCompatibleException {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public BlockLUDecomposition lu() throws MatrixCompatibleException {
+        return a.lu();
+    }
+
+    @Benchmark
+    public LUDecomposition denseLu() throws MatrixCompatibleException {
+        // Writing an element drops the factorization kept by the matrix.
+        dense.set(0, 0, dense.get(0, 0));
+        return dense.lu();
+    }
+}
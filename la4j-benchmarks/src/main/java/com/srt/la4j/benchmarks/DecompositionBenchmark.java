@@ -0,0 +1,95 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.Matrix;
+import com.srt.la4j.QRDecomposition;
+import com.srt.la4j.SingularValueDecomposition;
+import com.srt.la4j.SymmetricEigenDecomposition;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QR, thin and randomized SVD of tall matrices, and the symmetric eigen decomposition of
+ * their Gram matrices. Each invocation writes an element back, which drops the
+ * decomposition the matrix keeps, so that every invocation decomposes again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+public class DecompositionBenchmark {
+
+    @Param({"4000", "100000"})
+    public int rows;
+
+    @Param({"100", "400"})
+    public int columns;
+
+    private Matrix tall;
+    private Matrix gram;
+
+    @Setup
+    public void setUp() throws MatrixCompatibleException {
+        tall = Matrices.random(rows, columns, 1);
+        gram = tall.transpose().multiply(tall);
+    }
+
+    @Benchmark
+    public QRDecomposition qr() throws MatrixCompatibleException {
+        tall.set(0, 0, tall.get(0, 0));
+        return tall.qr();
+    }
+
+    @Benchmark
+    public SingularValueDecomposition svd() {
+        tall.set(0, 0, tall.get(0, 0));
+        return tall.svd();
+    }
+
+    @Benchmark
+    public SingularValueDecomposition randomizedSvd() {
+        return SingularValueDecomposition.randomized(tall, 10, 10, 1, 1);
+    }
+
+    @Benchmark
+    public SymmetricEigenDecomposition eigen() throws MatrixCompatibleException {
+        gram.set(0, 0, gram.get(0, 0));
+        return gram.eigen();
+    }
+
+    @Benchmark
+    public double[] eigenvalues() throws MatrixCompatibleException {
+        return gram.eigenvalues();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.LUDecomposition;
+import com.srt.la4j.Matrix;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every public operation of the dense {@link Matrix} on square matrices. The in place
+ * operations add zeros or multiply by ones, so the destination keeps its values across
+ * invocations. The operations built on the LU decomposition write an element back first,
+ * which drops the decomposition the matrix keeps, so that every invocation factorizes again;
+ * {@link #luCached()} measures the cache hit instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DenseMatrixBenchmark {
+
+    @Param({"4", "16", "64", "256", "1024", "4096"})
+    public int size;
+
+    private Matrix a;
+    private Matrix b;
+    private Matrix ones;
+    private Matrix zeros;
+    private Matrix dest;
+
+    @Setup
+    public void setUp() {
+        a = Matrices.random(size, size, 1);
+        b = Matrices.random(size, size, 2);
+        ones = Matrices.filled(size, size, 1);
+        zeros = new Matrix(size, size);
+        dest = new Matrix(size, size);
+    }
+
+    @Benchmark
+    public Matrix add() throws MatrixCompatibleException {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Matrix multiply() throws MatrixCompatibleException {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public Matrix multiplyScalar() {
+        return a.multiply(0.5);
+    }
+
+    @Benchmark
+    public Matrix multiplyElementWise() throws MatrixCompatibleException {
+        return a.multiplyElementWise(b);
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return a.transpose();
+    }
+
+    @Benchmark
+    public double getDeterminant() throws Exception {
+        a.set(0, 0, a.get(0, 0));
+        return a.getDeterminant();
+    }
+
+    @Benchmark
+    public LUDecomposition lu() throws Exception {
+        a.set(0, 0, a.get(0, 0));
+        return a.lu();
+    }
+
+    @Benchmark
+    public LUDecomposition luCached() throws Exception {
+        return a.lu();
+    }
+
+    @Benchmark
+    public Matrix inverse() throws Exception {
+        a.set(0, 0, a.get(0, 0));
+        return a.inverse();
+    }
+
+    @Benchmark
+    public Matrix adjoint() throws Exception {
+        a.set(0, 0, a.get(0, 0));
+        return a.adjoint();
+    }
+
+    @Benchmark
+    public double cofactor() throws Exception {
+        return a.cofactor(0, 0);
+    }
+
+    @Benchmark
+    public Matrix identity() {
+        return Matrix.identity(size);
+    }
+
+    @Benchmark
+    public boolean equalsMatrix() {
+        return a.equals(b);
+    }
+
+    @Benchmark
+    public Matrix addInPlace() throws MatrixCompatibleException {
+        return dest.addInPlace(zeros);
+    }
+
+    @Benchmark
+    public Matrix axpy() throws MatrixCompatibleException {
+        return dest.axpy(-1, zeros);
+    }
+
+    @Benchmark
+    public Matrix scaleInPlace() {
+        return dest.scaleInPlace(1);
+    }
+
+    @Benchmark
+    public Matrix multiplyElementWiseInPlace() throws MatrixCompatibleException {
+        return dest.multiplyElementWiseInPlace(ones);
+    }
+
+    @Benchmark
+    public Matrix multiplyInto() throws MatrixCompatibleException {
+        return Matrix.multiplyInto(a, b, dest);
+    }
+
+    @Benchmark
+    public Matrix transposeInto() throws MatrixCompatibleException {
+        return a.transposeInto(dest);
+    }
+
+    @Benchmark
+    public Matrix chainEager() throws MatrixCompatibleException {
+        return a.multiply(b).add(a).multiply(0.5);
+    }
+
+    @Benchmark
+    public Matrix chainLazy() throws MatrixCompatibleException {
+        return a.lazy().multiply(b).add(a).multiply(0.5).evaluate();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.FloatMatrix;
+import com.srt.la4j.Matrix;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations of {@link FloatMatrix} on square matrices, to compare with the same
+ * operations of {@link DenseMatrixBenchmark}, and the conversions from and to {@link Matrix}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class FloatMatrixBenchmark {
+
+    @Param({"4", "16", "64", "256", "1024", "4096"})
+    public int size;
+
+    private Matrix source;
+    private FloatMatrix a;
+    private FloatMatrix b;
+
+    @Setup
+    public void setUp() {
+        source = Matrices.random(size, size, 1);
+        a = source.toFloat();
+        b = Matrices.random(size, size, 2).toFloat();
+    }
+
+    @Benchmark
+    public FloatMatrix add() throws MatrixCompatibleException {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public FloatMatrix multiply() throws MatrixCompatibleException {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public FloatMatrix multiplyElementWise() throws MatrixCompatibleException {
+        return a.multiplyElementWise(b);
+    }
+
+    @Benchmark
+    public FloatMatrix transpose() {
+        return a.transpose();
+    }
+
+    @Benchmark
+    public FloatMatrix toFloat() {
+        return source.toFloat();
+    }
+
+    @Benchmark
+    public Matrix toDouble() {
+        return a.toDouble();
+    }
+}
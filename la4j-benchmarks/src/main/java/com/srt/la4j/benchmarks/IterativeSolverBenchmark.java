@@ -0,0 +1,107 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.CsrMatrix;
+import com.srt.la4j.IncompleteLUPreconditioner;
+import com.srt.la4j.IterativeSolver;
+import com.srt.la4j.JacobiPreconditioner;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Krylov solves of the five point Poisson problem on a grid x grid mesh, over methods and
+ * preconditioners. The solver and its workspace are reused across invocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+public class IterativeSolverBenchmark {
+
+    @Param({"100", "300"})
+    public int grid;
+
+    @Param({"CG", "GMRES", "BICGSTAB"})
+    public IterativeSolver.Method method;
+
+    @Param({"none", "jacobi", "ilu"})
+    public String preconditioner;
+
+    private CsrMatrix a;
+    private double[] b;
+    private double[] x;
+    private IterativeSolver solver;
+
+    @Setup
+    public void setUp() throws MatrixCompatibleException, SingularMatrixException {
+        int n = grid * grid;
+        int[] rows = new int[5 * n], columns = new int[5 * n];
+        double[] values = new double[5 * n];
+        int k = 0;
+        for (int i = 0; i < grid; i++) {
+            for (int j = 0; j < grid; j++) {
+                int row = i * grid + j;
+                int[][] neighbours = {{i, j}, {i - 1, j}, {i + 1, j}, {i, j - 1}, {i, j + 1}};
+                for (int[] neighbour : neighbours) {
+                    if (neighbour[0] >= 0 && neighbour[0] < grid && neighbour[1] >= 0 && neighbour[1] < grid) {
+                        rows[k] = row;
+                        columns[k] = neighbour[0] * grid + neighbour[1];
+                        values[k++] = columns[k - 1] == row ? 4 : -1;
+                    }
+                }
+            }
+        }
+        a = CsrMatrix.fromTriplets(n, n, Arrays.copyOf(rows, k), Arrays.copyOf(columns, k), Arrays.copyOf(values, k));
+        b = new double[n];
+        Arrays.fill(b, 1);
+        x = new double[n];
+        solver = new IterativeSolver(method);
+        solver.setTolerance(1e-8);
+        solver.setMaxIterations(100000);
+        if ("jacobi".equals(preconditioner)) {
+            solver.setPreconditioner(new JacobiPreconditioner(a));
+        } else if ("ilu".equals(preconditioner)) {
+            solver.setPreconditioner(new IncompleteLUPreconditioner(a));
+        }
+    }
+
+    @Benchmark
+    public double[] solve() throws MatrixCompatibleException {
+        Arrays.fill(x, 0);
+        solver.solve(a, b, x);
+        return x;
+    }
+}
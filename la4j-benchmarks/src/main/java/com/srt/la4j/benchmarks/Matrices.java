@@ -0,0 +1,56 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.Matrix;
+
+import java.util.Arrays;
+import java.util.Random;
+
+final class Matrices {
+
+    private Matrices() {
+    }
+
+    /**
+     * @return matrix with elements in [-1, 1) and a dominant diagonal, so that it is well
+     *          conditioned for the determinant and the inverse.
+     */
+    static Matrix random(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        double[][] d = new double[rows][columns];
+        for(int i = 0; i < rows; i++){
+            for(int j = 0; j < columns; j++){
+                d[i][j] = 2 * random.nextDouble() - 1;
+            }
+            if(i < columns){
+                d[i][i] += columns;
+            }
+        }
+        return new Matrix(d);
+    }
+
+    static Matrix filled(int rows, int columns, double value) {
+        double[][] d = new double[rows][columns];
+        for(double[] row : d){
+            Arrays.fill(row, value);
+        }
+        return new Matrix(d);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.Matrix;
+import com.srt.la4j.MatrixBatch;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A million small matrices multiplied, inverted and added as a {@link MatrixBatch}, against
+ * the same products computed one {@link Matrix} at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx4g"})
+public class MatrixBatchBenchmark {
+
+    private static final int COUNT = 1_000_000;
+
+    @Param({"3", "4"})
+    public int dimension;
+
+    private MatrixBatch a;
+    private MatrixBatch b;
+    private MatrixBatch dest;
+    private Matrix[] first;
+    private Matrix[] second;
+
+    @Setup
+    public void setUp() throws MatrixCompatibleException {
+        a = new MatrixBatch(COUNT, dimension, dimension);
+        b = new MatrixBatch(COUNT, dimension, dimension);
+        dest = new MatrixBatch(COUNT, dimension, dimension);
+        first = new Matrix[COUNT];
+        second = new Matrix[COUNT];
+        for(int e = 0; e < COUNT; e++){
+            first[e] = Matrices.random(dimension, dimension, e);
+            second[e] = Matrices.random(dimension, dimension, COUNT + e);
+            a.setMatrix(e, first[e]);
+            b.setMatrix(e, second[e]);
+        }
+    }
+
+    @Benchmark
+    public MatrixBatch multiplyInto() throws MatrixCompatibleException {
+        return MatrixBatch.multiplyInto(a, b, dest);
+    }
+
+    @Benchmark
+    public MatrixBatch inverseInto() throws MatrixCompatibleException, SingularMatrixException {
+        return MatrixBatch.inverseInto(a, dest);
+    }
+
+    @Benchmark
+    public double[] determinants() throws MatrixCompatibleException {
+        return a.getDeterminants();
+    }
+
+    @Benchmark
+    public MatrixBatch add() throws MatrixCompatibleException {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Matrix[] multiplyMatrices() throws MatrixCompatibleException {
+        Matrix[] products = new Matrix[COUNT];
+        for(int e = 0; e < COUNT; e++){
+            products[e] = first[e].multiply(second[e]);
+        }
+        return products;
+    }
+}
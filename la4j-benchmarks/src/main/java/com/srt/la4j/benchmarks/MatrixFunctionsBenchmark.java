@@ -0,0 +1,81 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.Matrix;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matrix powers by repeated squaring against k - 1 calls of multiply, and the matrix
+ * exponential.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+public class MatrixFunctionsBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    @Param({"10", "100", "1000"})
+    public int exponent;
+
+    private Matrix a;
+
+    @Setup
+    public void setUp() {
+        // Elements in [-1/n, 1/n) keep the powers bounded.
+        a = Matrices.random(size, size, 1).multiply(1d / size);
+    }
+
+    @Benchmark
+    public Matrix repeatedMultiply() throws MatrixCompatibleException {
+        Matrix power = a;
+        for(int i = 1; i < exponent; i++){
+            power = power.multiply(a);
+        }
+        return power;
+    }
+
+    @Benchmark
+    public Matrix pow() throws MatrixCompatibleException {
+        return a.pow(exponent);
+    }
+
+    @Benchmark
+    public Matrix expm() throws MatrixCompatibleException {
+        return a.multiply(exponent).expm();
+    }
+}
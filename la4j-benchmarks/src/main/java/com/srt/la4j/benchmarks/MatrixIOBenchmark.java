@@ -0,0 +1,94 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.Matrix;
+import com.srt.la4j.MatrixIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading square matrices with {@link MatrixIO} in the binary format and as CSV,
+ * through files in the temporary directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MatrixIOBenchmark {
+
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    private Matrix matrix;
+    private Path binary;
+    private Path csv;
+
+    @Setup
+    public void setUp() throws IOException {
+        matrix = Matrices.random(size, size, 1);
+        binary = Files.createTempFile("la4j", ".bin");
+        csv = Files.createTempFile("la4j", ".csv");
+        MatrixIO.write(matrix, binary);
+        MatrixIO.writeCsv(matrix, csv);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binary);
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public void writeBinary() throws IOException {
+        MatrixIO.write(matrix, binary);
+    }
+
+    @Benchmark
+    public Matrix readBinary() throws IOException {
+        return MatrixIO.read(binary);
+    }
+
+    @Benchmark
+    public void writeCsv() throws IOException {
+        MatrixIO.writeCsv(matrix, csv);
+    }
+
+    @Benchmark
+    public Matrix readCsv() throws IOException {
+        return MatrixIO.readCsv(csv);
+    }
+}
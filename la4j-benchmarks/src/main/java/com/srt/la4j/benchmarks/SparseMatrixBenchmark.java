@@ -0,0 +1,143 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.BaseMatrix;
+import com.srt.la4j.CscMatrix;
+import com.srt.la4j.CsrMatrix;
+import com.srt.la4j.Matrix;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sparse matrices of a given density of non zero elements, alone and mixed with dense ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SparseMatrixBenchmark {
+
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    @Param({"0.001", "0.01", "0.1"})
+    public double density;
+
+    private CsrMatrix a;
+    private CsrMatrix b;
+    private CscMatrix c;
+    private Matrix dense;
+
+    @Setup
+    public void setUp() {
+        a = random(size, density, 1);
+        b = random(size, density, 2);
+        c = random(size, density, 3).toCsc();
+        dense = Matrices.random(size, size, 4);
+    }
+
+    private static CsrMatrix random(int size, double density, long seed) {
+        Random random = new Random(seed);
+        int count = (int) Math.max(1, density * size * size);
+        int[] rows = new int[count], columns = new int[count];
+        double[] values = new double[count];
+        for(int k = 0; k < count; k++){
+            rows[k] = random.nextInt(size);
+            columns[k] = random.nextInt(size);
+            values[k] = 2 * random.nextDouble() - 1;
+        }
+        return CsrMatrix.fromTriplets(size, size, rows, columns, values);
+    }
+
+    @Benchmark
+    public BaseMatrix addSparse() throws MatrixCompatibleException {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public BaseMatrix addDense() throws MatrixCompatibleException {
+        return a.add(dense);
+    }
+
+    @Benchmark
+    public BaseMatrix multiplySparse() throws MatrixCompatibleException {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public BaseMatrix multiplyCsc() throws MatrixCompatibleException {
+        return a.multiply(c);
+    }
+
+    @Benchmark
+    public BaseMatrix multiplySparseDense() throws MatrixCompatibleException {
+        return a.multiply(dense);
+    }
+
+    @Benchmark
+    public BaseMatrix multiplyDenseSparse() throws MatrixCompatibleException {
+        return dense.multiply((BaseMatrix) a);
+    }
+
+    @Benchmark
+    public BaseMatrix multiplyElementWise() throws MatrixCompatibleException {
+        return a.multiplyElementWise(b);
+    }
+
+    @Benchmark
+    public BaseMatrix multiplyScalar() {
+        return a.multiply(0.5);
+    }
+
+    @Benchmark
+    public BaseMatrix transpose() {
+        return a.transpose();
+    }
+
+    @Benchmark
+    public CsrMatrix toCsr() {
+        return c.toCsr();
+    }
+
+    @Benchmark
+    public CsrMatrix fromDense() {
+        return CsrMatrix.fromDense(dense);
+    }
+
+    @Benchmark
+    public Matrix toDense() {
+        return a.toDense();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.Matrix;
+import com.srt.la4j.Strassen;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Square products with the Strassen-Winograd recursion against the standard product, to
+ * find the sizes and the cutoff where the recursion pays off. A cutoff at least the size
+ * runs the standard product.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+public class StrassenBenchmark {
+
+    @Param({"1024", "2048", "4096", "8192"})
+    public int size;
+
+    @Param({"256", "512", "1024", "8192"})
+    public int cutoff;
+
+    private Matrix a;
+    private Matrix b;
+
+    @Setup
+    public void setUp() {
+        a = Matrices.random(size, size, 1);
+        b = Matrices.random(size, size, 2);
+        Strassen.setEnabled(true);
+        Strassen.setCutoff(cutoff);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Strassen.setEnabled(false);
+    }
+
+    @Benchmark
+    public Matrix multiply() throws MatrixCompatibleException {
+        return a.multiply(b);
+    }
+}
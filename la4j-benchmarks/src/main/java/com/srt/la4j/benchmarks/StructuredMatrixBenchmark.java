@@ -0,0 +1,110 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j.benchmarks;
+
+import com.srt.la4j.BandMatrix;
+import com.srt.la4j.BaseMatrix;
+import com.srt.la4j.Matrix;
+import com.srt.la4j.SymmetricMatrix;
+import com.srt.la4j.TriangularMatrix;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Products and solves with triangular, symmetric and band matrices against the same
+ * operations on their dense copies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+public class StructuredMatrixBenchmark {
+
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    private TriangularMatrix triangular;
+    private Matrix denseTriangular;
+    private SymmetricMatrix symmetric;
+    private Matrix denseSymmetric;
+    private BandMatrix band;
+    private Matrix denseBand;
+    private Matrix b;
+
+    @Setup
+    public void setUp() throws MatrixCompatibleException {
+        Matrix a = Matrices.random(size, size, 1);
+        b = Matrices.random(size, size, 2);
+        triangular = TriangularMatrix.of(a, true);
+        denseTriangular = triangular.toDense();
+        // A^T*A + n*I is symmetric positive definite.
+        symmetric = SymmetricMatrix.of(a.transpose().multiply(a).add(Matrix.identity(size).multiply(size)));
+        denseSymmetric = symmetric.toDense();
+        band = BandMatrix.of(a.add(Matrix.identity(size).multiply(4)), 2, 2);
+        denseBand = band.toDense();
+    }
+
+    @Benchmark
+    public BaseMatrix triangularMultiply() throws MatrixCompatibleException {
+        return triangular.multiply(b);
+    }
+
+    @Benchmark
+    public Matrix denseTriangularMultiply() throws MatrixCompatibleException {
+        return denseTriangular.multiply(b);
+    }
+
+    @Benchmark
+    public Matrix symmetricSolve() throws MatrixCompatibleException, SingularMatrixException {
+        return symmetric.solve(b);
+    }
+
+    @Benchmark
+    public Matrix denseSymmetricSolve() throws MatrixCompatibleException, SingularMatrixException {
+        // Writing an element drops the factorization kept by the matrix.
+        denseSymmetric.set(0, 0, denseSymmetric.get(0, 0));
+        return denseSymmetric.solve(b);
+    }
+
+    @Benchmark
+    public Matrix bandSolve() throws MatrixCompatibleException, SingularMatrixException {
+        return band.solve(b);
+    }
+
+    @Benchmark
+    public Matrix denseBandSolve() throws MatrixCompatibleException, SingularMatrixException {
+        denseBand.set(0, 0, denseBand.get(0, 0));
+        return denseBand.solve(b);
+    }
+}
@@ -0,0 +1,475 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Square band matrix, such as a finite difference operator, whose non zero elements are at
+ * most lower diagonals below and upper diagonals above the diagonal. Row i is stored in
+ * lower + upper + 1 elements, element (i, j) at data[i*(lower + upper + 1) + j - i + lower],
+ * so the storage is O(n) for a fixed bandwidth.
+ *
+ * Products and solves are O(n) per column of the other operand: the product adds the rows in
+ * the band of each row, and the determinant and solves use an LU factorization with partial
+ * pivoting in band storage, whose upper bandwidth grows by at most the lower bandwidth.
+ *
+ * Sums and products with band or {@link DiagonalMatrix} matrices, element wise products with
+ * any matrix, scaling and the transpose stay banded.
+ */
+public final class BandMatrix implements BaseMatrix {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int dimension;
+    private final int lower;
+    private final int upper;
+    private final double[] data;
+
+    /**
+     * Creates a band matrix filled with zeros.
+     *
+     * @param dimension
+     * @param lower number of diagonals below the diagonal.
+     * @param upper number of diagonals above the diagonal.
+     */
+    public BandMatrix(int dimension, int lower, int upper) {
+        this(dimension, lower, upper, null);
+    }
+
+    /**
+     * Wraps band storage without copying it, or allocates it if data is null.
+     */
+    private BandMatrix(int dimension, int lower, int upper, double[] data) {
+        DiagonalMatrix.checkedDimension(dimension);
+        if(lower < 0 || upper < 0 || lower >= dimension || upper >= dimension){
+            throw new IllegalArgumentException("Bandwidths must be in [0, dimension).");
+        }
+        long length = (long) dimension * (lower + upper + 1);
+        if(length > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Matrix is too large for a single array.");
+        }
+        this.dimension = dimension;
+        this.lower = lower;
+        this.upper = upper;
+        this.data = data == null ? new double[(int) length] : data;
+    }
+
+    /**
+     * Copies the band of a square matrix of any kind, elements outside it are not read.
+     *
+     * @param matrix
+     * @param lower number of diagonals below the diagonal.
+     * @param upper number of diagonals above the diagonal.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     */
+    public static BandMatrix of(BaseMatrix matrix, int lower, int upper) throws NotASqaureMatrixException {
+        if(matrix.getRows() != matrix.getColumns()){
+            throw new NotASqaureMatrixException();
+        }
+        BandMatrix result = new BandMatrix(matrix.getRows(), lower, upper);
+        for(int i = 0; i < result.dimension; i++){
+            for(int j = result.first(i); j < result.end(i); j++){
+                result.data[result.position(i, j)] = matrix.get(i, j);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of diagonals below the diagonal.
+     */
+    public int getLowerBandwidth() {
+        return lower;
+    }
+
+    /**
+     * @return number of diagonals above the diagonal.
+     */
+    public int getUpperBandwidth() {
+        return upper;
+    }
+
+    private int width() {
+        return lower + upper + 1;
+    }
+
+    private int position(int rowIndex, int columnIndex) {
+        return rowIndex * width() + columnIndex - rowIndex + lower;
+    }
+
+    /**
+     * @return first column of the band in row i.
+     */
+    private int first(int i) {
+        return Math.max(0, i - lower);
+    }
+
+    /**
+     * @return column after the last column of the band in row i.
+     */
+    private int end(int i) {
+        return Math.min(dimension, i + upper + 1);
+    }
+
+    @Override
+    public int getRows() {
+        return dimension;
+    }
+
+    @Override
+    public int getColumns() {
+        return dimension;
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        check(rowIndex, columnIndex);
+        return inBand(rowIndex, columnIndex) ? data[position(rowIndex, columnIndex)] : 0;
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     * @throws IllegalArgumentException if a non zero value is set outside the band.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be inserted in the position specified by
+     *              rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, double value) {
+        check(rowIndex, columnIndex);
+        if(inBand(rowIndex, columnIndex)){
+            data[position(rowIndex, columnIndex)] = value;
+        } else if(value != 0){
+            throw new IllegalArgumentException("Element is outside the band.");
+        }
+    }
+
+    private boolean inBand(int rowIndex, int columnIndex) {
+        return columnIndex >= rowIndex - lower && columnIndex <= rowIndex + upper;
+    }
+
+    private void check(int rowIndex, int columnIndex) {
+        if(rowIndex >= dimension || rowIndex < 0 || columnIndex >= dimension || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+    }
+
+    @Override
+    public Matrix toDense() {
+        int n = dimension;
+        double[] d = new double[n * n];
+        for(int i = 0; i < n; i++){
+            System.arraycopy(data, position(i, first(i)), d, i * n + first(i), end(i) - first(i));
+        }
+        return new Matrix(n, n, d, false);
+    }
+
+    /**
+     * @param matrix
+     * @return sum of both the matrices, banded with the wider bandwidths if matrix is banded or
+     *          diagonal, dense otherwise.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BaseMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(matrix.getRows() != dimension || matrix.getColumns() != dimension){
+            throw new AdditionCompatibleException();
+        }
+        if(matrix instanceof DiagonalMatrix){
+            double[] d = data.clone(), diagonal = ((DiagonalMatrix) matrix).diagonal();
+            for(int i = 0; i < dimension; i++){
+                d[position(i, i)] += diagonal[i];
+            }
+            return new BandMatrix(dimension, lower, upper, d);
+        }
+        if(matrix instanceof BandMatrix){
+            BandMatrix that = (BandMatrix) matrix;
+            BandMatrix result = new BandMatrix(dimension, Math.max(lower, that.lower), Math.max(upper, that.upper));
+            result.accumulate(this);
+            result.accumulate(that);
+            return result;
+        }
+        return toDense().add(matrix);
+    }
+
+    /**
+     * Adds the band of a matrix with narrower or equal bandwidths into this matrix.
+     */
+    private void accumulate(BandMatrix band) {
+        for(int i = 0; i < dimension; i++){
+            int j = band.first(i);
+            KERNELS.axpy(1, band.data, band.position(i, j), data, position(i, j), band.end(i) - j);
+        }
+    }
+
+    /**
+     * @param matrix
+     * @return product of both the matrices, banded with the sums of the bandwidths if matrix is
+     *          banded, banded if it is diagonal, dense otherwise.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    @Override
+    public BaseMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        int n = dimension;
+        if(matrix instanceof DiagonalMatrix){
+            double[] d = new double[data.length], diagonal = ((DiagonalMatrix) matrix).diagonal();
+            for(int i = 0; i < n; i++){
+                int j = first(i);
+                KERNELS.multiply(data, position(i, j), diagonal, j, d, position(i, j), end(i) - j);
+            }
+            return new BandMatrix(n, lower, upper, d);
+        }
+        if(matrix instanceof BandMatrix){
+            BandMatrix that = (BandMatrix) matrix;
+            BandMatrix result = new BandMatrix(n, Math.min(n - 1, lower + that.lower), Math.min(n - 1, upper + that.upper));
+            // Row i of the product is the sum of the band rows of that, scaled by row i of this.
+            for(int i = 0; i < n; i++){
+                for(int p = first(i); p < end(i); p++){
+                    int j = that.first(p);
+                    KERNELS.axpy(data[position(i, p)], that.data, that.position(p, j),
+                            result.data, result.position(i, j), that.end(p) - j);
+                }
+            }
+            return result;
+        }
+        Matrix dense = matrix.toDense();
+        int r = dense.getColumns();
+        double[] b = dense.data(), d = new double[n * r];
+        Parallelism.forRange(0, n, 1, (long) width() * r, (from, to) -> {
+            for(int i = from; i < to; i++){
+                for(int p = first(i); p < end(i); p++){
+                    KERNELS.axpy(data[position(i, p)], b, dense.offset() + p * dense.stride(), d, i * r, r);
+                }
+            }
+        });
+        return new Matrix(n, r, d, false);
+    }
+
+    /**
+     * Writes y = A*x, reading only the band of each row.
+     */
+    void multiply(double[] x, double[] y) {
+        Parallelism.forRange(0, dimension, 64, width(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                int j = first(i);
+                y[i] = KERNELS.dot(data, position(i, j), x, j, end(i) - j);
+            }
+        });
+    }
+
+    /**
+     * @return this matrix with row i scaled by scale[i], the product of a diagonal matrix with it.
+     */
+    BandMatrix scaleRows(double[] scale) {
+        double[] d = new double[data.length];
+        for(int i = 0; i < dimension; i++){
+            KERNELS.scale(data, i * width(), scale[i], d, i * width(), width());
+        }
+        return new BandMatrix(dimension, lower, upper, d);
+    }
+
+    /**
+     * @param matrix
+     * @return band matrix of the element wise product of both the matrices.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BandMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != dimension || matrix.getColumns() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        double[] d = new double[data.length];
+        for(int i = 0; i < dimension; i++){
+            for(int j = first(i); j < end(i); j++){
+                d[position(i, j)] = data[position(i, j)] * matrix.get(i, j);
+            }
+        }
+        return new BandMatrix(dimension, lower, upper, d);
+    }
+
+    @Override
+    public BandMatrix multiply(double number) {
+        double[] d = new double[data.length];
+        KERNELS.scale(data, 0, number, d, 0, d.length);
+        return new BandMatrix(dimension, lower, upper, d);
+    }
+
+    /**
+     * @return transpose of the matrix, with the lower and upper bandwidths swapped.
+     */
+    @Override
+    public BandMatrix transpose() {
+        BandMatrix result = new BandMatrix(dimension, upper, lower);
+        for(int i = 0; i < dimension; i++){
+            for(int j = first(i); j < end(i); j++){
+                result.data[result.position(j, i)] = data[position(i, j)];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return determinant of the matrix, from its band LU factorization.
+     */
+    public double getDeterminant() {
+        Factorization lu = new Factorization();
+        double determinant = lu.sign;
+        for(int i = 0; i < dimension; i++){
+            determinant *= lu.data[i * lu.width + lower];
+        }
+        return determinant;
+    }
+
+    /**
+     * Solves A*X = B with the band LU factorization, O(n * lower * (lower + upper)) to factorize
+     * and O(n * (2*lower + upper)) per column of B.
+     *
+     * @param b right hand side with as many rows as the matrix.
+     * @return solution X.
+     * @throws MultiplicationCompatibleException if b does not have n rows.
+     * @throws SingularMatrixException if the matrix is singular.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException, SingularMatrixException {
+        if(b.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        Factorization lu = new Factorization();
+        if(lu.singular){
+            throw new SingularMatrixException();
+        }
+        int n = dimension, r = b.getColumns(), w = lu.width;
+        double[] x = new double[n * r], source = b.data(), f = lu.data, row = new double[r];
+        for(int i = 0; i < n; i++){
+            System.arraycopy(source, b.offset() + i * b.stride(), x, i * r, r);
+        }
+        // The swaps are applied in the order of the factorization, interleaved with L.
+        for(int k = 0; k < n; k++){
+            int p = lu.swaps[k];
+            if(p != k){
+                System.arraycopy(x, k * r, row, 0, r);
+                System.arraycopy(x, p * r, x, k * r, r);
+                System.arraycopy(row, 0, x, p * r, r);
+            }
+            for(int i = k + 1; i <= Math.min(n - 1, k + lower); i++){
+                KERNELS.axpy(-f[i * w + k - i + lower], x, k * r, x, i * r, r);
+            }
+        }
+        for(int i = n - 1; i >= 0; i--){
+            for(int j = i + 1; j <= Math.min(n - 1, i + w - 1 - lower); j++){
+                KERNELS.axpy(-f[i * w + j - i + lower], x, j * r, x, i * r, r);
+            }
+            double pivot = f[i * w + lower];
+            for(int c = 0; c < r; c++){
+                x[i * r + c] /= pivot;
+            }
+        }
+        return new Matrix(n, r, x, false);
+    }
+
+    /**
+     * LU factorization with partial pivoting in band storage of width 2*lower + upper + 1,
+     * element (i, j) at data[i*width + j - i + lower], as the rows swapped into row i reach
+     * up to lower more columns to the right.
+     */
+    private final class Factorization {
+
+        private final int width = 2 * lower + upper + 1;
+        private final double[] data = new double[dimension * width];
+        // Row k is swapped with row swaps[k] when column k is eliminated.
+        private final int[] swaps = new int[dimension];
+        private int sign = 1;
+        private boolean singular;
+
+        private Factorization() {
+            int n = dimension, w = width;
+            for(int i = 0; i < n; i++){
+                System.arraycopy(BandMatrix.this.data, i * width(), data, i * w, width());
+            }
+            for(int k = 0; k < n; k++){
+                int last = Math.min(n - 1, k + lower), end = Math.min(n, k + lower + upper + 1);
+                int p = k;
+                double max = Math.abs(data[k * w + lower]);
+                for(int i = k + 1; i <= last; i++){
+                    double value = Math.abs(data[i * w + k - i + lower]);
+                    if(value > max){
+                        max = value;
+                        p = i;
+                    }
+                }
+                swaps[k] = p;
+                if(p != k){
+                    for(int j = k; j < end; j++){
+                        int a = k * w + j - k + lower, b = p * w + j - p + lower;
+                        double value = data[a];
+                        data[a] = data[b];
+                        data[b] = value;
+                    }
+                    sign = -sign;
+                }
+                double pivot = data[k * w + lower];
+                if(pivot == 0){
+                    singular = true;
+                    continue;
+                }
+                for(int i = k + 1; i <= last; i++){
+                    int column = i * w + k - i + lower;
+                    double factor = data[column] / pivot;
+                    data[column] = factor;
+                    if(factor != 0){
+                        KERNELS.axpy(-factor, data, k * w + lower + 1, data, column + 1, end - k - 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param obj
+     * @return true if obj is a band matrix with the same bandwidths and elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof BandMatrix)){
+            return false;
+        }
+        BandMatrix that = (BandMatrix) obj;
+        return that.dimension == dimension && that.lower == lower && that.upper == upper
+                && Arrays.equals(that.data, data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * lower + upper) + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return toDense().toString();
+    }
+}
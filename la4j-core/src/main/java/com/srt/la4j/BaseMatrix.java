@@ -0,0 +1,86 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+
+/**
+ * Operations shared by the dense {@link Matrix}, the sparse {@link CsrMatrix} and
+ * {@link CscMatrix} and the file backed {@link MappedMatrix}. Each implementation picks the
+ * kernel for the kind of the other operand, so that all kinds of operands can be mixed freely.
+ */
+public interface BaseMatrix {
+
+    /**
+     * @return number of rows of the matrix.
+     */
+    int getRows();
+
+    /**
+     * @return number of columns of the matrix.
+     */
+    int getColumns();
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @return the element present at rowIndex and columnIndex position in the matrix.
+     */
+    double get(int rowIndex, int columnIndex);
+
+    /**
+     * @return dense matrix with the same elements, the matrix itself if it is already dense.
+     */
+    Matrix toDense();
+
+    /**
+     * @param matrix
+     * @return sum of both the matrices, sparse only if both are sparse.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    BaseMatrix add(BaseMatrix matrix) throws AdditionCompatibleException;
+
+    /**
+     * @param matrix
+     * @return product of both the matrices, sparse only if both are sparse.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    BaseMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException;
+
+    /**
+     * @param matrix
+     * @return element wise product of both the matrices, sparse if any of them is sparse.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    BaseMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException;
+
+    /**
+     * @param number
+     * @return matrix whose each element is multiplied by number.
+     */
+    BaseMatrix multiply(double number);
+
+    /**
+     * @return transpose of the matrix.
+     */
+    BaseMatrix transpose();
+}
@@ -0,0 +1,321 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LU factorization with partial pivoting of a square {@link BlockMatrix}, such that
+ * P*A = L*U, computed tile by tile and kept in tiles.
+ *
+ * Step k of the right looking factorization is a {@link TaskGraph} of three kinds of tasks:
+ * the panel task factorizes tile column k from the diagonal down, choosing each pivot over the
+ * whole column; the row tasks apply its row swaps to tile column j > k and solve the unit lower
+ * diagonal tile for tile (k, j) of U; the update tasks subtract L(i, k) * U(k, j) from tile
+ * (i, j) with {@link Gemm}. Each task depends on the last task that wrote the tiles it reads,
+ * so the panel of step k + 1 starts as soon as its own column is updated, while the updates
+ * of step k are still running on the other columns. The swaps of the columns left of each
+ * panel are applied at the end.
+ */
+public class BlockLUDecomposition {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int dimension;
+    private final int tileSize;
+    private final int count;
+    private final double[][] tiles;
+    private final int[] pivot;
+    private final int pivotSign;
+    private final boolean singular;
+
+    BlockLUDecomposition(BlockMatrix matrix) {
+        int n = matrix.getRows(), size = matrix.getTileSize(), count = matrix.getTileRows();
+        this.dimension = n;
+        this.tileSize = size;
+        this.count = count;
+        this.tiles = new double[count * count][];
+        // Row first + c of panel k is swapped with row swaps[first + c] when column c is eliminated.
+        int[] swaps = new int[n];
+        AtomicBoolean zeroPivot = new AtomicBoolean();
+
+        TaskGraph graph = new TaskGraph();
+        TaskGraph.Task[] last = new TaskGraph.Task[count * count];
+        for(int t = 0; t < last.length; t++){
+            int tile = t;
+            last[t] = graph.add(() -> tiles[tile] = matrix.copyTile(tile / count, tile % count));
+        }
+        for(int k = 0; k < count; k++){
+            int step = k;
+            TaskGraph.Task panel = graph.add(() -> factorPanel(step, swaps, zeroPivot), below(last, k, k, null));
+            for(int i = k; i < count; i++){
+                last[i * count + k] = panel;
+            }
+            for(int j = k + 1; j < count; j++){
+                int column = j;
+                TaskGraph.Task row = graph.add(() -> solveRow(step, column, swaps), below(last, k, j, panel));
+                for(int i = k; i < count; i++){
+                    last[i * count + j] = row;
+                }
+            }
+            for(int i = k + 1; i < count; i++){
+                for(int j = k + 1; j < count; j++){
+                    int r = i, c = j;
+                    last[i * count + j] = graph.add(() -> update(step, r, c), last[i * count + j], last[i * count + k]);
+                }
+            }
+        }
+        graph.run(2L * n * n * n / 3);
+
+        for(int k = 1; k < count; k++){
+            for(int g = k * size; g < k * size + width(k); g++){
+                for(int j = 0; j < k; j++){
+                    swapRows(j, g, swaps[g]);
+                }
+            }
+        }
+        this.pivot = new int[n];
+        for(int i = 0; i < n; i++){
+            pivot[i] = i;
+        }
+        int sign = 1;
+        for(int g = 0; g < n; g++){
+            int p = swaps[g];
+            if(p != g){
+                int index = pivot[p];
+                pivot[p] = pivot[g];
+                pivot[g] = index;
+                sign = -sign;
+            }
+        }
+        this.pivotSign = sign;
+        this.singular = zeroPivot.get();
+    }
+
+    /**
+     * @return the last writers of the tiles of column j from row k down, and extra.
+     */
+    private TaskGraph.Task[] below(TaskGraph.Task[] last, int k, int j, TaskGraph.Task extra) {
+        TaskGraph.Task[] tasks = new TaskGraph.Task[count - k + 1];
+        for(int i = k; i < count; i++){
+            tasks[i - k] = last[i * count + j];
+        }
+        tasks[count - k] = extra;
+        return tasks;
+    }
+
+    /**
+     * @return number of rows and columns of tile row and column k.
+     */
+    private int width(int k) {
+        return Math.min(tileSize, dimension - k * tileSize);
+    }
+
+    /**
+     * Eliminates the columns of tile column k below the diagonal, with the pivot of each
+     * column chosen over all its rows.
+     */
+    private void factorPanel(int k, int[] swaps, AtomicBoolean zeroPivot) {
+        int w = width(k), first = k * tileSize;
+        for(int c = 0; c < w; c++){
+            int g = first + c, p = g;
+            double max = Math.abs(tiles[g / tileSize * count + k][g % tileSize * w + c]);
+            for(int r = g + 1; r < dimension; r++){
+                double value = Math.abs(tiles[r / tileSize * count + k][r % tileSize * w + c]);
+                if(value > max){
+                    max = value;
+                    p = r;
+                }
+            }
+            swaps[g] = p;
+            swapRows(k, g, p);
+            double[] pivotTile = tiles[g / tileSize * count + k];
+            int pivotRow = g % tileSize * w;
+            double pivotValue = pivotTile[pivotRow + c];
+            if(pivotValue == 0){
+                zeroPivot.set(true);
+                continue;
+            }
+            for(int r = g + 1; r < dimension; r++){
+                double[] tile = tiles[r / tileSize * count + k];
+                int row = r % tileSize * w;
+                double factor = tile[row + c] / pivotValue;
+                tile[row + c] = factor;
+                if(factor != 0){
+                    KERNELS.axpy(-factor, pivotTile, pivotRow + c + 1, tile, row + c + 1, w - c - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the swaps of panel k to tile column j and solves for tile (k, j) of U.
+     */
+    private void solveRow(int k, int j, int[] swaps) {
+        for(int g = k * tileSize; g < k * tileSize + width(k); g++){
+            swapRows(j, g, swaps[g]);
+        }
+        int w = width(k);
+        TriangularSolver.lower(tiles[k * count + k], 0, w, 1, w, true, tiles[k * count + j], width(j));
+    }
+
+    /**
+     * Tile (i, j) -= L(i, k) * U(k, j).
+     */
+    private void update(int k, int i, int j) {
+        Gemm.multiply(-1, tiles[i * count + k], 0, width(k), 1, tiles[k * count + j], 0, width(j), 1,
+                tiles[i * count + j], 0, width(j), width(i), width(j), width(k));
+    }
+
+    /**
+     * Swaps rows first and second of the matrix within tile column j.
+     */
+    private void swapRows(int j, int first, int second) {
+        if(first == second){
+            return;
+        }
+        int w = width(j);
+        double[] a = tiles[first / tileSize * count + j], b = tiles[second / tileSize * count + j];
+        int x = first % tileSize * w, y = second % tileSize * w;
+        for(int c = 0; c < w; c++){
+            double value = a[x + c];
+            a[x + c] = b[y + c];
+            b[y + c] = value;
+        }
+    }
+
+    /**
+     * @return true if U has a zero on its diagonal, i.e. the matrix does not have an inverse.
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return determinant of the factorized matrix, product of the diagonal of U
+     *          with the sign of the row permutation.
+     */
+    public double getDeterminant() {
+        double determinant = pivotSign;
+        for(int k = 0; k < count; k++){
+            double[] tile = tiles[k * count + k];
+            int w = width(k);
+            for(int c = 0; c < w; c++){
+                determinant *= tile[c * w + c];
+            }
+        }
+        return determinant;
+    }
+
+    /**
+     * @return unit lower triangular factor L, with the tiles of the factorized matrix.
+     */
+    public BlockMatrix getL() {
+        return factor(true);
+    }
+
+    /**
+     * @return upper triangular factor U, with the tiles of the factorized matrix.
+     */
+    public BlockMatrix getU() {
+        return factor(false);
+    }
+
+    private BlockMatrix factor(boolean lower) {
+        double[][] copy = new double[tiles.length][];
+        for(int i = 0; i < count; i++){
+            for(int j = 0; j < count; j++){
+                int h = width(i), w = width(j);
+                double[] d = new double[h * w];
+                double[] tile = tiles[i * count + j];
+                if(i == j){
+                    for(int r = 0; r < h; r++){
+                        if(lower){
+                            System.arraycopy(tile, r * w, d, r * w, r);
+                            d[r * w + r] = 1;
+                        } else {
+                            System.arraycopy(tile, r * w + r, d, r * w + r, w - r);
+                        }
+                    }
+                } else if(lower == i > j){
+                    System.arraycopy(tile, 0, d, 0, d.length);
+                }
+                copy[i * count + j] = d;
+            }
+        }
+        return BlockMatrix.wrap(dimension, tileSize, copy);
+    }
+
+    /**
+     * @return row permutation, row i of L*U is row pivot[i] of the factorized matrix.
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * Solves A*X = B for the factorized matrix A by block forward and back substitution: each
+     * tile row of X is reduced by the solved tile rows with {@link Gemm} and then solved with
+     * the diagonal tile.
+     *
+     * @param b right hand side with as many rows as the factorized matrix.
+     * @return solution X.
+     * @throws MultiplicationCompatibleException if b does not have n rows.
+     * @throws SingularMatrixException if the factorized matrix is singular.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException, SingularMatrixException {
+        if(b.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        if(singular){
+            throw new SingularMatrixException();
+        }
+        int r = b.getColumns();
+        double[] source = b.data();
+        double[][] x = new double[count][];
+        for(int i = 0; i < count; i++){
+            x[i] = new double[width(i) * r];
+            for(int c = 0; c < width(i); c++){
+                System.arraycopy(source, b.offset() + pivot[i * tileSize + c] * b.stride(), x[i], c * r, r);
+            }
+        }
+        for(int i = 0; i < count; i++){
+            for(int p = 0; p < i; p++){
+                Gemm.multiply(-1, tiles[i * count + p], 0, width(p), 1, x[p], 0, r, 1,
+                        x[i], 0, r, width(i), r, width(p));
+            }
+            TriangularSolver.lower(tiles[i * count + i], 0, width(i), 1, width(i), true, x[i], r);
+        }
+        for(int i = count - 1; i >= 0; i--){
+            for(int p = i + 1; p < count; p++){
+                Gemm.multiply(-1, tiles[i * count + p], 0, width(p), 1, x[p], 0, r, 1,
+                        x[i], 0, r, width(i), r, width(p));
+            }
+            TriangularSolver.upper(tiles[i * count + i], 0, width(i), 1, width(i), false, x[i], r);
+        }
+        double[] d = new double[dimension * r];
+        for(int i = 0; i < count; i++){
+            System.arraycopy(x[i], 0, d, i * tileSize * r, x[i].length);
+        }
+        return new Matrix(dimension, r, d, false);
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+
+/**
+ * Dense matrix partitioned in square tiles of tileSize x tileSize, each a {@link Matrix}; the
+ * tiles of the last tile row and column are smaller when the dimensions are not multiples of
+ * the tile size. Tile (I, J) holds the elements from row I*tileSize and column J*tileSize.
+ *
+ * Every operation is a {@link TaskGraph} of tile operations run by the existing kernels: the
+ * sum and element wise product have one independent task per tile, the product one task per
+ * tile of the result that accumulates the tile products with {@link Gemm}, and {@link #lu()}
+ * a right looking tiled factorization whose tasks start as soon as the tiles they read are
+ * final. A tile is a unit of work that stays in cache while it is used, and the graph keeps
+ * the cores busy without a barrier between the steps of an algorithm.
+ */
+public final class BlockMatrix implements BaseMatrix {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int rows;
+    private final int columns;
+    private final int tileSize;
+    private final int tileRows;
+    private final int tileColumns;
+    private final Matrix[] tiles;
+
+    /**
+     * Creates a matrix of the given dimensions filled with zeros.
+     *
+     * @param rows
+     * @param columns
+     * @param tileSize number of rows and columns of the tiles.
+     */
+    public BlockMatrix(int rows, int columns, int tileSize) {
+        this(rows, columns, tileSize, true);
+    }
+
+    /**
+     * Creates a matrix whose tiles are filled with zeros if fill is true and left null otherwise.
+     */
+    private BlockMatrix(int rows, int columns, int tileSize, boolean fill) {
+        if(rows <= 0 || columns <= 0){
+            throw new IllegalArgumentException("Not a valid matrix! Dimensions must be positive.");
+        }
+        if(tileSize <= 0){
+            throw new IllegalArgumentException("Tile size must be positive.");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.tileSize = tileSize;
+        this.tileRows = (rows + tileSize - 1) / tileSize;
+        this.tileColumns = (columns + tileSize - 1) / tileSize;
+        this.tiles = new Matrix[tileRows * tileColumns];
+        for(int t = 0; fill && t < tiles.length; t++){
+            tiles[t] = new Matrix(tileRows(t / tileColumns), tileColumns(t % tileColumns));
+        }
+    }
+
+    /**
+     * Copies a matrix of any kind into tiles.
+     *
+     * @param matrix
+     * @param tileSize number of rows and columns of the tiles.
+     */
+    public static BlockMatrix of(BaseMatrix matrix, int tileSize) {
+        BlockMatrix result = new BlockMatrix(matrix.getRows(), matrix.getColumns(), tileSize, false);
+        Matrix dense = matrix.toDense();
+        double[] source = dense.storage();
+        int offset = dense.storageOffset(), rowStride = dense.rowStride(), columnStride = dense.columnStride();
+        TaskGraph graph = new TaskGraph();
+        for(int t = 0; t < result.tiles.length; t++){
+            int tile = t, i = t / result.tileColumns, j = t % result.tileColumns;
+            graph.add(() -> {
+                int h = result.tileRows(i), w = result.tileColumns(j);
+                double[] d = new double[h * w];
+                Matrix.copy(source, offset + i * tileSize * rowStride + j * tileSize * columnStride,
+                        rowStride, columnStride, d, 0, w, h, w);
+                result.tiles[tile] = new Matrix(h, w, d, false);
+            });
+        }
+        graph.run((long) result.rows * result.columns);
+        return result;
+    }
+
+    /**
+     * @return number of rows of tile row i, tileSize except for the last one.
+     */
+    int tileRows(int i) {
+        return Math.min(tileSize, rows - i * tileSize);
+    }
+
+    /**
+     * @return number of columns of tile column j, tileSize except for the last one.
+     */
+    int tileColumns(int j) {
+        return Math.min(tileSize, columns - j * tileSize);
+    }
+
+    /**
+     * @return number of rows and columns of the tiles.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return number of tiles in a column of tiles.
+     */
+    public int getTileRows() {
+        return tileRows;
+    }
+
+    /**
+     * @return number of tiles in a row of tiles.
+     */
+    public int getTileColumns() {
+        return tileColumns;
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if tileRow or tileColumn are out side the range.
+     *
+     * @return tile at tileRow and tileColumn, changes to it are seen by this matrix.
+     */
+    public Matrix getTile(int tileRow, int tileColumn) {
+        if(tileRow >= tileRows || tileRow < 0 || tileColumn >= tileColumns || tileColumn < 0)
+            throw new ArrayIndexOutOfBoundsException();
+        return tiles[tileRow * tileColumns + tileColumn];
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        return tiles[rowIndex / tileSize * tileColumns + columnIndex / tileSize]
+                .get(rowIndex % tileSize, columnIndex % tileSize);
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be inserted in the position specified by
+     *              rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, double value) {
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        tiles[rowIndex / tileSize * tileColumns + columnIndex / tileSize]
+                .set(rowIndex % tileSize, columnIndex % tileSize, value);
+    }
+
+    /**
+     * @return dense copy of the matrix.
+     */
+    @Override
+    public Matrix toDense() {
+        double[] d = new double[rows * columns];
+        TaskGraph graph = new TaskGraph();
+        for(int t = 0; t < tiles.length; t++){
+            Matrix tile = tiles[t];
+            int offset = t / tileColumns * tileSize * columns + t % tileColumns * tileSize;
+            graph.add(() -> Matrix.copy(tile.storage(), tile.storageOffset(), tile.rowStride(), tile.columnStride(),
+                    d, offset, columns, tile.getRows(), tile.getColumns()));
+        }
+        graph.run((long) rows * columns);
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * Adds the matrices tile by tile. Any other kind of matrix, or a block matrix with another
+     * tile size, is first copied into tiles of this tile size.
+     *
+     * @param matrix
+     * @return sum of both the matrices, with the tiles of this matrix.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BlockMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new AdditionCompatibleException();
+        }
+        return elementWise(tiled(matrix), false);
+    }
+
+    /**
+     * @param matrix
+     * @return element wise product of both the matrices, with the tiles of this matrix.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BlockMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new MultiplicationCompatibleException();
+        }
+        return elementWise(tiled(matrix), true);
+    }
+
+    private BlockMatrix tiled(BaseMatrix matrix) {
+        if(matrix instanceof BlockMatrix && ((BlockMatrix) matrix).tileSize == tileSize){
+            return (BlockMatrix) matrix;
+        }
+        return of(matrix, tileSize);
+    }
+
+    private BlockMatrix elementWise(BlockMatrix that, boolean multiply) {
+        BlockMatrix result = new BlockMatrix(rows, columns, tileSize, false);
+        TaskGraph graph = new TaskGraph();
+        for(int t = 0; t < tiles.length; t++){
+            int tile = t;
+            graph.add(() -> {
+                Matrix a = tiles[tile], b = that.tiles[tile];
+                int h = a.getRows(), w = a.getColumns();
+                double[] x = a.data(), y = b.data(), d = new double[h * w];
+                for(int i = 0; i < h; i++){
+                    int xi = a.offset() + i * a.stride(), yi = b.offset() + i * b.stride();
+                    if(multiply){
+                        KERNELS.multiply(x, xi, y, yi, d, i * w, w);
+                    } else {
+                        KERNELS.add(x, xi, y, yi, d, i * w, w);
+                    }
+                }
+                result.tiles[tile] = new Matrix(h, w, d, false);
+            });
+        }
+        graph.run((long) rows * columns);
+        return result;
+    }
+
+    /**
+     * Multiplies the matrices with one task per tile of the product, which accumulates the
+     * products of a tile row of this matrix with a tile column of the other in place. Any other
+     * kind of matrix, or a block matrix with another tile size, is first copied into tiles of
+     * this tile size.
+     *
+     * @param matrix
+     * @return product of both the matrices, with the tiles of this matrix.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    @Override
+    public BlockMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(columns != matrix.getRows()){
+            throw new MultiplicationCompatibleException();
+        }
+        BlockMatrix that = tiled(matrix);
+        BlockMatrix result = new BlockMatrix(rows, that.columns, tileSize, false);
+        TaskGraph graph = new TaskGraph();
+        for(int t = 0; t < result.tiles.length; t++){
+            int tile = t, i = t / result.tileColumns, j = t % result.tileColumns;
+            graph.add(() -> {
+                int h = result.tileRows(i), w = result.tileColumns(j);
+                double[] c = new double[h * w];
+                for(int p = 0; p < tileColumns; p++){
+                    Matrix a = tiles[i * tileColumns + p], b = that.tiles[p * that.tileColumns + j];
+                    Gemm.multiply(1, a.storage(), a.storageOffset(), a.rowStride(), a.columnStride(),
+                            b.storage(), b.storageOffset(), b.rowStride(), b.columnStride(),
+                            c, 0, w, h, w, a.getColumns());
+                }
+                result.tiles[tile] = new Matrix(h, w, c, false);
+            });
+        }
+        graph.run(2L * rows * columns * that.columns);
+        return result;
+    }
+
+    /**
+     * @param number
+     * @return matrix whose each element is multiplied by number.
+     */
+    @Override
+    public BlockMatrix multiply(double number) {
+        BlockMatrix result = new BlockMatrix(rows, columns, tileSize, false);
+        TaskGraph graph = new TaskGraph();
+        for(int t = 0; t < tiles.length; t++){
+            int tile = t;
+            graph.add(() -> result.tiles[tile] = tiles[tile].multiply(number));
+        }
+        graph.run((long) rows * columns);
+        return result;
+    }
+
+    /**
+     * The transpose is created in O(number of tiles): tile (J, I) of the transpose is the
+     * transposed view of tile (I, J), which shares its storage until either is written.
+     *
+     * @return transpose of the matrix.
+     */
+    @Override
+    public BlockMatrix transpose() {
+        BlockMatrix result = new BlockMatrix(columns, rows, tileSize, false);
+        for(int i = 0; i < tileRows; i++){
+            for(int j = 0; j < tileColumns; j++){
+                result.tiles[j * tileRows + i] = tiles[i * tileColumns + j].transpose();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Factorizes the matrix tile by tile, see {@link BlockLUDecomposition}.
+     *
+     * @return LU factorization with partial pivoting of the matrix.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     */
+    public BlockLUDecomposition lu() throws NotASqaureMatrixException {
+        if(rows != columns){
+            throw new NotASqaureMatrixException();
+        }
+        return new BlockLUDecomposition(this);
+    }
+
+    /**
+     * @return row major copy of tile (i, j), which is not shared with this matrix.
+     */
+    double[] copyTile(int i, int j) {
+        Matrix tile = tiles[i * tileColumns + j];
+        int h = tile.getRows(), w = tile.getColumns();
+        double[] d = new double[h * w];
+        Matrix.copy(tile.storage(), tile.storageOffset(), tile.rowStride(), tile.columnStride(), d, 0, w, h, w);
+        return d;
+    }
+
+    /**
+     * Wraps row major tiles without copying them, tile (i, j) is tiles[i*tileCount + j].
+     */
+    static BlockMatrix wrap(int dimension, int tileSize, double[][] tiles) {
+        BlockMatrix result = new BlockMatrix(dimension, dimension, tileSize, false);
+        for(int t = 0; t < tiles.length; t++){
+            result.tiles[t] = new Matrix(result.tileRows(t / result.tileColumns),
+                    result.tileColumns(t % result.tileColumns), tiles[t], false);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for(int i =0;i<rows;i++){
+            for(int j =0 ;j<columns;j++){
+                string.append(get(i, j)).append(" ");
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
+}
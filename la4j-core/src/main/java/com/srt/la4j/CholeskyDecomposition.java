@@ -0,0 +1,98 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotPositiveDefiniteMatrixException;
+
+/**
+ * Cholesky factorization of a symmetric positive definite matrix, such that A = L*L^T where
+ * L is lower triangular. It takes half the work of LU and needs no pivoting, so it is the
+ * factorization to keep for repeated solves with such matrices. Only the lower triangle of A
+ * is read.
+ */
+public class CholeskyDecomposition {
+
+    private final int dimension;
+    private final double[] l;
+
+    CholeskyDecomposition(Matrix matrix) throws NotPositiveDefiniteMatrixException {
+        int n = matrix.getRows();
+        this.dimension = n;
+        this.l = new double[n * n];
+        double[] source = matrix.data();
+        // Row by row, so that both rows of every dot product are contiguous.
+        for(int i = 0; i < n; i++){
+            int row = i * n, a = matrix.offset() + i * matrix.stride();
+            for(int j = 0; j <= i; j++){
+                int other = j * n;
+                double sum = source[a + j];
+                for(int k = 0; k < j; k++){
+                    sum -= l[row + k] * l[other + k];
+                }
+                if(j < i){
+                    l[row + j] = sum / l[other + j];
+                } else if(sum > 0){
+                    l[row + i] = Math.sqrt(sum);
+                } else {
+                    throw new NotPositiveDefiniteMatrixException();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return lower triangular factor L.
+     */
+    public Matrix getL() {
+        return new Matrix(dimension, dimension, l.clone(), false);
+    }
+
+    /**
+     * @return determinant of the factorized matrix, square of the product of the diagonal of L.
+     */
+    public double getDeterminant() {
+        double product = 1;
+        for(int i = 0; i < dimension; i++){
+            product *= l[i * dimension + i];
+        }
+        return product * product;
+    }
+
+    /**
+     * Solves A*X = B with L*Y = B followed by L^T*X = Y, O(n^2) per column of B.
+     *
+     * @param b right hand side with as many rows as the factorized matrix.
+     * @return solution X.
+     * @throws MultiplicationCompatibleException if b does not have n rows.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException {
+        if(b.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        int n = dimension, r = b.getColumns();
+        double[] x = new double[n * r];
+        for(int i = 0; i < n; i++){
+            System.arraycopy(b.data(), b.offset() + i * b.stride(), x, i * r, r);
+        }
+        TriangularSolver.lower(l, 0, n, 1, n, false, x, r);
+        TriangularSolver.upper(l, 0, 1, n, n, false, x, r);
+        return new Matrix(n, r, x, false);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Receives the residual of every iteration of an {@link IterativeSolver}, for example to log
+ * or plot the convergence.
+ */
+public interface ConvergenceListener {
+
+    /**
+     * Called after every iteration, on the thread that runs the solver.
+     *
+     * @param iteration number of iterations done, from 1.
+     * @param residual norm of the residual b - A*x relative to the norm of b. GMRES reports
+     *                 the residual estimated by its least squares problem.
+     */
+    void iterationCompleted(int iteration, double residual);
+}
@@ -0,0 +1,193 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sparse matrix in compressed sparse column form. The non zero elements of column j
+ * are values[columnPointers[j] .. columnPointers[j+1]) with their rows in rowIndices, in
+ * increasing order of row. The storage of a column matrix is the storage of the row form of its
+ * transpose, so {@link #transpose()} is O(1) and the operations run the {@link CsrMatrix}
+ * kernels after an O(nnz) conversion.
+ */
+public final class CscMatrix implements BaseMatrix {
+
+    private final int rows;
+    private final int columns;
+    private final int[] columnPointers;
+    private final int[] rowIndices;
+    private final double[] values;
+
+    /**
+     * The arrays are copied, explicit zeros are dropped.
+     *
+     * @param rows
+     * @param columns
+     * @param columnPointers columns + 1 offsets into rowIndices and values, starting with 0.
+     * @param rowIndices row of each element, increasing within each column.
+     * @param values value of each element.
+     * @throws IllegalArgumentException if the arrays do not describe a valid rows x columns matrix.
+     */
+    public CscMatrix(int rows, int columns, int[] columnPointers, int[] rowIndices, double[] values) {
+        SparseKernels.validate(columns, rows, columnPointers, rowIndices, values);
+        this.rows = rows;
+        this.columns = columns;
+        this.columnPointers = columnPointers.clone();
+        int nonZeros = columnPointers[columns];
+        this.rowIndices = Arrays.copyOf(rowIndices, nonZeros);
+        this.values = Arrays.copyOf(values, nonZeros);
+        SparseKernels.dropZeros(columns, this.columnPointers, this.rowIndices, this.values);
+    }
+
+    /**
+     * Wraps the arrays without copying or validating them, the caller guarantees that they are
+     * valid, free of zeros and never modified afterwards.
+     */
+    CscMatrix(int rows, int columns, int[] columnPointers, int[] rowIndices, double[] values, boolean trusted) {
+        this.rows = rows;
+        this.columns = columns;
+        this.columnPointers = columnPointers;
+        this.rowIndices = rowIndices;
+        this.values = values;
+    }
+
+    /**
+     * @param matrix
+     * @return sparse matrix with the non zero elements of the dense matrix.
+     */
+    public static CscMatrix fromDense(Matrix matrix) {
+        return CsrMatrix.fromDense(matrix).toCsc();
+    }
+
+    /**
+     * Builds the matrix from coordinate triplets in any order, duplicates are summed.
+     *
+     * @param rows
+     * @param columns
+     * @param rowIndices row of each triplet.
+     * @param columnIndices column of each triplet.
+     * @param values value of each triplet.
+     * @return sparse matrix with the sum of the triplets at each position.
+     * @throws IllegalArgumentException if the arrays differ in length or an index is out of range.
+     */
+    public static CscMatrix fromTriplets(int rows, int columns, int[] rowIndices, int[] columnIndices, double[] values) {
+        return SparseKernels.fromTriplets(columns, rows, columnIndices, rowIndices, values).transpose();
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return number of stored, non zero, elements.
+     */
+    public int getNonZeros() {
+        return columnPointers[columns];
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        int index = Arrays.binarySearch(rowIndices, columnPointers[columnIndex], columnPointers[columnIndex + 1], rowIndex);
+        return index >= 0 ? values[index] : 0;
+    }
+
+    @Override
+    public Matrix toDense() {
+        double[] d = new double[rows * columns];
+        for(int j = 0; j < columns; j++){
+            for(int k = columnPointers[j]; k < columnPointers[j + 1]; k++){
+                d[rowIndices[k] * columns + j] = values[k];
+            }
+        }
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * @return the same matrix in compressed sparse row form, computed in O(nnz + rows).
+     */
+    public CsrMatrix toCsr() {
+        return SparseKernels.transpose(transpose());
+    }
+
+    @Override
+    public BaseMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        return toCsr().add(matrix);
+    }
+
+    @Override
+    public BaseMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        return toCsr().multiply(matrix);
+    }
+
+    @Override
+    public CsrMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        return toCsr().multiplyElementWise(matrix);
+    }
+
+    @Override
+    public CscMatrix multiply(double number) {
+        return transpose().multiply(number).transpose();
+    }
+
+    /**
+     * @return transpose of the matrix in compressed sparse row form, sharing the storage
+     *          of this matrix, in O(1).
+     */
+    @Override
+    public CsrMatrix transpose() {
+        return new CsrMatrix(columns, rows, columnPointers, rowIndices, values, true);
+    }
+
+    /**
+     * @param obj
+     * @return true if obj is a sparse column matrix with the same dimensions and elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CscMatrix && transpose().equals(((CscMatrix) obj).transpose());
+    }
+
+    @Override
+    public int hashCode() {
+        return transpose().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for(int j = 0; j < columns; j++){
+            for(int k = columnPointers[j]; k < columnPointers[j + 1]; k++){
+                string.append('(').append(rowIndices[k]).append(", ").append(j).append(") ")
+                        .append(values[k]).append("\n");
+            }
+        }
+        return string.toString();
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sparse matrix in compressed sparse row form. The non zero elements of row i are
+ * values[rowPointers[i] .. rowPointers[i+1]) with their columns in columnIndices, in increasing
+ * order of column. Zeros are never stored, so memory and the cost of every operation grow with
+ * the number of non zero elements instead of rows x columns.
+ *
+ * Like other sparse libraries the kernels only multiply stored elements, so an infinite or NaN
+ * element of a dense operand does not spread to the positions that are zero in the sparse one.
+ */
+public final class CsrMatrix implements BaseMatrix {
+
+    private final int rows;
+    private final int columns;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    /**
+     * The arrays are copied, explicit zeros are dropped.
+     *
+     * @param rows
+     * @param columns
+     * @param rowPointers rows + 1 offsets into columnIndices and values, starting with 0.
+     * @param columnIndices column of each element, increasing within each row.
+     * @param values value of each element.
+     * @throws IllegalArgumentException if the arrays do not describe a valid rows x columns matrix.
+     */
+    public CsrMatrix(int rows, int columns, int[] rowPointers, int[] columnIndices, double[] values) {
+        SparseKernels.validate(rows, columns, rowPointers, columnIndices, values);
+        this.rows = rows;
+        this.columns = columns;
+        this.rowPointers = rowPointers.clone();
+        int nonZeros = rowPointers[rows];
+        this.columnIndices = Arrays.copyOf(columnIndices, nonZeros);
+        this.values = Arrays.copyOf(values, nonZeros);
+        SparseKernels.dropZeros(rows, this.rowPointers, this.columnIndices, this.values);
+    }
+
+    /**
+     * Wraps the arrays without copying or validating them, the caller guarantees that they are
+     * valid, free of zeros and never modified afterwards. The arrays may be longer than needed.
+     */
+    CsrMatrix(int rows, int columns, int[] rowPointers, int[] columnIndices, double[] values, boolean trusted) {
+        this.rows = rows;
+        this.columns = columns;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * @param matrix
+     * @return sparse matrix with the non zero elements of the dense matrix.
+     */
+    public static CsrMatrix fromDense(Matrix matrix) {
+        int rows = matrix.getRows(), columns = matrix.getColumns();
+        double[] data = matrix.data();
+        int nonZeros = 0;
+        for(int i = 0; i < rows; i++){
+            int r = matrix.offset() + i * matrix.stride();
+            for(int j = 0; j < columns; j++){
+                if(data[r + j] != 0) nonZeros++;
+            }
+        }
+        int[] rowPointers = new int[rows + 1];
+        int[] columnIndices = new int[nonZeros];
+        double[] values = new double[nonZeros];
+        int k = 0;
+        for(int i = 0; i < rows; i++){
+            int r = matrix.offset() + i * matrix.stride();
+            for(int j = 0; j < columns; j++){
+                double value = data[r + j];
+                if(value != 0){
+                    columnIndices[k] = j;
+                    values[k++] = value;
+                }
+            }
+            rowPointers[i + 1] = k;
+        }
+        return new CsrMatrix(rows, columns, rowPointers, columnIndices, values, true);
+    }
+
+    /**
+     * Builds the matrix from coordinate triplets in any order, duplicates are summed.
+     *
+     * @param rows
+     * @param columns
+     * @param rowIndices row of each triplet.
+     * @param columnIndices column of each triplet.
+     * @param values value of each triplet.
+     * @return sparse matrix with the sum of the triplets at each position.
+     * @throws IllegalArgumentException if the arrays differ in length or an index is out of range.
+     */
+    public static CsrMatrix fromTriplets(int rows, int columns, int[] rowIndices, int[] columnIndices, double[] values) {
+        return SparseKernels.fromTriplets(rows, columns, rowIndices, columnIndices, values);
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return number of stored, non zero, elements.
+     */
+    public int getNonZeros() {
+        return rowPointers[rows];
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        int index = Arrays.binarySearch(columnIndices, rowPointers[rowIndex], rowPointers[rowIndex + 1], columnIndex);
+        return index >= 0 ? values[index] : 0;
+    }
+
+    @Override
+    public Matrix toDense() {
+        double[] d = new double[rows * columns];
+        for(int i = 0; i < rows; i++){
+            for(int k = rowPointers[i]; k < rowPointers[i + 1]; k++){
+                d[i * columns + columnIndices[k]] = values[k];
+            }
+        }
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * @return the same matrix in compressed sparse column form, computed in O(nnz + columns).
+     */
+    public CscMatrix toCsc() {
+        CsrMatrix transposed = SparseKernels.transpose(this);
+        return new CscMatrix(rows, columns, transposed.rowPointers, transposed.columnIndices, transposed.values, true);
+    }
+
+    @Override
+    public BaseMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(rows != matrix.getRows() || columns != matrix.getColumns()){
+            throw new AdditionCompatibleException();
+        }
+        if(matrix instanceof CsrMatrix){
+            return SparseKernels.add(this, (CsrMatrix) matrix);
+        }
+        if(matrix instanceof CscMatrix){
+            return SparseKernels.add(this, ((CscMatrix) matrix).toCsr());
+        }
+        return SparseKernels.add(this, matrix.toDense(), false);
+    }
+
+    @Override
+    public BaseMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(columns != matrix.getRows()){
+            throw new MultiplicationCompatibleException();
+        }
+        if(matrix instanceof CsrMatrix){
+            return SparseKernels.multiply(this, (CsrMatrix) matrix);
+        }
+        if(matrix instanceof CscMatrix){
+            return SparseKernels.multiply(this, ((CscMatrix) matrix).toCsr());
+        }
+        return SparseKernels.multiply(this, matrix.toDense(), false);
+    }
+
+    @Override
+    public CsrMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(rows != matrix.getRows() || columns != matrix.getColumns()){
+            throw new MultiplicationCompatibleException();
+        }
+        if(matrix instanceof CsrMatrix){
+            return SparseKernels.multiplyElementWise(this, (CsrMatrix) matrix);
+        }
+        if(matrix instanceof CscMatrix){
+            return SparseKernels.multiplyElementWise(this, ((CscMatrix) matrix).toCsr());
+        }
+        return SparseKernels.multiplyElementWise(this, matrix.toDense());
+    }
+
+    @Override
+    public CsrMatrix multiply(double number) {
+        if(number == 0){
+            return new CsrMatrix(rows, columns, new int[rows + 1], new int[0], new double[0], true);
+        }
+        int nonZeros = getNonZeros();
+        double[] scaled = new double[nonZeros];
+        boolean underflow = false;
+        for(int k = 0; k < nonZeros; k++){
+            scaled[k] = values[k] * number;
+            underflow |= scaled[k] == 0;
+        }
+        if(underflow){
+            int[] pointers = rowPointers.clone();
+            int[] indices = Arrays.copyOf(columnIndices, nonZeros);
+            SparseKernels.dropZeros(rows, pointers, indices, scaled);
+            return new CsrMatrix(rows, columns, pointers, indices, scaled, true);
+        }
+        return new CsrMatrix(rows, columns, rowPointers, columnIndices, scaled, true);
+    }
+
+    /**
+     * @return transpose of the matrix in compressed sparse column form, sharing the storage
+     *          of this matrix, in O(1).
+     */
+    @Override
+    public CscMatrix transpose() {
+        return new CscMatrix(columns, rows, rowPointers, columnIndices, values, true);
+    }
+
+    int[] rowPointers() {
+        return rowPointers;
+    }
+
+    int[] columnIndices() {
+        return columnIndices;
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * @param obj
+     * @return true if obj is a sparse row matrix with the same dimensions and elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof CsrMatrix)){
+            return false;
+        }
+        CsrMatrix that = (CsrMatrix) obj;
+        int nonZeros = getNonZeros();
+        return rows == that.rows && columns == that.columns
+                && Arrays.equals(rowPointers, 0, rows + 1, that.rowPointers, 0, rows + 1)
+                && Arrays.equals(columnIndices, 0, nonZeros, that.columnIndices, 0, nonZeros)
+                && Arrays.equals(values, 0, nonZeros, that.values, 0, nonZeros);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 31 * rows + columns;
+        for(int k = 0; k < getNonZeros(); k++){
+            hash = 31 * hash + columnIndices[k];
+            hash = 31 * hash + Double.hashCode(values[k]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for(int i = 0; i < rows; i++){
+            for(int k = rowPointers[i]; k < rowPointers[i + 1]; k++){
+                string.append('(').append(i).append(", ").append(columnIndices[k]).append(") ")
+                        .append(values[k]).append("\n");
+            }
+        }
+        return string.toString();
+    }
+}
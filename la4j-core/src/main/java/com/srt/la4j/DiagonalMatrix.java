@@ -0,0 +1,297 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Square diagonal matrix, stored as its diagonal in n elements instead of n^2, for example the
+ * identity of {@link #identity(int)}. Products with it scale rows or columns in O(n) per row,
+ * and its determinant, inverse and solve are O(n).
+ *
+ * Operations whose result is diagonal return a diagonal matrix: sums and products of diagonal
+ * matrices and element wise products with any matrix. Products with triangular and band
+ * matrices keep their structure.
+ */
+public final class DiagonalMatrix implements BaseMatrix {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final double[] diagonal;
+
+    /**
+     * Creates a diagonal matrix of the given dimension filled with zeros.
+     *
+     * @param dimension
+     */
+    public DiagonalMatrix(int dimension) {
+        this.diagonal = new double[checkedDimension(dimension)];
+    }
+
+    /**
+     * The elements are copied, later changes to the array are not seen by the matrix.
+     *
+     * @param diagonal elements of the diagonal.
+     */
+    public DiagonalMatrix(double[] diagonal) {
+        checkedDimension(diagonal.length);
+        this.diagonal = diagonal.clone();
+    }
+
+    static int checkedDimension(int dimension) {
+        if(dimension <= 0){
+            throw new IllegalArgumentException("Not a valid matrix! Dimension must be positive.");
+        }
+        return dimension;
+    }
+
+    /**
+     * @param dimension
+     * @return identity matrix of the given dimension, with n elements of storage.
+     */
+    public static DiagonalMatrix identity(int dimension) {
+        DiagonalMatrix identity = new DiagonalMatrix(dimension);
+        Arrays.fill(identity.diagonal, 1);
+        return identity;
+    }
+
+    /**
+     * @return copy of the diagonal.
+     */
+    public double[] getDiagonal() {
+        return diagonal.clone();
+    }
+
+    /**
+     * Storage of the diagonal, shared with this matrix.
+     */
+    double[] diagonal() {
+        return diagonal;
+    }
+
+    @Override
+    public int getRows() {
+        return diagonal.length;
+    }
+
+    @Override
+    public int getColumns() {
+        return diagonal.length;
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        check(rowIndex, columnIndex);
+        return rowIndex == columnIndex ? diagonal[rowIndex] : 0;
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     * @throws IllegalArgumentException if a non zero value is set outside the diagonal.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be inserted in the position specified by
+     *              rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, double value) {
+        check(rowIndex, columnIndex);
+        if(rowIndex == columnIndex){
+            diagonal[rowIndex] = value;
+        } else if(value != 0){
+            throw new IllegalArgumentException("Element is outside the diagonal.");
+        }
+    }
+
+    private void check(int rowIndex, int columnIndex) {
+        if(rowIndex >= diagonal.length || rowIndex < 0 || columnIndex >= diagonal.length || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+    }
+
+    @Override
+    public Matrix toDense() {
+        int n = diagonal.length;
+        double[] d = new double[n * n];
+        for(int i = 0; i < n; i++){
+            d[i * n + i] = diagonal[i];
+        }
+        return new Matrix(n, n, d, false);
+    }
+
+    /**
+     * @param matrix
+     * @return sum of both the matrices, diagonal if matrix is diagonal and of the structure of
+     *          matrix if it is triangular, symmetric or banded.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BaseMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(matrix.getRows() != diagonal.length || matrix.getColumns() != diagonal.length){
+            throw new AdditionCompatibleException();
+        }
+        if(matrix instanceof DiagonalMatrix){
+            double[] d = new double[diagonal.length];
+            KERNELS.add(diagonal, 0, ((DiagonalMatrix) matrix).diagonal, 0, d, 0, d.length);
+            return new DiagonalMatrix(d);
+        }
+        return matrix.add(this);
+    }
+
+    /**
+     * Scales the rows of matrix by the diagonal.
+     *
+     * @param matrix
+     * @return product of both the matrices, diagonal, triangular or banded if matrix is, dense
+     *          otherwise.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    @Override
+    public BaseMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != diagonal.length){
+            throw new MultiplicationCompatibleException();
+        }
+        if(matrix instanceof DiagonalMatrix){
+            double[] d = new double[diagonal.length];
+            KERNELS.multiply(diagonal, 0, ((DiagonalMatrix) matrix).diagonal, 0, d, 0, d.length);
+            return new DiagonalMatrix(d);
+        }
+        if(matrix instanceof TriangularMatrix){
+            return ((TriangularMatrix) matrix).scaleRows(diagonal);
+        }
+        if(matrix instanceof BandMatrix){
+            return ((BandMatrix) matrix).scaleRows(diagonal);
+        }
+        Matrix dense = matrix.toDense();
+        int n = diagonal.length, columns = dense.getColumns();
+        double[] source = dense.data(), d = new double[n * columns];
+        Parallelism.forRange(0, n, 1, columns, (from, to) -> {
+            for(int i = from; i < to; i++){
+                KERNELS.scale(source, dense.offset() + i * dense.stride(), diagonal[i], d, i * columns, columns);
+            }
+        });
+        return new Matrix(n, columns, d, false);
+    }
+
+    /**
+     * @param matrix
+     * @return diagonal matrix of the element wise product of both the matrices.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public DiagonalMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != diagonal.length || matrix.getColumns() != diagonal.length){
+            throw new MultiplicationCompatibleException();
+        }
+        double[] d = new double[diagonal.length];
+        for(int i = 0; i < d.length; i++){
+            d[i] = diagonal[i] * matrix.get(i, i);
+        }
+        return new DiagonalMatrix(d);
+    }
+
+    @Override
+    public DiagonalMatrix multiply(double number) {
+        double[] d = new double[diagonal.length];
+        KERNELS.scale(diagonal, 0, number, d, 0, d.length);
+        return new DiagonalMatrix(d);
+    }
+
+    /**
+     * @return copy of the matrix, which is its own transpose.
+     */
+    @Override
+    public DiagonalMatrix transpose() {
+        return new DiagonalMatrix(diagonal);
+    }
+
+    /**
+     * @return product of the diagonal.
+     */
+    public double getDeterminant() {
+        double determinant = 1;
+        for(double value : diagonal){
+            determinant *= value;
+        }
+        return determinant;
+    }
+
+    /**
+     * @return diagonal matrix of the reciprocals of the diagonal.
+     * @throws SingularMatrixException if the diagonal has a zero.
+     */
+    public DiagonalMatrix inverse() throws SingularMatrixException {
+        double[] d = new double[diagonal.length];
+        for(int i = 0; i < d.length; i++){
+            if(diagonal[i] == 0){
+                throw new SingularMatrixException();
+            }
+            d[i] = 1 / diagonal[i];
+        }
+        return new DiagonalMatrix(d);
+    }
+
+    /**
+     * Solves D*X = B by dividing the rows of B by the diagonal, O(n) per column of B.
+     *
+     * @param b right hand side with as many rows as the matrix.
+     * @return solution X.
+     * @throws MultiplicationCompatibleException if b does not have n rows.
+     * @throws SingularMatrixException if the diagonal has a zero.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException, SingularMatrixException {
+        int n = diagonal.length, r = b.getColumns();
+        if(b.getRows() != n){
+            throw new MultiplicationCompatibleException();
+        }
+        double[] source = b.data(), x = new double[n * r];
+        for(int i = 0; i < n; i++){
+            if(diagonal[i] == 0){
+                throw new SingularMatrixException();
+            }
+            for(int j = 0; j < r; j++){
+                x[i * r + j] = source[b.offset() + i * b.stride() + j] / diagonal[i];
+            }
+        }
+        return new Matrix(n, r, x, false);
+    }
+
+    /**
+     * @param obj
+     * @return true if obj is a diagonal matrix with the same diagonal.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DiagonalMatrix && Arrays.equals(diagonal, ((DiagonalMatrix) obj).diagonal);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(diagonal);
+    }
+
+    @Override
+    public String toString() {
+        return toDense().toString();
+    }
+}
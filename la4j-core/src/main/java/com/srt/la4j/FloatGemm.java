@@ -0,0 +1,169 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.Arrays;
+
+/**
+ * Single precision counterpart of {@link Gemm} used by {@link FloatMatrix#multiply(FloatMatrix)},
+ * with the micro kernel of {@link FloatKernels}. It follows the block sizes set on {@link Gemm},
+ * with twice the depth, so that the packed blocks take the same bytes in each cache level.
+ */
+final class FloatGemm {
+
+    private static final FloatKernels KERNELS = FloatKernels.INSTANCE;
+
+    static final int MR = KERNELS.mr();
+    static final int NR = KERNELS.nr();
+
+    private static final int SMALL_PRODUCT = 32 * 32 * 32;
+
+    private static final ThreadLocal<float[][]> buffers = new ThreadLocal<>();
+
+    private FloatGemm() {
+    }
+
+    /**
+     * Accumulates c += a * b, where a is m x k, b is k x n and c is m x n.
+     * Each operand is row major storage given by its array, offset and row stride.
+     */
+    static void multiply(float[] a, int aOffset, int aStride, float[] b, int bOffset, int bStride,
+                         float[] c, int cOffset, int cStride, int m, int n, int k) {
+        if((long) m * n * k <= SMALL_PRODUCT){
+            multiplySmall(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, k);
+            return;
+        }
+        int mc = roundUp(Gemm.getRowBlockSize(), MR);
+        int kc = 2 * Gemm.getDepthBlockSize();
+        int nc = roundUp(Gemm.getColumnBlockSize(), NR);
+        int nb = Math.min(nc, roundUp(n, NR));
+        int kb = Math.min(kc, k);
+        boolean parallel = Parallelism.isParallel((long) m * n * k);
+        float[] packedB = parallel ? new float[nb * kb] : buffer(1, nb * kb);
+        for(int jc = 0; jc < n; jc += nc){
+            int columns = Math.min(nc, n - jc);
+            for(int pc = 0; pc < k; pc += kc){
+                int depth = Math.min(kc, k - pc);
+                packB(b, bOffset + pc * bStride + jc, bStride, depth, columns, packedB);
+                int aPanel = aOffset + pc, cPanel = cOffset + jc;
+                if(parallel){
+                    Parallelism.forRange(0, m, MR, (long) columns * depth, (from, to) ->
+                            multiplyRows(a, aPanel, aStride, packedB, c, cPanel, cStride, from, to, depth, columns, mc));
+                } else {
+                    multiplyRows(a, aPanel, aStride, packedB, c, cPanel, cStride, 0, m, depth, columns, mc);
+                }
+            }
+        }
+    }
+
+    private static void multiplyRows(float[] a, int aPanel, int aStride, float[] packedB, float[] c, int cPanel,
+                                     int cStride, int from, int to, int depth, int columns, int mc) {
+        float[] packedA = buffer(0, Math.min(mc, roundUp(to - from, MR)) * depth);
+        for(int ic = from; ic < to; ic += mc){
+            int rows = Math.min(mc, to - ic);
+            packA(a, aPanel + ic * aStride, aStride, rows, depth, packedA);
+            macroKernel(packedA, packedB, c, cPanel + ic * cStride, cStride, rows, columns, depth);
+        }
+    }
+
+    private static void macroKernel(float[] packedA, float[] packedB, float[] c, int cBlock, int cStride,
+                                    int rows, int columns, int depth) {
+        float[] edge = null;
+        for(int jr = 0; jr < columns; jr += NR){
+            int n = Math.min(NR, columns - jr);
+            int bOffset = jr * depth;
+            for(int ir = 0; ir < rows; ir += MR){
+                int m = Math.min(MR, rows - ir);
+                int cTile = cBlock + ir * cStride + jr;
+                if(m == MR && n == NR){
+                    KERNELS.microKernel(depth, packedA, ir * depth, packedB, bOffset, c, cTile, cStride);
+                    continue;
+                }
+                if(edge == null){
+                    edge = buffer(2, MR * NR);
+                }
+                Arrays.fill(edge, 0, MR * NR, 0);
+                KERNELS.microKernel(depth, packedA, ir * depth, packedB, bOffset, edge, 0, NR);
+                for(int i = 0; i < m; i++){
+                    for(int j = 0; j < n; j++){
+                        c[cTile + i * cStride + j] += edge[i * NR + j];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void packA(float[] a, int aBlock, int aStride, int rows, int depth, float[] packed) {
+        int index = 0;
+        for(int ir = 0; ir < rows; ir += MR){
+            int m = Math.min(MR, rows - ir);
+            int sliver = aBlock + ir * aStride;
+            for(int p = 0; p < depth; p++){
+                for(int i = 0; i < m; i++){
+                    packed[index + i] = a[sliver + p + i * aStride];
+                }
+                for(int i = m; i < MR; i++){
+                    packed[index + i] = 0;
+                }
+                index += MR;
+            }
+        }
+    }
+
+    private static void packB(float[] b, int bPanel, int bStride, int depth, int columns, float[] packed) {
+        int index = 0;
+        for(int jr = 0; jr < columns; jr += NR){
+            int n = Math.min(NR, columns - jr);
+            for(int p = 0; p < depth; p++){
+                System.arraycopy(b, bPanel + p * bStride + jr, packed, index, n);
+                for(int j = n; j < NR; j++){
+                    packed[index + j] = 0;
+                }
+                index += NR;
+            }
+        }
+    }
+
+    private static void multiplySmall(float[] a, int aOffset, int aStride, float[] b, int bOffset, int bStride,
+                                      float[] c, int cOffset, int cStride, int m, int n, int k) {
+        for(int i = 0; i < m; i++){
+            int left = aOffset + i * aStride;
+            int result = cOffset + i * cStride;
+            for(int p = 0; p < k; p++){
+                KERNELS.axpy(a[left + p], b, bOffset + p * bStride, c, result, n);
+            }
+        }
+    }
+
+    private static float[] buffer(int index, int size) {
+        float[][] local = buffers.get();
+        if(local == null){
+            local = new float[3][];
+            buffers.set(local);
+        }
+        if(local[index] == null || local[index].length < size){
+            local[index] = new float[size];
+        }
+        return local[index];
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return Math.max(multiple, (value + multiple - 1) / multiple * multiple);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Single precision counterpart of {@link Kernels} for {@link FloatMatrix}, with the
+ * conversions between double and float storage. The SIMD implementation is chosen the same
+ * way as for {@link Kernels}, and has twice the lanes of the double one.
+ */
+abstract class FloatKernels {
+
+    static final FloatKernels INSTANCE = load();
+
+    /**
+     * @return rows of the register tile of {@link #microKernel}.
+     */
+    abstract int mr();
+
+    /**
+     * @return columns of the register tile of {@link #microKernel}.
+     */
+    abstract int nr();
+
+    /**
+     * @return name of the implementation.
+     */
+    abstract String name();
+
+    /**
+     * c[cOffset + i] = a[aOffset + i] + b[bOffset + i] for i in [0, length).
+     */
+    abstract void add(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length);
+
+    /**
+     * c[cOffset + i] = a[aOffset + i] * b[bOffset + i] for i in [0, length).
+     */
+    abstract void multiply(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length);
+
+    /**
+     * c[cOffset + i] = a[aOffset + i] * number for i in [0, length).
+     */
+    abstract void scale(float[] a, int aOffset, float number, float[] c, int cOffset, int length);
+
+    /**
+     * y[yOffset + i] += alpha * x[xOffset + i] for i in [0, length).
+     */
+    abstract void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length);
+
+    /**
+     * Multiplies an mr x depth sliver of packed a with a depth x nr sliver of packed b and
+     * accumulates the mr x nr result into c.
+     */
+    abstract void microKernel(int depth, float[] a, int aOffset, float[] b, int bOffset,
+                              float[] c, int cOffset, int cStride);
+
+    /**
+     * d[dOffset + i] = (float) s[sOffset + i] for i in [0, length), rounded to nearest.
+     */
+    abstract void toFloat(double[] s, int sOffset, float[] d, int dOffset, int length);
+
+    /**
+     * d[dOffset + i] = s[sOffset + i] for i in [0, length), which is exact.
+     */
+    abstract void toDouble(float[] s, int sOffset, double[] d, int dOffset, int length);
+
+    private static FloatKernels load() {
+        if(!"false".equals(System.getProperty("la4j.simd"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()){
+            try {
+                FloatKernels kernels = (FloatKernels) Class.forName("com.srt.la4j.VectorFloatKernels")
+                        .getDeclaredConstructor().newInstance();
+                if(kernels.nr() > 0){
+                    return kernels;
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Falls back to the scalar loops.
+            }
+        }
+        return new ScalarFloatKernels();
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Dense single precision matrix, for workloads where float precision is enough. Elements
+ * take half the bytes of a {@link Matrix}, so twice as many fit in each cache level and
+ * memory bound operations move half the data. Products, sums and element wise products run
+ * on the float kernels of {@link FloatKernels} with twice the SIMD lanes of the double ones.
+ *
+ * The determinant and the inverse are computed in double precision by {@link LUDecomposition}
+ * and rounded to float, since their O(n^3) work dwarfs the conversion and the factorization
+ * would lose most of the float precision otherwise.
+ *
+ * Conversions to and from {@link Matrix} are explicit, with {@link Matrix#toFloat()} and
+ * {@link #toDouble()}, and run as bulk SIMD conversions.
+ */
+public class FloatMatrix {
+
+    private static final FloatKernels KERNELS = FloatKernels.INSTANCE;
+    private static final int TRANSPOSE_BLOCK = 64;
+    private static final int GRAIN = 4096;
+
+    private final int rows;
+    private final int columns;
+    private final float[] data;
+
+    /**
+     * Creates a matrix of the given dimensions filled with zeros.
+     *
+     * @param rows
+     * @param columns
+     */
+    public FloatMatrix(int rows, int columns) {
+        this(rows, columns, new float[rows*columns]);
+    }
+
+    /**
+     * The elements are copied into contiguous row major storage, later changes to the array
+     * are not seen by the matrix.
+     *
+     * @param matrix is two dimensional array which is used to create matrix.
+     */
+    public FloatMatrix(float[][] matrix) {
+        this.rows = matrix.length;
+        try {
+            this.columns = matrix[0].length;
+        } catch (NullPointerException e) {
+            throw new IllegalArgumentException("Not a valid 2-dimensional array! " +
+                    "Number Of columns not defined.");
+        }
+        this.data = new float[rows*columns];
+        for(int i = 0; i<rows; i++){
+            if(matrix[i] == null || matrix[i].length != columns){
+                throw new IllegalArgumentException("Not a valid 2-dimensional array! " +
+                        "Rows are not of equal length.");
+            }
+            System.arraycopy(matrix[i], 0, data, i*columns, columns);
+        }
+    }
+
+    /**
+     * Wraps row major storage without copying it.
+     */
+    FloatMatrix(int rows, int columns, float[] data) {
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    /**
+     * Rounds the rows x columns matrix stored row major in d at offset with the given row
+     * stride to float.
+     */
+    static FloatMatrix convert(int rows, int columns, double[] d, int offset, int stride) {
+        float[] f = new float[rows*columns];
+        if(stride == columns){
+            Parallelism.forRange(0, f.length, GRAIN, 1, (from, to) ->
+                    KERNELS.toFloat(d, offset + from, f, from, to - from));
+        } else {
+            Parallelism.forRange(0, rows, 1, columns, (from, to) -> {
+                for(int i = from; i < to; i++){
+                    KERNELS.toFloat(d, offset + i*stride, f, i*columns, columns);
+                }
+            });
+        }
+        return new FloatMatrix(rows, columns, f);
+    }
+
+    /**
+     * @return double precision copy of the matrix, which holds every float exactly.
+     */
+    public Matrix toDouble() {
+        double[] d = new double[data.length];
+        Parallelism.forRange(0, d.length, GRAIN, 1, (from, to) ->
+                KERNELS.toDouble(data, from, d, from, to - from));
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @return the element present at rowIndex and columnIndex position in the matrix.
+     */
+    public float get(int rowIndex, int columnIndex) {
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        return data[rowIndex*columns + columnIndex];
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be inserted in the position specified by
+     *              rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, float value) {
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        data[rowIndex*columns + columnIndex] = value;
+    }
+
+    /**
+     * @return number of rows of the matrix.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of columns of the matrix.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param matrix
+     * @return sum of both the matrices.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    public FloatMatrix add(FloatMatrix matrix) throws AdditionCompatibleException {
+        if(matrix.rows != rows || matrix.columns != columns){
+            throw new AdditionCompatibleException();
+        }
+        float[] d = new float[data.length];
+        Parallelism.forRange(0, d.length, GRAIN, 1, (from, to) ->
+                KERNELS.add(data, from, matrix.data, from, d, from, to - from));
+        return new FloatMatrix(rows, columns, d);
+    }
+
+    /**
+     * @param matrix
+     * @return product of both the matrices.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    public FloatMatrix multiply(FloatMatrix matrix) throws MultiplicationCompatibleException {
+        if(columns != matrix.rows){
+            throw new MultiplicationCompatibleException();
+        }
+        float[] d = new float[rows*matrix.columns];
+        FloatGemm.multiply(data, 0, columns, matrix.data, 0, matrix.columns, d, 0, matrix.columns,
+                rows, matrix.columns, columns);
+        return new FloatMatrix(rows, matrix.columns, d);
+    }
+
+    /**
+     * @param number
+     * @return matrix whose each element is multiplied by number.
+     */
+    public FloatMatrix multiply(float number) {
+        float[] d = new float[data.length];
+        Parallelism.forRange(0, d.length, GRAIN, 1, (from, to) ->
+                KERNELS.scale(data, from, number, d, from, to - from));
+        return new FloatMatrix(rows, columns, d);
+    }
+
+    /**
+     * @param that
+     * @return a product matrix by perform element wise multiplication
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    public FloatMatrix multiplyElementWise(FloatMatrix that) throws MultiplicationCompatibleException {
+        if(that.rows != rows || that.columns != columns){
+            throw new MultiplicationCompatibleException();
+        }
+        float[] d = new float[data.length];
+        Parallelism.forRange(0, d.length, GRAIN, 1, (from, to) ->
+                KERNELS.multiply(data, from, that.data, from, d, from, to - from));
+        return new FloatMatrix(rows, columns, d);
+    }
+
+    /**
+     * Copies the transpose with the same cache oblivious recursion as {@link Matrix#transposeInto(Matrix)}.
+     *
+     * @return transpose of the matrix.
+     */
+    public FloatMatrix transpose() {
+        float[] d = new float[data.length];
+        // Row j of the transpose reads column j of this matrix.
+        Parallelism.forRange(0, columns, TRANSPOSE_BLOCK, rows, (from, to) ->
+                copy(data, from, 1, columns, d, from*rows, rows, to - from, rows));
+        return new FloatMatrix(columns, rows, d);
+    }
+
+    /**
+     * Copies the rows x columns matrix whose element (i,j) is s[sOffset + i*rowStride + j*columnStride]
+     * into row major storage d, halving the larger dimension down to blocks that fit in L1.
+     */
+    private static void copy(float[] s, int sOffset, int rowStride, int columnStride,
+                             float[] d, int dOffset, int dStride, int rows, int columns) {
+        if(columnStride == 1){
+            for(int i = 0; i<rows; i++){
+                System.arraycopy(s, sOffset + i*rowStride, d, dOffset + i*dStride, columns);
+            }
+            return;
+        }
+        if(rows*columns <= TRANSPOSE_BLOCK*TRANSPOSE_BLOCK){
+            for(int i = 0; i<rows; i++){
+                int r = sOffset + i*rowStride, k = dOffset + i*dStride;
+                for(int j = 0; j<columns; j++){
+                    d[k+j] = s[r + j*columnStride];
+                }
+            }
+            return;
+        }
+        if(rows >= columns){
+            int half = rows/2;
+            copy(s, sOffset, rowStride, columnStride, d, dOffset, dStride, half, columns);
+            copy(s, sOffset + half*rowStride, rowStride, columnStride,
+                    d, dOffset + half*dStride, dStride, rows - half, columns);
+        } else {
+            int half = columns/2;
+            copy(s, sOffset, rowStride, columnStride, d, dOffset, dStride, rows, half);
+            copy(s, sOffset + half*columnStride, rowStride, columnStride,
+                    d, dOffset + half, dStride, rows, columns - half);
+        }
+    }
+
+    /**
+     * @return determinant of the matrix, computed in double precision.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     */
+    public double getDeterminant() throws NotASqaureMatrixException {
+        return toDouble().lu().getDeterminant();
+    }
+
+    /**
+     * @return inverse of the matrix, computed in double precision and rounded to float.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     * @throws SingularMatrixException if the matrix is singular.
+     */
+    public FloatMatrix inverse() throws NotASqaureMatrixException, SingularMatrixException {
+        LUDecomposition lu = toDouble().lu();
+        if(lu.isSingular()){
+            throw new SingularMatrixException();
+        }
+        return convert(rows, columns, lu.inverseArray(), 0, columns);
+    }
+
+    /**
+     * @param dimension
+     * @return identity square matrix of dimension specified as parameter.
+     */
+    public static FloatMatrix identity(int dimension) {
+        float[] d = new float[dimension*dimension];
+        for(int i = 0; i<dimension; i++){
+            d[i*dimension + i] = 1;
+        }
+        return new FloatMatrix(dimension, dimension, d);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof FloatMatrix)){
+            return false;
+        }
+        FloatMatrix that = (FloatMatrix) obj;
+        return that.rows == rows && that.columns == columns && Arrays.equals(that.data, data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + columns) + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for(int i =0;i<rows;i++){
+            for(int j =0 ;j<columns;j++){
+                string.append(get(i, j)).append(" ");
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
+}
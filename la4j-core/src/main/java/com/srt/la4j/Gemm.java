@@ -0,0 +1,271 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.Arrays;
+
+/**
+ * General matrix multiplication kernel used by {@link Matrix#multiply(Matrix)}.
+ *
+ * The product is computed in cache sized blocks: a kc x nc panel of the right operand is
+ * packed so that it stays in L3, an mc x kc block of the left operand is packed so that
+ * it stays in L2, and a register tiled micro kernel from {@link Kernels} walks both packed
+ * buffers linearly. The tile is 4x4 for the scalar kernels and 4 rows by two SIMD vectors
+ * for the vector kernels.
+ * Block sizes can be tuned with {@link #setBlockSizes(int, int, int)} or with the system
+ * properties la4j.gemm.mc, la4j.gemm.kc and la4j.gemm.nc.
+ *
+ * In {@link Parallelism} mode each packed panel of b is shared by tasks that pack and
+ * multiply their own row blocks of a.
+ */
+public final class Gemm {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    static final int MR = KERNELS.mr();
+    static final int NR = KERNELS.nr();
+
+    private static final int SMALL_PRODUCT = 32 * 32 * 32;
+
+    private static volatile int mc = roundUp(Integer.getInteger("la4j.gemm.mc", 128), MR);
+    private static volatile int kc = Math.max(1, Integer.getInteger("la4j.gemm.kc", 128));
+    private static volatile int nc = roundUp(Integer.getInteger("la4j.gemm.nc", 2048), NR);
+
+    private static final ThreadLocal<double[][]> buffers = new ThreadLocal<>();
+
+    private Gemm() {
+    }
+
+    /**
+     * Sets the block sizes used by the kernel. mc and nc are rounded up to a multiple of
+     * the register tile.
+     *
+     * @param mc number of rows of the left operand packed per block, sized for L2.
+     * @param kc depth of the packed blocks, sized so that a 4 x kc sliver fits in L1.
+     * @param nc number of columns of the right operand packed per panel, sized for L3.
+     */
+    public static void setBlockSizes(int mc, int kc, int nc) {
+        if(mc <= 0 || kc <= 0 || nc <= 0){
+            throw new IllegalArgumentException("Block sizes must be positive.");
+        }
+        Gemm.mc = roundUp(mc, MR);
+        Gemm.kc = kc;
+        Gemm.nc = roundUp(nc, NR);
+    }
+
+    /**
+     * @return number of rows of the left operand packed per block.
+     */
+    public static int getRowBlockSize() {
+        return mc;
+    }
+
+    /**
+     * @return depth of the packed blocks.
+     */
+    public static int getDepthBlockSize() {
+        return kc;
+    }
+
+    /**
+     * @return number of columns of the right operand packed per panel.
+     */
+    public static int getColumnBlockSize() {
+        return nc;
+    }
+
+    /**
+     * Accumulates c += a * b, where a is m x k, b is k x n and c is m x n.
+     * Each operand is row major storage given by its array, offset and row stride.
+     */
+    static void multiply(double[] a, int aOffset, int aStride, double[] b, int bOffset, int bStride,
+                         double[] c, int cOffset, int cStride, int m, int n, int k) {
+        multiply(1, a, aOffset, aStride, 1, b, bOffset, bStride, 1, c, cOffset, cStride, m, n, k);
+    }
+
+    /**
+     * Accumulates c += alpha * a * b, where element (i, p) of a is
+     * a[aOffset + i*aRowStride + p*aColumnStride] and likewise for b, so that a transposed
+     * operand is given by swapping its strides. alpha and the strides are applied while
+     * packing, the micro kernel is the same for every combination.
+     */
+    static void multiply(double alpha, double[] a, int aOffset, int aRowStride, int aColumnStride,
+                         double[] b, int bOffset, int bRowStride, int bColumnStride,
+                         double[] c, int cOffset, int cStride, int m, int n, int k) {
+        if((long) m * n * k <= SMALL_PRODUCT){
+            multiplySmall(alpha, a, aOffset, aRowStride, aColumnStride, b, bOffset, bRowStride, bColumnStride,
+                    c, cOffset, cStride, m, n, k);
+            return;
+        }
+        int mc = Gemm.mc, kc = Gemm.kc, nc = Gemm.nc;
+        int nb = Math.min(nc, roundUp(n, NR));
+        int kb = Math.min(kc, k);
+        // Tasks stolen while this thread waits on the pool may run their own products,
+        // so the shared panel of b is only taken from the thread local buffers when serial.
+        boolean parallel = Parallelism.isParallel((long) m * n * k);
+        double[] packedB = parallel ? new double[nb * kb] : buffer(1, nb * kb);
+        for(int jc = 0; jc < n; jc += nc){
+            int columns = Math.min(nc, n - jc);
+            for(int pc = 0; pc < k; pc += kc){
+                int depth = Math.min(kc, k - pc);
+                packB(b, bOffset + pc * bRowStride + jc * bColumnStride, bRowStride, bColumnStride, depth, columns, packedB);
+                int aPanel = aOffset + pc * aColumnStride, cPanel = cOffset + jc;
+                if(parallel){
+                    Parallelism.forRange(0, m, MR, (long) columns * depth, (from, to) ->
+                            multiplyRows(alpha, a, aPanel, aRowStride, aColumnStride, packedB, c, cPanel, cStride,
+                                    from, to, depth, columns, mc));
+                } else {
+                    multiplyRows(alpha, a, aPanel, aRowStride, aColumnStride, packedB, c, cPanel, cStride,
+                            0, m, depth, columns, mc);
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies rows [from, to) of the panel of a that starts at aPanel with the packed
+     * panel of b, accumulating into the panel of c that starts at cPanel.
+     */
+    private static void multiplyRows(double alpha, double[] a, int aPanel, int aRowStride, int aColumnStride,
+                                     double[] packedB, double[] c, int cPanel, int cStride, int from, int to,
+                                     int depth, int columns, int mc) {
+        double[] packedA = buffer(0, Math.min(mc, roundUp(to - from, MR)) * depth);
+        for(int ic = from; ic < to; ic += mc){
+            int rows = Math.min(mc, to - ic);
+            packA(alpha, a, aPanel + ic * aRowStride, aRowStride, aColumnStride, rows, depth, packedA);
+            macroKernel(packedA, packedB, c, cPanel + ic * cStride, cStride, rows, columns, depth);
+        }
+    }
+
+    /**
+     * Runs the micro kernel over a packed block. Edge tiles are computed in full against the
+     * zero padding into a scratch tile, and only their valid part is added to c.
+     */
+    private static void macroKernel(double[] packedA, double[] packedB, double[] c, int cBlock, int cStride,
+                                    int rows, int columns, int depth) {
+        double[] edge = null;
+        for(int jr = 0; jr < columns; jr += NR){
+            int n = Math.min(NR, columns - jr);
+            int bOffset = jr * depth;
+            for(int ir = 0; ir < rows; ir += MR){
+                int m = Math.min(MR, rows - ir);
+                int cTile = cBlock + ir * cStride + jr;
+                if(m == MR && n == NR){
+                    KERNELS.microKernel(depth, packedA, ir * depth, packedB, bOffset, c, cTile, cStride);
+                    continue;
+                }
+                if(edge == null){
+                    edge = buffer(2, MR * NR);
+                }
+                Arrays.fill(edge, 0, MR * NR, 0);
+                KERNELS.microKernel(depth, packedA, ir * depth, packedB, bOffset, edge, 0, NR);
+                for(int i = 0; i < m; i++){
+                    for(int j = 0; j < n; j++){
+                        c[cTile + i * cStride + j] += edge[i * NR + j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs rows x depth block of a starting at aBlock, scaled by alpha, into slivers of MR rows,
+     * each sliver stored column after column and padded with zeros.
+     */
+    private static void packA(double alpha, double[] a, int aBlock, int aRowStride, int aColumnStride,
+                              int rows, int depth, double[] packed) {
+        int index = 0;
+        for(int ir = 0; ir < rows; ir += MR){
+            int m = Math.min(MR, rows - ir);
+            int sliver = aBlock + ir * aRowStride;
+            for(int p = 0; p < depth; p++){
+                int column = sliver + p * aColumnStride;
+                for(int i = 0; i < m; i++){
+                    packed[index + i] = alpha * a[column + i * aRowStride];
+                }
+                for(int i = m; i < MR; i++){
+                    packed[index + i] = 0;
+                }
+                index += MR;
+            }
+        }
+    }
+
+    /**
+     * Packs depth x columns panel of b starting at bPanel into slivers of NR columns,
+     * each sliver stored row after row and padded with zeros.
+     */
+    private static void packB(double[] b, int bPanel, int bRowStride, int bColumnStride, int depth, int columns,
+                              double[] packed) {
+        int index = 0;
+        for(int jr = 0; jr < columns; jr += NR){
+            int n = Math.min(NR, columns - jr);
+            for(int p = 0; p < depth; p++){
+                int start = bPanel + p * bRowStride + jr * bColumnStride;
+                if(bColumnStride == 1){
+                    System.arraycopy(b, start, packed, index, n);
+                } else {
+                    for(int j = 0; j < n; j++){
+                        packed[index + j] = b[start + j * bColumnStride];
+                    }
+                }
+                for(int j = n; j < NR; j++){
+                    packed[index + j] = 0;
+                }
+                index += NR;
+            }
+        }
+    }
+
+    private static void multiplySmall(double alpha, double[] a, int aOffset, int aRowStride, int aColumnStride,
+                                      double[] b, int bOffset, int bRowStride, int bColumnStride,
+                                      double[] c, int cOffset, int cStride, int m, int n, int k) {
+        for(int i = 0; i < m; i++){
+            int left = aOffset + i * aRowStride;
+            int result = cOffset + i * cStride;
+            for(int p = 0; p < k; p++){
+                double factor = alpha * a[left + p * aColumnStride];
+                int right = bOffset + p * bRowStride;
+                if(bColumnStride == 1){
+                    KERNELS.axpy(factor, b, right, c, result, n);
+                } else {
+                    for(int j = 0; j < n; j++){
+                        c[result + j] = Math.fma(factor, b[right + j * bColumnStride], c[result + j]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static double[] buffer(int index, int size) {
+        double[][] local = buffers.get();
+        if(local == null){
+            local = new double[3][];
+            buffers.set(local);
+        }
+        if(local[index] == null || local[index].length < size){
+            local[index] = new double[size];
+        }
+        return local[index];
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return Math.max(multiple, (value + multiple - 1) / multiple * multiple);
+    }
+}
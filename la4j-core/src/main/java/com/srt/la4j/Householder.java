@@ -0,0 +1,81 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+/**
+ * Blocked application of Householder reflections, shared by {@link QRDecomposition} and
+ * {@link SymmetricEigenDecomposition}.
+ *
+ * A block of reflections H_p = I - tau_p * v_p * v_p^T, p in [0, count), is kept in the
+ * compact WY form H_0 * H_1 * ... * H_(count-1) = I - V*T*V^T, where V has the vectors as
+ * columns and T is count x count upper triangular (Schreiber and Van Loan). The vectors are
+ * stored as the rows of v, v_p being v[p*length .. (p+1)*length), and are zero before their
+ * own index p. Applying the block then takes two products with {@link Gemm} instead of
+ * count passes over the operand, one per reflection.
+ */
+final class Householder {
+
+    private Householder() {
+    }
+
+    /**
+     * Writes into t the count x count upper triangular factor of the block, row major.
+     * A reflection with tau zero is the identity.
+     */
+    static void factor(double[] v, int length, int count, double[] tau, int tauOffset, double[] t) {
+        double[] column = new double[count];
+        for(int q = 0; q < count; q++){
+            double tq = tau[tauOffset + q];
+            // T(0:q, q) = -tau_q * T(0:q, 0:q) * V(:, 0:q)^T * v_q, V(:, p) being zero before p.
+            for(int p = 0; p < q; p++){
+                column[p] = tq == 0 ? 0
+                        : -tq * Kernels.INSTANCE.dot(v, p * length + q, v, q * length + q, length - q);
+            }
+            for(int p = 0; p < q; p++){
+                double sum = 0;
+                for(int j = p; j < q; j++){
+                    sum += t[p * count + j] * column[j];
+                }
+                t[p * count + q] = sum;
+            }
+            for(int p = q + 1; p < count; p++){
+                t[p * count + q] = 0;
+            }
+            t[q * count + q] = tq;
+        }
+    }
+
+    /**
+     * Replaces every row x_r of the rows x length matrix x, row r starting at
+     * x[xOffset + r*xStride], by H_(count-1)*...*H_0*x_r, that is x - x*V*T*V^T, when
+     * transposed is false and by H_0*...*H_(count-1)*x_r = x - x*V*T^T*V^T otherwise.
+     */
+    static void apply(double[] v, int length, int count, double[] t, boolean transposed,
+                      double[] x, int xOffset, int xStride, int rows) {
+        if(rows == 0 || length == 0){
+            return;
+        }
+        double[] w = new double[rows * count];
+        Gemm.multiply(1, x, xOffset, xStride, 1, v, 0, 1, length, w, 0, count, rows, count, length);
+        double[] wt = new double[rows * count];
+        Gemm.multiply(1, w, 0, count, 1, t, 0, transposed ? 1 : count, transposed ? count : 1,
+                wt, 0, count, rows, count, count);
+        Gemm.multiply(-1, wt, 0, count, 1, v, 0, length, 1, x, xOffset, xStride, rows, length, count);
+    }
+}
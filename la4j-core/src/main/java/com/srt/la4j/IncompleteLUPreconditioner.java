@@ -0,0 +1,111 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Incomplete LU factorization with zero fill in, ILU(0): L*U agrees with A on the non zero
+ * pattern of A, and L and U are kept in that pattern, so the factors take the memory of A and
+ * applying them costs about one product with A. It is the usual preconditioner for sparse
+ * systems from discretized operators, where it often divides the iterations several times.
+ */
+public final class IncompleteLUPreconditioner implements Preconditioner {
+
+    private final int dimension;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+    // Position of the diagonal element of each row in values.
+    private final int[] diagonal;
+
+    /**
+     * Factorizes the pattern of a sparse matrix, whose elements are not modified.
+     *
+     * @param matrix square matrix of the system.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     * @throws SingularMatrixException if a diagonal element is missing from the pattern or a
+     *               pivot becomes zero.
+     */
+    public IncompleteLUPreconditioner(CsrMatrix matrix) throws NotASqaureMatrixException, SingularMatrixException {
+        if(matrix.getRows() != matrix.getColumns()){
+            throw new NotASqaureMatrixException();
+        }
+        int n = matrix.getRows(), nonZeros = matrix.getNonZeros();
+        this.dimension = n;
+        this.rowPointers = matrix.rowPointers().clone();
+        this.columnIndices = matrix.columnIndices().clone();
+        this.values = new double[nonZeros];
+        System.arraycopy(matrix.values(), 0, values, 0, nonZeros);
+        this.diagonal = new int[n];
+
+        // position[j] is the index of element (i, j) of the current row i, or -1.
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for(int i = 0; i < n; i++){
+            int start = rowPointers[i], end = rowPointers[i + 1];
+            for(int k = start; k < end; k++){
+                position[columnIndices[k]] = k;
+            }
+            int k = start;
+            for(; k < end && columnIndices[k] < i; k++){
+                int p = columnIndices[k];
+                double factor = values[k] / values[diagonal[p]];
+                values[k] = factor;
+                for(int q = diagonal[p] + 1; q < rowPointers[p + 1]; q++){
+                    int target = position[columnIndices[q]];
+                    if(target >= 0){
+                        values[target] -= factor * values[q];
+                    }
+                }
+            }
+            if(k == end || columnIndices[k] != i || values[k] == 0){
+                throw new SingularMatrixException("Zero pivot in row " + i + " of the incomplete factorization.");
+            }
+            diagonal[i] = k;
+            for(int q = start; q < end; q++){
+                position[columnIndices[q]] = -1;
+            }
+        }
+    }
+
+    /**
+     * Solves L*U*z = r by forward substitution with the unit lower factor and back
+     * substitution with the upper factor.
+     */
+    @Override
+    public void apply(double[] r, double[] z) {
+        for(int i = 0; i < dimension; i++){
+            double sum = r[i];
+            for(int k = rowPointers[i]; k < diagonal[i]; k++){
+                sum -= values[k] * z[columnIndices[k]];
+            }
+            z[i] = sum;
+        }
+        for(int i = dimension - 1; i >= 0; i--){
+            double sum = z[i];
+            for(int k = diagonal[i] + 1; k < rowPointers[i + 1]; k++){
+                sum -= values[k] * z[columnIndices[k]];
+            }
+            z[i] = sum / values[diagonal[i]];
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import jdk.jfr.EventType;
+
+import java.util.Arrays;
+
+/**
+ * Instrumentation of the operations of {@link Matrix}.
+ *
+ * While enabled, each completed operation is timed and reported with its dimensions, its
+ * floating point operations and the bytes it allocates to the registered
+ * {@link OperationListener}s, for example an {@link OperationStatistics}, and committed as a
+ * com.srt.la4j.MatrixOperation flight recorder event when a recording enables it.
+ *
+ * The instrumentation is disabled by default, it can be enabled with {@link #setEnabled(boolean)}
+ * or with the system property la4j.instrumentation=true. While disabled each operation only
+ * reads one volatile field, it does not read the clock or allocate.
+ */
+public final class Instrumentation {
+
+    private static final OperationListener[] NONE = new OperationListener[0];
+
+    private static volatile boolean enabled = Boolean.getBoolean("la4j.instrumentation");
+    private static volatile OperationListener[] listeners = NONE;
+
+    private Instrumentation() {
+    }
+
+    /**
+     * @param enabled true to report the operations.
+     */
+    public static void setEnabled(boolean enabled) {
+        Instrumentation.enabled = enabled;
+    }
+
+    /**
+     * @return true if the operations are reported.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param listener receives the operations from now on.
+     */
+    public static synchronized void addListener(OperationListener listener) {
+        if(listener == null){
+            throw new IllegalArgumentException("Listener must not be null.");
+        }
+        OperationListener[] current = listeners;
+        OperationListener[] added = Arrays.copyOf(current, current.length + 1);
+        added[current.length] = listener;
+        listeners = added;
+    }
+
+    /**
+     * @param listener stops receiving the operations, if it was registered.
+     */
+    public static synchronized void removeListener(OperationListener listener) {
+        OperationListener[] current = listeners;
+        for(int i = 0; i < current.length; i++){
+            if(current[i] == listener){
+                OperationListener[] removed = new OperationListener[current.length - 1];
+                System.arraycopy(current, 0, removed, 0, i);
+                System.arraycopy(current, i + 1, removed, i, current.length - i - 1);
+                listeners = removed;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return start of an operation, or null when disabled.
+     */
+    static Span start() {
+        if(!enabled){
+            return null;
+        }
+        MatrixOperationEvent event = null;
+        if(Events.TYPE.isEnabled()){
+            event = new MatrixOperationEvent();
+            event.begin();
+        }
+        return new Span(System.nanoTime(), event);
+    }
+
+    /**
+     * Reports an operation that began at start, nothing when start is null.
+     */
+    static void record(MatrixOperation operation, Span start, int rows, int columns, long flops, long bytes) {
+        if(start == null){
+            return;
+        }
+        long nanos = System.nanoTime() - start.nanos;
+        for(OperationListener listener : listeners){
+            listener.operationCompleted(operation, rows, columns, flops, bytes, nanos);
+        }
+        MatrixOperationEvent event = start.event;
+        if(event != null){
+            event.end();
+            if(event.shouldCommit()){
+                event.operation = operation.name();
+                event.rows = rows;
+                event.columns = columns;
+                event.flops = flops;
+                event.bytes = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Start of an operation: the clock reading for the listeners, and the flight recorder
+     * event begun with it, whose duration is then the latency of the operation.
+     */
+    static final class Span {
+        private final long nanos;
+        private final MatrixOperationEvent event;
+
+        private Span(long nanos, MatrixOperationEvent event) {
+            this.nanos = nanos;
+            this.event = event;
+        }
+    }
+
+    /**
+     * Holds the event type, so that the event is registered with the flight recorder by the
+     * first recorded operation instead of the first operation.
+     */
+    private static final class Events {
+        static final EventType TYPE = EventType.getEventType(MatrixOperationEvent.class);
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Krylov subspace solver of A*x = b that only multiplies A with vectors, through a
+ * {@link LinearOperator}, so A can be sparse or never formed at all. Each iteration costs one
+ * or two products with A and O(n) vector work, instead of the O(n^3) time and O(n^2) memory
+ * of a direct solve.
+ *
+ * <ul>
+ *     <li>{@link Method#CG}: conjugate gradient, for symmetric positive definite A, with the
+ *     least work and memory per iteration.</li>
+ *     <li>{@link Method#GMRES}: restarted GMRES, for any non singular A, whose residual never
+ *     grows; it keeps restart + 1 vectors.</li>
+ *     <li>{@link Method#BICGSTAB}: stabilized biconjugate gradient, for non symmetric A with
+ *     constant memory, but a less regular convergence than GMRES.</li>
+ * </ul>
+ *
+ * An optional {@link Preconditioner} is applied on the left for CG and on the right for GMRES
+ * and BiCGSTAB, so that the tolerance always bounds the true residual |b - A*x| / |b|.
+ *
+ * The vectors of the iterations are allocated on the first solve and kept for the later solves
+ * of the same dimension, so a solver reused for many systems does not allocate. A solver is
+ * therefore not thread safe; products with A run on the pool in {@link Parallelism} mode when
+ * the operator comes from {@link LinearOperator#of(BaseMatrix)}.
+ */
+public final class IterativeSolver {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    /**
+     * Krylov method of a solver.
+     */
+    public enum Method {
+        CG, GMRES, BICGSTAB
+    }
+
+    private final Method method;
+    private double tolerance = 1e-10;
+    private int maxIterations = 1000;
+    private int restart = 30;
+    private Preconditioner preconditioner;
+    private ConvergenceListener listener;
+
+    private int iterations;
+    private double residual;
+    private boolean converged;
+
+    // Workspace, reused while the dimension and restart do not change.
+    private int dimension = -1;
+    private double[] r, z, p, q, s, t, u;
+    private double[] basis, hessenberg, cosines, sines, g;
+
+    /**
+     * @param method Krylov method used by the solver.
+     */
+    public IterativeSolver(Method method) {
+        if(method == null){
+            throw new IllegalArgumentException("Method must not be null.");
+        }
+        this.method = method;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @param tolerance relative residual |b - A*x| / |b| at which the iterations stop, 1e-10 by default.
+     */
+    public void setTolerance(double tolerance) {
+        if(!(tolerance > 0)){
+            throw new IllegalArgumentException("Tolerance must be positive.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @param maxIterations number of iterations after which the solver gives up, 1000 by default.
+     */
+    public void setMaxIterations(int maxIterations) {
+        if(maxIterations <= 0){
+            throw new IllegalArgumentException("Maximum iterations must be positive.");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param restart number of GMRES iterations between restarts, 30 by default.
+     */
+    public void setRestart(int restart) {
+        if(restart <= 0){
+            throw new IllegalArgumentException("Restart must be positive.");
+        }
+        this.restart = restart;
+        this.dimension = -1;
+    }
+
+    public int getRestart() {
+        return restart;
+    }
+
+    /**
+     * @param preconditioner approximate inverse of A, or null for none.
+     */
+    public void setPreconditioner(Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * @param listener receives the residual of every iteration, or null for none.
+     */
+    public void setListener(ConvergenceListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return number of iterations of the last solve.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return relative residual |b - A*x| / |b| reached by the last solve.
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * @return true if the last solve reached the tolerance.
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Solves A*x = b for a matrix of any kind, see {@link LinearOperator#of(BaseMatrix)}.
+     *
+     * @return true if the tolerance was reached.
+     */
+    public boolean solve(BaseMatrix a, double[] b, double[] x)
+            throws NotASqaureMatrixException, MultiplicationCompatibleException {
+        return solve(LinearOperator.of(a), b, x);
+    }
+
+    /**
+     * Solves A*x = b, starting from the initial guess in x, which is overwritten by the
+     * solution. If the tolerance is not reached within the maximum number of iterations or
+     * the method breaks down, x holds the last iterate and false is returned.
+     *
+     * @param a square operator.
+     * @param b right hand side.
+     * @param x initial guess, for example zeros, overwritten by the solution.
+     * @return true if the tolerance was reached.
+     * @throws NotASqaureMatrixException if the operator is not square.
+     * @throws MultiplicationCompatibleException if b or x do not have the dimension of the operator.
+     */
+    public boolean solve(LinearOperator a, double[] b, double[] x)
+            throws NotASqaureMatrixException, MultiplicationCompatibleException {
+        int n = a.getRows();
+        if(a.getColumns() != n){
+            throw new NotASqaureMatrixException();
+        }
+        if(b.length != n || x.length != n){
+            throw new MultiplicationCompatibleException();
+        }
+        allocate(n);
+        iterations = 0;
+        double norm = Math.sqrt(KERNELS.dot(b, 0, b, 0, n));
+        if(norm == 0){
+            Arrays.fill(x, 0);
+            residual = 0;
+            converged = true;
+            return true;
+        }
+        switch(method){
+            case CG:
+                conjugateGradient(a, b, x, norm);
+                break;
+            case GMRES:
+                gmres(a, b, x, norm);
+                break;
+            default:
+                biconjugateGradientStabilized(a, b, x, norm);
+        }
+        return converged;
+    }
+
+    private void allocate(int n) {
+        if(dimension == n){
+            return;
+        }
+        r = new double[n];
+        z = new double[n];
+        p = new double[n];
+        q = new double[n];
+        u = new double[n];
+        if(method == Method.BICGSTAB){
+            s = new double[n];
+            t = new double[n];
+        }
+        if(method == Method.GMRES){
+            basis = new double[(restart + 1) * n];
+            hessenberg = new double[(restart + 1) * restart];
+            cosines = new double[restart];
+            sines = new double[restart];
+            g = new double[restart + 1];
+        }
+        dimension = n;
+    }
+
+    /**
+     * r = b - A*x.
+     */
+    private void residual(LinearOperator a, double[] b, double[] x) {
+        a.apply(x, r);
+        for(int i = 0; i < dimension; i++){
+            r[i] = b[i] - r[i];
+        }
+    }
+
+    private void precondition(double[] from, double[] to) {
+        if(preconditioner == null){
+            System.arraycopy(from, 0, to, 0, dimension);
+        } else {
+            preconditioner.apply(from, to);
+        }
+    }
+
+    /**
+     * Records the relative residual of an iteration.
+     *
+     * @return true if it reaches the tolerance.
+     */
+    private boolean iterate(double relative) {
+        iterations++;
+        residual = relative;
+        if(listener != null){
+            listener.iterationCompleted(iterations, relative);
+        }
+        converged = relative <= tolerance;
+        return converged;
+    }
+
+    private void conjugateGradient(LinearOperator a, double[] b, double[] x, double norm) {
+        int n = dimension;
+        residual(a, b, x);
+        residual = Math.sqrt(KERNELS.dot(r, 0, r, 0, n)) / norm;
+        converged = residual <= tolerance;
+        precondition(r, z);
+        System.arraycopy(z, 0, p, 0, n);
+        double rz = KERNELS.dot(r, 0, z, 0, n);
+        while(!converged && iterations < maxIterations){
+            a.apply(p, q);
+            double curvature = KERNELS.dot(p, 0, q, 0, n);
+            if(curvature == 0){
+                return;
+            }
+            double alpha = rz / curvature;
+            KERNELS.axpy(alpha, p, 0, x, 0, n);
+            KERNELS.axpy(-alpha, q, 0, r, 0, n);
+            if(iterate(Math.sqrt(KERNELS.dot(r, 0, r, 0, n)) / norm)){
+                return;
+            }
+            precondition(r, z);
+            double next = KERNELS.dot(r, 0, z, 0, n);
+            double beta = next / rz;
+            rz = next;
+            // p = z + beta * p
+            KERNELS.scale(p, 0, beta, p, 0, n);
+            KERNELS.axpy(1, z, 0, p, 0, n);
+        }
+    }
+
+    private void biconjugateGradientStabilized(LinearOperator a, double[] b, double[] x, double norm) {
+        int n = dimension;
+        // r is the residual and u the shadow residual, p the direction and q = A*M^-1*p, s the
+        // intermediate residual and t = A*M^-1*s, z the preconditioned p and then s.
+        residual(a, b, x);
+        residual = Math.sqrt(KERNELS.dot(r, 0, r, 0, n)) / norm;
+        converged = residual <= tolerance;
+        double rho = 1, alpha = 1, omega = 1;
+        Arrays.fill(p, 0);
+        Arrays.fill(q, 0);
+        System.arraycopy(r, 0, u, 0, n);
+        while(!converged && iterations < maxIterations){
+            double next = KERNELS.dot(u, 0, r, 0, n);
+            if(next == 0 || omega == 0){
+                return;
+            }
+            double beta = next / rho * (alpha / omega);
+            rho = next;
+            // p = r + beta * (p - omega * q)
+            KERNELS.axpy(-omega, q, 0, p, 0, n);
+            KERNELS.scale(p, 0, beta, p, 0, n);
+            KERNELS.axpy(1, r, 0, p, 0, n);
+            precondition(p, z);
+            a.apply(z, q);
+            double projection = KERNELS.dot(u, 0, q, 0, n);
+            if(projection == 0){
+                return;
+            }
+            alpha = rho / projection;
+            KERNELS.axpy(alpha, z, 0, x, 0, n);
+            // s = r - alpha * q
+            System.arraycopy(r, 0, s, 0, n);
+            KERNELS.axpy(-alpha, q, 0, s, 0, n);
+            double half = Math.sqrt(KERNELS.dot(s, 0, s, 0, n)) / norm;
+            if(half <= tolerance){
+                System.arraycopy(s, 0, r, 0, n);
+                iterate(half);
+                return;
+            }
+            precondition(s, z);
+            a.apply(z, t);
+            double tt = KERNELS.dot(t, 0, t, 0, n);
+            omega = tt == 0 ? 0 : KERNELS.dot(t, 0, s, 0, n) / tt;
+            KERNELS.axpy(omega, z, 0, x, 0, n);
+            // r = s - omega * t
+            System.arraycopy(s, 0, r, 0, n);
+            KERNELS.axpy(-omega, t, 0, r, 0, n);
+            if(iterate(Math.sqrt(KERNELS.dot(r, 0, r, 0, n)) / norm)){
+                return;
+            }
+        }
+    }
+
+    private void gmres(LinearOperator a, double[] b, double[] x, double norm) {
+        int n = dimension, m = restart;
+        residual(a, b, x);
+        residual = Math.sqrt(KERNELS.dot(r, 0, r, 0, n)) / norm;
+        converged = residual <= tolerance;
+        while(!converged && iterations < maxIterations){
+            double beta = residual * norm;
+            KERNELS.scale(r, 0, 1 / beta, basis, 0, n);
+            Arrays.fill(g, 0);
+            g[0] = beta;
+            int j = 0;
+            boolean done = false;
+            // Arnoldi with modified Gram-Schmidt, H reduced to triangular by Givens rotations.
+            while(j < m && !done && iterations < maxIterations){
+                precondition(column(basis, j, n), z);
+                a.apply(z, q);
+                for(int i = 0; i <= j; i++){
+                    double h = KERNELS.dot(q, 0, basis, i * n, n);
+                    hessenberg[i * m + j] = h;
+                    KERNELS.axpy(-h, basis, i * n, q, 0, n);
+                }
+                double h = Math.sqrt(KERNELS.dot(q, 0, q, 0, n));
+                for(int i = 0; i < j; i++){
+                    double upper = hessenberg[i * m + j], lower = hessenberg[(i + 1) * m + j];
+                    hessenberg[i * m + j] = cosines[i] * upper + sines[i] * lower;
+                    hessenberg[(i + 1) * m + j] = -sines[i] * upper + cosines[i] * lower;
+                }
+                double diagonal = hessenberg[j * m + j], radius = Math.hypot(diagonal, h);
+                cosines[j] = radius == 0 ? 1 : diagonal / radius;
+                sines[j] = radius == 0 ? 0 : h / radius;
+                hessenberg[j * m + j] = radius;
+                g[j + 1] = -sines[j] * g[j];
+                g[j] = cosines[j] * g[j];
+                // A zero norm means the Krylov space is invariant and the solution is exact.
+                if(h != 0){
+                    KERNELS.scale(q, 0, 1 / h, basis, (j + 1) * n, n);
+                }
+                j++;
+                done = iterate(Math.abs(g[j]) / norm) || h == 0;
+            }
+            // x += M^-1 * V * y with H*y = g.
+            for(int i = j - 1; i >= 0; i--){
+                double sum = g[i];
+                for(int k = i + 1; k < j; k++){
+                    sum -= hessenberg[i * m + k] * g[k];
+                }
+                g[i] = hessenberg[i * m + i] == 0 ? 0 : sum / hessenberg[i * m + i];
+            }
+            Arrays.fill(u, 0);
+            for(int i = 0; i < j; i++){
+                KERNELS.axpy(g[i], basis, i * n, u, 0, n);
+            }
+            precondition(u, z);
+            KERNELS.axpy(1, z, 0, x, 0, n);
+            residual(a, b, x);
+            residual = Math.sqrt(KERNELS.dot(r, 0, r, 0, n)) / norm;
+            converged = residual <= tolerance;
+        }
+    }
+
+    /**
+     * @return column j of the basis copied into p, so that it can be given to an operator.
+     */
+    private double[] column(double[] vectors, int j, int n) {
+        System.arraycopy(vectors, j * n, p, 0, n);
+        return p;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+/**
+ * Diagonal preconditioner, M = diag(A). It costs one multiplication per element and helps
+ * when the rows of A are of very different scales.
+ */
+public final class JacobiPreconditioner implements Preconditioner {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final double[] inverse;
+
+    /**
+     * @param matrix square matrix of the system, only its diagonal is read.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     * @throws SingularMatrixException if the diagonal has a zero.
+     */
+    public JacobiPreconditioner(BaseMatrix matrix) throws NotASqaureMatrixException, SingularMatrixException {
+        if(matrix.getRows() != matrix.getColumns()){
+            throw new NotASqaureMatrixException();
+        }
+        this.inverse = new double[matrix.getRows()];
+        for(int i = 0; i < inverse.length; i++){
+            double value = matrix.get(i, i);
+            if(value == 0){
+                throw new SingularMatrixException("Diagonal element " + i + " is zero.");
+            }
+            inverse[i] = 1 / value;
+        }
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        KERNELS.multiply(r, 0, inverse, 0, z, 0, inverse.length);
+    }
+}
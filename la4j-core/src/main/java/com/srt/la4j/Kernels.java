@@ -0,0 +1,130 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Inner loops shared by the matrix operations. Each method works on runs of contiguous
+ * elements given by array and offset, so that the implementation can use SIMD instructions.
+ *
+ * The SIMD implementation is built on the jdk.incubator.vector module and is used when the
+ * module is present in the boot layer (for example with --add-modules jdk.incubator.vector),
+ * unless the system property la4j.simd is false. Otherwise the scalar implementation is used.
+ * Both accumulate products with fused multiply-add, so the element wise kernels and the
+ * micro kernel give the same results whichever is used and wherever an element falls
+ * relative to the vector length. Only dot sums in a different order.
+ *
+ * The batch kernels work on planar batches of small matrices: element (i,j) of entry e of a
+ * batch of r x s matrices is x[(i*s + j)*stride + e]. Consecutive entries are adjacent, so the
+ * SIMD lanes run across the batch and every matrix element is one vector register.
+ */
+abstract class Kernels {
+
+    static final Kernels INSTANCE = load();
+
+    /**
+     * @return rows of the register tile of {@link #microKernel}.
+     */
+    abstract int mr();
+
+    /**
+     * @return columns of the register tile of {@link #microKernel}.
+     */
+    abstract int nr();
+
+    /**
+     * @return name of the implementation.
+     */
+    abstract String name();
+
+    /**
+     * c[cOffset + i] = a[aOffset + i] + b[bOffset + i] for i in [0, length).
+     */
+    abstract void add(double[] a, int aOffset, double[] b, int bOffset, double[] c, int cOffset, int length);
+
+    /**
+     * c[cOffset + i] = a[aOffset + i] * b[bOffset + i] for i in [0, length).
+     */
+    abstract void multiply(double[] a, int aOffset, double[] b, int bOffset, double[] c, int cOffset, int length);
+
+    /**
+     * c[cOffset + i] = a[aOffset + i] * number for i in [0, length).
+     */
+    abstract void scale(double[] a, int aOffset, double number, double[] c, int cOffset, int length);
+
+    /**
+     * y[yOffset + i] += alpha * x[xOffset + i] for i in [0, length).
+     */
+    abstract void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+    /**
+     * @return sum of a[aOffset + i] * b[bOffset + i] for i in [0, length).
+     */
+    abstract double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    /**
+     * Plane rotation of two runs: x[xOffset + i] = c*x - s*y and y[yOffset + i] = s*x + c*y
+     * for i in [0, length), with both right hand sides read before either run is written.
+     */
+    abstract void rotate(double c, double s, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+    /**
+     * Sets to zero the elements of the run whose absolute value is below minValue.
+     */
+    abstract void approximate(double[] a, int offset, int length, double minValue);
+
+    /**
+     * Multiplies an mr x depth sliver of packed a with a depth x nr sliver of packed b and
+     * accumulates the mr x nr result into c.
+     */
+    abstract void microKernel(int depth, double[] a, int aOffset, double[] b, int bOffset,
+                              double[] c, int cOffset, int cStride);
+
+    /**
+     * c = a * b for the entries [from, to) of a batch of m x k matrices a and k x n matrices b.
+     */
+    abstract void batchMultiply(int m, int k, int n, double[] a, double[] b, double[] c,
+                                int stride, int from, int to);
+
+    /**
+     * Determinants of the entries [from, to) of a batch of n x n matrices a, n at most 4.
+     */
+    abstract void batchDeterminant(int n, double[] a, double[] det, int stride, int from, int to);
+
+    /**
+     * Inverses of the entries [from, to) of a batch of n x n matrices a, n at most 4, written
+     * to c with the determinants written to det. Entries with a zero determinant get
+     * non finite elements.
+     */
+    abstract void batchInverse(int n, double[] a, double[] c, double[] det, int stride, int from, int to);
+
+    private static Kernels load() {
+        if(!"false".equals(System.getProperty("la4j.simd"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()){
+            try {
+                Kernels kernels = (Kernels) Class.forName("com.srt.la4j.VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+                if(kernels.nr() > 0){
+                    return kernels;
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Falls back to the scalar loops.
+            }
+        }
+        return new ScalarKernels();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+/**
+ * LU factorization with partial pivoting of a square matrix, such that P*A = L*U where
+ * L is unit lower triangular, U is upper triangular and P is a row permutation.
+ * The factorization is computed once in O(n^3) and is used for determinant, inverse and solve.
+ */
+public class LUDecomposition {
+
+    private final int dimension;
+    private final double[] lu;
+    private final int[] pivot;
+    private final int pivotSign;
+    private final boolean singular;
+
+    LUDecomposition(Matrix matrix) {
+        int n = matrix.getRows();
+        this.dimension = n;
+        this.lu = new double[n * n];
+        double[] source = matrix.data();
+        for(int i = 0; i < n; i++){
+            System.arraycopy(source, matrix.offset() + i * matrix.stride(), lu, i * n, n);
+        }
+        this.pivot = new int[n];
+        for(int i = 0; i < n; i++){
+            pivot[i] = i;
+        }
+
+        int sign = 1;
+        boolean zeroPivot = false;
+        for(int k = 0; k < n; k++){
+            int p = k;
+            double max = Math.abs(lu[k * n + k]);
+            for(int i = k + 1; i < n; i++){
+                double value = Math.abs(lu[i * n + k]);
+                if(value > max){
+                    max = value;
+                    p = i;
+                }
+            }
+            if(p != k){
+                swapRows(p, k);
+                int index = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = index;
+                sign = -sign;
+            }
+            int pivotRow = k * n;
+            double pivotValue = lu[pivotRow + k];
+            if(pivotValue == 0){
+                zeroPivot = true;
+                continue;
+            }
+            for(int i = k + 1; i < n; i++){
+                int row = i * n;
+                double factor = lu[row + k] / pivotValue;
+                lu[row + k] = factor;
+                if(factor == 0){
+                    continue;
+                }
+                for(int j = k + 1; j < n; j++){
+                    lu[row + j] -= factor * lu[pivotRow + j];
+                }
+            }
+        }
+        this.pivotSign = sign;
+        this.singular = zeroPivot;
+    }
+
+    private void swapRows(int first, int second) {
+        int a = first * dimension, b = second * dimension;
+        for(int j = 0; j < dimension; j++){
+            double value = lu[a + j];
+            lu[a + j] = lu[b + j];
+            lu[b + j] = value;
+        }
+    }
+
+    /**
+     * @return true if U has a zero on its diagonal, i.e. the matrix does not have an inverse.
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return determinant of the factorized matrix, product of the diagonal of U
+     *          with the sign of the row permutation.
+     */
+    public double getDeterminant() {
+        double determinant = pivotSign;
+        for(int i = 0; i < dimension; i++){
+            determinant *= lu[i * dimension + i];
+        }
+        return determinant;
+    }
+
+    /**
+     * @return unit lower triangular factor L.
+     */
+    public Matrix getL() {
+        double[] d = new double[dimension * dimension];
+        for(int i = 0; i < dimension; i++){
+            System.arraycopy(lu, i * dimension, d, i * dimension, i);
+            d[i * dimension + i] = 1;
+        }
+        return new Matrix(dimension, dimension, d, false);
+    }
+
+    /**
+     * @return upper triangular factor U.
+     */
+    public Matrix getU() {
+        double[] d = new double[dimension * dimension];
+        for(int i = 0; i < dimension; i++){
+            System.arraycopy(lu, i * dimension + i, d, i * dimension + i, dimension - i);
+        }
+        return new Matrix(dimension, dimension, d, false);
+    }
+
+    /**
+     * @return permutation matrix P such that P*A = L*U.
+     */
+    public Matrix getP() {
+        double[] d = new double[dimension * dimension];
+        for(int i = 0; i < dimension; i++){
+            d[i * dimension + pivot[i]] = 1;
+        }
+        return new Matrix(dimension, dimension, d, false);
+    }
+
+    /**
+     * @return row permutation, row i of L*U is row pivot[i] of the factorized matrix.
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * Solves A*X = B for the factorized matrix A. The factorization is kept, so every later
+     * call costs O(n^2) per column of B, and several columns are solved together with blocked
+     * triangular solves.
+     *
+     * @param b right hand side with as many rows as the factorized matrix.
+     * @return solution X.
+     * @throws MultiplicationCompatibleException if b does not have n rows.
+     * @throws SingularMatrixException if the factorized matrix is singular.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException, SingularMatrixException {
+        if(b.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        int r = b.getColumns();
+        double[] x = new double[dimension * r];
+        double[] source = b.data();
+        for(int i = 0; i < dimension; i++){
+            System.arraycopy(source, b.offset() + pivot[i] * b.stride(), x, i * r, r);
+        }
+        solve(x, r);
+        return new Matrix(dimension, r, x, false);
+    }
+
+    /**
+     * @return inverse of the factorized matrix.
+     * @throws SingularMatrixException if the factorized matrix is singular.
+     */
+    public Matrix inverse() throws SingularMatrixException {
+        return new Matrix(dimension, dimension, inverseArray(), false);
+    }
+
+    /**
+     * @return inverse of the factorized matrix as row major storage.
+     */
+    double[] inverseArray() throws SingularMatrixException {
+        int n = dimension;
+        double[] x = new double[n * n];
+        for(int i = 0; i < n; i++){
+            x[i * n + pivot[i]] = 1;
+        }
+        solve(x, n);
+        return x;
+    }
+
+    /**
+     * Overwrites the row permuted right hand side x, with r columns, by the solution.
+     */
+    private void solve(double[] x, int r) throws SingularMatrixException {
+        if(singular){
+            throw new SingularMatrixException();
+        }
+        TriangularSolver.lower(lu, 0, dimension, 1, dimension, true, x, r);
+        TriangularSolver.upper(lu, 0, dimension, 1, dimension, false, x, r);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Linear map y = A*x given only by its product with a vector, for the iterative solvers of
+ * {@link IterativeSolver}. A matrix free operator, such as a stencil or a product of matrices
+ * that is never formed, implements it directly; {@link #of(BaseMatrix)} wraps any matrix.
+ */
+public interface LinearOperator {
+
+    /**
+     * @return number of rows of A, the length of y.
+     */
+    int getRows();
+
+    /**
+     * @return number of columns of A, the length of x.
+     */
+    int getColumns();
+
+    /**
+     * Writes y = A*x. x and y are distinct arrays, y is overwritten and not read.
+     *
+     * @param x vector of getColumns() elements.
+     * @param y vector of getRows() elements.
+     */
+    void apply(double[] x, double[] y);
+
+    /**
+     * Wraps a matrix without copying it, except for kinds that are converted once: a
+     * {@link CscMatrix} to compressed rows, and kinds without a vector product of their own
+     * to dense. The rows of the product are split over the pool in {@link Parallelism} mode.
+     *
+     * @param matrix
+     * @return operator multiplying by the matrix.
+     */
+    static LinearOperator of(BaseMatrix matrix) {
+        return new MatrixOperator(matrix);
+    }
+}
@@ -0,0 +1,707 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Dense matrix stored in a file and memory mapped, so that its size is bounded by the disk
+ * instead of the heap and the 2^31 elements of a Java array. Only the pages that are touched
+ * are loaded, and the operating system writes them back and evicts them under memory pressure.
+ *
+ * The file starts with a 16 byte header (the magic number 0x4C41344A, the version, the rows
+ * and the columns as little endian ints) followed by the elements in row major order as
+ * little endian doubles. It is mapped in chunks of 2^27 elements, since a single mapping is
+ * limited to 2 GB.
+ *
+ * Operations stream through the operands one tile at a time, at most three tiles of
+ * {@link #getTileSize()}^2 elements are on the heap, and write their result to a mapped file:
+ * either the path given to the operation or, for the {@link BaseMatrix} methods, a temporary
+ * file next to this matrix that is deleted when the result is closed, or by a {@link Cleaner}
+ * once the result is unreachable if it is never closed. Products multiply tiles
+ * with {@link Gemm}, so they use the same kernels and parallel mode as dense products.
+ *
+ * The determinant, inverse, adjoint and cofactors pivot over the whole matrix, so they load
+ * it on the heap with {@link #toDense()} and are limited to the matrices it can hold. The
+ * inverse and adjoint are written to mapped files like the results of the other operations.
+ */
+public final class MappedMatrix implements BaseMatrix, Closeable {
+
+    static final int MAGIC = 0x4C41344A;
+    static final int VERSION = 1;
+    static final int HEADER = 16;
+    private static final int CHUNK_SHIFT = 27;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // Largest edge whose tile^2 elements fit in a Java array.
+    private static final int MAX_TILE = 46340;
+
+    private static volatile int tile = Math.min(MAX_TILE, Math.max(1, Integer.getInteger("la4j.mapped.tile", 1024)));
+
+    private final Path path;
+    private final int rows;
+    private final int columns;
+    private final int chunkShift;
+    private final boolean readOnly;
+    // Deletes the file of a temporary result, null for other matrices.
+    private final Cleaner.Cleanable cleanable;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] mappings;
+    private final DoubleBuffer[] chunks;
+
+    private MappedMatrix(Path path, FileChannel channel, int rows, int columns, int chunkShift,
+                         boolean temporary, boolean readOnly) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.rows = rows;
+        this.columns = columns;
+        this.chunkShift = chunkShift;
+        this.readOnly = readOnly;
+        this.cleanable = temporary ? CLEANER.register(this, new Deletion(path, channel)) : null;
+        long size = (long) rows * columns;
+        long chunkSize = 1L << chunkShift;
+        int count = (int) ((size + chunkSize - 1) >>> chunkShift);
+        this.mappings = new MappedByteBuffer[count];
+        this.chunks = new DoubleBuffer[count];
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        for(int c = 0; c < count; c++){
+            long first = (long) c << chunkShift;
+            long length = Math.min(chunkSize, size - first);
+            mappings[c] = channel.map(mode, HEADER + first * Double.BYTES, length * Double.BYTES);
+            chunks[c] = mappings[c].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Creates the file, replacing any existing one, with all the elements set to zero.
+     * The file is sparse on file systems that support it.
+     *
+     * @param path
+     * @param rows
+     * @param columns
+     * @return matrix mapped from the new file.
+     * @throws IOException if the file can not be created or mapped.
+     */
+    public static MappedMatrix create(Path path, int rows, int columns) throws IOException {
+        return create(path, rows, columns, CHUNK_SHIFT, false);
+    }
+
+    static MappedMatrix create(Path path, int rows, int columns, int chunkShift, boolean temporary) throws IOException {
+        if(rows <= 0 || columns <= 0){
+            throw new IllegalArgumentException("Dimensions must be positive.");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).flip();
+            while(header.hasRemaining()){
+                channel.write(header, header.position());
+            }
+            return new MappedMatrix(path, channel, rows, columns, chunkShift, temporary, false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing file for reading and writing.
+     *
+     * @param path
+     * @return matrix mapped from the file.
+     * @throws IOException if the file can not be read, is not a matrix file or is truncated.
+     */
+    public static MappedMatrix open(Path path) throws IOException {
+        return open(path, CHUNK_SHIFT, false);
+    }
+
+    /**
+     * Maps an existing file for reading only, for example a dataset on a read only mount or
+     * owned by another user. {@link #set(int, int, double)} is rejected, operations write their
+     * results to other files as usual, and the temporary results of the {@link BaseMatrix}
+     * methods go to the default temporary directory instead of next to the file.
+     *
+     * @param path
+     * @return matrix mapped from the file.
+     * @throws IOException if the file can not be read, is not a matrix file or is truncated.
+     */
+    public static MappedMatrix openReadOnly(Path path) throws IOException {
+        return open(path, CHUNK_SHIFT, true);
+    }
+
+    static MappedMatrix open(Path path, int chunkShift, boolean readOnly) throws IOException {
+        FileChannel channel = readOnly ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while(header.hasRemaining() && channel.read(header, header.position()) >= 0);
+            header.flip();
+            if(header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION){
+                throw new IOException("Not a matrix file: " + path);
+            }
+            int rows = header.getInt(), columns = header.getInt();
+            if(rows <= 0 || columns <= 0 || channel.size() < HEADER + (long) rows * columns * Double.BYTES){
+                throw new IOException("Truncated matrix file: " + path);
+            }
+            return new MappedMatrix(path, channel, rows, columns, chunkShift, false, readOnly);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a matrix of any kind to the file.
+     *
+     * @param matrix
+     * @param path
+     * @return matrix mapped from the new file.
+     * @throws IOException if the file can not be created or mapped.
+     */
+    public static MappedMatrix copyOf(BaseMatrix matrix, Path path) throws IOException {
+        return copyOf(matrix, path, CHUNK_SHIFT);
+    }
+
+    static MappedMatrix copyOf(BaseMatrix matrix, Path path, int chunkShift) throws IOException {
+        MappedMatrix result = create(path, matrix.getRows(), matrix.getColumns(), chunkShift, false);
+        int tile = MappedMatrix.tile;
+        double[] block = new double[Math.min(tile, result.rows) * Math.min(tile, result.columns)];
+        for(int i = 0; i < result.rows; i += tile){
+            int r = Math.min(tile, result.rows - i);
+            for(int j = 0; j < result.columns; j += tile){
+                int c = Math.min(tile, result.columns - j);
+                readBlock(matrix, i, j, r, c, block);
+                writeBlock(result, i, j, r, c, block);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the edge of the square tiles in which operations stream through their operands.
+     *
+     * @param tile number of rows and columns of a tile, 1024 by default.
+     * @throws IllegalArgumentException if tile is not positive, or tile^2 exceeds the largest int.
+     */
+    public static void setTileSize(int tile) {
+        if(tile <= 0 || tile > MAX_TILE){
+            throw new IllegalArgumentException("Tile size must be between 1 and " + MAX_TILE + ".");
+        }
+        MappedMatrix.tile = tile;
+    }
+
+    /**
+     * @return number of rows and columns of a tile.
+     */
+    public static int getTileSize() {
+        return tile;
+    }
+
+    /**
+     * @return true if the matrix was opened with {@link #openReadOnly(Path)}.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return path of the file backing the matrix.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        long index = index(rowIndex, columnIndex);
+        return chunks[(int) (index >>> chunkShift)].get((int) (index & ((1L << chunkShift) - 1)));
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     * @throws UnsupportedOperationException if the matrix is mapped read only.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be written at rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, double value) {
+        if(readOnly){
+            throw new UnsupportedOperationException("Matrix is mapped read only.");
+        }
+        long index = index(rowIndex, columnIndex);
+        chunks[(int) (index >>> chunkShift)].put((int) (index & ((1L << chunkShift) - 1)), value);
+    }
+
+    private long index(int rowIndex, int columnIndex) {
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex < 0)
+            throw new ArrayIndexOutOfBoundsException();
+        return (long) rowIndex * columns + columnIndex;
+    }
+
+    /**
+     * Copies length elements starting at the row major index into d.
+     */
+    private void read(long index, double[] d, int offset, int length) {
+        long mask = (1L << chunkShift) - 1;
+        while(length > 0){
+            int position = (int) (index & mask);
+            int n = (int) Math.min(length, (1L << chunkShift) - position);
+            chunks[(int) (index >>> chunkShift)].get(position, d, offset, n);
+            index += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void write(long index, double[] d, int offset, int length) {
+        long mask = (1L << chunkShift) - 1;
+        while(length > 0){
+            int position = (int) (index & mask);
+            int n = (int) Math.min(length, (1L << chunkShift) - position);
+            chunks[(int) (index >>> chunkShift)].put(position, d, offset, n);
+            index += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Copies the rows x columns block of the matrix at (row, column) into d, row major.
+     */
+    private static void readBlock(BaseMatrix matrix, int row, int column, int rows, int columns, double[] d) {
+        if(matrix instanceof MappedMatrix){
+            MappedMatrix mapped = (MappedMatrix) matrix;
+            for(int i = 0; i < rows; i++){
+                mapped.read((long) (row + i) * mapped.columns + column, d, i * columns, columns);
+            }
+        } else if(matrix instanceof Matrix){
+            Matrix dense = (Matrix) matrix;
+            for(int i = 0; i < rows; i++){
+                System.arraycopy(dense.data(), dense.offset() + (row + i) * dense.stride() + column, d, i * columns, columns);
+            }
+        } else {
+            for(int i = 0; i < rows; i++){
+                for(int j = 0; j < columns; j++){
+                    d[i * columns + j] = matrix.get(row + i, column + j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the row major block d into the rows x columns block of the matrix at (row, column).
+     */
+    private static void writeBlock(BaseMatrix matrix, int row, int column, int rows, int columns, double[] d) {
+        if(matrix instanceof MappedMatrix){
+            MappedMatrix mapped = (MappedMatrix) matrix;
+            for(int i = 0; i < rows; i++){
+                mapped.write((long) (row + i) * mapped.columns + column, d, i * columns, columns);
+            }
+        } else {
+            ((Matrix) matrix).setBlock(row, column, rows, columns, d);
+        }
+    }
+
+    /**
+     * Writes the product of a and b into dest, one tile of dest at a time. Each tile of dest
+     * reads a row of tiles of a and a column of tiles of b.
+     */
+    static void multiply(BaseMatrix a, BaseMatrix b, BaseMatrix dest) {
+        int tile = MappedMatrix.tile;
+        int m = a.getRows(), n = b.getColumns(), k = a.getColumns();
+        // Operands smaller than a tile only need buffers of their own size.
+        int tm = Math.min(tile, m), tn = Math.min(tile, n), tk = Math.min(tile, k);
+        double[] aTile = new double[tm * tk];
+        double[] bTile = new double[tk * tn];
+        double[] cTile = new double[tm * tn];
+        for(int i = 0; i < m; i += tile){
+            int r = Math.min(tile, m - i);
+            for(int j = 0; j < n; j += tile){
+                int c = Math.min(tile, n - j);
+                Arrays.fill(cTile, 0, r * c, 0);
+                for(int p = 0; p < k; p += tile){
+                    int depth = Math.min(tile, k - p);
+                    readBlock(a, i, p, r, depth, aTile);
+                    readBlock(b, p, j, depth, c, bTile);
+                    Gemm.multiply(aTile, 0, depth, bTile, 0, c, cTile, 0, c, r, c, depth);
+                }
+                writeBlock(dest, i, j, r, c, cTile);
+            }
+        }
+    }
+
+    private enum ElementWise { ADD, MULTIPLY, SCALE }
+
+    /**
+     * Streams through the rows of this matrix and that in runs of up to tile^2 elements.
+     */
+    private MappedMatrix elementWise(ElementWise operation, BaseMatrix that, double number, Path output) throws IOException {
+        MappedMatrix result = create(output, rows, columns, chunkShift, false);
+        elementWise(operation, that, number, result);
+        return result;
+    }
+
+    private void elementWise(ElementWise operation, BaseMatrix that, double number, MappedMatrix result) {
+        Kernels kernels = Kernels.INSTANCE;
+        int run = (int) Math.min(columns, (long) tile * tile);
+        double[] left = new double[run];
+        double[] right = operation == ElementWise.SCALE ? null : new double[run];
+        for(int i = 0; i < rows; i++){
+            for(int j = 0; j < columns; j += run){
+                int length = Math.min(run, columns - j);
+                long index = (long) i * columns + j;
+                read(index, left, 0, length);
+                switch (operation) {
+                    case ADD:
+                        readBlock(that, i, j, 1, length, right);
+                        kernels.add(left, 0, right, 0, left, 0, length);
+                        break;
+                    case MULTIPLY:
+                        readBlock(that, i, j, 1, length, right);
+                        kernels.multiply(left, 0, right, 0, left, 0, length);
+                        break;
+                    case SCALE:
+                        kernels.scale(left, 0, number, left, 0, length);
+                        break;
+                }
+                result.write(index, left, 0, length);
+            }
+        }
+    }
+
+    /**
+     * @param matrix
+     * @param output file that receives the sum.
+     * @return sum of both the matrices, mapped from output.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     * @throws IOException if the output can not be created or mapped.
+     */
+    public MappedMatrix add(BaseMatrix matrix, Path output) throws AdditionCompatibleException, IOException {
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new AdditionCompatibleException();
+        }
+        return elementWise(ElementWise.ADD, matrix, 0, output);
+    }
+
+    /**
+     * @param matrix
+     * @param output file that receives the product.
+     * @return product of both the matrices, mapped from output.
+     * @throws MultiplicationCompatibleException if number of columns of this matrix is not equal to
+     *               number of rows of the matrix.
+     * @throws IOException if the output can not be created or mapped.
+     */
+    public MappedMatrix multiply(BaseMatrix matrix, Path output) throws MultiplicationCompatibleException, IOException {
+        if(columns != matrix.getRows()){
+            throw new MultiplicationCompatibleException();
+        }
+        MappedMatrix result = create(output, rows, matrix.getColumns(), chunkShift, false);
+        multiply(this, matrix, result);
+        return result;
+    }
+
+    /**
+     * @param matrix
+     * @param output file that receives the element wise product.
+     * @return element wise product of both the matrices, mapped from output.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     * @throws IOException if the output can not be created or mapped.
+     */
+    public MappedMatrix multiplyElementWise(BaseMatrix matrix, Path output) throws MultiplicationCompatibleException, IOException {
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new MultiplicationCompatibleException();
+        }
+        return elementWise(ElementWise.MULTIPLY, matrix, 0, output);
+    }
+
+    /**
+     * @param number
+     * @param output file that receives the result.
+     * @return matrix whose each element is multiplied by number, mapped from output.
+     * @throws IOException if the output can not be created or mapped.
+     */
+    public MappedMatrix multiply(double number, Path output) throws IOException {
+        return elementWise(ElementWise.SCALE, null, number, output);
+    }
+
+    /**
+     * @param output file that receives the transpose.
+     * @return transpose of the matrix, mapped from output.
+     * @throws IOException if the output can not be created or mapped.
+     */
+    public MappedMatrix transpose(Path output) throws IOException {
+        MappedMatrix result = create(output, columns, rows, chunkShift, false);
+        transpose(result);
+        return result;
+    }
+
+    private void transpose(MappedMatrix result) {
+        int tile = MappedMatrix.tile;
+        double[] block = new double[Math.min(tile, rows) * Math.min(tile, columns)];
+        double[] transposed = new double[block.length];
+        for(int i = 0; i < rows; i += tile){
+            int r = Math.min(tile, rows - i);
+            for(int j = 0; j < columns; j += tile){
+                int c = Math.min(tile, columns - j);
+                readBlock(this, i, j, r, c, block);
+                for(int x = 0; x < r; x++){
+                    for(int y = 0; y < c; y++){
+                        transposed[y * r + x] = block[x * c + y];
+                    }
+                }
+                writeBlock(result, j, i, c, r, transposed);
+            }
+        }
+    }
+
+    /**
+     * The matrix is loaded on the heap, see {@link #toDense()}.
+     *
+     * @return determinant of the matrix.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     */
+    public double getDeterminant() throws NotASqaureMatrixException {
+        return toDense().lu().getDeterminant();
+    }
+
+    /**
+     * The matrix is loaded on the heap, see {@link #toDense()}.
+     *
+     * @param output file that receives the inverse.
+     * @return inverse of the matrix, mapped from output.
+     * @throws Exception if the matrix is singular, or the output can not be created or mapped.
+     */
+    public MappedMatrix inverse(Path output) throws Exception {
+        return copyOf(toDense().inverse(), output, chunkShift);
+    }
+
+    /**
+     * The inverse is written to a temporary file, see {@link #inverse(Path)}.
+     */
+    public MappedMatrix inverse() throws Exception {
+        return temporaryCopy(toDense().inverse());
+    }
+
+    /**
+     * The matrix is loaded on the heap, see {@link #toDense()}.
+     *
+     * @param output file that receives the adjoint.
+     * @return adjoint of the matrix, mapped from output.
+     * @throws Exception if the matrix is not square, or the output can not be created or mapped.
+     */
+    public MappedMatrix adjoint(Path output) throws Exception {
+        return copyOf(toDense().adjoint(), output, chunkShift);
+    }
+
+    /**
+     * The adjoint is written to a temporary file, see {@link #adjoint(Path)}.
+     */
+    public MappedMatrix adjoint() throws Exception {
+        return temporaryCopy(toDense().adjoint());
+    }
+
+    /**
+     * The matrix is loaded on the heap, see {@link #toDense()}.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @return cofactor of the elements specified by rowIndex and columnIndex.
+     * @throws Exception if the matrix is not square.
+     */
+    public double cofactor(int rowIndex, int columnIndex) throws Exception {
+        return toDense().cofactor(rowIndex, columnIndex);
+    }
+
+    /**
+     * @throws IllegalStateException if the matrix has more elements than a Java array can hold.
+     */
+    @Override
+    public Matrix toDense() {
+        if((long) rows * columns > Integer.MAX_VALUE - 8){
+            throw new IllegalStateException("Matrix is too large for the heap.");
+        }
+        double[] d = new double[rows * columns];
+        read(0, d, 0, d.length);
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * The sum is written to a temporary file, see {@link #add(BaseMatrix, Path)}.
+     */
+    @Override
+    public MappedMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new AdditionCompatibleException();
+        }
+        MappedMatrix result = temporary(rows, columns);
+        elementWise(ElementWise.ADD, matrix, 0, result);
+        return result;
+    }
+
+    /**
+     * The product is written to a temporary file, see {@link #multiply(BaseMatrix, Path)}.
+     */
+    @Override
+    public MappedMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(columns != matrix.getRows()){
+            throw new MultiplicationCompatibleException();
+        }
+        MappedMatrix result = temporary(rows, matrix.getColumns());
+        multiply(this, matrix, result);
+        return result;
+    }
+
+    /**
+     * The product is written to a temporary file, see {@link #multiplyElementWise(BaseMatrix, Path)}.
+     */
+    @Override
+    public MappedMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new MultiplicationCompatibleException();
+        }
+        MappedMatrix result = temporary(rows, columns);
+        elementWise(ElementWise.MULTIPLY, matrix, 0, result);
+        return result;
+    }
+
+    /**
+     * The result is written to a temporary file, see {@link #multiply(double, Path)}.
+     */
+    @Override
+    public MappedMatrix multiply(double number) {
+        MappedMatrix result = temporary(rows, columns);
+        elementWise(ElementWise.SCALE, null, number, result);
+        return result;
+    }
+
+    /**
+     * The transpose is written to a temporary file, see {@link #transpose(Path)}.
+     */
+    @Override
+    public MappedMatrix transpose() {
+        MappedMatrix result = temporary(columns, rows);
+        transpose(result);
+        return result;
+    }
+
+    /**
+     * @throws UncheckedIOException if the file can not be created, since the {@link BaseMatrix}
+     *          methods do not declare IOException.
+     */
+    private MappedMatrix temporary(int rows, int columns) {
+        try {
+            Path file = readOnly ? Files.createTempFile("la4j", ".matrix")
+                    : Files.createTempFile(path.toAbsolutePath().getParent(), "la4j", ".matrix");
+            return create(file, rows, columns, chunkShift, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedMatrix temporaryCopy(Matrix matrix) {
+        MappedMatrix result = temporary(matrix.getRows(), matrix.getColumns());
+        for(int i = 0; i < result.rows; i++){
+            result.write((long) i * result.columns, matrix.data(), matrix.offset() + i * matrix.stride(), result.columns);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the modified pages of the matrix back to the file.
+     */
+    public void flush() {
+        for(MappedByteBuffer mapping : mappings){
+            mapping.force();
+        }
+    }
+
+    /**
+     * Closes the file, and deletes it if it holds the result of an operation without an output
+     * path. The mapping itself is released when the matrix is garbage collected, the matrix must
+     * not be used after it is closed.
+     *
+     * @throws IOException if the file can not be closed or deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if(cleanable != null){
+            Files.deleteIfExists(path);
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * Closes and deletes the file of a temporary result. It must not refer to the matrix, or
+     * the matrix would never become unreachable.
+     */
+    static final class Deletion implements Runnable {
+        private final Path path;
+        private final FileChannel channel;
+
+        Deletion(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // Runs on the cleaner thread, which has no one to report to.
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return rows + " x " + columns + " matrix mapped from " + path;
+    }
+}
@@ -0,0 +1,1265 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.NotPositiveDefiniteMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@SuppressWarnings("unused")
+public class  Matrix implements BaseMatrix {
+
+    private static final int TRANSPOSE_BLOCK = 64;
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int rows;
+    private final int columns;
+    // Element (i,j) is data[offset + i*stride + j], or data[offset + j*stride + i] for a
+    // transposed view. The storage of a view is shared with the matrix it was created from
+    // until either of them is written while the other is still reachable.
+    private double[] data;
+    private int offset;
+    private int stride;
+    private boolean transposed;
+    private Sharing sharing;
+    private volatile Matrix rowMajorCopy;
+    private boolean approximate;
+
+    // Factorizations kept for repeated solves, dropped whenever the elements change.
+    private LUDecomposition lu;
+    private CholeskyDecomposition cholesky;
+    private QRDecomposition qr;
+    private SingularValueDecomposition svd;
+    private SymmetricEigenDecomposition eigen;
+
+    // Content hash, computed on first use and kept up to date by set in O(1).
+    private long hash;
+    private volatile boolean hashed;
+
+    private static volatile double threshold =
+            Double.parseDouble(System.getProperty("la4j.approximate.threshold", "9.9E-10"));
+
+    /**
+     * Creates a matrix of the given dimensions filled with zeros, for example as the
+     * destination of {@link #multiplyInto(Matrix, Matrix, Matrix)}.
+     *
+     * @param rows
+     * @param columns
+     */
+    public Matrix(int rows, int columns){
+        this(rows, columns, new double[rows*columns], false);
+    }
+
+    /**
+     * @param matrix is two dimensional array which is used to create matrix
+     */
+    public Matrix(double[][] matrix){
+        this(matrix,false);
+    }
+
+    /**
+     * The elements are copied into contiguous row major storage, later changes to the array
+     * are not seen by the matrix.
+     *
+     * @param matrix is two dimensional array which is used to create matrix.
+     * @param approximate sets the approximation true.
+     */
+    public Matrix(double[][] matrix, boolean approximate) {
+        this.rows = matrix.length;
+        try {
+            this.columns = matrix[0].length;
+        } catch (NullPointerException e) {
+            throw new IllegalArgumentException("Not a valid 2-dimensional array! " +
+                    "Number Of columns not defined.");
+        }
+        this.data = new double[rows*columns];
+        this.offset = 0;
+        this.stride = columns;
+        for(int i = 0; i<rows; i++){
+            if(matrix[i] == null || matrix[i].length != columns){
+                throw new IllegalArgumentException("Not a valid 2-dimensional array! " +
+                        "Rows are not of equal length.");
+            }
+            System.arraycopy(matrix[i], 0, data, i*columns, columns);
+            if(approximate){
+                approximate(data, i*columns, columns);
+            }
+        }
+        this.approximate = approximate;
+    }
+
+    /**
+     * Wraps row major storage without copying it, element (i,j) is data[offset + i*stride + j].
+     * When approximate is set the elements must already be approximated, the operations do it
+     * in their own output loops instead of scanning the result again.
+     */
+    Matrix(int rows, int columns, double[] data, int offset, int stride, boolean approximate) {
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+        this.offset = offset;
+        this.stride = stride;
+        this.approximate = approximate;
+    }
+
+    Matrix(int rows, int columns, double[] data, boolean approximate) {
+        this(rows, columns, data, 0, columns, approximate);
+    }
+
+    /**
+     * Transposed view of the source, sharing its storage.
+     */
+    private Matrix(Matrix source) {
+        this.rows = source.columns;
+        this.columns = source.rows;
+        this.data = source.data;
+        this.offset = source.offset;
+        this.stride = source.stride;
+        this.transposed = !source.transposed;
+        this.approximate = source.approximate;
+        source.shareWith(this);
+    }
+
+    /**
+     * Sets the threshold below which the elements of approximated matrices are set to zero,
+     * 9.9E-10 unless given by the system property la4j.approximate.threshold. Elements are
+     * compared when they are written, so matrices keep the elements approximated before.
+     *
+     * @param threshold non negative threshold, zero disables the approximation.
+     */
+    public static void setApproximationThreshold(double threshold) {
+        if(!(threshold >= 0)){
+            throw new IllegalArgumentException("Threshold must be non negative.");
+        }
+        Matrix.threshold = threshold;
+    }
+
+    /**
+     * @return threshold below which the elements of approximated matrices are set to zero.
+     */
+    public static double getApproximationThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the element present at rowIndex and columnIndex position.
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @return the element present at rowIndex and columnIndex position in the matrix.
+     */
+    public double get(int rowIndex, int columnIndex){
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        return data[offset + rowIndex*rowStride() + columnIndex*columnStride()];
+    }
+
+    /**
+     * Sets the value that will be inserted in the position specified by rowIndex and columnIndex.
+     * For an approximated matrix only the value is compared with the threshold, in O(1).
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be inserted in the position specified by
+     *              rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, double value){
+        if(rowIndex >= rows || rowIndex < 0 || columnIndex >= columns || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+        own();
+        int position = offset + rowIndex*stride + columnIndex;
+        double old = data[position];
+        boolean valid = hashed;
+        data[position] = approximate && Math.abs(value) < threshold ? 0 : value;
+        modified();
+        if(valid){
+            int index = rowIndex*columns + columnIndex;
+            hash += hash(index, data[position]) - hash(index, old);
+            hashed = true;
+        }
+    }
+
+    /**
+     * Add matrix element wise and return a new matrix that is sum of both the matrix.
+     * Does not modifies the original matrix.
+     *
+     * @param matrix
+     * @return
+     * @throws AdditionCompatibleException if number of rows and columns of the matrix are not
+     *           equal to the number of rows and columns of matrix with which addition is going
+     *           to be performed.
+     */
+    public Matrix add(Matrix matrix) throws AdditionCompatibleException {
+        if(isDimensionallyEqual(matrix)){
+            Instrumentation.Span start = Instrumentation.start();
+            double[] d = new double[rows*columns];
+            elementWise(ElementWise.ADD, matrix, this, 0, d, 0, columns);
+            record(MatrixOperation.ADD, start, d.length, 8L*d.length);
+            return new Matrix(rows,columns,d,approximate);
+        }
+        throw new AdditionCompatibleException();
+    }
+
+    /**
+     * Adds a matrix of any kind, a sparse matrix only touches its non zero elements.
+     *
+     * @param matrix
+     * @return dense sum of both the matrices.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public Matrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(matrix instanceof Matrix){
+            return add((Matrix) matrix);
+        }
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new AdditionCompatibleException();
+        }
+        if(matrix instanceof CsrMatrix){
+            return SparseKernels.add((CsrMatrix) matrix, this, approximate);
+        }
+        if(matrix instanceof CscMatrix){
+            return SparseKernels.add(((CscMatrix) matrix).toCsr(), this, approximate);
+        }
+        return add(matrix.toDense());
+    }
+
+    /**
+     * Adds the matrix element wise into this matrix, without allocating.
+     *
+     * @param matrix
+     * @return this matrix.
+     * @throws AdditionCompatibleException if number of rows and columns of the matrix are not
+     *           equal to the number of rows and columns of this matrix.
+     */
+    public Matrix addInPlace(Matrix matrix) throws AdditionCompatibleException {
+        if(isDimensionallyEqual(matrix)){
+            Instrumentation.Span start = Instrumentation.start();
+            own();
+            elementWise(ElementWise.ADD, this, matrix, 0, data, offset, stride);
+            modified();
+            record(MatrixOperation.ADD, start, (long) rows*columns, 0);
+            return this;
+        }
+        throw new AdditionCompatibleException();
+    }
+
+    /**
+     * Adds alpha times the matrix x into this matrix in a single pass, without allocating.
+     *
+     * @param alpha
+     * @param x
+     * @return this matrix.
+     * @throws AdditionCompatibleException if number of rows and columns of x are not
+     *           equal to the number of rows and columns of this matrix.
+     */
+    public Matrix axpy(double alpha, Matrix x) throws AdditionCompatibleException {
+        if(isDimensionallyEqual(x)){
+            Instrumentation.Span start = Instrumentation.start();
+            own();
+            elementWise(ElementWise.AXPY, this, x, alpha, data, offset, stride);
+            modified();
+            record(MatrixOperation.AXPY, start, 2L*rows*columns, 0);
+            return this;
+        }
+        throw new AdditionCompatibleException();
+    }
+
+    /**
+     * Multiply the matrix with normal rule of matrix multiplication and return product matrix.
+     * This method does not modifies the original matrix. Large products take the
+     * Strassen-Winograd path when it is enabled, see {@link Strassen}.
+     *
+     * @param matrix
+     * @return
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    public Matrix multiply(Matrix matrix) throws MultiplicationCompatibleException {
+        if(isMultiplicationCompatible(matrix)){
+            Instrumentation.Span start = Instrumentation.start();
+            double[] d = new double[rows*matrix.columns];
+            if(Strassen.applies(rows, matrix.columns, columns)){
+                Strassen.multiply(data, offset, rowStride(), columnStride(),
+                        matrix.data, matrix.offset, matrix.rowStride(), matrix.columnStride(),
+                        d, rows, matrix.columns, columns);
+            } else {
+                // Transposed views are read through their strides by the packing of the kernel.
+                Gemm.multiply(1, data, offset, rowStride(), columnStride(),
+                        matrix.data, matrix.offset, matrix.rowStride(), matrix.columnStride(),
+                        d, 0, matrix.columns, rows, matrix.columns, columns);
+            }
+            Matrix product = new Matrix(rows,matrix.columns,approximate ? approximate(d) : d,approximate);
+            record(MatrixOperation.MULTIPLY, start, 2L*rows*columns*matrix.columns, 8L*d.length);
+            return product;
+        }
+        throw new MultiplicationCompatibleException();
+    }
+
+    /**
+     * Multiplies with a matrix of any kind, a sparse matrix only touches its non zero elements.
+     *
+     * @param matrix
+     * @return dense product matrix.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    @Override
+    public Matrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix instanceof Matrix){
+            return multiply((Matrix) matrix);
+        }
+        if(columns != matrix.getRows()){
+            throw new MultiplicationCompatibleException();
+        }
+        if(matrix instanceof CsrMatrix){
+            return SparseKernels.multiply(this, (CsrMatrix) matrix, approximate);
+        }
+        if(matrix instanceof CscMatrix){
+            return SparseKernels.multiply(this, ((CscMatrix) matrix).toCsr(), approximate);
+        }
+        if(matrix instanceof MappedMatrix){
+            // Streams the mapped operand one tile at a time instead of loading it on the heap.
+            double[] d = new double[rows*matrix.getColumns()];
+            MappedMatrix.multiply(this, matrix, new Matrix(rows, matrix.getColumns(), d, false));
+            return new Matrix(rows, matrix.getColumns(), approximate ? approximate(d) : d, approximate);
+        }
+        return multiply(matrix.toDense());
+    }
+
+    /**
+     * Multiplies a with b and writes the product into dest, without allocating. dest must
+     * not share its storage with a or b.
+     *
+     * @param a
+     * @param b
+     * @param dest matrix with rows of a and columns of b that receives the product.
+     * @return dest.
+     * @throws MultiplicationCompatibleException if number of columns of a is not equal to number
+     *               of rows of b, or dest does not have the dimensions of the product.
+     */
+    public static Matrix multiplyInto(Matrix a, Matrix b, Matrix dest) throws MultiplicationCompatibleException {
+        if(!a.isMultiplicationCompatible(b) || dest.rows != a.rows || dest.columns != b.columns){
+            throw new MultiplicationCompatibleException();
+        }
+        Instrumentation.Span start = Instrumentation.start();
+        dest.own();
+        if(dest.data == a.data || dest.data == b.data){
+            throw new IllegalArgumentException("Destination matrix can not share storage with an operand.");
+        }
+        for(int i = 0; i < dest.rows; i++){
+            int r = dest.offset + i*dest.stride;
+            Arrays.fill(dest.data, r, r + dest.columns, 0);
+        }
+        Gemm.multiply(1, a.data, a.offset, a.rowStride(), a.columnStride(),
+                b.data, b.offset, b.rowStride(), b.columnStride(),
+                dest.data, dest.offset, dest.stride, a.rows, b.columns, a.columns);
+        dest.modified();
+        dest.approximate();
+        a.record(MatrixOperation.MULTIPLY, start, 2L*a.rows*a.columns*b.columns, 0);
+        return dest;
+    }
+
+    /**
+     * @param dimension
+     * @return identity square matrix of dimension specified as parameter.
+     */
+    public static Matrix identity(int dimension){
+        double[] d = new double[dimension*dimension];
+        for(int i=0;i<dimension;i++){
+            d[i*dimension+i]=1;
+        }
+        return new Matrix(dimension,dimension,d,false);
+    }
+
+    /**
+     * Raises the matrix to the power k by repeated squaring, with floor(log2 k) squarings and
+     * one product per further set bit of k instead of k - 1 products. The products reuse
+     * three buffers, so no matrix is allocated per step.
+     *
+     * @param k non negative exponent.
+     * @return this matrix to the power k, the identity for k = 0.
+     * @throws NotASqaureMatrixException if the given matrix is not a square matrix.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public Matrix pow(int k) throws NotASqaureMatrixException {
+        if(!isSquareMatrix()){
+            throw new NotASqaureMatrixException();
+        }
+        if(k < 0){
+            throw new IllegalArgumentException("Exponent can not be negative.");
+        }
+        if(k == 0){
+            return identity(rows);
+        }
+        Instrumentation.Span start = Instrumentation.start();
+        double[] d = MatrixFunctions.pow(copyRowMajor(), rows, k);
+        record(MatrixOperation.POW, start, 2L*rows*rows*rows*MatrixFunctions.products(k), 8L*rows*rows);
+        return new Matrix(rows, rows, approximate ? approximate(d) : d, approximate);
+    }
+
+    /**
+     * Computes the matrix exponential by scaling and squaring with Pade approximants of degree
+     * up to 13, which takes at most 6 products, one squaring per halving of the matrix and
+     * one LU solve. See {@link MatrixFunctions}.
+     *
+     * @return exp of the matrix.
+     * @throws NotASqaureMatrixException if the given matrix is not a square matrix.
+     */
+    public Matrix expm() throws NotASqaureMatrixException {
+        if(!isSquareMatrix()){
+            throw new NotASqaureMatrixException();
+        }
+        Instrumentation.Span start = Instrumentation.start();
+        double[] d = MatrixFunctions.expm(copyRowMajor(), rows);
+        record(MatrixOperation.EXPM, start, 12L*rows*rows*rows, 8L*rows*rows);
+        return new Matrix(rows, rows, approximate ? approximate(d) : d, approximate);
+    }
+
+    /**
+     * @return row major copy of the elements, which the caller owns.
+     */
+    private double[] copyRowMajor() {
+        double[] d = new double[rows*columns];
+        copy(data, offset, rowStride(), columnStride(), d, 0, columns, rows, columns);
+        return d;
+    }
+
+    /**
+     * @return determinant of the given matrix.
+     * @throws Exception if the given matrix is not a square matrix.
+     */
+    public double getDeterminant() throws Exception {
+        Instrumentation.Span start = Instrumentation.start();
+        double determinant = lu().getDeterminant();
+        record(MatrixOperation.DETERMINANT, start, rows, 0);
+        return determinant;
+    }
+
+    /**
+     * Factorizes the matrix with partial pivoting. The factorization is kept by the matrix
+     * until its elements change, so determinant, inverse and solve do not factorize again.
+     *
+     * @return LU decomposition of the given matrix.
+     * @throws NotASqaureMatrixException if the given matrix is not a square matrix.
+     */
+    public LUDecomposition lu() throws NotASqaureMatrixException {
+        if(!isSquareMatrix()){
+            throw new NotASqaureMatrixException();
+        }
+        if(lu == null){
+            Instrumentation.Span start = Instrumentation.start();
+            lu = new LUDecomposition(this);
+            record(MatrixOperation.LU, start, 2L*rows*rows*rows/3, 8L*rows*rows);
+        }
+        return lu;
+    }
+
+    /**
+     * Factorizes a symmetric positive definite matrix, kept like {@link #lu()}.
+     *
+     * @return Cholesky decomposition of the given matrix.
+     * @throws NotASqaureMatrixException if the given matrix is not a square matrix.
+     * @throws NotPositiveDefiniteMatrixException if the given matrix is not positive definite.
+     */
+    public CholeskyDecomposition cholesky() throws NotASqaureMatrixException, NotPositiveDefiniteMatrixException {
+        if(!isSquareMatrix()){
+            throw new NotASqaureMatrixException();
+        }
+        if(cholesky == null){
+            Instrumentation.Span start = Instrumentation.start();
+            cholesky = new CholeskyDecomposition(this);
+            record(MatrixOperation.CHOLESKY, start, (long) rows*rows*rows/3, 8L*rows*rows);
+        }
+        return cholesky;
+    }
+
+    /**
+     * Factorizes the matrix with Householder reflections, kept like {@link #lu()}.
+     *
+     * @return QR decomposition of the given matrix.
+     * @throws MatrixCompatibleException if the matrix has less rows than columns.
+     */
+    public QRDecomposition qr() throws MatrixCompatibleException {
+        if(rows < columns){
+            throw new MatrixCompatibleException("QR decomposition needs at least as many rows as columns.");
+        }
+        if(qr == null){
+            Instrumentation.Span start = Instrumentation.start();
+            qr = new QRDecomposition(this);
+            record(MatrixOperation.QR, start, 2L*columns*columns*(rows - columns/3), 8L*rows*columns);
+        }
+        return qr;
+    }
+
+    /**
+     * Decomposes the matrix with one sided Jacobi, after a blocked QR when it has more rows
+     * than columns, kept like {@link #lu()}.
+     *
+     * @return thin singular value decomposition of the given matrix.
+     */
+    public SingularValueDecomposition svd() {
+        if(svd == null){
+            Instrumentation.Span start = Instrumentation.start();
+            svd = new SingularValueDecomposition(this);
+            long p = Math.min(rows, columns), q = Math.max(rows, columns);
+            record(MatrixOperation.SVD, start, 4L*p*p*q + 20L*p*p*p, 8L*rows*columns);
+        }
+        return svd;
+    }
+
+    /**
+     * Decomposes a symmetric matrix through a blocked tridiagonal reduction, kept like
+     * {@link #lu()}. Only the lower triangle is read.
+     *
+     * @return eigen decomposition of the given matrix.
+     * @throws NotASqaureMatrixException if the given matrix is not a square matrix.
+     */
+    public SymmetricEigenDecomposition eigen() throws NotASqaureMatrixException {
+        if(!isSquareMatrix()){
+            throw new NotASqaureMatrixException();
+        }
+        if(eigen == null){
+            Instrumentation.Span start = Instrumentation.start();
+            eigen = new SymmetricEigenDecomposition(this, true);
+            record(MatrixOperation.EIGEN, start, 13L*rows*rows*rows/3, 8L*rows*rows);
+        }
+        return eigen;
+    }
+
+    /**
+     * Computes the eigenvalues of a symmetric matrix without its eigenvectors, which saves
+     * most of the work after the tridiagonal reduction. Only the lower triangle is read.
+     *
+     * @return eigenvalues in increasing order.
+     * @throws NotASqaureMatrixException if the given matrix is not a square matrix.
+     */
+    public double[] eigenvalues() throws NotASqaureMatrixException {
+        if(!isSquareMatrix()){
+            throw new NotASqaureMatrixException();
+        }
+        if(eigen != null){
+            return eigen.getEigenvalues();
+        }
+        Instrumentation.Span start = Instrumentation.start();
+        double[] eigenvalues = new SymmetricEigenDecomposition(this, false).getEigenvalues();
+        record(MatrixOperation.EIGEN, start, 4L*rows*rows*rows/3, 8L*rows*rows);
+        return eigenvalues;
+    }
+
+    /**
+     * Solves this*X = b with the kept LU decomposition of a square matrix, or in the least
+     * squares sense with the kept QR decomposition when there are more rows than columns.
+     * Only the first call factorizes, later calls cost O(n^2) per column of b.
+     * For a symmetric positive definite matrix, cholesky().solve(b) does half the work.
+     *
+     * @param b right hand side with the rows of this matrix and any number of columns.
+     * @return solution X.
+     * @throws MatrixCompatibleException if b does not have the rows of this matrix, or this
+     *          matrix has less rows than columns.
+     * @throws SingularMatrixException if the matrix is singular or rank deficient.
+     */
+    public Matrix solve(Matrix b) throws MatrixCompatibleException, SingularMatrixException {
+        Instrumentation.Span start = Instrumentation.start();
+        Matrix x = isSquareMatrix() ? lu().solve(b) : qr().solve(b);
+        if(approximate){
+            x.approximate = true;
+            x.approximate();
+        }
+        record(MatrixOperation.SOLVE, start, 4L*rows*columns*b.columns, 8L*columns*b.columns);
+        return x;
+    }
+
+    /**
+     * @return this matrix, it is already dense.
+     */
+    @Override
+    public Matrix toDense() {
+        return this;
+    }
+
+    /**
+     * Converts with bulk SIMD conversions, see {@link FloatMatrix}.
+     *
+     * @return single precision copy of the matrix, each element rounded to the nearest float.
+     */
+    public FloatMatrix toFloat() {
+        Matrix m = rowMajor();
+        return FloatMatrix.convert(rows, columns, m.data, m.offset, m.stride);
+    }
+
+    /**
+     * @return number of rows of the matrix.
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of columns of the matrix.
+     */
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Starts a lazily evaluated expression, see {@link MatrixExpression}.
+     *
+     * @return expression whose value is this matrix.
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(this);
+    }
+
+    /**
+     * @return row major storage of the matrix, element (i,j) is data()[offset() + i*stride() + j].
+     *          A transposed view is copied once to provide it.
+     */
+    double[] data() {
+        return rowMajor().data;
+    }
+
+    int offset() {
+        return rowMajor().offset;
+    }
+
+    int stride() {
+        return rowMajor().stride;
+    }
+
+    /**
+     * @return storage as it is, element (i,j) is storage()[storageOffset() + i*rowStride() + j*columnStride()].
+     */
+    double[] storage() {
+        return data;
+    }
+
+    int storageOffset() {
+        return offset;
+    }
+
+    int rowStride() {
+        return transposed ? 1 : stride;
+    }
+
+    int columnStride() {
+        return transposed ? stride : 1;
+    }
+
+    /**
+     * @return this matrix, or for a transposed view a row major copy that is made once and kept.
+     */
+    private Matrix rowMajor() {
+        if(!transposed){
+            return this;
+        }
+        Matrix copy = rowMajorCopy;
+        if(copy == null){
+            double[] d = new double[rows*columns];
+            copy(data, offset, rowStride(), columnStride(), d, 0, columns, rows, columns);
+            copy = new Matrix(rows, columns, d, false);
+            rowMajorCopy = copy;
+        }
+        return copy;
+    }
+
+    /**
+     * @return copy of this matrix in O(1), which shares its storage until either of them is
+     *          written like a transposed view.
+     */
+    Matrix share() {
+        Matrix view = new Matrix(rows, columns, data, offset, stride, approximate);
+        view.transposed = transposed;
+        shareWith(view);
+        if(hashed){
+            view.hash = hash;
+            view.hashed = true;
+        }
+        return view;
+    }
+
+    private void shareWith(Matrix view) {
+        if(sharing == null){
+            sharing = new Sharing(this);
+        }
+        sharing.add(view);
+        view.sharing = sharing;
+    }
+
+    /**
+     * Copies the row major rows x columns block d into the matrix at (row, column), for
+     * classes that fill a matrix block by block. Goes through {@link #own()} like set.
+     */
+    void setBlock(int row, int column, int rows, int columns, double[] d) {
+        own();
+        for(int i = 0; i < rows; i++){
+            System.arraycopy(d, i*columns, data, offset + (row + i)*stride + column, columns);
+        }
+        modified();
+    }
+
+    /**
+     * Forgets the other matrices sharing the storage, as if they had been collected. For tests.
+     */
+    void releaseViews() {
+        if(sharing != null){
+            sharing.release(this);
+        }
+    }
+
+    /**
+     * Gives the matrix its own row major storage before it is written, if a view or the
+     * matrix it is a view of can still read the storage. A view that is no longer reachable
+     * does not count, so the source is written in place once its views are collected.
+     */
+    private void own() {
+        if(sharing == null){
+            return;
+        }
+        if(!transposed && !sharing.observed(this)){
+            sharing = null;
+            return;
+        }
+        Matrix copy = transposed ? rowMajor() : null;
+        double[] d;
+        if(copy != null){
+            d = copy.data;
+        } else {
+            d = new double[rows*columns];
+            copy(data, offset, rowStride(), columnStride(), d, 0, columns, rows, columns);
+        }
+        data = d;
+        offset = 0;
+        stride = columns;
+        transposed = false;
+        sharing = null;
+        rowMajorCopy = null;
+    }
+
+    boolean isApproximate() {
+        return approximate;
+    }
+
+    private boolean isSquareMatrix() {
+        return this.rows == this.columns;
+    }
+
+    private Matrix subMatrix(int rowIndex, int columnIndex){
+        Matrix source = rowMajor();
+        double[] data = source.data;
+        int offset = source.offset, stride = source.stride;
+        double[] d = new double[(rows-1)*(columns-1)];
+        int k = 0;
+        for(int i =0; i<rows;i++){
+            if(i==rowIndex){
+                continue;
+            }
+            int r = offset + i*stride;
+            for(int j=0 ;j<columns;j++){
+                if(j!=columnIndex){
+                    d[k++] = data[r+j];
+                }
+            }
+        }
+        return new Matrix(rows-1,columns-1,d,approximate);
+    }
+
+
+    private boolean isMultiplicationCompatible(Matrix matrix) {
+        return this.columns == matrix.rows;
+    }
+
+    private boolean isDimensionallyEqual(Matrix matrix) {
+        return matrix.rows == this.rows && matrix.columns == this.columns;
+    }
+
+    /**
+     * Checks if each and every element of matrix and matches it with the matrix.
+     *
+     * @param obj
+     * @return true if equals else return false
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof Matrix)){
+            return false;
+        }
+        Matrix that = ((Matrix)obj).rowMajor();
+        Matrix self = rowMajor();
+        if(that.rows != self.rows || that.columns!=self.columns){
+            return false;
+        }
+        for(int i =0;i<self.rows;i++){
+            int r = self.offset + i*self.stride, l = that.offset + i*that.stride;
+            for(int j=0;j<self.columns;j++){
+                if(self.data[r+j]!=that.data[l+j]){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consistent with {@link #equals(Object)}: equal matrices have the same hash whatever
+     * their storage, for example a transposed view and its row major copy.
+     *
+     * @return hash of the dimensions and the elements.
+     */
+    @Override
+    public int hashCode() {
+        long h = contentHash();
+        return 31 * (31 * rows + columns) + (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * The 64 bit hash is the sum of a mix of each element with its position, so that
+     * {@link #set(int, int, double)} updates it in O(1) instead of hashing the matrix again.
+     * It is computed on first use and computed again after any other write.
+     *
+     * @return 64 bit hash of the elements.
+     */
+    long contentHash() {
+        if(hashed){
+            return hash;
+        }
+        Matrix self = rowMajor();
+        long h = 0;
+        for(int i = 0; i<rows; i++){
+            int r = self.offset + i*self.stride;
+            for(int j = 0; j<columns; j++){
+                h += hash(i*columns + j, self.data[r+j]);
+            }
+        }
+        hash = h;
+        hashed = true;
+        return h;
+    }
+
+    /**
+     * Mixes the element at index with the finalizer of SplitMix64. -0.0 hashes as 0.0 since
+     * equals does not tell them apart.
+     */
+    private static long hash(int index, double value) {
+        long z = Double.doubleToLongBits(value + 0.0) + index * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param rowIndex
+     * @param columnIndex
+     * @return cofactor of the elements specified by rowIndex and columnIndex.
+     * @throws Exception
+     */
+    public double cofactor(int rowIndex, int columnIndex) throws Exception {
+        return minor(rowIndex, columnIndex) * Math.pow(-1,(rowIndex+columnIndex));
+    }
+
+    private double minor(int rowIndex, int columnIndex) throws Exception {
+        if(!isSquareMatrix()){
+            throw new NotASqaureMatrixException();
+        }
+        if(rows == 1){
+            return 1;
+        }
+        return subMatrix(rowIndex,columnIndex).getDeterminant();
+    }
+
+    /**
+     * @return inverse of the matrix
+     * @throws Exception if the given matrix is a singular matrix.
+     */
+    public Matrix inverse() throws Exception {
+        Instrumentation.Span start = Instrumentation.start();
+        LUDecomposition lu = lu();
+        if(lu.isSingular())
+            throw new SingularMatrixException();
+        double[] inverse = lu.inverseArray();
+        Matrix result = new Matrix(rows,columns,approximate ? approximate(inverse) : inverse,approximate);
+        record(MatrixOperation.INVERSE, start, 4L*rows*rows*rows/3, 8L*inverse.length);
+        return result;
+    }
+
+    /**
+     * For a non singular matrix the cofactors are taken from the inverse as
+     * det * inverse(j,i), otherwise every cofactor is computed from its own minor.
+     *
+     * @return adjoint of the given matrix.
+     * @throws Exception
+     */
+    public Matrix adjoint() throws Exception {
+        Instrumentation.Span start = Instrumentation.start();
+        LUDecomposition lu = lu();
+        double[] cM = new double[this.rows*this.columns];
+        if(!lu.isSingular()){
+            double det = lu.getDeterminant();
+            double[] inverse = lu.inverseArray();
+            for(int i =0;i<rows;i++){
+                for(int j =0;j<columns;j++){
+                    cM[i*columns+j] = det * inverse[j*rows+i];
+                }
+            }
+            record(MatrixOperation.ADJOINT, start, 4L*rows*rows*rows/3 + cM.length, 16L*cM.length);
+            return new Matrix(rows,columns,approximate ? approximate(cM) : cM,approximate);
+        }
+        for(int i =0;i<rows;i++){
+            for(int j =0;j<columns;j++){
+                cM[i*columns+j] = cofactor(i,j);
+            }
+        }
+        record(MatrixOperation.ADJOINT, start, 2L*cM.length*rows*rows*rows/3, 8L*cM.length*rows*rows);
+        return new Matrix(rows,columns,approximate ? approximate(cM) : cM,approximate);
+    }
+
+    /**
+     * The transpose is a view that shares the storage of this matrix and is created in O(1).
+     * Products read it through its strides, other operations copy it once with a cache
+     * oblivious transpose when they need row major storage. Writing to either matrix gives it
+     * its own storage first, so they never see each other's changes.
+     *
+     * @return transpose of the given matrix
+     */
+    public Matrix transpose(){
+        Instrumentation.Span start = Instrumentation.start();
+        Matrix view = new Matrix(this);
+        record(MatrixOperation.TRANSPOSE, start, 0, 0);
+        return view;
+    }
+
+    /**
+     * Writes the transpose of this matrix into dest, without allocating. dest must not share
+     * its storage with this matrix.
+     *
+     * @param dest matrix with columns of this matrix as rows and rows of this matrix as columns.
+     * @return dest.
+     * @throws MatrixCompatibleException if dest does not have the dimensions of the transpose.
+     */
+    public Matrix transposeInto(Matrix dest) throws MatrixCompatibleException {
+        if(dest.rows != columns || dest.columns != rows){
+            throw new MatrixCompatibleException();
+        }
+        Instrumentation.Span start = Instrumentation.start();
+        dest.own();
+        if(dest.data == data){
+            throw new IllegalArgumentException("Destination matrix can not share storage with an operand.");
+        }
+        copy(data, offset, columnStride(), rowStride(), dest.data, dest.offset, dest.stride, columns, rows);
+        dest.modified();
+        if(!approximate){
+            dest.approximate();
+        }
+        record(MatrixOperation.TRANSPOSE, start, 0, 0);
+        return dest;
+    }
+
+    /**
+     * Copies the rows x columns matrix whose element (i,j) is src[srcOffset + i*rowStride + j*columnStride]
+     * into row major storage d, so that a transpose is a copy with swapped strides. Strided
+     * copies recursively halve the larger dimension down to blocks that fit in L1, which keeps
+     * both sides cache friendly at every level of the hierarchy without tuning a block size.
+     */
+    static void copy(double[] src, int srcOffset, int rowStride, int columnStride,
+                     double[] d, int dOffset, int dStride, int rows, int columns){
+        if(Parallelism.isParallel((long) rows*columns)){
+            Parallelism.forRange(0, rows, TRANSPOSE_BLOCK, columns, (from, to) ->
+                    copyBlock(src, srcOffset + from*rowStride, rowStride, columnStride,
+                            d, dOffset + from*dStride, dStride, to - from, columns));
+        } else {
+            copyBlock(src, srcOffset, rowStride, columnStride, d, dOffset, dStride, rows, columns);
+        }
+    }
+
+    private static void copyBlock(double[] src, int srcOffset, int rowStride, int columnStride,
+                                  double[] d, int dOffset, int dStride, int rows, int columns){
+        if(columnStride == 1){
+            for(int i = 0; i<rows; i++){
+                System.arraycopy(src, srcOffset + i*rowStride, d, dOffset + i*dStride, columns);
+            }
+            return;
+        }
+        if(rows*columns <= TRANSPOSE_BLOCK*TRANSPOSE_BLOCK){
+            for(int i = 0; i<rows; i++){
+                int r = srcOffset + i*rowStride, k = dOffset + i*dStride;
+                for(int j = 0; j<columns; j++){
+                    d[k+j] = src[r + j*columnStride];
+                }
+            }
+            return;
+        }
+        if(rows >= columns){
+            int half = rows/2;
+            copyBlock(src, srcOffset, rowStride, columnStride, d, dOffset, dStride, half, columns);
+            copyBlock(src, srcOffset + half*rowStride, rowStride, columnStride,
+                    d, dOffset + half*dStride, dStride, rows - half, columns);
+        } else {
+            int half = columns/2;
+            copyBlock(src, srcOffset, rowStride, columnStride, d, dOffset, dStride, rows, half);
+            copyBlock(src, srcOffset + half*columnStride, rowStride, columnStride,
+                    d, dOffset + half, dStride, rows, columns - half);
+        }
+    }
+
+    /**
+     * @param number
+     * @return return a matrix whose each element is multiplied by number specified as parameter.
+     */
+    public Matrix multiply(double number){
+        Instrumentation.Span start = Instrumentation.start();
+        double[] d = new double[rows*columns];
+        elementWise(ElementWise.SCALE, this, null, number, d, 0, columns);
+        record(MatrixOperation.SCALE, start, d.length, 8L*d.length);
+        return new Matrix(rows,columns,d,approximate);
+    }
+
+    /**
+     * Multiplies each element of this matrix by number, without allocating.
+     *
+     * @param number
+     * @return this matrix.
+     */
+    public Matrix scaleInPlace(double number){
+        Instrumentation.Span start = Instrumentation.start();
+        own();
+        elementWise(ElementWise.SCALE, this, null, number, data, offset, stride);
+        modified();
+        record(MatrixOperation.SCALE, start, (long) rows*columns, 0);
+        return this;
+    }
+
+    /**
+     * Reports an operation on this matrix to {@link Instrumentation}.
+     */
+    private void record(MatrixOperation operation, Instrumentation.Span start, long flops, long bytes){
+        Instrumentation.record(operation, start, rows, columns, flops, bytes);
+    }
+
+    /**
+     * Called after the elements are written, which approximates them itself.
+     */
+    private void modified(){
+        lu = null;
+        cholesky = null;
+        qr = null;
+        svd = null;
+        eigen = null;
+        hashed = false;
+    }
+
+    /**
+     * Approximates every element, for results that are not approximated by the loops that
+     * compute them.
+     */
+    private void approximate(){
+        if(!approximate) return;
+        for(int i=0;i<rows;i++){
+            approximate(data, offset + i*stride, columns);
+        }
+    }
+
+    /**
+     * Sets to zero the elements of the run that are below the approximation threshold.
+     */
+    static void approximate(double[] d, int offset, int length){
+        KERNELS.approximate(d, offset, length, threshold);
+    }
+
+    /**
+     * Approximates the whole array, in parallel blocks when it is large enough.
+     *
+     * @return d.
+     */
+    static double[] approximate(double[] d){
+        Parallelism.forRange(0, d.length, 4096, 1, (from, to) -> approximate(d, from, to - from));
+        return d;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for(int i =0;i<rows;i++){
+            for(int j =0 ;j<columns;j++){
+                string.append(get(i, j)).append(" ");
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
+
+    /**
+     * @param that
+     * @return a product matrix by perform element wise multiplication
+     * @throws MultiplicationCompatibleException
+     */
+    public Matrix multiplyElementWise(Matrix that) throws MultiplicationCompatibleException {
+        if(isDimensionallyEqual(that)){
+            Instrumentation.Span start = Instrumentation.start();
+            double[] d = new double[rows*columns];
+            elementWise(ElementWise.MULTIPLY, that, this, 0, d, 0, columns);
+            record(MatrixOperation.MULTIPLY_ELEMENT_WISE, start, d.length, 8L*d.length);
+            return new Matrix(rows,columns,d,approximate);
+        }
+        throw new MultiplicationCompatibleException();
+    }
+
+    /**
+     * Multiplies element wise with a matrix of any kind, the product with a sparse matrix is
+     * sparse and only touches its non zero elements.
+     *
+     * @param that
+     * @return element wise product of both the matrices.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BaseMatrix multiplyElementWise(BaseMatrix that) throws MultiplicationCompatibleException {
+        if(that instanceof Matrix){
+            return multiplyElementWise((Matrix) that);
+        }
+        if(that.getRows() != rows || that.getColumns() != columns){
+            throw new MultiplicationCompatibleException();
+        }
+        if(that instanceof CsrMatrix){
+            return SparseKernels.multiplyElementWise((CsrMatrix) that, this);
+        }
+        if(that instanceof CscMatrix){
+            return SparseKernels.multiplyElementWise(((CscMatrix) that).toCsr(), this);
+        }
+        return multiplyElementWise(that.toDense());
+    }
+
+    /**
+     * Multiplies this matrix element wise by that, without allocating.
+     *
+     * @param that
+     * @return this matrix.
+     * @throws MultiplicationCompatibleException
+     */
+    public Matrix multiplyElementWiseInPlace(Matrix that) throws MultiplicationCompatibleException {
+        if(isDimensionallyEqual(that)){
+            Instrumentation.Span start = Instrumentation.start();
+            own();
+            elementWise(ElementWise.MULTIPLY, this, that, 0, data, offset, stride);
+            modified();
+            record(MatrixOperation.MULTIPLY_ELEMENT_WISE, start, (long) rows*columns, 0);
+            return this;
+        }
+        throw new MultiplicationCompatibleException();
+    }
+
+    private enum ElementWise { ADD, MULTIPLY, SCALE, AXPY }
+
+    /**
+     * Applies the operation to the rows of left and right and writes the result into d, which
+     * may be the storage of left. Transposed views are read from their row major copies. AXPY accumulates into d, so d must be the storage of left.
+     * Each row of d is approximated right after it is written when this matrix is approximated.
+     * The rows are split on the pool only when the operation is large enough, so that serial
+     * calls do not allocate.
+     */
+    private void elementWise(ElementWise operation, Matrix left, Matrix right, double number,
+                             double[] d, int dOffset, int dStride){
+        Matrix l = left.rowMajor(), r = right == null ? null : right.rowMajor();
+        if(Parallelism.isParallel((long) rows*columns)){
+            Parallelism.forRange(0, rows, 1, columns, (from, to) ->
+                    elementWise(operation, l, r, number, d, dOffset, dStride, from, to));
+        } else {
+            elementWise(operation, l, r, number, d, dOffset, dStride, 0, rows);
+        }
+    }
+
+    private void elementWise(ElementWise operation, Matrix left, Matrix right, double number,
+                             double[] d, int dOffset, int dStride, int from, int to){
+        for(int i = from; i<to; i++){
+            int l = left.offset + i*left.stride, k = dOffset + i*dStride;
+            switch (operation) {
+                case ADD:
+                    KERNELS.add(left.data, l, right.data, right.offset + i*right.stride, d, k, columns);
+                    break;
+                case MULTIPLY:
+                    KERNELS.multiply(left.data, l, right.data, right.offset + i*right.stride, d, k, columns);
+                    break;
+                case SCALE:
+                    KERNELS.scale(left.data, l, number, d, k, columns);
+                    break;
+                case AXPY:
+                    KERNELS.axpy(number, right.data, right.offset + i*right.stride, d, k, columns);
+                    break;
+            }
+            // The row is still in L1, approximating it here saves a second pass over the result.
+            if(approximate){
+                approximate(d, k, columns);
+            }
+        }
+    }
+
+    /**
+     * Matrices sharing one storage array. They are held weakly, as a view is usually a
+     * temporary operand that must not keep its source copying on every write.
+     */
+    private static final class Sharing {
+        private final List<WeakReference<Matrix>> members = new ArrayList<>();
+        private int pruneAt = 8;
+
+        Sharing(Matrix source) {
+            members.add(new WeakReference<>(source));
+        }
+
+        synchronized void add(Matrix view) {
+            // Collected views are dropped whenever the list doubles, which keeps adding O(1).
+            if(members.size() == pruneAt){
+                members.removeIf(member -> member.get() == null);
+                pruneAt = Math.max(8, 2*members.size());
+            }
+            members.add(new WeakReference<>(view));
+        }
+
+        synchronized void release(Matrix matrix) {
+            for(WeakReference<Matrix> member : members){
+                if(member.get() != matrix){
+                    member.clear();
+                }
+            }
+        }
+
+        /**
+         * @return whether another reachable member still reads the storage of the matrix.
+         */
+        synchronized boolean observed(Matrix matrix) {
+            for(WeakReference<Matrix> member : members){
+                Matrix other = member.get();
+                if(other != null && other != matrix && other.data == matrix.data){
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
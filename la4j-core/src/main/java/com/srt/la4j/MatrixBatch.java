@@ -0,0 +1,284 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+/**
+ * A batch of small matrices of the same dimensions, for example millions of 3 x 3 or 4 x 4
+ * transforms, operated on together.
+ *
+ * The batch is stored structure of arrays in a single array: element (i,j) of matrix e is
+ * data[(i*columns + j)*size + e]. Every operation walks the batch with the SIMD lanes running
+ * across matrices, with the 3 x 3 and 4 x 4 products, and the determinants and inverses up
+ * to 4 x 4, written out in closed form, so there is no object, loop nest or approximation
+ * per matrix and the throughput is bound by memory bandwidth.
+ */
+public final class MatrixBatch {
+
+    private static final int GRAIN = 1024;
+    private static final int CLOSED_FORM = 4;
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int size;
+    private final int rows;
+    private final int columns;
+    private final double[] data;
+
+    /**
+     * Creates a batch of size matrices filled with zeros.
+     *
+     * @param size number of matrices.
+     * @param rows
+     * @param columns
+     */
+    public MatrixBatch(int size, int rows, int columns) {
+        this(size, rows, columns, new double[checkedLength(size, rows, columns)]);
+    }
+
+    /**
+     * Wraps planar storage without copying it, element (i,j) of matrix e is
+     * data[(i*columns + j)*size + e]. Later changes to the array are seen by the batch.
+     *
+     * @param size number of matrices.
+     * @param rows
+     * @param columns
+     * @param data storage of size*rows*columns elements.
+     */
+    public MatrixBatch(int size, int rows, int columns, double[] data) {
+        if(data.length != checkedLength(size, rows, columns)){
+            throw new IllegalArgumentException("Storage must hold size*rows*columns elements.");
+        }
+        this.size = size;
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    private static int checkedLength(int size, int rows, int columns) {
+        if(size < 0 || rows <= 0 || columns <= 0){
+            throw new IllegalArgumentException("Not a valid batch! Dimensions must be positive.");
+        }
+        long length = (long) size * rows * columns;
+        if(length > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Batch is too large for a single array.");
+        }
+        return (int) length;
+    }
+
+    /**
+     * @return number of matrices in the batch.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if index, rowIndex or columnIndex are out side the range.
+     *
+     * @return element at rowIndex and columnIndex of the matrix at index.
+     */
+    public double get(int index, int rowIndex, int columnIndex) {
+        return data[position(index, rowIndex, columnIndex)];
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if index, rowIndex or columnIndex are out side the range.
+     */
+    public void set(int index, int rowIndex, int columnIndex, double value) {
+        data[position(index, rowIndex, columnIndex)] = value;
+    }
+
+    private int position(int index, int rowIndex, int columnIndex) {
+        if(index >= size || index < 0 || rowIndex >= rows || rowIndex < 0
+                || columnIndex >= columns || columnIndex < 0)
+            throw new ArrayIndexOutOfBoundsException();
+        return (rowIndex*columns + columnIndex)*size + index;
+    }
+
+    /**
+     * @return copy of the matrix at index.
+     */
+    public Matrix getMatrix(int index) {
+        if(index >= size || index < 0)
+            throw new ArrayIndexOutOfBoundsException();
+        double[] d = new double[rows*columns];
+        for(int p = 0; p < d.length; p++){
+            d[p] = data[p*size + index];
+        }
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * Copies matrix into the batch at index.
+     *
+     * @throws MatrixCompatibleException if matrix does not have the dimensions of the batch.
+     */
+    public void setMatrix(int index, Matrix matrix) throws MatrixCompatibleException {
+        if(index >= size || index < 0)
+            throw new ArrayIndexOutOfBoundsException();
+        if(matrix.getRows() != rows || matrix.getColumns() != columns){
+            throw new MatrixCompatibleException("Matrix does not have the dimensions of the batch.");
+        }
+        for(int i = 0; i < rows; i++){
+            for(int j = 0; j < columns; j++){
+                data[(i*columns + j)*size + index] = matrix.get(i, j);
+            }
+        }
+    }
+
+    /**
+     * @return batch of the element wise sums of the matrices of both batches.
+     * @throws AdditionCompatibleException if the batches differ in size or dimensions.
+     */
+    public MatrixBatch add(MatrixBatch batch) throws AdditionCompatibleException {
+        if(batch.size != size || batch.rows != rows || batch.columns != columns){
+            throw new AdditionCompatibleException();
+        }
+        MatrixBatch result = new MatrixBatch(size, rows, columns);
+        double[] a = data, b = batch.data, c = result.data;
+        Parallelism.forRange(0, c.length, GRAIN, 1, (from, to) ->
+                KERNELS.add(a, from, b, from, c, from, to - from));
+        return result;
+    }
+
+    /**
+     * @return batch of the products of the matrices of this batch with the matrices at the
+     *          same index of the given batch.
+     * @throws MultiplicationCompatibleException if the batches differ in size or the matrices
+     *               can not be multiplied.
+     */
+    public MatrixBatch multiply(MatrixBatch batch) throws MultiplicationCompatibleException {
+        return multiplyInto(this, batch, new MatrixBatch(size, rows, batch.columns));
+    }
+
+    /**
+     * Multiplies every matrix of a with the matrix at the same index of b and writes the
+     * products into dest, without allocating. dest must not share its storage with a or b.
+     *
+     * @return dest.
+     * @throws MultiplicationCompatibleException if the batches differ in size, the matrices can
+     *               not be multiplied, or dest does not have the dimensions of the products.
+     */
+    public static MatrixBatch multiplyInto(MatrixBatch a, MatrixBatch b, MatrixBatch dest)
+            throws MultiplicationCompatibleException {
+        if(a.size != b.size || a.columns != b.rows || dest.size != a.size
+                || dest.rows != a.rows || dest.columns != b.columns){
+            throw new MultiplicationCompatibleException();
+        }
+        if(dest.data == a.data || dest.data == b.data){
+            throw new IllegalArgumentException("Destination batch can not share storage with an operand.");
+        }
+        int m = a.rows, k = a.columns, n = b.columns, stride = a.size;
+        Parallelism.forRange(0, stride, GRAIN, (long) m*n*k, (from, to) ->
+                KERNELS.batchMultiply(m, k, n, a.data, b.data, dest.data, stride, from, to));
+        return dest;
+    }
+
+    /**
+     * @return determinants of the matrices, in the order of the batch.
+     * @throws NotASqaureMatrixException if the matrices are not square.
+     */
+    public double[] getDeterminants() throws NotASqaureMatrixException {
+        if(rows != columns){
+            throw new NotASqaureMatrixException();
+        }
+        double[] det = new double[size];
+        if(rows > CLOSED_FORM){
+            for(int e = 0; e < size; e++){
+                det[e] = getMatrix(e).lu().getDeterminant();
+            }
+            return det;
+        }
+        Parallelism.forRange(0, size, GRAIN, (long) rows*rows*rows, (from, to) ->
+                KERNELS.batchDeterminant(rows, data, det, size, from, to));
+        return det;
+    }
+
+    /**
+     * @return batch of the inverses of the matrices.
+     * @throws NotASqaureMatrixException if the matrices are not square.
+     * @throws SingularMatrixException if any matrix of the batch is singular.
+     */
+    public MatrixBatch inverse() throws MatrixCompatibleException, SingularMatrixException {
+        return inverseInto(this, new MatrixBatch(size, rows, columns));
+    }
+
+    /**
+     * Writes the inverses of the matrices of a into dest, without allocating a batch. dest
+     * must not share its storage with a.
+     *
+     * @return dest.
+     * @throws NotASqaureMatrixException if the matrices are not square.
+     * @throws MatrixCompatibleException if dest does not have the size and dimensions of a.
+     * @throws SingularMatrixException if any matrix of the batch is singular, the contents of
+     *               dest are then undefined.
+     */
+    public static MatrixBatch inverseInto(MatrixBatch a, MatrixBatch dest)
+            throws NotASqaureMatrixException, MatrixCompatibleException, SingularMatrixException {
+        int n = a.rows, size = a.size;
+        if(n != a.columns){
+            throw new NotASqaureMatrixException();
+        }
+        if(dest.size != size || dest.rows != n || dest.columns != n){
+            throw new MatrixCompatibleException("Destination batch does not have the dimensions of the inverses.");
+        }
+        if(dest.data == a.data){
+            throw new IllegalArgumentException("Destination batch can not share storage with an operand.");
+        }
+        if(n > CLOSED_FORM){
+            for(int e = 0; e < size; e++){
+                LUDecomposition lu = a.getMatrix(e).lu();
+                if(lu.isSingular()){
+                    throw singular(e);
+                }
+                double[] inverse = lu.inverseArray();
+                for(int p = 0; p < inverse.length; p++){
+                    dest.data[p*size + e] = inverse[p];
+                }
+            }
+            return dest;
+        }
+        double[] det = new double[size];
+        Parallelism.forRange(0, size, GRAIN, (long) n*n*n, (from, to) ->
+                KERNELS.batchInverse(n, a.data, dest.data, det, size, from, to));
+        for(int e = 0; e < size; e++){
+            if(det[e] == 0){
+                throw singular(e);
+            }
+        }
+        return dest;
+    }
+
+    private static SingularMatrixException singular(int index) {
+        return new SingularMatrixException("Matrix " + index + " of the batch is singular! It does not have a inverse.");
+    }
+}
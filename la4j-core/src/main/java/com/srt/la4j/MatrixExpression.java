@@ -0,0 +1,477 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lazily evaluated expression over dense matrices, created with {@link Matrix#lazy()}.
+ * Operations only build the expression and check the dimensions, nothing is computed until
+ * {@link #evaluate()} is called. For example
+ * <pre>
+ *     Matrix result = a.lazy().multiply(b).add(c).multiply(0.5).evaluate();
+ * </pre>
+ * allocates only the result, while the eager chain allocates three matrices.
+ *
+ * Expressions are simplified while they are built:
+ * <ul>
+ *     <li>a transpose is never computed, it is pushed down to the matrices and read with
+ *     swapped strides, by the product kernel when packing and by element wise passes
+ *     directly;</li>
+ *     <li>scalar factors of a product are applied by the product kernel while packing;</li>
+ *     <li>products that are terms of the outermost sum are accumulated straight into the
+ *     result, after the other terms.</li>
+ * </ul>
+ * All the element wise operations of the expression, except those inside the operands of a
+ * product, are then fused into a single pass over the result, which works on runs of elements
+ * that stay in L1. Operands of a product that are not plain matrices are evaluated first.
+ *
+ * The result is approximated if the left most matrix of the expression is, like the result of
+ * the eager operations.
+ */
+public abstract class MatrixExpression {
+
+    private static final int RUN = 256;
+
+    private final int rows;
+    private final int columns;
+    private final boolean approximate;
+
+    private MatrixExpression(int rows, int columns, boolean approximate) {
+        this.rows = rows;
+        this.columns = columns;
+        this.approximate = approximate;
+    }
+
+    static MatrixExpression of(Matrix matrix) {
+        return new Leaf(matrix, false);
+    }
+
+    /**
+     * @return number of rows of the result.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of columns of the result.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param that
+     * @return expression for the sum of both the expressions.
+     * @throws AdditionCompatibleException if the dimensions of the expressions are not equal.
+     */
+    public MatrixExpression add(MatrixExpression that) throws AdditionCompatibleException {
+        if(rows != that.rows || columns != that.columns){
+            throw new AdditionCompatibleException();
+        }
+        return new ElementWise(true, this, that);
+    }
+
+    /**
+     * @param matrix
+     * @return expression for the sum of this expression and the matrix.
+     * @throws AdditionCompatibleException if the dimensions are not equal.
+     */
+    public MatrixExpression add(Matrix matrix) throws AdditionCompatibleException {
+        return add(of(matrix));
+    }
+
+    /**
+     * @param that
+     * @return expression for the product of both the expressions.
+     * @throws MultiplicationCompatibleException if number of columns of this expression is not
+     *               equal to number of rows of that.
+     */
+    public MatrixExpression multiply(MatrixExpression that) throws MultiplicationCompatibleException {
+        if(columns != that.rows){
+            throw new MultiplicationCompatibleException();
+        }
+        return new Product(this, that, 1);
+    }
+
+    /**
+     * @param matrix
+     * @return expression for the product of this expression and the matrix.
+     * @throws MultiplicationCompatibleException if number of columns of this expression is not
+     *               equal to number of rows of the matrix.
+     */
+    public MatrixExpression multiply(Matrix matrix) throws MultiplicationCompatibleException {
+        return multiply(of(matrix));
+    }
+
+    /**
+     * @param number
+     * @return expression whose each element is multiplied by number.
+     */
+    public MatrixExpression multiply(double number) {
+        return new Scale(number, this);
+    }
+
+    /**
+     * @param that
+     * @return expression for the element wise product of both the expressions.
+     * @throws MultiplicationCompatibleException if the dimensions of the expressions are not equal.
+     */
+    public MatrixExpression multiplyElementWise(MatrixExpression that) throws MultiplicationCompatibleException {
+        if(rows != that.rows || columns != that.columns){
+            throw new MultiplicationCompatibleException();
+        }
+        return new ElementWise(false, this, that);
+    }
+
+    /**
+     * @param matrix
+     * @return expression for the element wise product of this expression and the matrix.
+     * @throws MultiplicationCompatibleException if the dimensions are not equal.
+     */
+    public MatrixExpression multiplyElementWise(Matrix matrix) throws MultiplicationCompatibleException {
+        return multiplyElementWise(of(matrix));
+    }
+
+    /**
+     * @return expression for the transpose, which is never computed on its own.
+     */
+    public abstract MatrixExpression transpose();
+
+    /**
+     * Computes the expression.
+     *
+     * @return new matrix with the value of the expression.
+     */
+    public Matrix evaluate() {
+        double[] d = new double[rows * columns];
+        List<MatrixExpression> terms = new ArrayList<>();
+        terms(terms);
+        MatrixExpression fused = null;
+        boolean products = false;
+        for(MatrixExpression term : terms){
+            if(term instanceof Product){
+                products = true;
+            } else {
+                fused = fused == null ? term : new ElementWise(true, fused, term);
+            }
+        }
+        // Without products the runs are approximated as they are written, otherwise only
+        // once the products have been accumulated.
+        if(fused != null){
+            fused.prepare().fuse(d, approximate && !products);
+        }
+        for(MatrixExpression term : terms){
+            if(term instanceof Product){
+                ((Product) term).accumulate(d, columns);
+            }
+        }
+        if(approximate && products){
+            Matrix.approximate(d);
+        }
+        return new Matrix(rows, columns, d, approximate);
+    }
+
+    /**
+     * Adds the terms of the outermost sum of the expression to the list.
+     */
+    void terms(List<MatrixExpression> terms) {
+        terms.add(this);
+    }
+
+    /**
+     * @return the same expression with every product replaced by its value, so that the rest
+     *          can be evaluated element by element.
+     */
+    abstract MatrixExpression prepare();
+
+    /**
+     * @return number of run buffers needed to evaluate the expression element by element.
+     */
+    abstract int depth();
+
+    /**
+     * Writes the length elements of row i starting at column j into buffers[level].
+     */
+    abstract void run(int i, int j, int length, double[][] buffers, int level);
+
+    /**
+     * Evaluates the expression element by element into d, rows at a time on the pool when
+     * the expression is large enough. Each run is approximated before it is stored when
+     * approximate is set.
+     */
+    private void fuse(double[] d, boolean approximate) {
+        int depth = depth();
+        int run = Math.min(RUN, columns);
+        long work = (long) columns * depth;
+        if(Parallelism.isParallel(rows * work)){
+            Parallelism.forRange(0, rows, 1, work, (from, to) -> fuse(d, approximate, from, to, new double[depth][run]));
+        } else {
+            fuse(d, approximate, 0, rows, new double[depth][run]);
+        }
+    }
+
+    private void fuse(double[] d, boolean approximate, int from, int to, double[][] buffers) {
+        int run = buffers[0].length;
+        for(int i = from; i < to; i++){
+            for(int j = 0; j < columns; j += run){
+                int length = Math.min(run, columns - j);
+                run(i, j, length, buffers, 0);
+                if(approximate){
+                    Matrix.approximate(buffers[0], 0, length);
+                }
+                System.arraycopy(buffers[0], 0, d, i * columns + j, length);
+            }
+        }
+    }
+
+    /**
+     * A matrix, read transposed when the flag is set. Transposed views are read through their
+     * strides, not copied.
+     */
+    private static final class Leaf extends MatrixExpression {
+        private final Matrix matrix;
+        private final boolean transposed;
+
+        Leaf(Matrix matrix, boolean transposed) {
+            super(transposed ? matrix.getColumns() : matrix.getRows(),
+                    transposed ? matrix.getRows() : matrix.getColumns(), matrix.isApproximate());
+            this.matrix = matrix;
+            this.transposed = transposed;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Leaf(matrix, !transposed);
+        }
+
+        int rowStride() {
+            return transposed ? matrix.columnStride() : matrix.rowStride();
+        }
+
+        int columnStride() {
+            return transposed ? matrix.rowStride() : matrix.columnStride();
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            return this;
+        }
+
+        @Override
+        int depth() {
+            return 1;
+        }
+
+        @Override
+        void run(int i, int j, int length, double[][] buffers, int level) {
+            double[] data = matrix.storage();
+            int stride = columnStride();
+            int start = matrix.storageOffset() + i * rowStride() + j * stride;
+            if(stride == 1){
+                System.arraycopy(data, start, buffers[level], 0, length);
+                return;
+            }
+            double[] buffer = buffers[level];
+            for(int k = 0; k < length; k++){
+                buffer[k] = data[start + k * stride];
+            }
+        }
+    }
+
+    /**
+     * Element wise sum, or element wise product when add is false.
+     */
+    private static final class ElementWise extends MatrixExpression {
+        private final boolean add;
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+
+        ElementWise(boolean add, MatrixExpression left, MatrixExpression right) {
+            super(left.rows, left.columns, left.approximate);
+            this.add = add;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public MatrixExpression multiply(double number) {
+            // Spreads the factor over the terms so that products among them stay accumulable.
+            if(add && (left.hasProductTerm() || right.hasProductTerm())){
+                return new ElementWise(true, left.multiply(number), right.multiply(number));
+            }
+            return super.multiply(number);
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new ElementWise(add, left.transpose(), right.transpose());
+        }
+
+        @Override
+        void terms(List<MatrixExpression> terms) {
+            if(add){
+                left.terms(terms);
+                right.terms(terms);
+            } else {
+                super.terms(terms);
+            }
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            MatrixExpression l = left.prepare(), r = right.prepare();
+            return l == left && r == right ? this : new ElementWise(add, l, r);
+        }
+
+        @Override
+        int depth() {
+            return Math.max(left.depth(), 1 + right.depth());
+        }
+
+        @Override
+        void run(int i, int j, int length, double[][] buffers, int level) {
+            left.run(i, j, length, buffers, level);
+            right.run(i, j, length, buffers, level + 1);
+            double[] l = buffers[level], r = buffers[level + 1];
+            if(add){
+                Kernels.INSTANCE.add(l, 0, r, 0, l, 0, length);
+            } else {
+                Kernels.INSTANCE.multiply(l, 0, r, 0, l, 0, length);
+            }
+        }
+    }
+
+    private static final class Scale extends MatrixExpression {
+        private final double number;
+        private final MatrixExpression operand;
+
+        Scale(double number, MatrixExpression operand) {
+            super(operand.rows, operand.columns, operand.approximate);
+            this.number = number;
+            this.operand = operand;
+        }
+
+        @Override
+        public MatrixExpression multiply(double number) {
+            return new Scale(this.number * number, operand);
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Scale(number, operand.transpose());
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            MatrixExpression o = operand.prepare();
+            return o == operand ? this : new Scale(number, o);
+        }
+
+        @Override
+        int depth() {
+            return operand.depth();
+        }
+
+        @Override
+        void run(int i, int j, int length, double[][] buffers, int level) {
+            operand.run(i, j, length, buffers, level);
+            Kernels.INSTANCE.scale(buffers[level], 0, number, buffers[level], 0, length);
+        }
+    }
+
+    /**
+     * alpha * left * right.
+     */
+    private static final class Product extends MatrixExpression {
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+        private final double alpha;
+
+        Product(MatrixExpression left, MatrixExpression right, double alpha) {
+            super(left.rows, right.columns, left.approximate);
+            this.left = left;
+            this.right = right;
+            this.alpha = alpha;
+        }
+
+        @Override
+        public MatrixExpression multiply(double number) {
+            return new Product(left, right, alpha * number);
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            // (a*b)^T = b^T * a^T
+            return new Product(right.transpose(), left.transpose(), alpha);
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            return new Leaf(evaluate(), false);
+        }
+
+        @Override
+        int depth() {
+            throw new IllegalStateException("Products are evaluated before element wise passes.");
+        }
+
+        @Override
+        void run(int i, int j, int length, double[][] buffers, int level) {
+            throw new IllegalStateException("Products are evaluated before element wise passes.");
+        }
+
+        /**
+         * Accumulates the product into d, which has row stride cStride.
+         */
+        void accumulate(double[] d, int cStride) {
+            double factor = alpha;
+            MatrixExpression l = left, r = right;
+            if(l instanceof Scale && ((Scale) l).operand instanceof Leaf){
+                factor *= ((Scale) l).number;
+                l = ((Scale) l).operand;
+            }
+            if(r instanceof Scale && ((Scale) r).operand instanceof Leaf){
+                factor *= ((Scale) r).number;
+                r = ((Scale) r).operand;
+            }
+            Leaf a = l instanceof Leaf ? (Leaf) l : new Leaf(l.evaluate(), false);
+            Leaf b = r instanceof Leaf ? (Leaf) r : new Leaf(r.evaluate(), false);
+            Gemm.multiply(factor, a.matrix.storage(), a.matrix.storageOffset(), a.rowStride(), a.columnStride(),
+                    b.matrix.storage(), b.matrix.storageOffset(), b.rowStride(), b.columnStride(),
+                    d, 0, cStride, getRows(), getColumns(), left.getColumns());
+        }
+    }
+
+    private boolean hasProductTerm() {
+        List<MatrixExpression> terms = new ArrayList<>();
+        terms(terms);
+        for(MatrixExpression term : terms){
+            if(term instanceof Product){
+                return true;
+            }
+        }
+        return false;
+    }
+}
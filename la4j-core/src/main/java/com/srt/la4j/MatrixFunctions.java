@@ -0,0 +1,222 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Powers and the exponential of square matrices, behind {@link Matrix#pow(int)} and
+ * {@link Matrix#expm()}. Both work on n x n row major arrays and reuse a fixed set of
+ * buffers, swapping the roles of source and destination after every product instead of
+ * allocating one matrix per step. Products go through {@link Strassen} when it applies and
+ * {@link Gemm} otherwise, like {@link Matrix#multiply(Matrix)}.
+ */
+final class MatrixFunctions {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    // Largest 1-norms for which the Pade approximants of degree 3, 5, 7, 9 and 13 reach
+    // double precision, and their coefficients (Higham, SIAM J. Matrix Anal. Appl. 26(4), 2005).
+    private static final double[] THETA = {1.495585217958292e-2, 2.539398330063230e-1,
+            9.504178996162932e-1, 2.097847961257068, 5.371920351148152};
+    private static final double[][] PADE = {
+            {120, 60, 12, 1},
+            {30240, 15120, 3360, 420, 30, 1},
+            {17297280, 8648640, 1995840, 277200, 25200, 1512, 56, 1},
+            {17643225600d, 8821612800d, 2075673600, 302702400, 30270240, 2162160, 110880, 3960, 90, 1},
+            {64764752532480000d, 32382376266240000d, 7771770303897600d, 1187353796428800d,
+                    129060195264000d, 10559470521600d, 670442572800d, 33522128640d, 1323241920,
+                    40840800, 960960, 16380, 182, 1}};
+
+    private MatrixFunctions() {
+    }
+
+    /**
+     * Exponentiation by squaring: floor(log2 k) squarings and one product per further set bit
+     * of k, with at most three n x n buffers.
+     *
+     * @param a n x n matrix, overwritten.
+     * @param k positive exponent.
+     * @return a^k, which may be a itself.
+     */
+    static double[] pow(double[] a, int n, int k) {
+        double[] base = a, result = null, spare = null;
+        while(true){
+            if((k & 1) != 0){
+                if(result == null){
+                    result = k == 1 ? base : base.clone();
+                } else {
+                    spare = multiply(result, base, spare, n);
+                    double[] swap = result;
+                    result = spare;
+                    spare = swap;
+                }
+            }
+            k >>>= 1;
+            if(k == 0){
+                return result;
+            }
+            spare = multiply(base, base, spare, n);
+            double[] swap = base;
+            base = spare;
+            spare = swap;
+        }
+    }
+
+    /**
+     * @return number of products taken by {@link #pow(double[], int, int)}.
+     */
+    static int products(int k) {
+        return 31 - Integer.numberOfLeadingZeros(k) + Integer.bitCount(k) - 1;
+    }
+
+    /**
+     * Scaling and squaring with Pade approximants after Higham 2005: the lowest degree whose
+     * bound covers the 1-norm of a is used, or a is scaled by 2^-s into the bound of degree
+     * 13 and the approximant is squared s times. The approximant r = q^-1 * p is computed
+     * with {@link LUDecomposition} from p = V + U and q = V - U, where U holds the odd and V
+     * the even powers of a.
+     *
+     * @param a n x n matrix, overwritten.
+     * @return exp(a).
+     */
+    static double[] expm(double[] a, int n) {
+        double norm = norm1(a, n);
+        if(!Double.isFinite(norm)){
+            double[] nan = new double[n * n];
+            Arrays.fill(nan, Double.NaN);
+            return nan;
+        }
+        int degree = 0;
+        while(degree < THETA.length - 1 && norm > THETA[degree]){
+            degree++;
+        }
+        int squarings = 0;
+        if(degree == THETA.length - 1 && norm > THETA[degree]){
+            squarings = Math.getExponent(norm / THETA[degree]) + 1;
+            KERNELS.scale(a, 0, Math.scalb(1d, -squarings), a, 0, n * n);
+        }
+        double[] b = PADE[degree];
+        int length = n * n;
+        double[] a2 = multiply(a, a, null, n);
+        double[] u = new double[length], v = new double[length];
+        if(degree < THETA.length - 1){
+            // U = A*(b1*I + b3*A2 + b5*A4 + ...) and V = b0*I + b2*A2 + b4*A4 + ..., the even
+            // powers taking two buffers in turn.
+            addIdentity(b[1], u, n);
+            addIdentity(b[0], v, n);
+            double[] power = a2, free = null;
+            for(int j = 2; j < b.length; j += 2){
+                KERNELS.axpy(b[j + 1], power, 0, u, 0, length);
+                KERNELS.axpy(b[j], power, 0, v, 0, length);
+                if(j + 2 < b.length){
+                    double[] next = multiply(power, a2, free, n);
+                    free = power == a2 ? null : power;
+                    power = next;
+                }
+            }
+            u = multiply(a, u, free, n);
+        } else {
+            double[] a4 = multiply(a2, a2, null, n), a6 = multiply(a4, a2, null, n);
+            // U = A*(A6*(b13*A6 + b11*A4 + b9*A2) + b7*A6 + b5*A4 + b3*A2 + b1*I).
+            double[] inner = new double[length];
+            KERNELS.scale(a6, 0, b[13], inner, 0, length);
+            KERNELS.axpy(b[11], a4, 0, inner, 0, length);
+            KERNELS.axpy(b[9], a2, 0, inner, 0, length);
+            double[] outer = multiply(a6, inner, null, n);
+            KERNELS.axpy(b[7], a6, 0, outer, 0, length);
+            KERNELS.axpy(b[5], a4, 0, outer, 0, length);
+            KERNELS.axpy(b[3], a2, 0, outer, 0, length);
+            addIdentity(b[1], outer, n);
+            u = multiply(a, outer, u, n);
+            // V = A6*(b12*A6 + b10*A4 + b8*A2) + b6*A6 + b4*A4 + b2*A2 + b0*I.
+            KERNELS.scale(a6, 0, b[12], inner, 0, length);
+            KERNELS.axpy(b[10], a4, 0, inner, 0, length);
+            KERNELS.axpy(b[8], a2, 0, inner, 0, length);
+            v = multiply(a6, inner, v, n);
+            KERNELS.axpy(b[6], a6, 0, v, 0, length);
+            KERNELS.axpy(b[4], a4, 0, v, 0, length);
+            KERNELS.axpy(b[2], a2, 0, v, 0, length);
+            addIdentity(b[0], v, n);
+        }
+        // q = V - U is left in v and p = V + U = q + 2*U in u.
+        KERNELS.axpy(-1, u, 0, v, 0, length);
+        KERNELS.scale(u, 0, 2, u, 0, length);
+        KERNELS.axpy(1, v, 0, u, 0, length);
+        double[] r;
+        try {
+            r = new Matrix(n, n, v, false).lu().solve(new Matrix(n, n, u, false)).data();
+        } catch (MatrixCompatibleException | SingularMatrixException e) {
+            // q is well conditioned for every 1-norm within the bound of its degree.
+            throw new IllegalStateException(e);
+        }
+        double[] spare = v;
+        for(int i = 0; i < squarings; i++){
+            spare = multiply(r, r, spare, n);
+            double[] swap = r;
+            r = spare;
+            spare = swap;
+        }
+        return r;
+    }
+
+    /**
+     * @return largest absolute column sum of the n x n matrix a.
+     */
+    private static double norm1(double[] a, int n) {
+        double[] sums = new double[n];
+        for(int i = 0; i < n; i++){
+            for(int j = 0; j < n; j++){
+                sums[j] += Math.abs(a[i * n + j]);
+            }
+        }
+        double norm = 0;
+        for(double sum : sums){
+            norm = Math.max(norm, sum);
+        }
+        return sums.length == 0 ? 0 : norm;
+    }
+
+    private static void addIdentity(double alpha, double[] a, int n) {
+        for(int i = 0; i < n; i++){
+            a[i * n + i] += alpha;
+        }
+    }
+
+    /**
+     * Writes a * b into c, allocated when null, which must not be a or b.
+     *
+     * @return c.
+     */
+    static double[] multiply(double[] a, double[] b, double[] c, int n) {
+        if(c == null){
+            c = new double[n * n];
+        }
+        if(Strassen.applies(n, n, n)){
+            Strassen.multiply(a, 0, n, 1, b, 0, n, 1, c, n, n, n);
+        } else {
+            Arrays.fill(c, 0);
+            Gemm.multiply(a, 0, n, b, 0, n, c, 0, n, n, n, n);
+        }
+        return c;
+    }
+}
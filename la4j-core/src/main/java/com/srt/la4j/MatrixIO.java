@@ -0,0 +1,563 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reading and writing matrices in a binary format, CSV and Matrix Market.
+ *
+ * The binary format is the file format of {@link MappedMatrix}: a 16 byte header (the magic
+ * number 0x4C41344A, the version, the rows and the columns as little endian ints) followed by
+ * the elements in row major order as little endian doubles, so a file written here can be
+ * mapped with {@link MappedMatrix#open(Path)} without loading it, and the other way around.
+ * Elements are moved with bulk copies between the storage and a direct buffer that the
+ * channel reads or writes without another copy.
+ *
+ * The text readers parse bytes as they stream in with {@link NumberReader}, without building
+ * strings per line or per number, and collect the elements in blocks so that the only other
+ * copy is the final one into the storage of the matrix. Rows of a CSV file are lines of
+ * numbers separated by commas, blank lines are skipped and every row must have the same
+ * number of columns.
+ */
+public final class MatrixIO {
+
+    private static final int BUFFER = 1 << 20;
+    private static final int BLOCK = 1 << 20;
+
+    private MatrixIO() {
+    }
+
+    /**
+     * Writes the matrix in the binary format, replacing any existing file.
+     *
+     * @throws IOException if the file can not be written.
+     */
+    public static void write(Matrix matrix, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(matrix, channel);
+        }
+    }
+
+    /**
+     * Writes the matrix in the binary format to the channel, which is left open.
+     *
+     * @throws IOException if the channel can not be written.
+     */
+    public static void write(Matrix matrix, WritableByteChannel channel) throws IOException {
+        int rows = matrix.getRows(), columns = matrix.getColumns();
+        double[] data = matrix.data();
+        int offset = matrix.offset(), stride = matrix.stride();
+        int size = (int) Math.min(BUFFER, MappedMatrix.HEADER + (long) rows * columns * Double.BYTES);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MappedMatrix.MAGIC).putInt(MappedMatrix.VERSION).putInt(rows).putInt(columns);
+        for(int i = 0; i < rows; i++){
+            int row = offset + i * stride;
+            for(int j = 0; j < columns; ){
+                if(buffer.remaining() < Double.BYTES){
+                    drain(buffer, channel);
+                }
+                int length = Math.min(columns - j, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(data, row + j, length);
+                buffer.position(buffer.position() + length * Double.BYTES);
+                j += length;
+            }
+        }
+        drain(buffer, channel);
+    }
+
+    /**
+     * Writes the matrix in the binary format into the buffer, from its position on, whatever
+     * its byte order.
+     *
+     * @throws BufferOverflowException if the buffer does not have room for the matrix.
+     */
+    public static void write(Matrix matrix, ByteBuffer buffer) {
+        int rows = matrix.getRows(), columns = matrix.getColumns();
+        if(buffer.remaining() < MappedMatrix.HEADER + (long) rows * columns * Double.BYTES){
+            throw new BufferOverflowException();
+        }
+        double[] data = matrix.data();
+        int offset = matrix.offset(), stride = matrix.stride();
+        ByteBuffer target = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        target.putInt(MappedMatrix.MAGIC).putInt(MappedMatrix.VERSION).putInt(rows).putInt(columns);
+        for(int i = 0; i < rows; i++){
+            target.asDoubleBuffer().put(data, offset + i * stride, columns);
+            target.position(target.position() + columns * Double.BYTES);
+        }
+        buffer.position(buffer.position() + target.position());
+    }
+
+    /**
+     * Reads a matrix in the binary format. Files larger than the heap can be mapped with
+     * {@link MappedMatrix#open(Path)} instead.
+     *
+     * @throws IOException if the file can not be read, is not a matrix file or is truncated.
+     */
+    public static Matrix read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    /**
+     * Reads a matrix in the binary format from the channel, which is left open.
+     *
+     * @throws IOException if the channel can not be read, does not hold a matrix or ends early.
+     */
+    public static Matrix read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MappedMatrix.HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        fill(buffer, channel);
+        buffer.flip();
+        int[] dimensions = header(buffer);
+        int rows = dimensions[0], columns = dimensions[1];
+        double[] d = new double[rows * columns];
+        buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER, (long) d.length * Double.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for(int k = 0; k < d.length; ){
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (long) (d.length - k) * Double.BYTES));
+            fill(buffer, channel);
+            buffer.flip();
+            int length = buffer.remaining() / Double.BYTES;
+            buffer.asDoubleBuffer().get(d, k, length);
+            k += length;
+        }
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * Reads a matrix in the binary format from the buffer, from its position on, whatever
+     * its byte order.
+     *
+     * @throws IOException if the buffer does not hold a matrix or ends early.
+     */
+    public static Matrix read(ByteBuffer buffer) throws IOException {
+        ByteBuffer source = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int[] dimensions = header(source);
+        int rows = dimensions[0], columns = dimensions[1];
+        double[] d = new double[rows * columns];
+        if(source.remaining() < (long) d.length * Double.BYTES){
+            throw new IOException("Truncated matrix file.");
+        }
+        source.asDoubleBuffer().get(d);
+        buffer.position(buffer.position() + MappedMatrix.HEADER + d.length * Double.BYTES);
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * Checks the magic number and the version of the header at the position of the buffer.
+     *
+     * @return rows and columns.
+     */
+    private static int[] header(ByteBuffer buffer) throws IOException {
+        if(buffer.remaining() < MappedMatrix.HEADER || buffer.getInt() != MappedMatrix.MAGIC
+                || buffer.getInt() != MappedMatrix.VERSION){
+            throw new IOException("Not a matrix file.");
+        }
+        int rows = buffer.getInt(), columns = buffer.getInt();
+        if(rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE){
+            throw new IOException("Matrix of " + rows + " x " + columns + " can not be read on the heap.");
+        }
+        return new int[]{rows, columns};
+    }
+
+    private static void fill(ByteBuffer buffer, ReadableByteChannel channel) throws IOException {
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer) < 0){
+                throw new IOException("Truncated matrix file.");
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @throws IOException if the file can not be read or is not a valid CSV matrix.
+     */
+    public static Matrix readCsv(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return readCsv(in);
+        }
+    }
+
+    /**
+     * Reads a CSV matrix from the stream, which is left open.
+     *
+     * @throws IOException if the stream can not be read or does not hold a valid CSV matrix.
+     */
+    public static Matrix readCsv(InputStream in) throws IOException {
+        NumberReader reader = new NumberReader(in);
+        Blocks elements = new Blocks();
+        int rows = 0, columns = -1;
+        while(true){
+            reader.skipSpaces();
+            int c = reader.peek();
+            if(c < 0){
+                break;
+            }
+            if(c == '\n'){
+                reader.next();
+                continue;
+            }
+            long line = reader.line();
+            int count = 0;
+            do {
+                elements.add(reader.nextDouble());
+                count++;
+                reader.skipSpaces();
+                c = reader.next();
+            } while(c == ',');
+            if(c >= 0 && c != '\n'){
+                throw reader.malformed("Unexpected '" + (char) c + "'");
+            }
+            if(columns < 0){
+                columns = count;
+            } else if(count != columns){
+                throw new IOException("Row at line " + line + " has " + count + " columns instead of " + columns + ".");
+            }
+            rows++;
+        }
+        if(rows == 0){
+            throw new IOException("Empty CSV matrix.");
+        }
+        return new Matrix(rows, columns, elements.toArray(), false);
+    }
+
+    /**
+     * Writes the matrix as CSV, with decimals that read back to the same elements.
+     *
+     * @throws IOException if the file can not be written.
+     */
+    public static void writeCsv(Matrix matrix, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            writeCsv(matrix, out);
+        }
+    }
+
+    /**
+     * Writes the matrix as CSV to the stream, which is left open.
+     *
+     * @throws IOException if the stream can not be written.
+     */
+    public static void writeCsv(Matrix matrix, OutputStream out) throws IOException {
+        int rows = matrix.getRows(), columns = matrix.getColumns();
+        double[] data = matrix.data();
+        int offset = matrix.offset(), stride = matrix.stride();
+        TextWriter writer = new TextWriter(out);
+        for(int i = 0; i < rows; i++){
+            int row = offset + i * stride;
+            for(int j = 0; j < columns; j++){
+                if(j > 0){
+                    writer.append(',');
+                }
+                writer.append(data[row + j]);
+            }
+            writer.append('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads a real, integer or pattern matrix in the Matrix Market exchange format, with general,
+     * symmetric or skew-symmetric symmetry. Coordinate files are read as a {@link CsrMatrix}
+     * with duplicate entries summed, array files as a dense {@link Matrix}.
+     *
+     * @throws IOException if the file can not be read or is not a supported Matrix Market matrix.
+     */
+    public static BaseMatrix readMatrixMarket(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return readMatrixMarket(in);
+        }
+    }
+
+    /**
+     * Reads a Matrix Market matrix from the stream, which is left open, see {@link #readMatrixMarket(Path)}.
+     *
+     * @throws IOException if the stream can not be read or does not hold a supported Matrix Market matrix.
+     */
+    public static BaseMatrix readMatrixMarket(InputStream in) throws IOException {
+        NumberReader reader = new NumberReader(in);
+        String[] banner = reader.readLine().trim().toLowerCase(Locale.ROOT).split("\\s+");
+        if(banner.length != 5 || !banner[0].equals("%%matrixmarket") || !banner[1].equals("matrix")){
+            throw new IOException("Not a Matrix Market matrix.");
+        }
+        boolean coordinate = banner[2].equals("coordinate");
+        if(!coordinate && !banner[2].equals("array")){
+            throw new IOException("Unsupported Matrix Market format " + banner[2] + ".");
+        }
+        boolean pattern = banner[3].equals("pattern");
+        if(!banner[3].equals("real") && !banner[3].equals("integer") && !(pattern && coordinate)){
+            throw new IOException("Unsupported Matrix Market field " + banner[3] + ".");
+        }
+        int symmetry = Arrays.asList("general", "symmetric", "skew-symmetric").indexOf(banner[4]);
+        if(symmetry < 0){
+            throw new IOException("Unsupported Matrix Market symmetry " + banner[4] + ".");
+        }
+        while(true){
+            reader.skipSpaces();
+            int c = reader.peek();
+            if(c == '%' || c == '\n'){
+                reader.skipLine();
+            } else {
+                break;
+            }
+        }
+        int rows = reader.nextInt(), columns = reader.nextInt();
+        if(rows <= 0 || columns <= 0 || (symmetry > 0 && rows != columns)){
+            throw new IOException("Invalid Matrix Market dimensions " + rows + " x " + columns + ".");
+        }
+        return coordinate ? readCoordinate(reader, rows, columns, pattern, symmetry)
+                : readArray(reader, rows, columns, symmetry);
+    }
+
+    private static CsrMatrix readCoordinate(NumberReader reader, int rows, int columns, boolean pattern,
+                                            int symmetry) throws IOException {
+        int entries = reader.nextInt();
+        reader.endLine();
+        if(entries < 0 || (symmetry > 0 && entries > Integer.MAX_VALUE / 2)){
+            throw new IOException("Invalid Matrix Market entry count " + entries + ".");
+        }
+        int capacity = symmetry > 0 ? 2 * entries : entries;
+        int[] rowIndices = new int[capacity], columnIndices = new int[capacity];
+        double[] values = new double[capacity];
+        int count = 0;
+        for(int e = 0; e < entries; e++){
+            skipComments(reader);
+            int i = reader.nextInt() - 1, j = reader.nextInt() - 1;
+            double value = pattern ? 1 : reader.nextDouble();
+            reader.endLine();
+            if(i < 0 || i >= rows || j < 0 || j >= columns || (symmetry > 0 && j > i)
+                    || (symmetry == 2 && i == j)){
+                throw reader.malformed("Invalid entry (" + (i + 1) + ", " + (j + 1) + ")");
+            }
+            rowIndices[count] = i;
+            columnIndices[count] = j;
+            values[count++] = value;
+            if(symmetry > 0 && i != j){
+                rowIndices[count] = j;
+                columnIndices[count] = i;
+                values[count++] = symmetry == 2 ? -value : value;
+            }
+        }
+        return CsrMatrix.fromTriplets(rows, columns, Arrays.copyOf(rowIndices, count),
+                Arrays.copyOf(columnIndices, count), Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Array files list the columns in order, only the lower triangle of symmetric matrices and
+     * the strictly lower triangle of skew-symmetric ones.
+     */
+    private static Matrix readArray(NumberReader reader, int rows, int columns, int symmetry) throws IOException {
+        reader.endLine();
+        if((long) rows * columns > Integer.MAX_VALUE){
+            throw new IOException("Matrix of " + rows + " x " + columns + " can not be read on the heap.");
+        }
+        double[] d = new double[rows * columns];
+        for(int j = 0; j < columns; j++){
+            int first = symmetry == 0 ? 0 : symmetry == 1 ? j : j + 1;
+            for(int i = first; i < rows; i++){
+                skipComments(reader);
+                double value = reader.nextDouble();
+                reader.endLine();
+                d[i * columns + j] = value;
+                if(symmetry > 0){
+                    d[j * columns + i] = symmetry == 2 ? -value : value;
+                }
+            }
+        }
+        return new Matrix(rows, columns, d, false);
+    }
+
+    private static void skipComments(NumberReader reader) throws IOException {
+        while(true){
+            reader.skipSpaces();
+            int c = reader.peek();
+            if(c == '%' || c == '\n'){
+                reader.skipLine();
+            } else if(c < 0){
+                throw reader.malformed("Unexpected end of file");
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the matrix in the Matrix Market format, sparse matrices as coordinate real general
+     * and other matrices as array real general.
+     *
+     * @throws IOException if the file can not be written.
+     */
+    public static void writeMatrixMarket(BaseMatrix matrix, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            writeMatrixMarket(matrix, out);
+        }
+    }
+
+    /**
+     * Writes the matrix in the Matrix Market format to the stream, which is left open, see
+     * {@link #writeMatrixMarket(BaseMatrix, Path)}.
+     *
+     * @throws IOException if the stream can not be written.
+     */
+    public static void writeMatrixMarket(BaseMatrix matrix, OutputStream out) throws IOException {
+        TextWriter writer = new TextWriter(out);
+        int rows = matrix.getRows(), columns = matrix.getColumns();
+        if(matrix instanceof CsrMatrix || matrix instanceof CscMatrix){
+            CsrMatrix csr = matrix instanceof CsrMatrix ? (CsrMatrix) matrix : ((CscMatrix) matrix).toCsr();
+            int[] rowPointers = csr.rowPointers(), columnIndices = csr.columnIndices();
+            double[] values = csr.values();
+            writer.append("%%MatrixMarket matrix coordinate real general\n");
+            writer.append(rows).append(' ').append(columns).append(' ').append(csr.getNonZeros()).append('\n');
+            for(int i = 0; i < rows; i++){
+                for(int k = rowPointers[i]; k < rowPointers[i + 1]; k++){
+                    writer.append(i + 1).append(' ').append(columnIndices[k] + 1).append(' ').append(values[k]).append('\n');
+                }
+            }
+        } else {
+            // Array files are column major. Dense storage is read with its strides, in place,
+            // other matrices element by element, so nothing is copied.
+            writer.append("%%MatrixMarket matrix array real general\n");
+            writer.append(rows).append(' ').append(columns).append('\n');
+            if(matrix instanceof Matrix){
+                Matrix dense = (Matrix) matrix;
+                double[] data = dense.storage();
+                int offset = dense.storageOffset(), rowStride = dense.rowStride(), columnStride = dense.columnStride();
+                for(int j = 0; j < columns; j++){
+                    for(int i = 0; i < rows; i++){
+                        writer.append(data[offset + i * rowStride + j * columnStride]).append('\n');
+                    }
+                }
+            } else {
+                for(int j = 0; j < columns; j++){
+                    for(int i = 0; i < rows; i++){
+                        writer.append(matrix.get(i, j)).append('\n');
+                    }
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Elements of unknown count, kept in fixed blocks so that growing never copies them.
+     */
+    private static final class Blocks {
+
+        private double[][] blocks = new double[16][];
+        private long size;
+
+        void add(double value) throws IOException {
+            int block = (int) (size / BLOCK), index = (int) (size % BLOCK);
+            if(index == 0){
+                if(size >= Integer.MAX_VALUE - BLOCK){
+                    throw new IOException("Matrix is too large to be read on the heap.");
+                }
+                if(block == blocks.length){
+                    blocks = Arrays.copyOf(blocks, 2 * block);
+                }
+                blocks[block] = new double[BLOCK];
+            }
+            blocks[block][index] = value;
+            size++;
+        }
+
+        double[] toArray() {
+            double[] d = new double[(int) size];
+            for(int k = 0; k < d.length; k += BLOCK){
+                System.arraycopy(blocks[k / BLOCK], 0, d, k, Math.min(BLOCK, d.length - k));
+            }
+            return d;
+        }
+    }
+
+    /**
+     * ASCII output through a reused character buffer. Numbers are appended to a
+     * {@link StringBuilder}, which formats them in place without a string per number.
+     */
+    private static final class TextWriter {
+
+        private final OutputStream out;
+        private final StringBuilder text = new StringBuilder(BUFFER);
+        private final byte[] bytes = new byte[BUFFER + 64];
+
+        TextWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        TextWriter append(double value) throws IOException {
+            text.append(value);
+            return spill();
+        }
+
+        TextWriter append(long value) throws IOException {
+            text.append(value);
+            return spill();
+        }
+
+        TextWriter append(char c) throws IOException {
+            text.append(c);
+            return spill();
+        }
+
+        TextWriter append(String s) throws IOException {
+            text.append(s);
+            return spill();
+        }
+
+        private TextWriter spill() throws IOException {
+            if(text.length() >= BUFFER){
+                flush();
+            }
+            return this;
+        }
+
+        void flush() throws IOException {
+            int length = text.length();
+            byte[] bytes = length <= this.bytes.length ? this.bytes : new byte[length];
+            for(int k = 0; k < length; k++){
+                bytes[k] = (byte) text.charAt(k);
+            }
+            out.write(bytes, 0, length);
+            out.flush();
+            text.setLength(0);
+        }
+    }
+}
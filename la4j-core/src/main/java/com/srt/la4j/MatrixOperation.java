@@ -0,0 +1,42 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Operations of {@link Matrix} reported by {@link Instrumentation}. In place variants are
+ * reported as the operation they perform.
+ */
+public enum MatrixOperation {
+    ADD,
+    AXPY,
+    MULTIPLY,
+    SCALE,
+    MULTIPLY_ELEMENT_WISE,
+    TRANSPOSE,
+    DETERMINANT,
+    INVERSE,
+    ADJOINT,
+    SOLVE,
+    LU,
+    CHOLESKY,
+    QR,
+    SVD,
+    EIGEN,
+    POW,
+    EXPM
+}
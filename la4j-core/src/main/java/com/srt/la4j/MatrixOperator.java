@@ -0,0 +1,88 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * {@link LinearOperator} of a dense, sparse or band matrix, with one dot product per row.
+ */
+final class MatrixOperator implements LinearOperator {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+    private static final int GRAIN = 64;
+
+    private final int rows;
+    private final int columns;
+    private final Matrix dense;
+    private final CsrMatrix sparse;
+    private final BandMatrix band;
+
+    MatrixOperator(BaseMatrix matrix) {
+        this.rows = matrix.getRows();
+        this.columns = matrix.getColumns();
+        if(matrix instanceof CsrMatrix || matrix instanceof CscMatrix){
+            this.sparse = matrix instanceof CsrMatrix ? (CsrMatrix) matrix : ((CscMatrix) matrix).toCsr();
+            this.dense = null;
+            this.band = null;
+        } else if(matrix instanceof BandMatrix){
+            this.band = (BandMatrix) matrix;
+            this.sparse = null;
+            this.dense = null;
+        } else {
+            this.dense = matrix.toDense();
+            this.sparse = null;
+            this.band = null;
+        }
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public void apply(double[] x, double[] y) {
+        if(sparse != null){
+            int[] pointers = sparse.rowPointers(), indices = sparse.columnIndices();
+            double[] values = sparse.values();
+            Parallelism.forRange(0, rows, GRAIN, 1 + sparse.getNonZeros() / rows, (from, to) -> {
+                for(int i = from; i < to; i++){
+                    double sum = 0;
+                    for(int k = pointers[i]; k < pointers[i + 1]; k++){
+                        sum += values[k] * x[indices[k]];
+                    }
+                    y[i] = sum;
+                }
+            });
+        } else if(band != null){
+            band.multiply(x, y);
+        } else {
+            double[] data = dense.data();
+            int offset = dense.offset(), stride = dense.stride();
+            Parallelism.forRange(0, rows, GRAIN, columns, (from, to) -> {
+                for(int i = from; i < to; i++){
+                    y[i] = KERNELS.dot(data, offset + i * stride, x, 0, columns);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of numbers from ASCII text, for the text formats of {@link MatrixIO}.
+ *
+ * Bytes are parsed straight from a reused buffer, so no string is built per line or per
+ * number. Numbers with at most 15 significant digits and a decimal exponent of at most 22
+ * are converted with a single correctly rounded multiplication or division by an exact power
+ * of ten (Clinger's fast path), others by {@link Double#parseDouble(String)}, so every number
+ * is read to the nearest double.
+ */
+final class NumberReader {
+
+    private static final double[] POWERS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int FAST_DIGITS = 15;
+
+    private final InputStream in;
+    private final byte[] bytes = new byte[1 << 16];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private char[] token = new char[32];
+
+    NumberReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return line of the next byte, starting at 1.
+     */
+    long line() {
+        return line;
+    }
+
+    /**
+     * @return next byte without consuming it, or -1 at the end of the input.
+     */
+    int peek() throws IOException {
+        if(position == limit){
+            int n = in.read(bytes);
+            if(n <= 0){
+                return -1;
+            }
+            position = 0;
+            limit = n;
+        }
+        return bytes[position] & 0xFF;
+    }
+
+    /**
+     * @return next byte, or -1 at the end of the input.
+     */
+    int next() throws IOException {
+        int c = peek();
+        if(c >= 0){
+            position++;
+            if(c == '\n'){
+                line++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns.
+     */
+    void skipSpaces() throws IOException {
+        for(int c = peek(); c == ' ' || c == '\t' || c == '\r'; c = peek()){
+            position++;
+        }
+    }
+
+    /**
+     * Consumes the rest of the line, including the line feed.
+     */
+    void skipLine() throws IOException {
+        for(int c = next(); c >= 0 && c != '\n'; c = next());
+    }
+
+    /**
+     * @return rest of the line without the line feed, for headers.
+     */
+    String readLine() throws IOException {
+        StringBuilder string = new StringBuilder();
+        for(int c = next(); c >= 0 && c != '\n'; c = next()){
+            if(c != '\r'){
+                string.append((char) c);
+            }
+        }
+        return string.toString();
+    }
+
+    /**
+     * Consumes the end of the line, which may only be preceded by spaces.
+     *
+     * @throws IOException if anything else is left on the line.
+     */
+    void endLine() throws IOException {
+        skipSpaces();
+        int c = next();
+        if(c >= 0 && c != '\n'){
+            throw malformed("Unexpected '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * @return next integer, after any spaces.
+     * @throws IOException if there is no integer or it does not fit in an int.
+     */
+    int nextInt() throws IOException {
+        skipSpaces();
+        long value = 0;
+        int digits = 0;
+        boolean negative = peek() == '-';
+        if(negative || peek() == '+'){
+            position++;
+        }
+        for(int c = peek(); c >= '0' && c <= '9'; c = peek()){
+            value = value * 10 + (c - '0');
+            if(value > Integer.MAX_VALUE + 1L){
+                throw malformed("Integer out of range");
+            }
+            digits++;
+            position++;
+        }
+        value = negative ? -value : value;
+        if(digits == 0 || value > Integer.MAX_VALUE || !isDelimiter(peek())){
+            throw malformed("Malformed integer");
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return next number, after any spaces.
+     * @throws IOException if there is no number.
+     */
+    double nextDouble() throws IOException {
+        skipSpaces();
+        int length = 0;
+        long mantissa = 0;
+        int significant = 0, exponent = 0, digits = 0;
+        boolean negative = false;
+        int c = peek();
+        if(c == '-' || c == '+'){
+            negative = c == '-';
+            length = append(length, c);
+            position++;
+            c = peek();
+        }
+        for(; c >= '0' && c <= '9'; c = peek()){
+            if(significant > 0 || c != '0'){
+                significant++;
+            }
+            if(significant <= 18){
+                mantissa = mantissa * 10 + (c - '0');
+            } else {
+                exponent++;
+            }
+            digits++;
+            length = append(length, c);
+            position++;
+        }
+        if(c == '.'){
+            length = append(length, c);
+            position++;
+            for(c = peek(); c >= '0' && c <= '9'; c = peek()){
+                if(significant > 0 || c != '0'){
+                    significant++;
+                }
+                if(significant <= 18){
+                    mantissa = mantissa * 10 + (c - '0');
+                    exponent--;
+                }
+                digits++;
+                length = append(length, c);
+                position++;
+            }
+        }
+        if(digits > 0 && (c == 'e' || c == 'E')){
+            length = append(length, c);
+            position++;
+            c = peek();
+            boolean negativeExponent = c == '-';
+            if(c == '-' || c == '+'){
+                length = append(length, c);
+                position++;
+                c = peek();
+            }
+            int value = 0, exponentDigits = 0;
+            for(; c >= '0' && c <= '9'; c = peek()){
+                value = Math.min(value * 10 + (c - '0'), 100000);
+                exponentDigits++;
+                length = append(length, c);
+                position++;
+            }
+            if(exponentDigits == 0){
+                throw malformed("Malformed number");
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if(digits == 0){
+            // NaN, Infinity and their signed forms.
+            for(; (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'); c = peek()){
+                length = append(length, c);
+                position++;
+            }
+        }
+        if(!isDelimiter(c)){
+            throw malformed("Malformed number");
+        }
+        if(digits > 0 && significant <= FAST_DIGITS && Math.abs(exponent) < POWERS.length){
+            double value = exponent >= 0 ? mantissa * POWERS[exponent] : mantissa / POWERS[-exponent];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(token, 0, length));
+        } catch (NumberFormatException e) {
+            throw malformed("Malformed number");
+        }
+    }
+
+    IOException malformed(String message) {
+        return new IOException(message + " at line " + line + ".");
+    }
+
+    private int append(int length, int c) {
+        if(length == token.length){
+            token = Arrays.copyOf(token, 2 * length);
+        }
+        token[length] = (char) c;
+        return length + 1;
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c < 0 || c == ',' || c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the results of expensive operations, keyed by the content of the operand,
+ * for callers that repeat the same operation on equal matrices held by different objects.
+ * A single matrix already keeps its own factorizations, see {@link Matrix#lu()}.
+ *
+ * Operands are looked up by their 64 bit content hash and then compared element by element,
+ * so a collision is only a miss. The weight of an entry is the number of elements of its
+ * operand and result, and the least recently used entries are evicted once the total weight
+ * is over the capacity. Operands and results are kept as copies that share storage with the
+ * originals until either is written, so caching costs no copy and later writes to the operand
+ * or to a returned result never change the cache.
+ *
+ * The cache is safe for concurrent use. Lookups only hold the lock to find the entry, and
+ * results are computed outside of it, so threads missing on the same operand at the same time
+ * may each compute the result.
+ */
+public final class OperationCache {
+
+    private final long capacity;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long weight;
+
+    /**
+     * @param capacity maximum number of elements of the cached operands and results.
+     */
+    public OperationCache(long capacity) {
+        if(capacity <= 0){
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return inverse of the matrix, from the cache when an equal matrix was inverted before.
+     * @throws Exception if the given matrix is a singular matrix.
+     */
+    public Matrix inverse(Matrix matrix) throws Exception {
+        return ((Matrix) compute(Operation.INVERSE, matrix)).share();
+    }
+
+    /**
+     * @return adjoint of the matrix, from the cache when it was computed for an equal matrix before.
+     * @throws Exception if the given matrix is not a square matrix.
+     */
+    public Matrix adjoint(Matrix matrix) throws Exception {
+        return ((Matrix) compute(Operation.ADJOINT, matrix)).share();
+    }
+
+    /**
+     * @return determinant of the matrix, from the cache when it was computed for an equal matrix before.
+     * @throws Exception if the given matrix is not a square matrix.
+     */
+    public double getDeterminant(Matrix matrix) throws Exception {
+        return (Double) compute(Operation.DETERMINANT, matrix);
+    }
+
+    private Object compute(Operation operation, Matrix matrix) throws Exception {
+        Key key = new Key(operation, matrix);
+        Entry entry;
+        synchronized(this){
+            entry = entries.get(key);
+        }
+        if(entry != null && entry.operand.equals(matrix)){
+            hits.increment();
+            return entry.result;
+        }
+        misses.increment();
+        Object result = operation.apply(matrix);
+        long size = (long) matrix.getRows() * matrix.getColumns();
+        if(result instanceof Matrix){
+            Matrix product = (Matrix) result;
+            size += (long) product.getRows() * product.getColumns();
+            result = product.share();
+        }
+        if(size <= capacity){
+            put(key, new Entry(matrix.share(), result, size));
+        }
+        return result;
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if(previous != null){
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while(weight > capacity){
+            weight -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return number of lookups answered from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that computed the result.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of cached results.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of elements of the cached operands and results.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private enum Operation {
+        INVERSE {
+            @Override
+            Object apply(Matrix matrix) throws Exception {
+                return matrix.inverse();
+            }
+        },
+        ADJOINT {
+            @Override
+            Object apply(Matrix matrix) throws Exception {
+                return matrix.adjoint();
+            }
+        },
+        DETERMINANT {
+            @Override
+            Object apply(Matrix matrix) throws Exception {
+                return matrix.getDeterminant();
+            }
+        };
+
+        abstract Object apply(Matrix matrix) throws Exception;
+    }
+
+    /**
+     * Results of approximated matrices depend on the threshold, which is part of the key.
+     */
+    private static final class Key {
+
+        private final Operation operation;
+        private final int rows;
+        private final int columns;
+        private final long hash;
+        private final double threshold;
+
+        Key(Operation operation, Matrix matrix) {
+            this.operation = operation;
+            this.rows = matrix.getRows();
+            this.columns = matrix.getColumns();
+            this.hash = matrix.contentHash();
+            this.threshold = matrix.isApproximate() ? Matrix.getApproximationThreshold() : -1;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Key)){
+                return false;
+            }
+            Key that = (Key) obj;
+            return operation == that.operation && rows == that.rows && columns == that.columns
+                    && hash == that.hash && Double.compare(threshold, that.threshold) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operation, rows, columns, hash, threshold);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Matrix operand;
+        private final Object result;
+        private final long weight;
+
+        Entry(Matrix operand, Object result, long weight) {
+            this.operand = operand;
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Receives the operations of {@link Matrix} while {@link Instrumentation} is enabled.
+ */
+public interface OperationListener {
+
+    /**
+     * Called on the thread that ran the operation, after it completed. Operations that throw
+     * are not reported. Operations that run others, like inverse running LU, are reported
+     * together with each of them.
+     *
+     * @param operation
+     * @param rows rows of the matrix the operation was called on.
+     * @param columns columns of the matrix the operation was called on.
+     * @param flops floating point operations of the standard algorithm.
+     * @param bytes bytes of the arrays allocated by the operation itself, 0 for the
+     *              operations that write in place.
+     * @param nanos latency of the operation.
+     */
+    void operationCompleted(MatrixOperation operation, int rows, int columns, long flops, long bytes, long nanos);
+}
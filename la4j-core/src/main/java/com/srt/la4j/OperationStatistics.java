@@ -0,0 +1,165 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener that counts the invocations, floating point operations, allocated bytes and
+ * latencies of each operation, register it with {@link Instrumentation#addListener}.
+ *
+ * The counters are updated without locking from any number of threads. Latencies are kept
+ * in a histogram with power of two buckets: bucket b counts latencies in [2^(b-1), 2^b)
+ * nanoseconds, bucket 0 latencies of 0.
+ */
+public final class OperationStatistics implements OperationListener {
+
+    private static final int BUCKETS = 64;
+
+    private final Map<MatrixOperation, Counters> counters = new EnumMap<>(MatrixOperation.class);
+
+    public OperationStatistics() {
+        for(MatrixOperation operation : MatrixOperation.values()){
+            counters.put(operation, new Counters());
+        }
+    }
+
+    @Override
+    public void operationCompleted(MatrixOperation operation, int rows, int columns, long flops, long bytes, long nanos) {
+        Counters c = counters.get(operation);
+        c.invocations.increment();
+        c.elements.add((long) rows * columns);
+        c.flops.add(flops);
+        c.bytes.add(bytes);
+        c.nanos.add(nanos);
+        c.latencies[BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0))].increment();
+    }
+
+    public long getInvocations(MatrixOperation operation) {
+        return counters.get(operation).invocations.sum();
+    }
+
+    /**
+     * @return sum of the number of elements of the matrices the operation was called on.
+     */
+    public long getElements(MatrixOperation operation) {
+        return counters.get(operation).elements.sum();
+    }
+
+    public long getFlops(MatrixOperation operation) {
+        return counters.get(operation).flops.sum();
+    }
+
+    public long getBytes(MatrixOperation operation) {
+        return counters.get(operation).bytes.sum();
+    }
+
+    /**
+     * @return total latency of the operation in nanoseconds.
+     */
+    public long getNanos(MatrixOperation operation) {
+        return counters.get(operation).nanos.sum();
+    }
+
+    /**
+     * @return counts of the latency buckets of the operation.
+     */
+    public long[] getLatencyHistogram(MatrixOperation operation) {
+        LongAdder[] latencies = counters.get(operation).latencies;
+        long[] histogram = new long[BUCKETS];
+        for(int b = 0; b < histogram.length; b++){
+            histogram[b] = latencies[b].sum();
+        }
+        return histogram;
+    }
+
+    /**
+     * @return upper bound in nanoseconds of the latency of the given fraction of the calls,
+     *          to the precision of the buckets, or 0 when there was no call.
+     */
+    public long getLatencyPercentile(MatrixOperation operation, double fraction) {
+        long[] histogram = getLatencyHistogram(operation);
+        long total = 0;
+        for(long count : histogram){
+            total += count;
+        }
+        long rank = (long) Math.ceil(fraction * total), seen = 0;
+        for(int b = 0; b < histogram.length; b++){
+            seen += histogram[b];
+            if(seen >= rank && seen > 0){
+                return b == BUCKETS - 1 ? Long.MAX_VALUE : b == 0 ? 0 : 1L << b;
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for(Counters c : counters.values()){
+            c.invocations.reset();
+            c.elements.reset();
+            c.flops.reset();
+            c.bytes.reset();
+            c.nanos.reset();
+            for(LongAdder latency : c.latencies){
+                latency.reset();
+            }
+        }
+    }
+
+    /**
+     * @return one line per operation that was called, with its counters.
+     */
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for(MatrixOperation operation : MatrixOperation.values()){
+            long invocations = getInvocations(operation);
+            if(invocations == 0){
+                continue;
+            }
+            string.append(operation)
+                    .append(" invocations=").append(invocations)
+                    .append(" flops=").append(getFlops(operation))
+                    .append(" bytes=").append(getBytes(operation))
+                    .append(" nanos=").append(getNanos(operation))
+                    .append(" p50<=").append(getLatencyPercentile(operation, 0.5))
+                    .append(" p99<=").append(getLatencyPercentile(operation, 0.99))
+                    .append("\n");
+        }
+        return string.toString();
+    }
+
+    private static final class Counters {
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder elements = new LongAdder();
+        private final LongAdder flops = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder[] latencies = new LongAdder[BUCKETS];
+
+        Counters() {
+            for(int b = 0; b < latencies.length; b++){
+                latencies[b] = new LongAdder();
+            }
+        }
+    }
+}
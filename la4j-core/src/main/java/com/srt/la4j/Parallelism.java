@@ -0,0 +1,148 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel execution mode of the matrix operations.
+ *
+ * When enabled, operations whose amount of work (multiply-adds for products, elements for
+ * element wise operations) is at least the threshold are split into row blocks and run on
+ * the configured {@link ForkJoinPool}. Smaller operations, and all operations while the mode
+ * is disabled, run serially on the calling thread. Every element is computed by the same
+ * instructions in both modes, so results do not depend on the mode.
+ *
+ * The mode is disabled by default, it can be enabled with {@link #setEnabled(boolean)} or with
+ * the system property la4j.parallel=true.
+ */
+public final class Parallelism {
+
+    private static volatile boolean enabled = Boolean.getBoolean("la4j.parallel");
+    private static volatile long threshold = Long.getLong("la4j.parallel.threshold", 1 << 16);
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private Parallelism() {
+    }
+
+    /**
+     * @param enabled true to run large operations on the pool.
+     */
+    public static void setEnabled(boolean enabled) {
+        Parallelism.enabled = enabled;
+    }
+
+    /**
+     * @return true if large operations run on the pool.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param threshold minimum amount of work of an operation, and of each of its parallel
+     *                  tasks, below which it runs serially.
+     */
+    public static void setThreshold(long threshold) {
+        if(threshold <= 0){
+            throw new IllegalArgumentException("Threshold must be positive.");
+        }
+        Parallelism.threshold = threshold;
+    }
+
+    /**
+     * @return minimum amount of work of an operation to run it in parallel.
+     */
+    public static long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param pool pool on which parallel operations are run, common pool by default.
+     */
+    public static void setPool(ForkJoinPool pool) {
+        if(pool == null){
+            throw new IllegalArgumentException("Pool can not be null.");
+        }
+        Parallelism.pool = pool;
+    }
+
+    /**
+     * @return pool on which parallel operations are run.
+     */
+    public static ForkJoinPool getPool() {
+        return pool;
+    }
+
+    static boolean isParallel(long work) {
+        return enabled && work >= threshold && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Runs body over the range [from, to), split in blocks of at least grain indices that
+     * each carry at least the threshold of work, or serially if the whole range is too small.
+     *
+     * @param workPerIndex amount of work done by body for a single index of the range.
+     */
+    static void forRange(int from, int to, int grain, long workPerIndex, Range body) {
+        long work = (long) (to - from) * workPerIndex;
+        if(!isParallel(work)){
+            body.run(from, to);
+            return;
+        }
+        int minimum = (int) Math.max(grain, Math.min(to - from, (threshold + workPerIndex - 1) / workPerIndex));
+        pool.invoke(new RangeTask(from, to, grain, minimum, body));
+    }
+
+    interface Range {
+        void run(int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final int minimum;
+        private final Range body;
+
+        RangeTask(int from, int to, int grain, int minimum, Range body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.minimum = minimum;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from < 2 * minimum){
+                body.run(from, to);
+                return;
+            }
+            int middle = from + (to - from) / 2 / grain * grain;
+            RangeTask left = new RangeTask(from, middle, grain, minimum, body);
+            left.fork();
+            new RangeTask(middle, to, grain, minimum, body).compute();
+            left.join();
+        }
+    }
+}
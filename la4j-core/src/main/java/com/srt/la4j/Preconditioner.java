@@ -0,0 +1,31 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Approximate inverse M^-1 of the matrix of a system, applied by {@link IterativeSolver} at
+ * every iteration to reduce the number of iterations. It should be much cheaper to apply than
+ * the operator, see {@link JacobiPreconditioner} and {@link IncompleteLUPreconditioner}.
+ */
+public interface Preconditioner {
+
+    /**
+     * Writes z = M^-1 * r. r and z are distinct arrays, z is overwritten and not read.
+     */
+    void apply(double[] r, double[] z);
+}
@@ -0,0 +1,251 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+/**
+ * Householder QR factorization of an m x n matrix with m >= n, such that A = Q*R where Q is
+ * m x n with orthonormal columns and R is n x n upper triangular. It is kept to solve least
+ * squares problems min ||A*X - B||, which avoids squaring the condition number like the
+ * normal equations do.
+ *
+ * The columns of A are stored as rows, so that every reflection works on contiguous runs.
+ * Row k holds R(0..k, k) in its first k + 1 elements and the Householder vector of column k
+ * below them, whose leading element is kept aside.
+ *
+ * The columns are factorized in panels of {@link #BLOCK}. Within a panel the reflections are
+ * applied one at a time, then the panel is turned into the compact WY form of
+ * {@link Householder} and applied to the trailing columns with two products of {@link Gemm},
+ * which is where most of the 2*n^2*(m - n/3) flops go. Q and Q^T are applied the same way.
+ */
+public class QRDecomposition {
+
+    static final int BLOCK = 32;
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int rows;
+    private final int columns;
+    private final double[] qr;
+    private final double[] leading;
+    // Triangular factor of the compact WY form of each panel.
+    private final double[][] factors;
+    private final boolean fullRank;
+
+    QRDecomposition(Matrix matrix) {
+        int m = matrix.getRows(), n = matrix.getColumns();
+        this.rows = m;
+        this.columns = n;
+        this.qr = new double[n * m];
+        this.leading = new double[n];
+        this.factors = new double[(n + BLOCK - 1) / BLOCK][];
+        // Column k of A becomes row k.
+        Matrix.copy(matrix.storage(), matrix.storageOffset(), matrix.columnStride(), matrix.rowStride(),
+                qr, 0, m, n, m);
+        boolean rank = true;
+        for(int k0 = 0; k0 < n; k0 += BLOCK){
+            int width = Math.min(BLOCK, n - k0);
+            for(int k = k0; k < k0 + width; k++){
+                int v = k * m;
+                double norm = norm(v + k, m - k);
+                if(norm == 0){
+                    rank = false;
+                    continue;
+                }
+                if(qr[v + k] < 0){
+                    norm = -norm;
+                }
+                KERNELS.scale(qr, v + k, 1 / norm, qr, v + k, m - k);
+                qr[v + k] += 1;
+                for(int j = k + 1; j < k0 + width; j++){
+                    reflect(k, qr[v + k], qr, j * m + k);
+                }
+                leading[k] = qr[v + k];
+                qr[v + k] = -norm;
+            }
+            double[] vectors = vectors(k0, width);
+            double[] t = new double[width * width];
+            Householder.factor(vectors, m - k0, width, tau(k0, width), 0, t);
+            factors[k0 / BLOCK] = t;
+            Householder.apply(vectors, m - k0, width, t, false,
+                    qr, (k0 + width) * m + k0, m, n - k0 - width);
+        }
+        this.fullRank = rank;
+    }
+
+    /**
+     * @return Euclidean norm of the run, scaled by its largest element so that it neither
+     *          overflows nor underflows.
+     */
+    private double norm(int start, int length) {
+        double scale = 0;
+        for(int i = 0; i < length; i++){
+            scale = Math.max(scale, Math.abs(qr[start + i]));
+        }
+        if(scale == 0){
+            return 0;
+        }
+        double sum = 0;
+        for(int i = 0; i < length; i++){
+            double value = qr[start + i] / scale;
+            sum += value * value;
+        }
+        return scale * Math.sqrt(sum);
+    }
+
+    /**
+     * Applies the reflection of column k, whose leading element is vk, to the m - k elements
+     * of x that start at start.
+     */
+    private void reflect(int k, double vk, double[] x, int start) {
+        int v = k * rows + k + 1, length = rows - k - 1;
+        double s = vk * x[start] + KERNELS.dot(qr, v, x, start + 1, length);
+        s = -s / vk;
+        x[start] += s * vk;
+        KERNELS.axpy(s, qr, v, x, start + 1, length);
+    }
+
+    /**
+     * @return Householder vectors of the columns [k0, k0 + width) as the rows of a
+     *          width x (m - k0) array, each zero before its own column.
+     */
+    private double[] vectors(int k0, int width) {
+        int length = rows - k0;
+        double[] v = new double[width * length];
+        for(int p = 0; p < width; p++){
+            int k = k0 + p;
+            v[p * length + p] = leading[k];
+            System.arraycopy(qr, k * rows + k + 1, v, p * length + p + 1, rows - k - 1);
+        }
+        return v;
+    }
+
+    /**
+     * @return factors tau of the reflections I - tau*v*v^T of the columns [k0, k0 + width),
+     *          zero for the columns that are skipped.
+     */
+    private double[] tau(int k0, int width) {
+        double[] tau = new double[width];
+        for(int p = 0; p < width; p++){
+            tau[p] = leading[k0 + p] == 0 ? 0 : 1 / leading[k0 + p];
+        }
+        return tau;
+    }
+
+    /**
+     * Replaces each of the count rows of x, of m elements each, by Q times it. When the rows
+     * are the leading rows of the identity, rows before a panel are left as they are, since
+     * its reflections do not reach them.
+     */
+    void applyQ(double[] x, int count, boolean identity) {
+        int m = rows;
+        for(int k0 = (columns - 1) / BLOCK * BLOCK; k0 >= 0; k0 -= BLOCK){
+            int width = Math.min(BLOCK, columns - k0), first = identity ? Math.min(k0, count) : 0;
+            Householder.apply(vectors(k0, width), m - k0, width, factors[k0 / BLOCK], true,
+                    x, first * m + k0, m, count - first);
+        }
+    }
+
+    /**
+     * Replaces each of the count rows of x, of m elements each, by Q^T times it.
+     */
+    void applyQTranspose(double[] x, int count) {
+        int m = rows;
+        for(int k0 = 0; k0 < columns; k0 += BLOCK){
+            int width = Math.min(BLOCK, columns - k0);
+            Householder.apply(vectors(k0, width), m - k0, width, factors[k0 / BLOCK], false,
+                    x, k0, m, count);
+        }
+    }
+
+    /**
+     * Copies the columns of R into the rows of the n x n array r, row k holding R(0..k, k)
+     * followed by zeros.
+     */
+    void copyR(double[] r) {
+        for(int k = 0; k < columns; k++){
+            System.arraycopy(qr, k * rows, r, k * columns, k + 1);
+        }
+    }
+
+    /**
+     * @return true if R has no zero on its diagonal, i.e. the columns are independent.
+     */
+    public boolean isFullRank() {
+        return fullRank;
+    }
+
+    /**
+     * @return n x n upper triangular factor R.
+     */
+    public Matrix getR() {
+        double[] d = new double[columns * columns];
+        for(int k = 0; k < columns; k++){
+            for(int i = 0; i <= k; i++){
+                d[i * columns + k] = qr[k * rows + i];
+            }
+        }
+        return new Matrix(columns, columns, d, false);
+    }
+
+    /**
+     * @return m x n factor Q with orthonormal columns.
+     */
+    public Matrix getQ() {
+        // Built as Q^T, whose rows are contiguous, by reflecting the rows of the identity.
+        double[] q = new double[columns * rows];
+        for(int j = 0; j < columns; j++){
+            q[j * rows + j] = 1;
+        }
+        applyQ(q, columns, true);
+        double[] d = new double[rows * columns];
+        Matrix.copy(q, 0, 1, rows, d, 0, columns, rows, columns);
+        return new Matrix(rows, columns, d, false);
+    }
+
+    /**
+     * Solves the least squares problem min ||A*X - B|| for all columns of B together, exactly
+     * when A is square. Applying Q^T costs O(m*n) and the triangular solve O(n^2) per column.
+     *
+     * @param b right hand side with as many rows as the factorized matrix.
+     * @return n x r solution X.
+     * @throws MultiplicationCompatibleException if b does not have m rows.
+     * @throws SingularMatrixException if the factorized matrix is rank deficient.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException, SingularMatrixException {
+        if(b.getRows() != rows){
+            throw new MultiplicationCompatibleException();
+        }
+        if(!fullRank){
+            throw new SingularMatrixException("Matrix is rank deficient.");
+        }
+        int m = rows, n = columns, r = b.getColumns();
+        // Columns of B as rows, so that Q^T is applied like to the trailing columns of A.
+        double[] yt = new double[r * m];
+        Matrix.copy(b.storage(), b.storageOffset(), b.columnStride(), b.rowStride(), yt, 0, m, r, m);
+        applyQTranspose(yt, r);
+        double[] x = new double[n * r];
+        Matrix.copy(yt, 0, 1, m, x, 0, r, n, r);
+        // R(i, k) is element i of row k.
+        TriangularSolver.upper(qr, 0, 1, m, n, false, x, r);
+        return new Matrix(n, r, x, false);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Plain loop implementation of {@link FloatKernels} with a 4x4 register tile. Products are
+ * accumulated with {@link Math#fma}, like the SIMD implementation, so that both round alike.
+ */
+final class ScalarFloatKernels extends FloatKernels {
+
+    private static final int MR = 4;
+    private static final int NR = 4;
+
+    @Override
+    int mr() {
+        return MR;
+    }
+
+    @Override
+    int nr() {
+        return NR;
+    }
+
+    @Override
+    String name() {
+        return "scalar";
+    }
+
+    @Override
+    void add(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        for(int i = 0; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    @Override
+    void multiply(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        for(int i = 0; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * b[bOffset + i];
+        }
+    }
+
+    @Override
+    void scale(float[] a, int aOffset, float number, float[] c, int cOffset, int length) {
+        for(int i = 0; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * number;
+        }
+    }
+
+    @Override
+    void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        for(int i = 0; i < length; i++){
+            y[yOffset + i] = Math.fma(alpha, x[xOffset + i], y[yOffset + i]);
+        }
+    }
+
+    @Override
+    void microKernel(int depth, float[] a, int aOffset, float[] b, int bOffset,
+                     float[] c, int cOffset, int cStride) {
+        float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        int ai = aOffset, bi = bOffset;
+        for(int p = 0; p < depth; p++, ai += MR, bi += NR){
+            float a0 = a[ai], a1 = a[ai + 1], a2 = a[ai + 2], a3 = a[ai + 3];
+            float b0 = b[bi], b1 = b[bi + 1], b2 = b[bi + 2], b3 = b[bi + 3];
+            c00 = Math.fma(a0, b0, c00); c01 = Math.fma(a0, b1, c01); c02 = Math.fma(a0, b2, c02); c03 = Math.fma(a0, b3, c03);
+            c10 = Math.fma(a1, b0, c10); c11 = Math.fma(a1, b1, c11); c12 = Math.fma(a1, b2, c12); c13 = Math.fma(a1, b3, c13);
+            c20 = Math.fma(a2, b0, c20); c21 = Math.fma(a2, b1, c21); c22 = Math.fma(a2, b2, c22); c23 = Math.fma(a2, b3, c23);
+            c30 = Math.fma(a3, b0, c30); c31 = Math.fma(a3, b1, c31); c32 = Math.fma(a3, b2, c32); c33 = Math.fma(a3, b3, c33);
+        }
+        int r = cOffset;
+        c[r] += c00; c[r + 1] += c01; c[r + 2] += c02; c[r + 3] += c03;
+        r += cStride;
+        c[r] += c10; c[r + 1] += c11; c[r + 2] += c12; c[r + 3] += c13;
+        r += cStride;
+        c[r] += c20; c[r + 1] += c21; c[r + 2] += c22; c[r + 3] += c23;
+        r += cStride;
+        c[r] += c30; c[r + 1] += c31; c[r + 2] += c32; c[r + 3] += c33;
+    }
+
+    @Override
+    void toFloat(double[] s, int sOffset, float[] d, int dOffset, int length) {
+        for(int i = 0; i < length; i++){
+            d[dOffset + i] = (float) s[sOffset + i];
+        }
+    }
+
+    @Override
+    void toDouble(float[] s, int sOffset, double[] d, int dOffset, int length) {
+        for(int i = 0; i < length; i++){
+            d[dOffset + i] = s[sOffset + i];
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+/**
+ * Plain loop implementation of {@link Kernels} with a 4x4 register tile. Products are
+ * accumulated with {@link Math#fma}, like the SIMD implementation, so that both round alike.
+ */
+final class ScalarKernels extends Kernels {
+
+    private static final int MR = 4;
+    private static final int NR = 4;
+
+    @Override
+    int mr() {
+        return MR;
+    }
+
+    @Override
+    int nr() {
+        return NR;
+    }
+
+    @Override
+    String name() {
+        return "scalar";
+    }
+
+    @Override
+    void add(double[] a, int aOffset, double[] b, int bOffset, double[] c, int cOffset, int length) {
+        for(int i = 0; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    @Override
+    void multiply(double[] a, int aOffset, double[] b, int bOffset, double[] c, int cOffset, int length) {
+        for(int i = 0; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * b[bOffset + i];
+        }
+    }
+
+    @Override
+    void scale(double[] a, int aOffset, double number, double[] c, int cOffset, int length) {
+        for(int i = 0; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * number;
+        }
+    }
+
+    @Override
+    void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for(int i = 0; i < length; i++){
+            y[yOffset + i] = Math.fma(alpha, x[xOffset + i], y[yOffset + i]);
+        }
+    }
+
+    @Override
+    double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0;
+        for(int i = 0; i < length; i++){
+            sum = Math.fma(a[aOffset + i], b[bOffset + i], sum);
+        }
+        return sum;
+    }
+
+    @Override
+    void rotate(double c, double s, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for(int i = 0; i < length; i++){
+            double xi = x[xOffset + i], yi = y[yOffset + i];
+            x[xOffset + i] = c * xi - s * yi;
+            y[yOffset + i] = Math.fma(xi, s, c * yi);
+        }
+    }
+
+    @Override
+    void approximate(double[] a, int offset, int length, double minValue) {
+        for(int i = offset; i < offset + length; i++){
+            if(Math.abs(a[i]) < minValue){
+                a[i] = 0;
+            }
+        }
+    }
+
+    @Override
+    void microKernel(int depth, double[] a, int aOffset, double[] b, int bOffset,
+                     double[] c, int cOffset, int cStride) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        int ai = aOffset, bi = bOffset;
+        for(int p = 0; p < depth; p++, ai += MR, bi += NR){
+            double a0 = a[ai], a1 = a[ai + 1], a2 = a[ai + 2], a3 = a[ai + 3];
+            double b0 = b[bi], b1 = b[bi + 1], b2 = b[bi + 2], b3 = b[bi + 3];
+            c00 = Math.fma(a0, b0, c00); c01 = Math.fma(a0, b1, c01); c02 = Math.fma(a0, b2, c02); c03 = Math.fma(a0, b3, c03);
+            c10 = Math.fma(a1, b0, c10); c11 = Math.fma(a1, b1, c11); c12 = Math.fma(a1, b2, c12); c13 = Math.fma(a1, b3, c13);
+            c20 = Math.fma(a2, b0, c20); c21 = Math.fma(a2, b1, c21); c22 = Math.fma(a2, b2, c22); c23 = Math.fma(a2, b3, c23);
+            c30 = Math.fma(a3, b0, c30); c31 = Math.fma(a3, b1, c31); c32 = Math.fma(a3, b2, c32); c33 = Math.fma(a3, b3, c33);
+        }
+        int r = cOffset;
+        c[r] += c00; c[r + 1] += c01; c[r + 2] += c02; c[r + 3] += c03;
+        r += cStride;
+        c[r] += c10; c[r + 1] += c11; c[r + 2] += c12; c[r + 3] += c13;
+        r += cStride;
+        c[r] += c20; c[r + 1] += c21; c[r + 2] += c22; c[r + 3] += c23;
+        r += cStride;
+        c[r] += c30; c[r + 1] += c31; c[r + 2] += c32; c[r + 3] += c33;
+    }
+
+    @Override
+    void batchMultiply(int m, int k, int n, double[] a, double[] b, double[] c,
+                       int stride, int from, int to) {
+        for(int e = from; e < to; e++){
+            for(int i = 0; i < m; i++){
+                for(int j = 0; j < n; j++){
+                    double sum = 0;
+                    for(int p = 0; p < k; p++){
+                        sum = Math.fma(a[(i*k + p)*stride + e], b[(p*n + j)*stride + e], sum);
+                    }
+                    c[(i*n + j)*stride + e] = sum;
+                }
+            }
+        }
+    }
+
+    @Override
+    void batchDeterminant(int n, double[] a, double[] det, int stride, int from, int to) {
+        switch(n){
+            case 1:
+                System.arraycopy(a, from, det, from, to - from);
+                break;
+            case 2:
+                for(int e = from; e < to; e++){
+                    det[e] = a[e] * a[3*stride + e] - a[stride + e] * a[2*stride + e];
+                }
+                break;
+            case 3:
+                for(int e = from; e < to; e++){
+                    double a00 = a[e], a01 = a[stride + e], a02 = a[2*stride + e];
+                    double a10 = a[3*stride + e], a11 = a[4*stride + e], a12 = a[5*stride + e];
+                    double a20 = a[6*stride + e], a21 = a[7*stride + e], a22 = a[8*stride + e];
+                    det[e] = a00 * (a11 * a22 - a12 * a21)
+                            + a01 * (a12 * a20 - a10 * a22)
+                            + a02 * (a10 * a21 - a11 * a20);
+                }
+                break;
+            case 4:
+                batchInverse(4, a, null, det, stride, from, to);
+                break;
+            default:
+                throw new IllegalArgumentException("Batch determinants are limited to 4 x 4 matrices.");
+        }
+    }
+
+    @Override
+    void batchInverse(int n, double[] a, double[] c, double[] det, int stride, int from, int to) {
+        for(int e = from; e < to; e++){
+            switch(n){
+                case 1:
+                    det[e] = a[e];
+                    c[e] = 1 / a[e];
+                    break;
+                case 2:
+                    inverse2(a, c, det, stride, e);
+                    break;
+                case 3:
+                    inverse3(a, c, det, stride, e);
+                    break;
+                case 4:
+                    inverse4(a, c, det, stride, e);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Batch inverses are limited to 4 x 4 matrices.");
+            }
+        }
+    }
+
+    private static void inverse2(double[] a, double[] c, double[] det, int stride, int e) {
+        double a00 = a[e], a01 = a[stride + e], a10 = a[2*stride + e], a11 = a[3*stride + e];
+        double d = a00 * a11 - a01 * a10, r = 1 / d;
+        det[e] = d;
+        c[e] = a11 * r;
+        c[stride + e] = -a01 * r;
+        c[2*stride + e] = -a10 * r;
+        c[3*stride + e] = a00 * r;
+    }
+
+    private static void inverse3(double[] a, double[] c, double[] det, int stride, int e) {
+        double a00 = a[e], a01 = a[stride + e], a02 = a[2*stride + e];
+        double a10 = a[3*stride + e], a11 = a[4*stride + e], a12 = a[5*stride + e];
+        double a20 = a[6*stride + e], a21 = a[7*stride + e], a22 = a[8*stride + e];
+        double c00 = a11 * a22 - a12 * a21, c01 = a12 * a20 - a10 * a22, c02 = a10 * a21 - a11 * a20;
+        double d = a00 * c00 + a01 * c01 + a02 * c02, r = 1 / d;
+        det[e] = d;
+        c[e] = c00 * r;
+        c[stride + e] = (a02 * a21 - a01 * a22) * r;
+        c[2*stride + e] = (a01 * a12 - a02 * a11) * r;
+        c[3*stride + e] = c01 * r;
+        c[4*stride + e] = (a00 * a22 - a02 * a20) * r;
+        c[5*stride + e] = (a02 * a10 - a00 * a12) * r;
+        c[6*stride + e] = c02 * r;
+        c[7*stride + e] = (a01 * a20 - a00 * a21) * r;
+        c[8*stride + e] = (a00 * a11 - a01 * a10) * r;
+    }
+
+    /**
+     * Inverse from the 2 x 2 minors of the top two rows (s) and the bottom two rows (c), when
+     * c is null only the determinant is written.
+     */
+    private static void inverse4(double[] a, double[] c, double[] det, int stride, int e) {
+        double a00 = a[e], a01 = a[stride + e], a02 = a[2*stride + e], a03 = a[3*stride + e];
+        double a10 = a[4*stride + e], a11 = a[5*stride + e], a12 = a[6*stride + e], a13 = a[7*stride + e];
+        double a20 = a[8*stride + e], a21 = a[9*stride + e], a22 = a[10*stride + e], a23 = a[11*stride + e];
+        double a30 = a[12*stride + e], a31 = a[13*stride + e], a32 = a[14*stride + e], a33 = a[15*stride + e];
+        double s0 = a00 * a11 - a10 * a01, s1 = a00 * a12 - a10 * a02, s2 = a00 * a13 - a10 * a03;
+        double s3 = a01 * a12 - a11 * a02, s4 = a01 * a13 - a11 * a03, s5 = a02 * a13 - a12 * a03;
+        double c0 = a20 * a31 - a30 * a21, c1 = a20 * a32 - a30 * a22, c2 = a20 * a33 - a30 * a23;
+        double c3 = a21 * a32 - a31 * a22, c4 = a21 * a33 - a31 * a23, c5 = a22 * a33 - a32 * a23;
+        double d = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        det[e] = d;
+        if(c == null){
+            return;
+        }
+        double r = 1 / d;
+        c[e] = (a11 * c5 - a12 * c4 + a13 * c3) * r;
+        c[stride + e] = (-a01 * c5 + a02 * c4 - a03 * c3) * r;
+        c[2*stride + e] = (a31 * s5 - a32 * s4 + a33 * s3) * r;
+        c[3*stride + e] = (-a21 * s5 + a22 * s4 - a23 * s3) * r;
+        c[4*stride + e] = (-a10 * c5 + a12 * c2 - a13 * c1) * r;
+        c[5*stride + e] = (a00 * c5 - a02 * c2 + a03 * c1) * r;
+        c[6*stride + e] = (-a30 * s5 + a32 * s2 - a33 * s1) * r;
+        c[7*stride + e] = (a20 * s5 - a22 * s2 + a23 * s1) * r;
+        c[8*stride + e] = (a10 * c4 - a11 * c2 + a13 * c0) * r;
+        c[9*stride + e] = (-a00 * c4 + a01 * c2 - a03 * c0) * r;
+        c[10*stride + e] = (a30 * s4 - a31 * s2 + a33 * s0) * r;
+        c[11*stride + e] = (-a20 * s4 + a21 * s2 - a23 * s0) * r;
+        c[12*stride + e] = (-a10 * c3 + a11 * c1 - a12 * c0) * r;
+        c[13*stride + e] = (a00 * c3 - a01 * c1 + a02 * c0) * r;
+        c[14*stride + e] = (-a30 * s3 + a31 * s1 - a32 * s0) * r;
+        c[15*stride + e] = (a20 * s3 - a21 * s1 + a22 * s0) * r;
+    }
+}
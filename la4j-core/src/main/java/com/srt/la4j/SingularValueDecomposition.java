@@ -0,0 +1,328 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Thin singular value decomposition A = U*S*V^T of an m x n matrix, where p = min(m, n),
+ * U is m x p and V is n x p with orthonormal columns and S is p x p diagonal with the
+ * singular values in decreasing order. Columns of U for zero singular values are zero.
+ *
+ * The singular values are computed by one sided Jacobi (Hestenes) on the columns of the
+ * matrix: pairs of columns are rotated until every pair is orthogonal to working precision,
+ * which gives small singular values to high relative accuracy. A matrix with more rows than
+ * columns is first reduced to its n x n factor R by the blocked {@link QRDecomposition}, so
+ * that the sweeps cost O(n^3) whatever m, and U = Q*U_R is formed by applying the blocked
+ * reflections. A wide matrix is decomposed through its transpose. Each sweep visits the
+ * pairs in round robin order, where the n/2 rotations of a round touch disjoint columns and
+ * run on the pool in {@link Parallelism} mode.
+ *
+ * {@link #randomized(BaseMatrix, int, int, int, long)} approximates the leading singular
+ * triplets of large matrices from a few products with the matrix.
+ */
+public class SingularValueDecomposition {
+
+    private static final int MAX_SWEEPS = 60;
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int rows;
+    private final int columns;
+    // u is m x p and v is n x p, row major.
+    private final double[] u;
+    private final double[] singularValues;
+    private final double[] v;
+
+    SingularValueDecomposition(Matrix matrix) {
+        int m = matrix.getRows(), n = matrix.getColumns();
+        this.rows = m;
+        this.columns = n;
+        // The tall matrix B is the matrix itself, or its transpose when it is wide.
+        boolean wide = m < n;
+        int length = wide ? n : m, p = wide ? m : n;
+        Matrix tall = wide ? matrix.transpose() : matrix;
+        // Columns of R, or of B when it is square, as rows.
+        double[] w = new double[p * p];
+        QRDecomposition qr = null;
+        if(length > p){
+            qr = new QRDecomposition(tall);
+            qr.copyR(w);
+        } else {
+            Matrix.copy(tall.storage(), tall.storageOffset(), tall.columnStride(), tall.rowStride(), w, 0, p, p, p);
+        }
+        double[] vt = new double[p * p];
+        for(int j = 0; j < p; j++){
+            vt[j * p + j] = 1;
+        }
+        sweep(w, vt, p);
+
+        double[] sigma = new double[p];
+        Integer[] order = new Integer[p];
+        for(int j = 0; j < p; j++){
+            sigma[j] = Math.sqrt(KERNELS.dot(w, j * p, w, j * p, p));
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(sigma[b], sigma[a]));
+        // Columns of U_B and V_B as rows, in decreasing order of the singular values.
+        double[] left = new double[p * length];
+        double[] right = new double[p * p];
+        this.singularValues = new double[p];
+        for(int r = 0; r < p; r++){
+            int j = order[r];
+            singularValues[r] = sigma[j];
+            if(sigma[j] > 0){
+                KERNELS.scale(w, j * p, 1 / sigma[j], left, r * length, p);
+            }
+            System.arraycopy(vt, j * p, right, r * p, p);
+        }
+        if(qr != null){
+            qr.applyQ(left, p, false);
+        }
+        double[] ub = new double[length * p], vb = new double[p * p];
+        Matrix.copy(left, 0, 1, length, ub, 0, p, length, p);
+        Matrix.copy(right, 0, 1, p, vb, 0, p, p, p);
+        // A = B^T = V_B*S*U_B^T when the matrix is wide.
+        this.u = wide ? vb : ub;
+        this.v = wide ? ub : vb;
+    }
+
+    private SingularValueDecomposition(int rows, int columns, double[] u, double[] singularValues, double[] v) {
+        this.rows = rows;
+        this.columns = columns;
+        this.u = u;
+        this.singularValues = singularValues;
+        this.v = v;
+    }
+
+    /**
+     * Rotates the n rows of w, and the rows of vt with them, until every pair of rows of w is
+     * orthogonal to working precision, or {@link #MAX_SWEEPS} sweeps have been done.
+     */
+    private static void sweep(double[] w, double[] vt, int n) {
+        // Round robin tournament over an even number of players, the extra one being a bye.
+        int players = n + (n & 1), pairs = players / 2;
+        int[] order = new int[players];
+        for(int i = 0; i < players; i++){
+            order[i] = i;
+        }
+        double[] norms = new double[n];
+        boolean[] rotated = new boolean[pairs];
+        double tolerance = Math.sqrt(n) * EPSILON;
+        for(int sweep = 0; sweep < MAX_SWEEPS; sweep++){
+            // Refreshed every sweep, since the updates of the rotations drift.
+            for(int j = 0; j < n; j++){
+                norms[j] = KERNELS.dot(w, j * n, w, j * n, n);
+            }
+            Arrays.fill(rotated, false);
+            for(int round = 0; round < players - 1; round++){
+                Parallelism.forRange(0, pairs, 1, 8L * n, (from, to) -> {
+                    for(int k = from; k < to; k++){
+                        int a = order[k], b = order[players - 1 - k];
+                        if(a < n && b < n && rotate(w, vt, n, norms, Math.min(a, b), Math.max(a, b), tolerance)){
+                            rotated[k] = true;
+                        }
+                    }
+                });
+                int last = order[players - 1];
+                System.arraycopy(order, 1, order, 2, players - 2);
+                order[1] = last;
+            }
+            boolean converged = true;
+            for(boolean r : rotated){
+                converged &= !r;
+            }
+            if(converged){
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rotates rows p and q of w so that they become orthogonal, and rows p and q of vt by the
+     * same rotation, unless they already are within the tolerance.
+     *
+     * @return true if the rows were rotated.
+     */
+    private static boolean rotate(double[] w, double[] vt, int n, double[] norms, int p, int q, double tolerance) {
+        double alpha = norms[p], beta = norms[q];
+        if(alpha == 0 || beta == 0){
+            return false;
+        }
+        double gamma = KERNELS.dot(w, p * n, w, q * n, n);
+        if(Math.abs(gamma) <= tolerance * Math.sqrt(alpha) * Math.sqrt(beta)){
+            return false;
+        }
+        double zeta = (beta - alpha) / (2 * gamma);
+        double t = (zeta >= 0 ? 1 : -1) / (Math.abs(zeta) + Math.hypot(1, zeta));
+        double c = 1 / Math.sqrt(1 + t * t), s = c * t;
+        KERNELS.rotate(c, s, w, p * n, w, q * n, n);
+        KERNELS.rotate(c, s, vt, p * n, vt, q * n, n);
+        norms[p] = alpha - t * gamma;
+        norms[q] = beta + t * gamma;
+        return true;
+    }
+
+    /**
+     * Randomized range finder of Halko, Martinsson and Tropp: the range of the matrix is
+     * sampled with Y = A*G for a Gaussian n x (rank + oversampling) matrix G, an orthonormal
+     * basis Q of Y is taken by QR, and the small matrix Q^T*A is decomposed exactly. Power
+     * iterations replace Y by (A*A^T)^q * A*G, re-orthonormalized after every product, which
+     * sharpens the approximation when the singular values decay slowly.
+     *
+     * The matrix is only used through products with dense n x l and m x l matrices, so a
+     * sparse or {@link MappedMatrix} operand is never made dense, and a tall matrix with
+     * millions of rows costs O(m*n*l) per product.
+     *
+     * @param matrix matrix of any kind.
+     * @param rank number of singular triplets to return, at most min(m, n).
+     * @param oversampling additional samples, 5 to 10 are usually enough.
+     * @param powerIterations number of power iterations, 1 or 2 when the singular values
+     *                        decay slowly.
+     * @param seed seed of the Gaussian samples.
+     * @return decomposition with rank singular values, whose U is m x rank and V is n x rank.
+     */
+    public static SingularValueDecomposition randomized(BaseMatrix matrix, int rank, int oversampling,
+                                                        int powerIterations, long seed) {
+        int m = matrix.getRows(), n = matrix.getColumns();
+        if(rank <= 0 || rank > Math.min(m, n)){
+            throw new IllegalArgumentException("Rank must be positive and at most the smaller dimension.");
+        }
+        if(oversampling < 0 || powerIterations < 0){
+            throw new IllegalArgumentException("Oversampling and power iterations can not be negative.");
+        }
+        int l = Math.min(rank + oversampling, Math.min(m, n));
+        Random random = new Random(seed);
+        double[] g = new double[n * l];
+        for(int i = 0; i < g.length; i++){
+            g[i] = random.nextGaussian();
+        }
+        BaseMatrix transpose = matrix.transpose();
+        Matrix q = orthonormalize(product(matrix, new Matrix(n, l, g, false)));
+        for(int i = 0; i < powerIterations; i++){
+            q = orthonormalize(product(matrix, orthonormalize(product(transpose, q))));
+        }
+        // B^T = A^T*Q = U_B*S*V_B^T, so A ~ Q*B = (Q*V_B)*S*U_B^T.
+        SingularValueDecomposition small = new SingularValueDecomposition(product(transpose, q));
+        double[] u = new double[m * rank], v = new double[n * rank];
+        Gemm.multiply(q.storage(), q.storageOffset(), q.rowStride(), small.v, 0, l, u, 0, rank, m, rank, l);
+        Matrix.copy(small.u, 0, l, 1, v, 0, rank, n, rank);
+        return new SingularValueDecomposition(m, n, u, Arrays.copyOf(small.singularValues, rank), v);
+    }
+
+    private static Matrix product(BaseMatrix a, Matrix b) {
+        try {
+            return a.multiply(b).toDense();
+        } catch (MultiplicationCompatibleException e) {
+            // The dimensions match by construction.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Matrix orthonormalize(Matrix y) {
+        return new QRDecomposition(y).getQ();
+    }
+
+    /**
+     * @return singular values in decreasing order.
+     */
+    public double[] getSingularValues() {
+        return singularValues.clone();
+    }
+
+    /**
+     * @return m x p factor U with orthonormal columns.
+     */
+    public Matrix getU() {
+        return new Matrix(rows, singularValues.length, u.clone(), false);
+    }
+
+    /**
+     * @return p x p diagonal factor S.
+     */
+    public DiagonalMatrix getS() {
+        return new DiagonalMatrix(singularValues);
+    }
+
+    /**
+     * @return n x p factor V with orthonormal columns.
+     */
+    public Matrix getV() {
+        return new Matrix(columns, singularValues.length, v.clone(), false);
+    }
+
+    /**
+     * @return largest singular value, the 2-norm of the matrix.
+     */
+    public double norm2() {
+        return singularValues.length == 0 ? 0 : singularValues[0];
+    }
+
+    /**
+     * @return ratio of the largest to the smallest singular value, infinite if the matrix is
+     *          rank deficient.
+     */
+    public double cond() {
+        return singularValues[0] / singularValues[singularValues.length - 1];
+    }
+
+    /**
+     * @return number of singular values above max(m, n) * norm2() * ulp(1).
+     */
+    public int rank() {
+        double tolerance = tolerance();
+        int rank = 0;
+        while(rank < singularValues.length && singularValues[rank] > tolerance){
+            rank++;
+        }
+        return rank;
+    }
+
+    private double tolerance() {
+        return Math.max(rows, columns) * norm2() * EPSILON;
+    }
+
+    /**
+     * Solves min ||A*X - B|| with the pseudo inverse X = V*S^+*U^T*B, where singular values
+     * not above the tolerance of {@link #rank()} are treated as zero. This gives the least
+     * squares solution of smallest norm, also for rank deficient and wide matrices.
+     *
+     * @param b right hand side with as many rows as the decomposed matrix.
+     * @return n x r solution X.
+     * @throws MultiplicationCompatibleException if b does not have m rows.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException {
+        if(b.getRows() != rows){
+            throw new MultiplicationCompatibleException();
+        }
+        int p = singularValues.length, r = b.getColumns(), rank = rank();
+        double[] c = new double[p * r];
+        Gemm.multiply(1, u, 0, 1, p, b.storage(), b.storageOffset(), b.rowStride(), b.columnStride(),
+                c, 0, r, rank, r, rows);
+        for(int i = 0; i < rank; i++){
+            KERNELS.scale(c, i * r, 1 / singularValues[i], c, i * r, r);
+        }
+        double[] x = new double[columns * r];
+        Gemm.multiply(v, 0, p, c, 0, r, x, 0, r, columns, r, rank);
+        return new Matrix(columns, r, x, false);
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import java.util.Arrays;
+
+/**
+ * Kernels of the sparse matrices. Every kernel works on compressed row storage and only
+ * visits stored elements; column storage is handled as the row storage of the transpose.
+ */
+final class SparseKernels {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private SparseKernels() {
+    }
+
+    /**
+     * Checks compressed storage with major rows (or columns) of minor elements each.
+     */
+    static void validate(int major, int minor, int[] pointers, int[] indices, double[] values) {
+        if(major < 0 || minor < 0 || pointers.length != major + 1 || pointers[0] != 0){
+            throw new IllegalArgumentException("Pointers must have one more element than there are rows, starting with 0.");
+        }
+        int nonZeros = pointers[major];
+        if(indices.length < nonZeros || values.length < nonZeros){
+            throw new IllegalArgumentException("Indices and values must hold every element.");
+        }
+        for(int i = 0; i < major; i++){
+            if(pointers[i + 1] < pointers[i]){
+                throw new IllegalArgumentException("Pointers must not decrease.");
+            }
+            for(int k = pointers[i]; k < pointers[i + 1]; k++){
+                if(indices[k] < 0 || indices[k] >= minor || (k > pointers[i] && indices[k] <= indices[k - 1])){
+                    throw new IllegalArgumentException("Indices must be in range and increasing within each row.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes stored zeros in place, updating the pointers.
+     */
+    static void dropZeros(int major, int[] pointers, int[] indices, double[] values) {
+        int k = 0;
+        int start = 0;
+        for(int i = 0; i < major; i++){
+            int end = pointers[i + 1];
+            for(int p = start; p < end; p++){
+                if(values[p] != 0){
+                    indices[k] = indices[p];
+                    values[k++] = values[p];
+                }
+            }
+            start = end;
+            pointers[i + 1] = k;
+        }
+    }
+
+    static CsrMatrix fromTriplets(int rows, int columns, int[] rowIndices, int[] columnIndices, double[] values) {
+        int count = rowIndices.length;
+        if(columnIndices.length != count || values.length != count){
+            throw new IllegalArgumentException("Triplet arrays must have the same length.");
+        }
+        if(rows < 0 || columns < 0){
+            throw new IllegalArgumentException("Dimensions must not be negative.");
+        }
+        for(int k = 0; k < count; k++){
+            if(rowIndices[k] < 0 || rowIndices[k] >= rows || columnIndices[k] < 0 || columnIndices[k] >= columns){
+                throw new IllegalArgumentException("Triplet index out of range.");
+            }
+        }
+        // Counting sort by column, then a stable counting sort by row, leaves the columns
+        // of every row in increasing order.
+        int[] byColumn = new int[count];
+        int[] pointers = new int[columns + 1];
+        for(int k = 0; k < count; k++) pointers[columnIndices[k] + 1]++;
+        for(int j = 0; j < columns; j++) pointers[j + 1] += pointers[j];
+        for(int k = 0; k < count; k++) byColumn[pointers[columnIndices[k]]++] = k;
+
+        int[] rowPointers = new int[rows + 1];
+        for(int k = 0; k < count; k++) rowPointers[rowIndices[k] + 1]++;
+        for(int i = 0; i < rows; i++) rowPointers[i + 1] += rowPointers[i];
+        int[] next = Arrays.copyOf(rowPointers, rows);
+        int[] sortedColumns = new int[count];
+        double[] sortedValues = new double[count];
+        for(int t = 0; t < count; t++){
+            int k = byColumn[t];
+            int position = next[rowIndices[k]]++;
+            sortedColumns[position] = columnIndices[k];
+            sortedValues[position] = values[k];
+        }
+
+        int k = 0;
+        int start = 0;
+        for(int i = 0; i < rows; i++){
+            int end = rowPointers[i + 1];
+            int rowStart = k;
+            for(int p = start; p < end; p++){
+                if(k > rowStart && sortedColumns[k - 1] == sortedColumns[p]){
+                    sortedValues[k - 1] += sortedValues[p];
+                } else {
+                    sortedColumns[k] = sortedColumns[p];
+                    sortedValues[k++] = sortedValues[p];
+                }
+            }
+            start = end;
+            rowPointers[i + 1] = k;
+        }
+        dropZeros(rows, rowPointers, sortedColumns, sortedValues);
+        return new CsrMatrix(rows, columns, rowPointers, sortedColumns, sortedValues, true);
+    }
+
+    /**
+     * @return row storage of the transpose of a, which is the column storage of a.
+     */
+    static CsrMatrix transpose(CsrMatrix a) {
+        int rows = a.getRows(), columns = a.getColumns(), nonZeros = a.getNonZeros();
+        int[] aPointers = a.rowPointers(), aIndices = a.columnIndices();
+        double[] aValues = a.values();
+        int[] pointers = new int[columns + 1];
+        for(int k = 0; k < nonZeros; k++) pointers[aIndices[k] + 1]++;
+        for(int j = 0; j < columns; j++) pointers[j + 1] += pointers[j];
+        int[] next = Arrays.copyOf(pointers, columns);
+        int[] indices = new int[nonZeros];
+        double[] values = new double[nonZeros];
+        for(int i = 0; i < rows; i++){
+            for(int k = aPointers[i]; k < aPointers[i + 1]; k++){
+                int position = next[aIndices[k]]++;
+                indices[position] = i;
+                values[position] = aValues[k];
+            }
+        }
+        return new CsrMatrix(columns, rows, pointers, indices, values, true);
+    }
+
+    static CsrMatrix add(CsrMatrix a, CsrMatrix b) {
+        int rows = a.getRows();
+        int[] aPointers = a.rowPointers(), aIndices = a.columnIndices();
+        int[] bPointers = b.rowPointers(), bIndices = b.columnIndices();
+        double[] aValues = a.values(), bValues = b.values();
+        int capacity = a.getNonZeros() + b.getNonZeros();
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[capacity];
+        double[] values = new double[capacity];
+        int k = 0;
+        for(int i = 0; i < rows; i++){
+            int p = aPointers[i], pEnd = aPointers[i + 1];
+            int q = bPointers[i], qEnd = bPointers[i + 1];
+            while(p < pEnd || q < qEnd){
+                int column;
+                double value;
+                if(q >= qEnd || (p < pEnd && aIndices[p] < bIndices[q])){
+                    column = aIndices[p];
+                    value = aValues[p++];
+                } else if(p >= pEnd || bIndices[q] < aIndices[p]){
+                    column = bIndices[q];
+                    value = bValues[q++];
+                } else {
+                    column = aIndices[p];
+                    value = aValues[p++] + bValues[q++];
+                }
+                if(value != 0){
+                    indices[k] = column;
+                    values[k++] = value;
+                }
+            }
+            pointers[i + 1] = k;
+        }
+        return new CsrMatrix(rows, a.getColumns(), pointers, indices, values, true);
+    }
+
+    static Matrix add(CsrMatrix a, Matrix b, boolean approximate) {
+        int rows = b.getRows(), columns = b.getColumns();
+        double[] d = new double[rows * columns];
+        double[] bData = b.data();
+        int[] pointers = a.rowPointers(), indices = a.columnIndices();
+        double[] values = a.values();
+        for(int i = 0; i < rows; i++){
+            System.arraycopy(bData, b.offset() + i * b.stride(), d, i * columns, columns);
+            for(int k = pointers[i]; k < pointers[i + 1]; k++){
+                d[i * columns + indices[k]] += values[k];
+            }
+            if(approximate){
+                Matrix.approximate(d, i * columns, columns);
+            }
+        }
+        return new Matrix(rows, columns, d, approximate);
+    }
+
+    /**
+     * Row by row product with a dense accumulator (Gustavson), in O(flops + rows).
+     */
+    static CsrMatrix multiply(CsrMatrix a, CsrMatrix b) {
+        int rows = a.getRows(), columns = b.getColumns();
+        int[] aPointers = a.rowPointers(), aIndices = a.columnIndices();
+        int[] bPointers = b.rowPointers(), bIndices = b.columnIndices();
+        double[] aValues = a.values(), bValues = b.values();
+        double[] accumulator = new double[columns];
+        int[] marker = new int[columns];
+        Arrays.fill(marker, -1);
+        int[] touched = new int[columns];
+        int[] pointers = new int[rows + 1];
+        int capacity = Math.max(16, a.getNonZeros() + b.getNonZeros());
+        int[] indices = new int[capacity];
+        double[] values = new double[capacity];
+        int k = 0;
+        for(int i = 0; i < rows; i++){
+            int count = 0;
+            for(int p = aPointers[i]; p < aPointers[i + 1]; p++){
+                double value = aValues[p];
+                int row = aIndices[p];
+                for(int q = bPointers[row]; q < bPointers[row + 1]; q++){
+                    int column = bIndices[q];
+                    if(marker[column] != i){
+                        marker[column] = i;
+                        accumulator[column] = 0;
+                        touched[count++] = column;
+                    }
+                    accumulator[column] += value * bValues[q];
+                }
+            }
+            Arrays.sort(touched, 0, count);
+            if(k + count > indices.length){
+                int grown = Math.max(indices.length * 2, k + count);
+                indices = Arrays.copyOf(indices, grown);
+                values = Arrays.copyOf(values, grown);
+            }
+            for(int t = 0; t < count; t++){
+                double value = accumulator[touched[t]];
+                if(value != 0){
+                    indices[k] = touched[t];
+                    values[k++] = value;
+                }
+            }
+            pointers[i + 1] = k;
+        }
+        return new CsrMatrix(rows, columns, pointers, indices, values, true);
+    }
+
+    /**
+     * Sparse times dense, each stored element adds a scaled row of b to the result.
+     */
+    static Matrix multiply(CsrMatrix a, Matrix b, boolean approximate) {
+        int rows = a.getRows(), columns = b.getColumns();
+        int[] pointers = a.rowPointers(), indices = a.columnIndices();
+        double[] values = a.values(), bData = b.data();
+        double[] d = new double[rows * columns];
+        for(int i = 0; i < rows; i++){
+            for(int k = pointers[i]; k < pointers[i + 1]; k++){
+                KERNELS.axpy(values[k], bData, b.offset() + indices[k] * b.stride(), d, i * columns, columns);
+            }
+            if(approximate){
+                Matrix.approximate(d, i * columns, columns);
+            }
+        }
+        return new Matrix(rows, columns, d, approximate);
+    }
+
+    /**
+     * Dense times sparse, each element of a scales a sparse row of b into the result.
+     */
+    static Matrix multiply(Matrix a, CsrMatrix b, boolean approximate) {
+        int rows = a.getRows(), depth = a.getColumns(), columns = b.getColumns();
+        int[] pointers = b.rowPointers(), indices = b.columnIndices();
+        double[] values = b.values(), aData = a.data();
+        double[] d = new double[rows * columns];
+        for(int i = 0; i < rows; i++){
+            int r = a.offset() + i * a.stride(), result = i * columns;
+            for(int p = 0; p < depth; p++){
+                double value = aData[r + p];
+                if(value == 0){
+                    continue;
+                }
+                for(int k = pointers[p]; k < pointers[p + 1]; k++){
+                    d[result + indices[k]] += value * values[k];
+                }
+            }
+            if(approximate){
+                Matrix.approximate(d, result, columns);
+            }
+        }
+        return new Matrix(rows, columns, d, approximate);
+    }
+
+    static CsrMatrix multiplyElementWise(CsrMatrix a, CsrMatrix b) {
+        int rows = a.getRows();
+        int[] aPointers = a.rowPointers(), aIndices = a.columnIndices();
+        int[] bPointers = b.rowPointers(), bIndices = b.columnIndices();
+        double[] aValues = a.values(), bValues = b.values();
+        int capacity = Math.min(a.getNonZeros(), b.getNonZeros());
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[capacity];
+        double[] values = new double[capacity];
+        int k = 0;
+        for(int i = 0; i < rows; i++){
+            int p = aPointers[i], pEnd = aPointers[i + 1];
+            int q = bPointers[i], qEnd = bPointers[i + 1];
+            while(p < pEnd && q < qEnd){
+                if(aIndices[p] < bIndices[q]){
+                    p++;
+                } else if(bIndices[q] < aIndices[p]){
+                    q++;
+                } else {
+                    double value = aValues[p] * bValues[q];
+                    if(value != 0){
+                        indices[k] = aIndices[p];
+                        values[k++] = value;
+                    }
+                    p++;
+                    q++;
+                }
+            }
+            pointers[i + 1] = k;
+        }
+        return new CsrMatrix(rows, a.getColumns(), pointers, indices, values, true);
+    }
+
+    static CsrMatrix multiplyElementWise(CsrMatrix a, Matrix b) {
+        int rows = a.getRows(), nonZeros = a.getNonZeros();
+        int[] aPointers = a.rowPointers(), aIndices = a.columnIndices();
+        double[] aValues = a.values(), bData = b.data();
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[nonZeros];
+        double[] values = new double[nonZeros];
+        int k = 0;
+        for(int i = 0; i < rows; i++){
+            int r = b.offset() + i * b.stride();
+            for(int p = aPointers[i]; p < aPointers[i + 1]; p++){
+                double value = aValues[p] * bData[r + aIndices[p]];
+                if(value != 0){
+                    indices[k] = aIndices[p];
+                    values[k++] = value;
+                }
+            }
+            pointers[i + 1] = k;
+        }
+        return new CsrMatrix(rows, a.getColumns(), pointers, indices, values, true);
+    }
+}
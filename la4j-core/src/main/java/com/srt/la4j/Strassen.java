@@ -0,0 +1,226 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.Arrays;
+
+/**
+ * Strassen-Winograd multiplication path of {@link Matrix#multiply(Matrix)} for large operands.
+ *
+ * Each level of the recursion splits the operands in quadrants and computes the product with
+ * 7 half size products and 15 additions instead of 8 products, following the schedule of
+ * Boyer, Dumas, Pernet and Zhou that only needs two quadrant sized temporaries per level.
+ * The recursion stops at the cutoff, where the blocks are multiplied by {@link Gemm}.
+ * Operands whose dimensions are not divisible by 2^levels are padded with zeros. Products
+ * of the leaves and the additions run on the pool in {@link Parallelism} mode.
+ *
+ * The path is disabled by default, it can be enabled with {@link #setEnabled(boolean)} or with
+ * the system property la4j.strassen=true, and is taken when every dimension of the product is
+ * at least twice the cutoff (la4j.strassen.cutoff, 512 by default).
+ *
+ * Accuracy: the result is not as accurate as the standard product elementwise, only normwise.
+ * For square operands of order n and a cutoff n0 the error is bounded by
+ * |C - C'| <= ((n/n0)^log2(18) * (n0^2 + 6*n0) - 6*n) * u * |A| * |B|, to first order in the
+ * unit roundoff u, where |X| is the largest absolute element of X (Higham, Accuracy and
+ * Stability of Numerical Algorithms, 2nd ed., section 23.2.2). In the same norm the standard
+ * product is bounded by n^2 * u * |A| * |B|, which is the bound without any level. Each level
+ * costs a factor of about 4 in accuracy, so the cutoff should not be lowered further than the
+ * speed up requires.
+ */
+public final class Strassen {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private static volatile boolean enabled = Boolean.getBoolean("la4j.strassen");
+    private static volatile int cutoff = Integer.getInteger("la4j.strassen.cutoff", 512);
+
+    private Strassen() {
+    }
+
+    /**
+     * @param enabled true to multiply large matrices with the recursion.
+     */
+    public static void setEnabled(boolean enabled) {
+        Strassen.enabled = enabled;
+    }
+
+    /**
+     * @return true if large matrices are multiplied with the recursion.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param cutoff dimension of the blocks below which the recursion multiplies with {@link Gemm}.
+     */
+    public static void setCutoff(int cutoff) {
+        if(cutoff <= 0){
+            throw new IllegalArgumentException("Cutoff must be positive.");
+        }
+        Strassen.cutoff = cutoff;
+    }
+
+    /**
+     * @return dimension of the blocks below which the recursion multiplies with {@link Gemm}.
+     */
+    public static int getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * @return first order bound of the largest absolute error of the product of two n x n
+     *          matrices with the given cutoff, in units of u * |A| * |B|.
+     */
+    public static double errorBound(int n, int cutoff) {
+        int levels = levels(n, cutoff);
+        double n0 = n / (double) (1 << levels);
+        return Math.pow(n / n0, Math.log(18) / Math.log(2)) * (n0 * n0 + 6 * n0) - 6 * n;
+    }
+
+    /**
+     * @return true if the product of an m x k and a k x n matrix is computed by the recursion.
+     */
+    static boolean applies(int m, int n, int k) {
+        return enabled && levels(Math.min(m, Math.min(n, k)), cutoff) > 0;
+    }
+
+    private static int levels(int size, int cutoff) {
+        int levels = 0;
+        while(levels < 30 && size >> (levels + 1) >= cutoff){
+            levels++;
+        }
+        return levels;
+    }
+
+    /**
+     * Writes c = a * b into row major c with row stride n, where element (i, p) of a is
+     * a[aOffset + i*aRowStride + p*aColumnStride] and likewise for b.
+     */
+    static void multiply(double[] a, int aOffset, int aRowStride, int aColumnStride,
+                         double[] b, int bOffset, int bRowStride, int bColumnStride,
+                         double[] c, int m, int n, int k) {
+        int levels = levels(Math.min(m, Math.min(n, k)), cutoff);
+        int block = 1 << levels;
+        int pm = roundUp(m, block), pn = roundUp(n, block), pk = roundUp(k, block);
+        if(pm != m || pk != k || aColumnStride != 1){
+            double[] padded = new double[pm * pk];
+            Matrix.copy(a, aOffset, aRowStride, aColumnStride, padded, 0, pk, m, k);
+            a = padded;
+            aOffset = 0;
+            aRowStride = pk;
+        }
+        if(pk != k || pn != n || bColumnStride != 1){
+            double[] padded = new double[pk * pn];
+            Matrix.copy(b, bOffset, bRowStride, bColumnStride, padded, 0, pn, k, n);
+            b = padded;
+            bOffset = 0;
+            bRowStride = pn;
+        }
+        if(pm == m && pn == n){
+            product(a, aOffset, aRowStride, b, bOffset, bRowStride, c, 0, n, m, n, k, levels);
+            return;
+        }
+        double[] padded = new double[pm * pn];
+        product(a, aOffset, aRowStride, b, bOffset, bRowStride, padded, 0, pn, pm, pn, pk, levels);
+        Matrix.copy(padded, 0, pn, 1, c, 0, n, m, n);
+    }
+
+    /**
+     * c = a * b for row major blocks with dimensions divisible by 2^levels.
+     */
+    private static void product(double[] a, int aOffset, int aStride, double[] b, int bOffset, int bStride,
+                                double[] c, int cOffset, int cStride, int m, int n, int k, int levels) {
+        if(levels == 0){
+            for(int i = 0; i < m; i++){
+                Arrays.fill(c, cOffset + i * cStride, cOffset + i * cStride + n, 0);
+            }
+            Gemm.multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, m, n, k);
+            return;
+        }
+        int m2 = m / 2, n2 = n / 2, k2 = k / 2, next = levels - 1;
+        int a11 = aOffset, a12 = a11 + k2, a21 = a11 + m2 * aStride, a22 = a21 + k2;
+        int b11 = bOffset, b12 = b11 + n2, b21 = b11 + k2 * bStride, b22 = b21 + n2;
+        int c11 = cOffset, c12 = c11 + n2, c21 = c11 + m2 * cStride, c22 = c21 + n2;
+        int xStride = Math.max(k2, n2), yStride = n2;
+        double[] x = new double[m2 * xStride];
+        double[] y = new double[k2 * yStride];
+
+        subtract(a, a11, aStride, a, a21, aStride, x, 0, xStride, m2, k2);          // S3
+        subtract(b, b22, bStride, b, b12, bStride, y, 0, yStride, k2, n2);          // T3
+        product(x, 0, xStride, y, 0, yStride, c, c21, cStride, m2, n2, k2, next);   // P7
+        add(a, a21, aStride, a, a22, aStride, x, 0, xStride, m2, k2);               // S1
+        subtract(b, b12, bStride, b, b11, bStride, y, 0, yStride, k2, n2);          // T1
+        product(x, 0, xStride, y, 0, yStride, c, c22, cStride, m2, n2, k2, next);   // P5
+        subtract(x, 0, xStride, a, a11, aStride, x, 0, xStride, m2, k2);            // S2
+        subtract(b, b22, bStride, y, 0, yStride, y, 0, yStride, k2, n2);            // T2
+        product(x, 0, xStride, y, 0, yStride, c, c12, cStride, m2, n2, k2, next);   // P6
+        subtract(a, a12, aStride, x, 0, xStride, x, 0, xStride, m2, k2);            // S4
+        product(x, 0, xStride, b, b22, bStride, c, c11, cStride, m2, n2, k2, next); // P3
+        product(a, a11, aStride, b, b11, bStride, x, 0, xStride, m2, n2, k2, next); // P1
+        add(x, 0, xStride, c, c12, cStride, c, c12, cStride, m2, n2);               // U2 = P1 + P6
+        add(c, c12, cStride, c, c21, cStride, c, c21, cStride, m2, n2);             // U3 = U2 + P7
+        add(c, c12, cStride, c, c22, cStride, c, c12, cStride, m2, n2);             // U4 = U2 + P5
+        add(c, c21, cStride, c, c22, cStride, c, c22, cStride, m2, n2);             // U7 = U3 + P5
+        add(c, c12, cStride, c, c11, cStride, c, c12, cStride, m2, n2);             // U5 = U4 + P3
+        subtract(y, 0, yStride, b, b21, bStride, y, 0, yStride, k2, n2);            // T4
+        product(a, a22, aStride, y, 0, yStride, c, c11, cStride, m2, n2, k2, next); // P4
+        subtract(c, c21, cStride, c, c11, cStride, c, c21, cStride, m2, n2);        // U6 = U3 - P4
+        product(a, a12, aStride, b, b21, bStride, c, c11, cStride, m2, n2, k2, next); // P2
+        add(x, 0, xStride, c, c11, cStride, c, c11, cStride, m2, n2);               // U1 = P1 + P2
+    }
+
+    /**
+     * d = l + r for row major blocks, d may be l or r.
+     */
+    private static void add(double[] l, int lOffset, int lStride, double[] r, int rOffset, int rStride,
+                            double[] d, int dOffset, int dStride, int rows, int columns) {
+        Parallelism.forRange(0, rows, 1, columns, (from, to) -> {
+            for(int i = from; i < to; i++){
+                KERNELS.add(l, lOffset + i * lStride, r, rOffset + i * rStride, d, dOffset + i * dStride, columns);
+            }
+        });
+    }
+
+    /**
+     * d = l - r for row major blocks, d may be l or r.
+     */
+    private static void subtract(double[] l, int lOffset, int lStride, double[] r, int rOffset, int rStride,
+                                 double[] d, int dOffset, int dStride, int rows, int columns) {
+        boolean intoRight = d == r && dOffset == rOffset;
+        Parallelism.forRange(0, rows, 1, columns, (from, to) -> {
+            for(int i = from; i < to; i++){
+                int left = lOffset + i * lStride, right = rOffset + i * rStride, result = dOffset + i * dStride;
+                if(intoRight){
+                    KERNELS.scale(r, right, -1, d, result, columns);
+                    KERNELS.add(l, left, d, result, d, result, columns);
+                } else {
+                    if(d != l || result != left){
+                        System.arraycopy(l, left, d, result, columns);
+                    }
+                    KERNELS.axpy(-1, r, right, d, result, columns);
+                }
+            }
+        });
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+}
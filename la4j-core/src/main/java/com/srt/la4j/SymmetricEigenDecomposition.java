@@ -0,0 +1,272 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.Arrays;
+
+/**
+ * Eigen decomposition A = V*D*V^T of a symmetric n x n matrix, where D is diagonal with the
+ * eigenvalues in increasing order and V is orthogonal with the eigenvectors as columns.
+ * Only the lower triangle of the matrix is read.
+ *
+ * The matrix is reduced to tridiagonal form T = Q^T*A*Q by Householder reflections in panels
+ * of {@link #BLOCK} columns (LAPACK's dsytrd): within a panel the two sided updates are kept
+ * as A - V*W^T - W*V^T, only the column about to be reflected is updated, and the trailing
+ * matrix is updated once per panel with two products of {@link Gemm}. The matrix vector
+ * product of every reflection remains, which is half of the 4/3*n^3 flops.
+ *
+ * The tridiagonal eigenproblem is solved by the implicit QL algorithm with Wilkinson shifts,
+ * in O(n^2) for the eigenvalues alone. The eigenvectors start as Q, formed in compact WY form
+ * by {@link Householder}, and every rotation of the QL sweeps is applied to them with the
+ * rotation kernel, which costs about 3*n^3 flops.
+ */
+public class SymmetricEigenDecomposition {
+
+    static final int BLOCK = 32;
+
+    private static final int GRAIN = 64;
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    private final int dimension;
+    private final double[] eigenvalues;
+    // Row j holds eigenvector j, null when only the eigenvalues are computed.
+    private final double[] vectors;
+
+    SymmetricEigenDecomposition(Matrix matrix, boolean vectors) {
+        int n = matrix.getRows();
+        this.dimension = n;
+        double[] a = new double[n * n];
+        Matrix.copy(matrix.storage(), matrix.storageOffset(), matrix.rowStride(), matrix.columnStride(), a, 0, n, n, n);
+        // The upper triangle is mirrored from the lower one.
+        for(int i = 0; i < n; i++){
+            for(int j = 0; j < i; j++){
+                a[j * n + i] = a[i * n + j];
+            }
+        }
+        double[] d = new double[n], e = new double[n], tau = new double[n];
+        tridiagonalize(a, n, d, e, tau);
+        double[] z = null;
+        if(vectors){
+            z = new double[n * n];
+            for(int j = 0; j < n; j++){
+                z[j * n + j] = 1;
+            }
+            formQ(a, n, tau, z);
+        }
+        ql(d, e, z, n);
+        this.eigenvalues = d;
+        this.vectors = z;
+    }
+
+    /**
+     * Reduces the symmetric matrix in the full n x n array a to tridiagonal form, with the
+     * diagonal written to d and the subdiagonal to e, e[c] coupling c and c + 1. Reflection c
+     * is I - tau[c]*v*v^T with v[c + 1] = 1, and v is left in row c of a after column c.
+     */
+    private static void tridiagonalize(double[] a, int n, double[] d, double[] e, double[] tau) {
+        double[] y = new double[n];
+        for(int k0 = 0; k0 < n; k0 += BLOCK){
+            int width = Math.min(BLOCK, n - k0);
+            // Columns of V and W of the panel as rows, zero before their own column.
+            double[] vt = new double[width * n], wt = new double[width * n];
+            for(int i = 0; i < width; i++){
+                int c = k0 + i, below = n - c - 1;
+                // Row c of a is column c, brought up to date with the reflections of the panel.
+                for(int j = 0; j < i; j++){
+                    KERNELS.axpy(-wt[j * n + c], vt, j * n + c, a, c * n + c, n - c);
+                    KERNELS.axpy(-vt[j * n + c], wt, j * n + c, a, c * n + c, n - c);
+                }
+                d[c] = a[c * n + c];
+                if(below == 0){
+                    break;
+                }
+                int x = c * n + c + 1;
+                double alpha = a[x];
+                double norm = Math.sqrt(KERNELS.dot(a, x + 1, a, x + 1, below - 1));
+                if(norm == 0){
+                    tau[c] = 0;
+                    e[c] = alpha;
+                    a[x] = 1;
+                } else {
+                    double beta = alpha >= 0 ? -Math.hypot(alpha, norm) : Math.hypot(alpha, norm);
+                    tau[c] = (beta - alpha) / beta;
+                    KERNELS.scale(a, x + 1, 1 / (alpha - beta), a, x + 1, below - 1);
+                    e[c] = beta;
+                    a[x] = 1;
+                }
+                System.arraycopy(a, x, vt, i * n + c + 1, below);
+                if(tau[c] == 0){
+                    continue;
+                }
+                // y = A*v with A as it was at the start of the panel, then corrected by the panel.
+                int first = c + 1;
+                Parallelism.forRange(first, n, GRAIN, below, (from, to) -> {
+                    for(int r = from; r < to; r++){
+                        y[r] = KERNELS.dot(a, r * n + first, a, x, below);
+                    }
+                });
+                for(int j = 0; j < i; j++){
+                    KERNELS.axpy(-KERNELS.dot(wt, j * n + first, a, x, below), vt, j * n + first, y, first, below);
+                    KERNELS.axpy(-KERNELS.dot(vt, j * n + first, a, x, below), wt, j * n + first, y, first, below);
+                }
+                // w = tau*y - tau^2/2 * (y.v) * v, so that the update is A - v*w^T - w*v^T.
+                double t = tau[c];
+                double shift = -0.5 * t * t * KERNELS.dot(y, first, a, x, below);
+                KERNELS.scale(y, first, t, wt, i * n + first, below);
+                KERNELS.axpy(shift, a, x, wt, i * n + first, below);
+            }
+            int s = k0 + width;
+            if(s < n){
+                Gemm.multiply(-1, vt, s, 1, n, wt, s, n, 1, a, s * n + s, n, n - s, n - s, width);
+                Gemm.multiply(-1, wt, s, 1, n, vt, s, n, 1, a, s * n + s, n, n - s, n - s, width);
+            }
+        }
+    }
+
+    /**
+     * Replaces the rows of z, the rows of the identity, by the columns of Q, applying the
+     * panels in reverse order.
+     */
+    private static void formQ(double[] a, int n, double[] tau, double[] z) {
+        for(int k0 = (n - 1) / BLOCK * BLOCK; k0 >= 0; k0 -= BLOCK){
+            int width = Math.min(BLOCK, n - k0), length = n - k0 - 1;
+            if(length <= 0){
+                continue;
+            }
+            width = Math.min(width, length);
+            double[] v = new double[width * length];
+            for(int p = 0; p < width; p++){
+                int c = k0 + p;
+                System.arraycopy(a, c * n + c + 1, v, p * length + p, length - p);
+            }
+            double[] t = new double[width * width];
+            Householder.factor(v, length, width, tau, k0, t);
+            // Rows up to k0 are still rows of the identity, which the panel does not reach.
+            int first = k0 + 1;
+            Householder.apply(v, length, width, t, true, z, first * n + first, n, n - first);
+        }
+    }
+
+    /**
+     * Implicit QL with Wilkinson shifts on the tridiagonal matrix with diagonal d and
+     * subdiagonal e, after tql2 of EISPACK. The eigenvalues are left in d in increasing order,
+     * and the rotations are applied to the rows of z unless it is null.
+     */
+    private static void ql(double[] d, double[] e, double[] z, int n) {
+        if(n > 0){
+            e[n - 1] = 0;
+        }
+        double f = 0, norm = 0;
+        for(int l = 0; l < n; l++){
+            norm = Math.max(norm, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while(Math.abs(e[m]) > EPSILON * norm){
+                m++;
+            }
+            if(m > l){
+                do {
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2 * e[l]);
+                    double r = Math.hypot(p, 1);
+                    if(p < 0){
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for(int i = l + 2; i < n; i++){
+                        d[i] -= h;
+                    }
+                    f += h;
+                    p = d[m];
+                    double c = 1, c2 = 1, c3 = 1, el1 = e[l + 1], s = 0, s2 = 0;
+                    for(int i = m - 1; i >= l; i--){
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        if(z != null){
+                            KERNELS.rotate(c, s, z, i * n, z, (i + 1) * n, n);
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while(Math.abs(e[l]) > EPSILON * norm);
+            }
+            d[l] += f;
+            e[l] = 0;
+        }
+        for(int i = 0; i < n - 1; i++){
+            int k = i;
+            for(int j = i + 1; j < n; j++){
+                if(d[j] < d[k]){
+                    k = j;
+                }
+            }
+            if(k != i){
+                double p = d[k];
+                d[k] = d[i];
+                d[i] = p;
+                if(z != null){
+                    double[] row = Arrays.copyOfRange(z, i * n, (i + 1) * n);
+                    System.arraycopy(z, k * n, z, i * n, n);
+                    System.arraycopy(row, 0, z, k * n, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return eigenvalues in increasing order.
+     */
+    public double[] getEigenvalues() {
+        return eigenvalues.clone();
+    }
+
+    /**
+     * @return diagonal matrix D of the eigenvalues.
+     */
+    public DiagonalMatrix getD() {
+        return new DiagonalMatrix(eigenvalues);
+    }
+
+    /**
+     * @return orthogonal matrix V whose column j is the eigenvector of eigenvalue j.
+     * @throws IllegalStateException if only the eigenvalues were computed.
+     */
+    public Matrix getV() {
+        if(vectors == null){
+            throw new IllegalStateException("Only the eigenvalues were computed.");
+        }
+        int n = dimension;
+        double[] d = new double[n * n];
+        Matrix.copy(vectors, 0, 1, n, d, 0, n, n, n);
+        return new Matrix(n, n, d, false);
+    }
+}
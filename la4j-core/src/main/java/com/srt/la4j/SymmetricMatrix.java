@@ -0,0 +1,322 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.NotPositiveDefiniteMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Square symmetric matrix, such as a covariance matrix, stored as its lower triangle packed
+ * by rows in n(n+1)/2 elements. Element (i, j) and element (j, i) are the same element.
+ *
+ * The determinant and solves use a Cholesky factorization of the packed triangle, which
+ * takes half the work of LU, and fall back to LU of the dense matrix when the matrix is not
+ * positive definite. Products read each row of the packed triangle once per block of rows.
+ *
+ * Sums and element wise products with a symmetric matrix, sums with a {@link DiagonalMatrix},
+ * scaling and the transpose stay symmetric.
+ */
+public final class SymmetricMatrix implements BaseMatrix {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+    private static final int BLOCK = 128;
+
+    private final int dimension;
+    private final double[] data;
+
+    /**
+     * Creates a symmetric matrix of the given dimension filled with zeros.
+     *
+     * @param dimension
+     */
+    public SymmetricMatrix(int dimension) {
+        this(dimension, new double[TriangularMatrix.packedLength(dimension)]);
+    }
+
+    /**
+     * Wraps the packed lower triangle without copying it.
+     */
+    private SymmetricMatrix(int dimension, double[] data) {
+        this.dimension = dimension;
+        this.data = data;
+    }
+
+    /**
+     * Copies a square matrix of any kind, only its lower triangle is read.
+     *
+     * @param matrix
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     */
+    public static SymmetricMatrix of(BaseMatrix matrix) throws NotASqaureMatrixException {
+        TriangularMatrix lower = TriangularMatrix.of(matrix, true);
+        return new SymmetricMatrix(lower.getRows(), lower.data());
+    }
+
+    private static int index(int rowIndex, int columnIndex) {
+        return rowIndex >= columnIndex ? rowIndex * (rowIndex + 1) / 2 + columnIndex
+                : columnIndex * (columnIndex + 1) / 2 + rowIndex;
+    }
+
+    @Override
+    public int getRows() {
+        return dimension;
+    }
+
+    @Override
+    public int getColumns() {
+        return dimension;
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        check(rowIndex, columnIndex);
+        return data[index(rowIndex, columnIndex)];
+    }
+
+    /**
+     * Sets both element (rowIndex, columnIndex) and element (columnIndex, rowIndex).
+     *
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be inserted in the position specified by
+     *              rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, double value) {
+        check(rowIndex, columnIndex);
+        data[index(rowIndex, columnIndex)] = value;
+    }
+
+    private void check(int rowIndex, int columnIndex) {
+        if(rowIndex >= dimension || rowIndex < 0 || columnIndex >= dimension || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+    }
+
+    @Override
+    public Matrix toDense() {
+        int n = dimension;
+        double[] d = new double[n * n];
+        unpack(0, n, d);
+        return new Matrix(n, n, d, false);
+    }
+
+    /**
+     * Writes the full rows from to to of the matrix into row major d with row stride n.
+     */
+    private void unpack(int from, int to, double[] d) {
+        int n = dimension;
+        for(int i = from; i < to; i++){
+            int row = (i - from) * n;
+            System.arraycopy(data, i * (i + 1) / 2, d, row, i + 1);
+            for(int j = i + 1; j < n; j++){
+                d[row + j] = data[j * (j + 1) / 2 + i];
+            }
+        }
+    }
+
+    /**
+     * @param matrix
+     * @return sum of both the matrices, symmetric if matrix is symmetric or diagonal, dense
+     *          otherwise.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BaseMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(matrix.getRows() != dimension || matrix.getColumns() != dimension){
+            throw new AdditionCompatibleException();
+        }
+        if(matrix instanceof SymmetricMatrix){
+            double[] d = new double[data.length];
+            KERNELS.add(data, 0, ((SymmetricMatrix) matrix).data, 0, d, 0, d.length);
+            return new SymmetricMatrix(dimension, d);
+        }
+        if(matrix instanceof DiagonalMatrix){
+            double[] d = data.clone(), diagonal = ((DiagonalMatrix) matrix).diagonal();
+            for(int i = 0; i < dimension; i++){
+                d[i * (i + 1) / 2 + i] += diagonal[i];
+            }
+            return new SymmetricMatrix(dimension, d);
+        }
+        return toDense().add(matrix);
+    }
+
+    /**
+     * Multiplies blocks of rows, each unpacked from the triangle and multiplied by {@link Gemm},
+     * so that the full matrix is never allocated.
+     *
+     * @param matrix
+     * @return dense product of both the matrices.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    @Override
+    public Matrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        Matrix dense = matrix.toDense();
+        int n = dimension, r = dense.getColumns();
+        double[] d = new double[n * r], a = new double[Math.min(n, BLOCK) * n];
+        for(int i0 = 0; i0 < n; i0 += BLOCK){
+            int i1 = Math.min(n, i0 + BLOCK);
+            unpack(i0, i1, a);
+            Gemm.multiply(1, a, 0, n, 1, dense.storage(), dense.storageOffset(), dense.rowStride(),
+                    dense.columnStride(), d, i0 * r, r, i1 - i0, r, n);
+        }
+        return new Matrix(n, r, d, false);
+    }
+
+    /**
+     * @param matrix
+     * @return element wise product of both the matrices, symmetric if matrix is symmetric,
+     *          dense otherwise.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BaseMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != dimension || matrix.getColumns() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        if(matrix instanceof SymmetricMatrix){
+            double[] d = new double[data.length];
+            KERNELS.multiply(data, 0, ((SymmetricMatrix) matrix).data, 0, d, 0, d.length);
+            return new SymmetricMatrix(dimension, d);
+        }
+        return toDense().multiplyElementWise(matrix);
+    }
+
+    @Override
+    public SymmetricMatrix multiply(double number) {
+        double[] d = new double[data.length];
+        KERNELS.scale(data, 0, number, d, 0, d.length);
+        return new SymmetricMatrix(dimension, d);
+    }
+
+    /**
+     * @return copy of the matrix, which is its own transpose.
+     */
+    @Override
+    public SymmetricMatrix transpose() {
+        return new SymmetricMatrix(dimension, data.clone());
+    }
+
+    /**
+     * Factorizes the packed triangle row by row, so that both rows of every dot product are
+     * contiguous.
+     *
+     * @return lower triangular L such that A = L*L^T.
+     * @throws NotPositiveDefiniteMatrixException if the matrix is not positive definite.
+     */
+    public TriangularMatrix cholesky() throws NotPositiveDefiniteMatrixException {
+        double[] l = new double[data.length];
+        for(int i = 0; i < dimension; i++){
+            int row = i * (i + 1) / 2;
+            for(int j = 0; j <= i; j++){
+                int other = j * (j + 1) / 2;
+                double sum = data[row + j];
+                for(int k = 0; k < j; k++){
+                    sum -= l[row + k] * l[other + k];
+                }
+                if(j < i){
+                    l[row + j] = sum / l[other + j];
+                } else if(sum > 0){
+                    l[row + i] = Math.sqrt(sum);
+                } else {
+                    throw new NotPositiveDefiniteMatrixException();
+                }
+            }
+        }
+        return new TriangularMatrix(dimension, true, l);
+    }
+
+    /**
+     * @return eigen decomposition of the matrix.
+     */
+    public SymmetricEigenDecomposition eigen() {
+        return new SymmetricEigenDecomposition(toDense(), true);
+    }
+
+    /**
+     * @return determinant of the matrix, from the Cholesky factor if the matrix is positive
+     *          definite and from LU otherwise.
+     */
+    public double getDeterminant() {
+        try {
+            double determinant = cholesky().getDeterminant();
+            return determinant * determinant;
+        } catch (NotPositiveDefiniteMatrixException e) {
+            return new LUDecomposition(toDense()).getDeterminant();
+        }
+    }
+
+    /**
+     * Solves A*X = B with L*Y = B followed by L^T*X = Y on the Cholesky factor, or with LU if
+     * the matrix is not positive definite.
+     *
+     * @param b right hand side with as many rows as the matrix.
+     * @return solution X.
+     * @throws MultiplicationCompatibleException if b does not have n rows.
+     * @throws SingularMatrixException if the matrix is singular.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException, SingularMatrixException {
+        if(b.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        TriangularMatrix l;
+        try {
+            l = cholesky();
+        } catch (NotPositiveDefiniteMatrixException e) {
+            return new LUDecomposition(toDense()).solve(b);
+        }
+        int r = b.getColumns();
+        double[] x = new double[dimension * r], source = b.data();
+        for(int i = 0; i < dimension; i++){
+            System.arraycopy(source, b.offset() + i * b.stride(), x, i * r, r);
+        }
+        l.solve(x, r, false);
+        l.solve(x, r, true);
+        return new Matrix(dimension, r, x, false);
+    }
+
+    /**
+     * @param obj
+     * @return true if obj is a symmetric matrix with the same elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SymmetricMatrix && ((SymmetricMatrix) obj).dimension == dimension
+                && Arrays.equals(((SymmetricMatrix) obj).data, data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return toDense().toString();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Graph of tasks with dependencies, for the tile level operations of {@link BlockMatrix}.
+ *
+ * Tasks are added after their dependencies, so the order of insertion is a valid serial
+ * order, which is used when the graph is too small for {@link Parallelism}. Otherwise each
+ * task counts its unfinished dependencies and is submitted to the pool by the task that
+ * finishes the last of them, so independent tiles run concurrently and a task starts as soon
+ * as its own inputs are ready, without a barrier between the steps of an algorithm.
+ */
+final class TaskGraph {
+
+    private final List<Task> tasks = new ArrayList<>();
+
+    /**
+     * Adds a task that runs after the given ones, null dependencies are ignored.
+     *
+     * @return the task, to be given as a dependency of later tasks.
+     */
+    Task add(Runnable work, Task... dependencies) {
+        Task task = new Task(work);
+        for(Task dependency : dependencies){
+            if(dependency != null && !dependency.successors.contains(task)){
+                dependency.successors.add(task);
+                task.dependencies++;
+            }
+        }
+        tasks.add(task);
+        return task;
+    }
+
+    /**
+     * Runs every task and returns when all are done. A failing task stops the tasks that
+     * are not started yet and its exception is thrown.
+     *
+     * @param work amount of work of the whole graph, as for {@link Parallelism}.
+     */
+    void run(long work) {
+        if(!Parallelism.isParallel(work) || tasks.size() == 1){
+            for(Task task : tasks){
+                task.work.run();
+            }
+            return;
+        }
+        ForkJoinPool pool = Parallelism.getPool();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(tasks.size());
+        for(Task task : tasks){
+            task.pending.set(task.dependencies);
+        }
+        for(Task task : tasks){
+            if(task.dependencies == 0){
+                submit(task, pool, done, remaining);
+            }
+        }
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            if(e.getCause() instanceof Error){
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void submit(Task task, ForkJoinPool pool, CompletableFuture<Void> done, AtomicInteger remaining) {
+        pool.execute(() -> {
+            if(done.isDone()){
+                return;
+            }
+            try {
+                task.work.run();
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+                return;
+            }
+            for(Task successor : task.successors){
+                if(successor.pending.decrementAndGet() == 0){
+                    submit(successor, pool, done, remaining);
+                }
+            }
+            if(remaining.decrementAndGet() == 0){
+                done.complete(null);
+            }
+        });
+    }
+
+    static final class Task {
+
+        private final Runnable work;
+        private final List<Task> successors = new ArrayList<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private int dependencies;
+
+        private Task(Runnable work) {
+            this.work = work;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Square lower or upper triangular matrix, such as a factor of a decomposition, stored packed
+ * by rows in n(n+1)/2 elements: row i of a lower matrix holds columns 0 to i, row i of an
+ * upper matrix holds columns i to n-1.
+ *
+ * Products skip the zero triangle: the rows are multiplied in blocks, each unpacked into only
+ * the columns its rows reach and multiplied by {@link Gemm}, for half the work of a dense
+ * product. The determinant is the product of the diagonal and solves are substitutions in
+ * O(n^2) per column of the right hand side.
+ *
+ * Sums, products and element wise products with a triangular matrix of the same kind, products
+ * with a {@link DiagonalMatrix} and element wise products with any matrix stay triangular, and
+ * the transpose of a lower matrix is an upper matrix.
+ */
+public final class TriangularMatrix implements BaseMatrix {
+
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+    private static final int BLOCK = 128;
+    private static final int BLOCKED_COLUMNS = 8;
+
+    private final int dimension;
+    private final boolean lower;
+    private final double[] data;
+
+    /**
+     * Creates a triangular matrix of the given dimension filled with zeros.
+     *
+     * @param dimension
+     * @param lower true for a lower triangular matrix, false for an upper one.
+     */
+    public TriangularMatrix(int dimension, boolean lower) {
+        this(dimension, lower, new double[packedLength(dimension)]);
+    }
+
+    /**
+     * Wraps packed storage without copying it.
+     */
+    TriangularMatrix(int dimension, boolean lower, double[] data) {
+        this.dimension = dimension;
+        this.lower = lower;
+        this.data = data;
+    }
+
+    /**
+     * @return number of elements of a packed triangle of the given dimension.
+     */
+    static int packedLength(int dimension) {
+        long length = (long) DiagonalMatrix.checkedDimension(dimension) * (dimension + 1) / 2;
+        if(length > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Matrix is too large for a single array.");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Copies the lower or upper triangle of a square matrix of any kind, the other triangle
+     * is not read.
+     *
+     * @param matrix
+     * @param lower true to copy the lower triangle, false for the upper one.
+     * @throws NotASqaureMatrixException if the matrix is not a square matrix.
+     */
+    public static TriangularMatrix of(BaseMatrix matrix, boolean lower) throws NotASqaureMatrixException {
+        if(matrix.getRows() != matrix.getColumns()){
+            throw new NotASqaureMatrixException();
+        }
+        TriangularMatrix result = new TriangularMatrix(matrix.getRows(), lower);
+        Matrix dense = matrix.toDense();
+        double[] source = dense.data();
+        for(int i = 0; i < result.dimension; i++){
+            System.arraycopy(source, dense.offset() + i * dense.stride() + result.first(i),
+                    result.data, result.start(i), result.length(i));
+        }
+        return result;
+    }
+
+    /**
+     * Packed storage, shared with this matrix.
+     */
+    double[] data() {
+        return data;
+    }
+
+    /**
+     * @return true if the matrix is lower triangular, false if it is upper triangular.
+     */
+    public boolean isLower() {
+        return lower;
+    }
+
+    /**
+     * @return position of row i in the packed storage.
+     */
+    private int start(int i) {
+        return lower ? i * (i + 1) / 2 : i * dimension - i * (i - 1) / 2;
+    }
+
+    /**
+     * @return first column stored for row i.
+     */
+    private int first(int i) {
+        return lower ? 0 : i;
+    }
+
+    /**
+     * @return number of columns stored for row i.
+     */
+    private int length(int i) {
+        return lower ? i + 1 : dimension - i;
+    }
+
+    @Override
+    public int getRows() {
+        return dimension;
+    }
+
+    @Override
+    public int getColumns() {
+        return dimension;
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex) {
+        check(rowIndex, columnIndex);
+        return inTriangle(rowIndex, columnIndex) ? data[start(rowIndex) + columnIndex - first(rowIndex)] : 0;
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if rowIndex or columnIndex are out side the range.
+     * @throws IllegalArgumentException if a non zero value is set outside the triangle.
+     *
+     * @param rowIndex
+     * @param columnIndex
+     * @param value is the value that will be inserted in the position specified by
+     *              rowIndex and columnIndex.
+     */
+    public void set(int rowIndex, int columnIndex, double value) {
+        check(rowIndex, columnIndex);
+        if(inTriangle(rowIndex, columnIndex)){
+            data[start(rowIndex) + columnIndex - first(rowIndex)] = value;
+        } else if(value != 0){
+            throw new IllegalArgumentException("Element is outside the triangle.");
+        }
+    }
+
+    private boolean inTriangle(int rowIndex, int columnIndex) {
+        return lower ? columnIndex <= rowIndex : columnIndex >= rowIndex;
+    }
+
+    private void check(int rowIndex, int columnIndex) {
+        if(rowIndex >= dimension || rowIndex < 0 || columnIndex >= dimension || columnIndex <0 )
+            throw new ArrayIndexOutOfBoundsException();
+    }
+
+    @Override
+    public Matrix toDense() {
+        int n = dimension;
+        double[] d = new double[n * n];
+        for(int i = 0; i < n; i++){
+            System.arraycopy(data, start(i), d, i * n + first(i), length(i));
+        }
+        return new Matrix(n, n, d, false);
+    }
+
+    /**
+     * @param matrix
+     * @return sum of both the matrices, triangular if matrix is triangular of the same kind or
+     *          diagonal, dense otherwise.
+     * @throws AdditionCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public BaseMatrix add(BaseMatrix matrix) throws AdditionCompatibleException {
+        if(matrix.getRows() != dimension || matrix.getColumns() != dimension){
+            throw new AdditionCompatibleException();
+        }
+        if(matrix instanceof TriangularMatrix && ((TriangularMatrix) matrix).lower == lower){
+            double[] d = new double[data.length];
+            KERNELS.add(data, 0, ((TriangularMatrix) matrix).data, 0, d, 0, d.length);
+            return new TriangularMatrix(dimension, lower, d);
+        }
+        if(matrix instanceof DiagonalMatrix){
+            double[] d = data.clone(), diagonal = ((DiagonalMatrix) matrix).diagonal();
+            for(int i = 0; i < dimension; i++){
+                d[start(i) + i - first(i)] += diagonal[i];
+            }
+            return new TriangularMatrix(dimension, lower, d);
+        }
+        return toDense().add(matrix);
+    }
+
+    /**
+     * @param matrix
+     * @return product of both the matrices, triangular if matrix is triangular of the same kind
+     *          or diagonal, dense otherwise.
+     * @throws MultiplicationCompatibleException if number of columns of the matrix is not equal to
+     *               number of rows of the matrix with multiplication has to performed.
+     */
+    @Override
+    public BaseMatrix multiply(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        if(matrix instanceof DiagonalMatrix){
+            double[] d = new double[data.length], diagonal = ((DiagonalMatrix) matrix).diagonal();
+            for(int i = 0; i < dimension; i++){
+                KERNELS.multiply(data, start(i), diagonal, first(i), d, start(i), length(i));
+            }
+            return new TriangularMatrix(dimension, lower, d);
+        }
+        boolean triangular = matrix instanceof TriangularMatrix && ((TriangularMatrix) matrix).lower == lower;
+        Matrix dense = matrix.toDense();
+        int n = dimension, r = dense.getColumns();
+        double[] b = dense.storage();
+        int bRowStride = dense.rowStride(), bColumnStride = dense.columnStride();
+        double[] d = triangular ? new double[data.length] : new double[n * r];
+        for(int i0 = 0; i0 < n; i0 += BLOCK){
+            int i1 = Math.min(n, i0 + BLOCK), h = i1 - i0;
+            // Columns of the block rows that are in the triangle, and rows of b they multiply.
+            int c0 = lower ? 0 : i0, w = lower ? i1 : n - i0;
+            double[] a = new double[h * w];
+            for(int i = i0; i < i1; i++){
+                System.arraycopy(data, start(i), a, (i - i0) * w + first(i) - c0, length(i));
+            }
+            int bOffset = dense.storageOffset() + c0 * bRowStride;
+            if(triangular){
+                // The product of triangles only has columns c0 to c0 + w in these rows.
+                double[] c = new double[h * w];
+                Gemm.multiply(1, a, 0, w, 1, b, bOffset + c0 * bColumnStride, bRowStride, bColumnStride,
+                        c, 0, w, h, w, w);
+                for(int i = i0; i < i1; i++){
+                    System.arraycopy(c, (i - i0) * w + first(i) - c0, d, start(i), length(i));
+                }
+            } else {
+                Gemm.multiply(1, a, 0, w, 1, b, bOffset, bRowStride, bColumnStride, d, i0 * r, r, h, r, w);
+            }
+        }
+        return triangular ? new TriangularMatrix(n, lower, d) : new Matrix(n, r, d, false);
+    }
+
+    /**
+     * @return this matrix with row i scaled by scale[i], the product of a diagonal matrix with it.
+     */
+    TriangularMatrix scaleRows(double[] scale) {
+        double[] d = new double[data.length];
+        for(int i = 0; i < dimension; i++){
+            KERNELS.scale(data, start(i), scale[i], d, start(i), length(i));
+        }
+        return new TriangularMatrix(dimension, lower, d);
+    }
+
+    /**
+     * @param matrix
+     * @return triangular matrix of the element wise product of both the matrices.
+     * @throws MultiplicationCompatibleException if the dimensions of the matrices are not equal.
+     */
+    @Override
+    public TriangularMatrix multiplyElementWise(BaseMatrix matrix) throws MultiplicationCompatibleException {
+        if(matrix.getRows() != dimension || matrix.getColumns() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        double[] d = new double[data.length];
+        if(matrix instanceof TriangularMatrix && ((TriangularMatrix) matrix).lower == lower){
+            KERNELS.multiply(data, 0, ((TriangularMatrix) matrix).data, 0, d, 0, d.length);
+        } else {
+            for(int i = 0; i < dimension; i++){
+                for(int k = 0; k < length(i); k++){
+                    d[start(i) + k] = data[start(i) + k] * matrix.get(i, first(i) + k);
+                }
+            }
+        }
+        return new TriangularMatrix(dimension, lower, d);
+    }
+
+    @Override
+    public TriangularMatrix multiply(double number) {
+        double[] d = new double[data.length];
+        KERNELS.scale(data, 0, number, d, 0, d.length);
+        return new TriangularMatrix(dimension, lower, d);
+    }
+
+    /**
+     * @return transpose of the matrix, upper triangular for a lower matrix and the converse.
+     */
+    @Override
+    public TriangularMatrix transpose() {
+        TriangularMatrix result = new TriangularMatrix(dimension, !lower);
+        for(int i = 0; i < dimension; i++){
+            for(int k = 0; k < length(i); k++){
+                int j = first(i) + k;
+                result.data[result.start(j) + i - result.first(j)] = data[start(i) + k];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return determinant of the matrix, product of the diagonal.
+     */
+    public double getDeterminant() {
+        double determinant = 1;
+        for(int i = 0; i < dimension; i++){
+            determinant *= data[start(i) + i - first(i)];
+        }
+        return determinant;
+    }
+
+    /**
+     * Solves T*X = B by forward substitution for a lower matrix and back substitution for an
+     * upper one, O(n^2) per column of B.
+     *
+     * @param b right hand side with as many rows as the matrix.
+     * @return solution X.
+     * @throws MultiplicationCompatibleException if b does not have n rows.
+     * @throws SingularMatrixException if the diagonal has a zero.
+     */
+    public Matrix solve(Matrix b) throws MultiplicationCompatibleException, SingularMatrixException {
+        if(b.getRows() != dimension){
+            throw new MultiplicationCompatibleException();
+        }
+        for(int i = 0; i < dimension; i++){
+            if(data[start(i) + i - first(i)] == 0){
+                throw new SingularMatrixException();
+            }
+        }
+        int r = b.getColumns();
+        double[] x = new double[dimension * r], source = b.data();
+        for(int i = 0; i < dimension; i++){
+            System.arraycopy(source, b.offset() + i * b.stride(), x, i * r, r);
+        }
+        solve(x, r, false);
+        return new Matrix(dimension, r, x, false);
+    }
+
+    /**
+     * Overwrites the row major n x r right hand side x by the solution of T*X = B, or of
+     * T^T*X = B if transposed is true. Few columns are solved on the packed rows, which are
+     * read contiguously in both cases: the solve with T reduces each row of x by the solved
+     * rows, the solve with T^T subtracts each solved row from the rows left to solve.
+     */
+    void solve(double[] x, int r, boolean transposed) {
+        int n = dimension;
+        if(r >= BLOCKED_COLUMNS){
+            // Many columns pay for unpacking T once, to solve in blocks with Gemm.
+            double[] t = toDense().storage();
+            int rowStride = transposed ? 1 : n, columnStride = transposed ? n : 1;
+            if(lower != transposed){
+                TriangularSolver.lower(t, 0, rowStride, columnStride, n, false, x, r);
+            } else {
+                TriangularSolver.upper(t, 0, rowStride, columnStride, n, false, x, r);
+            }
+            return;
+        }
+        boolean forward = lower != transposed;
+        for(int step = 0; step < n; step++){
+            int i = forward ? step : n - 1 - step;
+            int row = start(i), diagonal = row + i - first(i);
+            if(!transposed){
+                for(int k = 0; k < length(i); k++){
+                    int p = first(i) + k;
+                    if(p != i){
+                        KERNELS.axpy(-data[row + k], x, p * r, x, i * r, r);
+                    }
+                }
+            }
+            for(int j = 0; j < r; j++){
+                x[i * r + j] /= data[diagonal];
+            }
+            if(transposed){
+                for(int k = 0; k < length(i); k++){
+                    int p = first(i) + k;
+                    if(p != i){
+                        KERNELS.axpy(-data[row + k], x, i * r, x, p * r, r);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param obj
+     * @return true if obj is a triangular matrix of the same kind with the same elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof TriangularMatrix)){
+            return false;
+        }
+        TriangularMatrix that = (TriangularMatrix) obj;
+        return that.lower == lower && that.dimension == dimension && Arrays.equals(that.data, data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (lower ? 1 : 0) + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return toDense().toString();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+/**
+ * In place solution of T*X = B for a triangular n x n matrix T and a row major n x r right
+ * hand side, overwritten by X. Element (i, k) of T is t[offset + i*rowStride + k*columnStride],
+ * so that the transpose of a stored factor is given by swapping its strides.
+ *
+ * A single right hand side costs O(n^2) and is solved with dot products. With several right
+ * hand sides T is walked in diagonal blocks: each block is solved by substitution and its
+ * contribution is removed from the remaining rows of B with one {@link Gemm} call, so most of
+ * the work runs in the packed product kernel.
+ */
+final class TriangularSolver {
+
+    private static final int BLOCK = 64;
+    private static final int BLOCKED_COLUMNS = 8;
+
+    private TriangularSolver() {
+    }
+
+    /**
+     * Solves with lower triangular T, whose diagonal is taken as ones when unit is true.
+     */
+    static void lower(double[] t, int offset, int rowStride, int columnStride, int n, boolean unit,
+                      double[] x, int r) {
+        if(r == 1){
+            for(int i = 0; i < n; i++){
+                int row = offset + i * rowStride;
+                double sum = x[i];
+                for(int p = 0; p < i; p++){
+                    sum -= t[row + p * columnStride] * x[p];
+                }
+                x[i] = unit ? sum : sum / t[row + i * columnStride];
+            }
+            return;
+        }
+        int block = r < BLOCKED_COLUMNS ? n : BLOCK;
+        for(int k = 0; k < n; k += block){
+            int end = Math.min(n, k + block);
+            for(int i = k; i < end; i++){
+                int row = offset + i * rowStride, xi = i * r;
+                for(int p = k; p < i; p++){
+                    double factor = t[row + p * columnStride];
+                    if(factor == 0){
+                        continue;
+                    }
+                    int xp = p * r;
+                    for(int j = 0; j < r; j++){
+                        x[xi + j] -= factor * x[xp + j];
+                    }
+                }
+                if(!unit){
+                    divide(x, xi, r, t[row + i * columnStride]);
+                }
+            }
+            if(end < n){
+                Gemm.multiply(-1, t, offset + end * rowStride + k * columnStride, rowStride, columnStride,
+                        x, k * r, r, 1, x, end * r, r, n - end, r, end - k);
+            }
+        }
+    }
+
+    /**
+     * Solves with upper triangular T, whose diagonal is taken as ones when unit is true.
+     */
+    static void upper(double[] t, int offset, int rowStride, int columnStride, int n, boolean unit,
+                      double[] x, int r) {
+        if(r == 1){
+            for(int i = n - 1; i >= 0; i--){
+                int row = offset + i * rowStride;
+                double sum = x[i];
+                for(int p = i + 1; p < n; p++){
+                    sum -= t[row + p * columnStride] * x[p];
+                }
+                x[i] = unit ? sum : sum / t[row + i * columnStride];
+            }
+            return;
+        }
+        int block = r < BLOCKED_COLUMNS ? n : BLOCK;
+        for(int end = n; end > 0; end -= block){
+            int k = Math.max(0, end - block);
+            for(int i = end - 1; i >= k; i--){
+                int row = offset + i * rowStride, xi = i * r;
+                for(int p = i + 1; p < end; p++){
+                    double factor = t[row + p * columnStride];
+                    if(factor == 0){
+                        continue;
+                    }
+                    int xp = p * r;
+                    for(int j = 0; j < r; j++){
+                        x[xi + j] -= factor * x[xp + j];
+                    }
+                }
+                if(!unit){
+                    divide(x, xi, r, t[row + i * columnStride]);
+                }
+            }
+            if(k > 0){
+                Gemm.multiply(-1, t, offset + k * columnStride, rowStride, columnStride,
+                        x, k * r, r, 1, x, 0, r, k, r, end - k);
+            }
+        }
+    }
+
+    private static void divide(double[] x, int offset, int length, double diagonal) {
+        for(int j = 0; j < length; j++){
+            x[offset + j] /= diagonal;
+        }
+    }
+}
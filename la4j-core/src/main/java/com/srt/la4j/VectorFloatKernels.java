@@ -0,0 +1,169 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of {@link FloatKernels} on the preferred vector shape of the host, 8
+ * lanes with AVX2 and 16 lanes with AVX-512. The register tile of the micro kernel is 4 rows
+ * by two vectors, as for {@link VectorKernels}. Conversions go through a double vector of the
+ * preferred shape and a float vector of half its size, which have the same number of lanes.
+ * This class must only be loaded when the jdk.incubator.vector module is present.
+ */
+final class VectorFloatKernels extends FloatKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int MR = 4;
+    private static final int NR = 2 * LANES;
+
+    private static final VectorSpecies<Double> WIDE = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> NARROW =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(WIDE.vectorBitSize() / 2));
+    private static final int CONVERTED = WIDE.length();
+
+    @Override
+    int mr() {
+        return MR;
+    }
+
+    @Override
+    int nr() {
+        return LANES > 1 ? NR : 0;
+    }
+
+    @Override
+    String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    void add(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .add(FloatVector.fromArray(SPECIES, b, bOffset + i))
+                    .intoArray(c, cOffset + i);
+        }
+        for(; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    @Override
+    void multiply(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .mul(FloatVector.fromArray(SPECIES, b, bOffset + i))
+                    .intoArray(c, cOffset + i);
+        }
+        for(; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * b[bOffset + i];
+        }
+    }
+
+    @Override
+    void scale(float[] a, int aOffset, float number, float[] c, int cOffset, int length) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            FloatVector.fromArray(SPECIES, a, aOffset + i).mul(number).intoArray(c, cOffset + i);
+        }
+        for(; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * number;
+        }
+    }
+
+    @Override
+    void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        int i = 0;
+        FloatVector scalar = FloatVector.broadcast(SPECIES, alpha);
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            scalar.fma(FloatVector.fromArray(SPECIES, x, xOffset + i), FloatVector.fromArray(SPECIES, y, yOffset + i))
+                    .intoArray(y, yOffset + i);
+        }
+        for(; i < length; i++){
+            y[yOffset + i] = Math.fma(alpha, x[xOffset + i], y[yOffset + i]);
+        }
+    }
+
+    @Override
+    void microKernel(int depth, float[] a, int aOffset, float[] b, int bOffset,
+                     float[] c, int cOffset, int cStride) {
+        FloatVector c00 = FloatVector.zero(SPECIES), c01 = c00;
+        FloatVector c10 = c00, c11 = c00;
+        FloatVector c20 = c00, c21 = c00;
+        FloatVector c30 = c00, c31 = c00;
+        int ai = aOffset, bi = bOffset;
+        for(int p = 0; p < depth; p++, ai += MR, bi += NR){
+            FloatVector b0 = FloatVector.fromArray(SPECIES, b, bi);
+            FloatVector b1 = FloatVector.fromArray(SPECIES, b, bi + LANES);
+            FloatVector a0 = FloatVector.broadcast(SPECIES, a[ai]);
+            c00 = a0.fma(b0, c00); c01 = a0.fma(b1, c01);
+            FloatVector a1 = FloatVector.broadcast(SPECIES, a[ai + 1]);
+            c10 = a1.fma(b0, c10); c11 = a1.fma(b1, c11);
+            FloatVector a2 = FloatVector.broadcast(SPECIES, a[ai + 2]);
+            c20 = a2.fma(b0, c20); c21 = a2.fma(b1, c21);
+            FloatVector a3 = FloatVector.broadcast(SPECIES, a[ai + 3]);
+            c30 = a3.fma(b0, c30); c31 = a3.fma(b1, c31);
+        }
+        int r = cOffset;
+        c00.add(FloatVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c01.add(FloatVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+        r += cStride;
+        c10.add(FloatVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c11.add(FloatVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+        r += cStride;
+        c20.add(FloatVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c21.add(FloatVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+        r += cStride;
+        c30.add(FloatVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c31.add(FloatVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+    }
+
+    @Override
+    void toFloat(double[] s, int sOffset, float[] d, int dOffset, int length) {
+        int i = 0;
+        for(int bound = WIDE.loopBound(length); i < bound; i += CONVERTED){
+            ((FloatVector) DoubleVector.fromArray(WIDE, s, sOffset + i)
+                    .convertShape(VectorOperators.D2F, NARROW, 0))
+                    .intoArray(d, dOffset + i);
+        }
+        for(; i < length; i++){
+            d[dOffset + i] = (float) s[sOffset + i];
+        }
+    }
+
+    @Override
+    void toDouble(float[] s, int sOffset, double[] d, int dOffset, int length) {
+        int i = 0;
+        for(int bound = WIDE.loopBound(length); i < bound; i += CONVERTED){
+            ((DoubleVector) FloatVector.fromArray(NARROW, s, sOffset + i)
+                    .convertShape(VectorOperators.F2D, WIDE, 0))
+                    .intoArray(d, dOffset + i);
+        }
+        for(; i < length; i++){
+            d[dOffset + i] = s[sOffset + i];
+        }
+    }
+}
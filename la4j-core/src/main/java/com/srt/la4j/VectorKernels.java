@@ -0,0 +1,375 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of {@link Kernels} on the preferred vector shape of the host, 4 lanes
+ * with AVX2 and 8 lanes with AVX-512. The register tile of the micro kernel is 4 rows by
+ * two vectors, accumulated with fused multiply-add. This class must only be loaded when
+ * the jdk.incubator.vector module is present.
+ */
+final class VectorKernels extends Kernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int MR = 4;
+    private static final int NR = 2 * LANES;
+    private static final Kernels SCALAR = new ScalarKernels();
+
+    @Override
+    int mr() {
+        return MR;
+    }
+
+    @Override
+    int nr() {
+        return LANES > 1 ? NR : 0;
+    }
+
+    @Override
+    String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    void add(double[] a, int aOffset, double[] b, int bOffset, double[] c, int cOffset, int length) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                    .add(DoubleVector.fromArray(SPECIES, b, bOffset + i))
+                    .intoArray(c, cOffset + i);
+        }
+        for(; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    @Override
+    void multiply(double[] a, int aOffset, double[] b, int bOffset, double[] c, int cOffset, int length) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                    .mul(DoubleVector.fromArray(SPECIES, b, bOffset + i))
+                    .intoArray(c, cOffset + i);
+        }
+        for(; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * b[bOffset + i];
+        }
+    }
+
+    @Override
+    void scale(double[] a, int aOffset, double number, double[] c, int cOffset, int length) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            DoubleVector.fromArray(SPECIES, a, aOffset + i).mul(number).intoArray(c, cOffset + i);
+        }
+        for(; i < length; i++){
+            c[cOffset + i] = a[aOffset + i] * number;
+        }
+    }
+
+    @Override
+    void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int i = 0;
+        DoubleVector scalar = DoubleVector.broadcast(SPECIES, alpha);
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            scalar.fma(DoubleVector.fromArray(SPECIES, x, xOffset + i), DoubleVector.fromArray(SPECIES, y, yOffset + i))
+                    .intoArray(y, yOffset + i);
+        }
+        for(; i < length; i++){
+            y[yOffset + i] = Math.fma(alpha, x[xOffset + i], y[yOffset + i]);
+        }
+    }
+
+    @Override
+    double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        int i = 0;
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            sum = DoubleVector.fromArray(SPECIES, a, aOffset + i).fma(DoubleVector.fromArray(SPECIES, b, bOffset + i), sum);
+        }
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for(; i < length; i++){
+            result = Math.fma(a[aOffset + i], b[bOffset + i], result);
+        }
+        return result;
+    }
+
+    @Override
+    void rotate(double c, double s, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int i = 0;
+        DoubleVector cosine = DoubleVector.broadcast(SPECIES, c), sine = DoubleVector.broadcast(SPECIES, s);
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            DoubleVector xv = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector yv = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+            xv.mul(cosine).sub(yv.mul(sine)).intoArray(x, xOffset + i);
+            xv.fma(sine, yv.mul(cosine)).intoArray(y, yOffset + i);
+        }
+        for(; i < length; i++){
+            double xi = x[xOffset + i], yi = y[yOffset + i];
+            x[xOffset + i] = c * xi - s * yi;
+            y[yOffset + i] = Math.fma(xi, s, c * yi);
+        }
+    }
+
+    @Override
+    void approximate(double[] a, int offset, int length, double minValue) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(length); i < bound; i += LANES){
+            DoubleVector v = DoubleVector.fromArray(SPECIES, a, offset + i);
+            VectorMask<Double> small = v.abs().compare(VectorOperators.LT, minValue);
+            if(small.anyTrue()){
+                v.blend(0, small).intoArray(a, offset + i);
+            }
+        }
+        for(; i < length; i++){
+            if(Math.abs(a[offset + i]) < minValue){
+                a[offset + i] = 0;
+            }
+        }
+    }
+
+    @Override
+    void microKernel(int depth, double[] a, int aOffset, double[] b, int bOffset,
+                     double[] c, int cOffset, int cStride) {
+        DoubleVector c00 = DoubleVector.zero(SPECIES), c01 = c00;
+        DoubleVector c10 = c00, c11 = c00;
+        DoubleVector c20 = c00, c21 = c00;
+        DoubleVector c30 = c00, c31 = c00;
+        int ai = aOffset, bi = bOffset;
+        for(int p = 0; p < depth; p++, ai += MR, bi += NR){
+            DoubleVector b0 = DoubleVector.fromArray(SPECIES, b, bi);
+            DoubleVector b1 = DoubleVector.fromArray(SPECIES, b, bi + LANES);
+            DoubleVector a0 = DoubleVector.broadcast(SPECIES, a[ai]);
+            c00 = a0.fma(b0, c00); c01 = a0.fma(b1, c01);
+            DoubleVector a1 = DoubleVector.broadcast(SPECIES, a[ai + 1]);
+            c10 = a1.fma(b0, c10); c11 = a1.fma(b1, c11);
+            DoubleVector a2 = DoubleVector.broadcast(SPECIES, a[ai + 2]);
+            c20 = a2.fma(b0, c20); c21 = a2.fma(b1, c21);
+            DoubleVector a3 = DoubleVector.broadcast(SPECIES, a[ai + 3]);
+            c30 = a3.fma(b0, c30); c31 = a3.fma(b1, c31);
+        }
+        // Written out rather than through a helper, so that the accumulators are never boxed.
+        int r = cOffset;
+        c00.add(DoubleVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c01.add(DoubleVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+        r += cStride;
+        c10.add(DoubleVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c11.add(DoubleVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+        r += cStride;
+        c20.add(DoubleVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c21.add(DoubleVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+        r += cStride;
+        c30.add(DoubleVector.fromArray(SPECIES, c, r)).intoArray(c, r);
+        c31.add(DoubleVector.fromArray(SPECIES, c, r + LANES)).intoArray(c, r + LANES);
+    }
+
+    @Override
+    void batchMultiply(int m, int k, int n, double[] a, double[] b, double[] c,
+                       int stride, int from, int to) {
+        int e = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        if(m == 2 && k == 2 && n == 2){
+            for(; e < bound; e += LANES){
+                multiply2(a, b, c, stride, e);
+            }
+        } else if(m == 3 && k == 3 && n == 3){
+            for(; e < bound; e += LANES){
+                multiply3(a, b, c, stride, e);
+            }
+        } else if(m == 4 && k == 4 && n == 4){
+            for(; e < bound; e += LANES){
+                multiply4(a, b, c, stride, e);
+            }
+        } else {
+            for(; e < bound; e += LANES){
+                for(int i = 0; i < m; i++){
+                    for(int j = 0; j < n; j++){
+                        DoubleVector sum = DoubleVector.zero(SPECIES);
+                        for(int p = 0; p < k; p++){
+                            sum = load(a, i*k + p, stride, e).fma(load(b, p*n + j, stride, e), sum);
+                        }
+                        sum.intoArray(c, (i*n + j)*stride + e);
+                    }
+                }
+            }
+        }
+        SCALAR.batchMultiply(m, k, n, a, b, c, stride, e, to);
+    }
+
+    private static void multiply2(double[] a, double[] b, double[] c, int stride, int e) {
+        DoubleVector a00 = load(a, 0, stride, e), a01 = load(a, 1, stride, e);
+        DoubleVector a10 = load(a, 2, stride, e), a11 = load(a, 3, stride, e);
+        DoubleVector b00 = load(b, 0, stride, e), b01 = load(b, 1, stride, e);
+        DoubleVector b10 = load(b, 2, stride, e), b11 = load(b, 3, stride, e);
+        a01.fma(b10, a00.mul(b00)).intoArray(c, e);
+        a01.fma(b11, a00.mul(b01)).intoArray(c, stride + e);
+        a11.fma(b10, a10.mul(b00)).intoArray(c, 2*stride + e);
+        a11.fma(b11, a10.mul(b01)).intoArray(c, 3*stride + e);
+    }
+
+    private static void multiply3(double[] a, double[] b, double[] c, int stride, int e) {
+        DoubleVector b00 = load(b, 0, stride, e), b01 = load(b, 1, stride, e), b02 = load(b, 2, stride, e);
+        DoubleVector b10 = load(b, 3, stride, e), b11 = load(b, 4, stride, e), b12 = load(b, 5, stride, e);
+        DoubleVector b20 = load(b, 6, stride, e), b21 = load(b, 7, stride, e), b22 = load(b, 8, stride, e);
+        for(int i = 0; i < 9; i += 3){
+            DoubleVector a0 = load(a, i, stride, e), a1 = load(a, i + 1, stride, e), a2 = load(a, i + 2, stride, e);
+            a2.fma(b20, a1.fma(b10, a0.mul(b00))).intoArray(c, i*stride + e);
+            a2.fma(b21, a1.fma(b11, a0.mul(b01))).intoArray(c, (i + 1)*stride + e);
+            a2.fma(b22, a1.fma(b12, a0.mul(b02))).intoArray(c, (i + 2)*stride + e);
+        }
+    }
+
+    private static void multiply4(double[] a, double[] b, double[] c, int stride, int e) {
+        for(int i = 0; i < 16; i += 4){
+            DoubleVector a0 = load(a, i, stride, e), a1 = load(a, i + 1, stride, e);
+            DoubleVector a2 = load(a, i + 2, stride, e), a3 = load(a, i + 3, stride, e);
+            for(int j = 0; j < 4; j++){
+                a3.fma(load(b, 12 + j, stride, e), a2.fma(load(b, 8 + j, stride, e),
+                        a1.fma(load(b, 4 + j, stride, e), a0.mul(load(b, j, stride, e)))))
+                        .intoArray(c, (i + j)*stride + e);
+            }
+        }
+    }
+
+    @Override
+    void batchDeterminant(int n, double[] a, double[] det, int stride, int from, int to) {
+        if(n < 2 || n > 4){
+            SCALAR.batchDeterminant(n, a, det, stride, from, to);
+            return;
+        }
+        int e = from;
+        for(int bound = from + SPECIES.loopBound(to - from); e < bound; e += LANES){
+            if(n == 2){
+                load(a, 0, stride, e).mul(load(a, 3, stride, e))
+                        .sub(load(a, 1, stride, e).mul(load(a, 2, stride, e))).intoArray(det, e);
+            } else if(n == 3){
+                inverse3(a, null, det, stride, e);
+            } else {
+                inverse4(a, null, det, stride, e);
+            }
+        }
+        SCALAR.batchDeterminant(n, a, det, stride, e, to);
+    }
+
+    @Override
+    void batchInverse(int n, double[] a, double[] c, double[] det, int stride, int from, int to) {
+        if(n < 2 || n > 4){
+            SCALAR.batchInverse(n, a, c, det, stride, from, to);
+            return;
+        }
+        int e = from;
+        for(int bound = from + SPECIES.loopBound(to - from); e < bound; e += LANES){
+            if(n == 2){
+                inverse2(a, c, det, stride, e);
+            } else if(n == 3){
+                inverse3(a, c, det, stride, e);
+            } else {
+                inverse4(a, c, det, stride, e);
+            }
+        }
+        SCALAR.batchInverse(n, a, c, det, stride, e, to);
+    }
+
+    private static void inverse2(double[] a, double[] c, double[] det, int stride, int e) {
+        DoubleVector a00 = load(a, 0, stride, e), a01 = load(a, 1, stride, e);
+        DoubleVector a10 = load(a, 2, stride, e), a11 = load(a, 3, stride, e);
+        DoubleVector d = a00.mul(a11).sub(a01.mul(a10));
+        DoubleVector r = DoubleVector.broadcast(SPECIES, 1).div(d);
+        d.intoArray(det, e);
+        a11.mul(r).intoArray(c, e);
+        a01.neg().mul(r).intoArray(c, stride + e);
+        a10.neg().mul(r).intoArray(c, 2*stride + e);
+        a00.mul(r).intoArray(c, 3*stride + e);
+    }
+
+    /**
+     * Same expressions as the scalar kernel, when c is null only the determinant is written.
+     */
+    private static void inverse3(double[] a, double[] c, double[] det, int stride, int e) {
+        DoubleVector a00 = load(a, 0, stride, e), a01 = load(a, 1, stride, e), a02 = load(a, 2, stride, e);
+        DoubleVector a10 = load(a, 3, stride, e), a11 = load(a, 4, stride, e), a12 = load(a, 5, stride, e);
+        DoubleVector a20 = load(a, 6, stride, e), a21 = load(a, 7, stride, e), a22 = load(a, 8, stride, e);
+        DoubleVector c00 = a11.mul(a22).sub(a12.mul(a21));
+        DoubleVector c01 = a12.mul(a20).sub(a10.mul(a22));
+        DoubleVector c02 = a10.mul(a21).sub(a11.mul(a20));
+        DoubleVector d = a00.mul(c00).add(a01.mul(c01)).add(a02.mul(c02));
+        d.intoArray(det, e);
+        if(c == null){
+            return;
+        }
+        DoubleVector r = DoubleVector.broadcast(SPECIES, 1).div(d);
+        c00.mul(r).intoArray(c, e);
+        a02.mul(a21).sub(a01.mul(a22)).mul(r).intoArray(c, stride + e);
+        a01.mul(a12).sub(a02.mul(a11)).mul(r).intoArray(c, 2*stride + e);
+        c01.mul(r).intoArray(c, 3*stride + e);
+        a00.mul(a22).sub(a02.mul(a20)).mul(r).intoArray(c, 4*stride + e);
+        a02.mul(a10).sub(a00.mul(a12)).mul(r).intoArray(c, 5*stride + e);
+        c02.mul(r).intoArray(c, 6*stride + e);
+        a01.mul(a20).sub(a00.mul(a21)).mul(r).intoArray(c, 7*stride + e);
+        a00.mul(a11).sub(a01.mul(a10)).mul(r).intoArray(c, 8*stride + e);
+    }
+
+    private static void inverse4(double[] a, double[] c, double[] det, int stride, int e) {
+        DoubleVector a00 = load(a, 0, stride, e), a01 = load(a, 1, stride, e);
+        DoubleVector a02 = load(a, 2, stride, e), a03 = load(a, 3, stride, e);
+        DoubleVector a10 = load(a, 4, stride, e), a11 = load(a, 5, stride, e);
+        DoubleVector a12 = load(a, 6, stride, e), a13 = load(a, 7, stride, e);
+        DoubleVector a20 = load(a, 8, stride, e), a21 = load(a, 9, stride, e);
+        DoubleVector a22 = load(a, 10, stride, e), a23 = load(a, 11, stride, e);
+        DoubleVector a30 = load(a, 12, stride, e), a31 = load(a, 13, stride, e);
+        DoubleVector a32 = load(a, 14, stride, e), a33 = load(a, 15, stride, e);
+        DoubleVector s0 = a00.mul(a11).sub(a10.mul(a01)), s1 = a00.mul(a12).sub(a10.mul(a02));
+        DoubleVector s2 = a00.mul(a13).sub(a10.mul(a03)), s3 = a01.mul(a12).sub(a11.mul(a02));
+        DoubleVector s4 = a01.mul(a13).sub(a11.mul(a03)), s5 = a02.mul(a13).sub(a12.mul(a03));
+        DoubleVector c0 = a20.mul(a31).sub(a30.mul(a21)), c1 = a20.mul(a32).sub(a30.mul(a22));
+        DoubleVector c2 = a20.mul(a33).sub(a30.mul(a23)), c3 = a21.mul(a32).sub(a31.mul(a22));
+        DoubleVector c4 = a21.mul(a33).sub(a31.mul(a23)), c5 = a22.mul(a33).sub(a32.mul(a23));
+        DoubleVector d = s0.mul(c5).sub(s1.mul(c4)).add(s2.mul(c3)).add(s3.mul(c2)).sub(s4.mul(c1)).add(s5.mul(c0));
+        d.intoArray(det, e);
+        if(c == null){
+            return;
+        }
+        DoubleVector r = DoubleVector.broadcast(SPECIES, 1).div(d);
+        a11.mul(c5).sub(a12.mul(c4)).add(a13.mul(c3)).mul(r).intoArray(c, e);
+        a02.mul(c4).sub(a01.mul(c5)).sub(a03.mul(c3)).mul(r).intoArray(c, stride + e);
+        a31.mul(s5).sub(a32.mul(s4)).add(a33.mul(s3)).mul(r).intoArray(c, 2*stride + e);
+        a22.mul(s4).sub(a21.mul(s5)).sub(a23.mul(s3)).mul(r).intoArray(c, 3*stride + e);
+        a12.mul(c2).sub(a10.mul(c5)).sub(a13.mul(c1)).mul(r).intoArray(c, 4*stride + e);
+        a00.mul(c5).sub(a02.mul(c2)).add(a03.mul(c1)).mul(r).intoArray(c, 5*stride + e);
+        a32.mul(s2).sub(a30.mul(s5)).sub(a33.mul(s1)).mul(r).intoArray(c, 6*stride + e);
+        a20.mul(s5).sub(a22.mul(s2)).add(a23.mul(s1)).mul(r).intoArray(c, 7*stride + e);
+        a10.mul(c4).sub(a11.mul(c2)).add(a13.mul(c0)).mul(r).intoArray(c, 8*stride + e);
+        a01.mul(c2).sub(a00.mul(c4)).sub(a03.mul(c0)).mul(r).intoArray(c, 9*stride + e);
+        a30.mul(s4).sub(a31.mul(s2)).add(a33.mul(s0)).mul(r).intoArray(c, 10*stride + e);
+        a21.mul(s2).sub(a20.mul(s4)).sub(a23.mul(s0)).mul(r).intoArray(c, 11*stride + e);
+        a11.mul(c1).sub(a10.mul(c3)).sub(a12.mul(c0)).mul(r).intoArray(c, 12*stride + e);
+        a00.mul(c3).sub(a01.mul(c1)).add(a02.mul(c0)).mul(r).intoArray(c, 13*stride + e);
+        a31.mul(s1).sub(a30.mul(s3)).sub(a32.mul(s0)).mul(r).intoArray(c, 14*stride + e);
+        a20.mul(s3).sub(a21.mul(s1)).add(a22.mul(s0)).mul(r).intoArray(c, 15*stride + e);
+    }
+
+    private static DoubleVector load(double[] a, int plane, int stride, int e) {
+        return DoubleVector.fromArray(SPECIES, a, plane*stride + e);
+    }
+}
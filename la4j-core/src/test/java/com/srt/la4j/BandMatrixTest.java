@@ -0,0 +1,111 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class BandMatrixTest {
+
+    /**
+     * @return second difference operator, tridiagonal with 2 on the diagonal and -1 beside it.
+     */
+    private static BandMatrix laplacian(int n) {
+        BandMatrix band = new BandMatrix(n, 1, 1);
+        for (int i = 0; i < n; i++) {
+            band.set(i, i, 2);
+            if (i > 0) {
+                band.set(i, i - 1, -1);
+                band.set(i - 1, i, -1);
+            }
+        }
+        return band;
+    }
+
+    @Test
+    public void bandShouldHoldOnlyItsDiagonals() throws Exception {
+        Matrix dense = Matrices.random(7, 7, 1, 0);
+        BandMatrix band = BandMatrix.of(dense, 2, 1);
+
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j < 7; j++) {
+                assertEquals(j >= i - 2 && j <= i + 1 ? dense.get(i, j) : 0, band.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void operationsShouldMatchDenseMatrix() throws Exception {
+        BandMatrix first = BandMatrix.of(Matrices.random(40, 40, 1, 0), 2, 3);
+        BandMatrix second = BandMatrix.of(Matrices.random(40, 40, 2, 0), 4, 1);
+        Matrix x = first.toDense(), y = second.toDense();
+        Matrix c = Matrices.random(40, 6, 3, 0);
+
+        BaseMatrix product = first.multiply(second);
+        BaseMatrix sum = first.add(second);
+
+        assertTrue(product instanceof BandMatrix);
+        assertEquals(6, ((BandMatrix) product).getLowerBandwidth());
+        assertEquals(4, ((BandMatrix) product).getUpperBandwidth());
+        assertClose(x.multiply(y), product.toDense());
+        assertTrue(sum instanceof BandMatrix);
+        assertClose(x.add(y), sum.toDense());
+        assertClose(x.multiply(c), (Matrix) first.multiply(c));
+        assertClose(x.multiplyElementWise(y), first.multiplyElementWise(second).toDense());
+        assertClose(x.multiply(3), first.multiply(3).toDense());
+        assertClose(x.transpose(), first.transpose().toDense());
+        assertEquals(3, first.transpose().getLowerBandwidth());
+    }
+
+    @Test
+    public void determinantAndSolveShouldMatchDenseMatrix() throws Exception {
+        // No diagonal shift, so that rows are swapped by the pivoting.
+        BandMatrix band = BandMatrix.of(Matrices.random(50, 50, 4, 0), 3, 2);
+        Matrix dense = band.toDense();
+        Matrix b = Matrices.random(50, 3, 5, 0);
+
+        assertEquals(dense.getDeterminant(), band.getDeterminant(), 1e-9 * Math.abs(band.getDeterminant()));
+        assertClose(dense.solve(b), band.solve(b));
+    }
+
+    @Test
+    public void laplacianShouldHaveKnownDeterminant() throws Exception {
+        BandMatrix laplacian = laplacian(100);
+
+        assertEquals(101, laplacian.getDeterminant(), 1e-9);
+        Matrix ones = new Matrix(100, 1);
+        for (int i = 0; i < 100; i++) {
+            ones.set(i, 0, 1);
+        }
+        assertClose(ones, laplacian.solve((Matrix) laplacian.multiply(ones)));
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void solveShouldRejectSingularMatrix() throws Exception {
+        new BandMatrix(4, 1, 1).solve(Matrix.identity(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setShouldRejectElementOutsideBand() throws Exception {
+        new BandMatrix(4, 1, 0).set(0, 1, 1);
+    }
+}
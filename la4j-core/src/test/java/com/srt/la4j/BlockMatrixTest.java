@@ -0,0 +1,180 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class BlockMatrixTest {
+
+    private ForkJoinPool pool;
+
+    @After
+    public void tearDown() throws Exception {
+        Parallelism.setEnabled(false);
+        Parallelism.setThreshold(1 << 16);
+        Parallelism.setPool(ForkJoinPool.commonPool());
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private void parallel() {
+        pool = new ForkJoinPool(4);
+        Parallelism.setPool(pool);
+        Parallelism.setThreshold(64);
+        Parallelism.setEnabled(true);
+    }
+
+    @Test
+    public void tilesShouldCoverMatrixWithSmallerEdgeTiles() throws Exception {
+        Matrix dense = Matrices.random(23, 17, 1, 0);
+        BlockMatrix block = BlockMatrix.of(dense, 8);
+
+        assertEquals(3, block.getTileRows());
+        assertEquals(3, block.getTileColumns());
+        assertEquals(7, block.getTile(2, 0).getRows());
+        assertEquals(1, block.getTile(0, 2).getColumns());
+        assertEquals(dense.get(9, 16), block.getTile(1, 2).get(1, 0));
+        assertEquals(dense, block.toDense());
+
+        block.set(22, 16, 5);
+        assertEquals(5d, block.get(22, 16));
+        assertEquals(5d, block.getTile(2, 2).get(6, 0));
+    }
+
+    @Test
+    public void operationsShouldMatchDenseMatrix() throws Exception {
+        Matrix a = Matrices.random(45, 31, 1, 0);
+        Matrix b = Matrices.random(45, 31, 2, 0);
+        Matrix c = Matrices.random(31, 38, 3, 0);
+        BlockMatrix block = BlockMatrix.of(a, 8);
+
+        assertClose(a.add(b), block.add(BlockMatrix.of(b, 8)).toDense());
+        assertClose(a.add(b), block.add(b).toDense());
+        assertClose(a.multiplyElementWise(b), block.multiplyElementWise(BlockMatrix.of(b, 16)).toDense());
+        assertClose(a.multiply(c), block.multiply(BlockMatrix.of(c, 8)).toDense());
+        assertClose(a.multiply(c), block.multiply(c).toDense());
+        assertClose(a.multiply(0.5), block.multiply(0.5).toDense());
+        assertClose(a.transpose(), block.transpose().toDense());
+        assertClose(a.transpose().multiply(b), block.transpose().multiply(b).toDense());
+    }
+
+    @Test
+    public void parallelOperationsShouldMatchSerialOperations() throws Exception {
+        Matrix a = Matrices.random(70, 70, 1, 0);
+        Matrix b = Matrices.random(70, 70, 2, 0);
+        BlockMatrix block = BlockMatrix.of(a, 16);
+        Matrix sum = block.add(b).toDense();
+        Matrix product = block.multiply(b).toDense();
+        Matrix transposed = block.transpose().toDense();
+
+        parallel();
+
+        assertEquals(sum, block.add(b).toDense());
+        assertEquals(product, block.multiply(b).toDense());
+        assertEquals(transposed, block.transpose().toDense());
+    }
+
+    @Test
+    public void writingTransposeShouldNotChangeMatrix() throws Exception {
+        BlockMatrix block = BlockMatrix.of(Matrices.random(10, 10, 1, 0), 4);
+        double value = block.get(1, 6);
+
+        block.transpose().set(6, 1, 42);
+
+        assertEquals(value, block.get(1, 6));
+    }
+
+    @Test
+    public void luShouldFactorizeAcrossTiles() throws Exception {
+        for (int n : new int[]{1, 7, 16, 37}) {
+            Matrix a = Matrices.random(n, n, n, 0);
+            BlockLUDecomposition lu = BlockMatrix.of(a, 8).lu();
+            LUDecomposition dense = a.lu();
+
+            assertFalse(lu.isSingular());
+            assertEquals(dense.getDeterminant(), lu.getDeterminant(), 1e-9 * Math.abs(dense.getDeterminant()));
+            assertClose(permute(a, lu.getPivot()), lu.getL().multiply(lu.getU()).toDense());
+            Matrix b = Matrices.random(n, 3, 5, 0);
+            assertClose(dense.solve(b), lu.solve(b));
+        }
+    }
+
+    @Test
+    public void parallelLuShouldMatchSerialLu() throws Exception {
+        BlockMatrix block = BlockMatrix.of(Matrices.random(90, 90, 3, 0), 8);
+        BlockLUDecomposition serial = block.lu();
+
+        parallel();
+        BlockLUDecomposition lu = block.lu();
+
+        assertEquals(serial.getL().toDense(), lu.getL().toDense());
+        assertEquals(serial.getU().toDense(), lu.getU().toDense());
+        assertEquals(serial.getDeterminant(), lu.getDeterminant());
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void luShouldDetectSingularMatrix() throws Exception {
+        Matrix a = Matrices.random(20, 20, 4, 0);
+        for (int j = 0; j < 20; j++) {
+            a.set(13, j, 0);
+        }
+        BlockLUDecomposition lu = BlockMatrix.of(a, 8).lu();
+
+        assertTrue(lu.isSingular());
+        lu.solve(Matrices.random(20, 1, 5, 0));
+    }
+
+    @Test(expected = NotASqaureMatrixException.class)
+    public void luShouldRejectNonSquareMatrix() throws Exception {
+        new BlockMatrix(4, 5, 2).lu();
+    }
+
+    @Test(expected = AdditionCompatibleException.class)
+    public void addShouldRejectDifferentDimensions() throws Exception {
+        new BlockMatrix(4, 5, 2).add(new Matrix(5, 4));
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void multiplyShouldRejectIncompatibleMatrix() throws Exception {
+        new BlockMatrix(4, 5, 2).multiply(new BlockMatrix(4, 5, 2));
+    }
+
+    private static Matrix permute(Matrix a, int[] pivot) {
+        Matrix result = new Matrix(a.getRows(), a.getColumns());
+        for (int i = 0; i < pivot.length; i++) {
+            for (int j = 0; j < a.getColumns(); j++) {
+                result.set(i, j, a.get(pivot[i], j));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.NotPositiveDefiniteMatrixException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+
+public class CholeskyDecompositionTest {
+
+    private Matrix spd;
+
+    @Before
+    public void setUp() throws Exception {
+        Matrix a = Matrices.random(120, 120, 1, 0);
+        spd = a.multiply(a.transpose()).add(Matrix.identity(120));
+    }
+
+    @Test
+    public void productOfFactorAndItsTransposeShouldBeMatrix() throws Exception {
+        Matrix l = spd.cholesky().getL();
+
+        assertClose(spd, l.multiply(l.transpose()));
+        assertEquals(0d, l.get(0, 1));
+    }
+
+    @Test
+    public void solveShouldMatchLUSolve() throws Exception {
+        Matrix b = Matrices.random(120, 12, 2, 0);
+
+        Matrix x = spd.cholesky().solve(b);
+
+        assertClose(b, spd.multiply(x));
+        assertClose(spd.lu().solve(b), x);
+    }
+
+    @Test
+    public void determinantShouldMatchLUDeterminant() throws Exception {
+        Matrix matrix = new Matrix(new double[][]{{4, 2}, {2, 3}});
+
+        assertEquals(8d, matrix.cholesky().getDeterminant(), 1e-12);
+    }
+
+    @Test(expected = NotPositiveDefiniteMatrixException.class)
+    public void shouldThrowNotPositiveDefiniteMatrixException() throws Exception {
+        new Matrix(new double[][]{{1, 2}, {2, 1}}).cholesky();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static com.srt.la4j.CsrMatrixTest.randomSparse;
+import static junit.framework.TestCase.assertEquals;
+
+public class CscMatrixTest {
+
+    private Matrix denseA;
+    private Matrix denseB;
+    private CscMatrix sparseA;
+    private CscMatrix sparseB;
+
+    @Before
+    public void setUp() throws Exception {
+        denseA = randomSparse(31, 12, 4);
+        denseB = randomSparse(12, 31, 5);
+        sparseA = CscMatrix.fromDense(denseA);
+        sparseB = CscMatrix.fromDense(denseB);
+    }
+
+    @Test
+    public void shouldStoreElementsColumnByColumn() throws Exception {
+        CscMatrix matrix = new CscMatrix(3, 2, new int[]{0, 2, 3}, new int[]{0, 2, 1}, new double[]{5, 6, 7});
+
+        assertEquals(5d, matrix.get(0, 0));
+        assertEquals(6d, matrix.get(2, 0));
+        assertEquals(7d, matrix.get(1, 1));
+        assertEquals(0d, matrix.get(1, 0));
+    }
+
+    @Test
+    public void fromTripletsShouldMatchDense() throws Exception {
+        CscMatrix matrix = CscMatrix.fromTriplets(2, 3, new int[]{1, 0, 1}, new int[]{2, 0, 2}, new double[]{1, 2, 3});
+
+        assertEquals(new Matrix(new double[][]{{2, 0, 0}, {0, 0, 4}}), matrix.toDense());
+    }
+
+    @Test
+    public void operationsShouldMatchDenseOperations() throws Exception {
+        assertClose(denseA.multiply(denseB), sparseA.multiply(sparseB).toDense());
+        assertClose(denseA.multiply(denseB), sparseA.multiply(denseB).toDense());
+        assertEquals(denseA.add(denseA), sparseA.add(sparseA).toDense());
+        assertEquals(denseA.transpose(), sparseA.transpose().toDense());
+        assertEquals(denseA.multiply(-3), sparseA.multiply(-3).toDense());
+        assertEquals(denseA.multiplyElementWise(denseA), sparseA.multiplyElementWise(denseA).toDense());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class CsrMatrixTest {
+
+    private Matrix denseA;
+    private Matrix denseB;
+    private Matrix denseC;
+    private CsrMatrix sparseA;
+    private CsrMatrix sparseB;
+    private CsrMatrix sparseC;
+
+    @Before
+    public void setUp() throws Exception {
+        denseA = randomSparse(23, 17, 1);
+        denseB = randomSparse(23, 17, 2);
+        denseC = randomSparse(17, 29, 3);
+        sparseA = CsrMatrix.fromDense(denseA);
+        sparseB = CsrMatrix.fromDense(denseB);
+        sparseC = CsrMatrix.fromDense(denseC);
+    }
+
+    @Test
+    public void shouldOnlyStoreNonZeroElements() throws Exception {
+        CsrMatrix matrix = new CsrMatrix(2, 3, new int[]{0, 2, 3}, new int[]{0, 2, 1}, new double[]{5, 0, 7});
+
+        assertEquals(2, matrix.getNonZeros());
+        assertEquals(5d, matrix.get(0, 0));
+        assertEquals(0d, matrix.get(0, 2));
+        assertEquals(7d, matrix.get(1, 1));
+    }
+
+    @Test
+    public void fromTripletsShouldSumDuplicates() throws Exception {
+        CsrMatrix matrix = CsrMatrix.fromTriplets(2, 2, new int[]{1, 0, 1, 0}, new int[]{1, 1, 1, 0},
+                new double[]{1, 2, 3, 4});
+
+        assertEquals(3, matrix.getNonZeros());
+        assertEquals(new Matrix(new double[][]{{4, 2}, {0, 4}}), matrix.toDense());
+    }
+
+    @Test
+    public void sparseOperationsShouldMatchDenseOperations() throws Exception {
+        assertEquals(denseA.add(denseB), sparseA.add(sparseB).toDense());
+        assertEquals(denseA.multiplyElementWise(denseB), sparseA.multiplyElementWise(sparseB).toDense());
+        assertClose(denseA.multiply(denseC), sparseA.multiply(sparseC).toDense());
+        assertEquals(denseA.transpose(), sparseA.transpose().toDense());
+        assertEquals(denseA.multiply(2.5), sparseA.multiply(2.5).toDense());
+        assertTrue(sparseA.add(sparseB) instanceof CsrMatrix);
+        assertTrue(sparseA.multiply(sparseC) instanceof CsrMatrix);
+    }
+
+    @Test
+    public void mixedOperationsShouldPickDenseOrSparseResult() throws Exception {
+        assertEquals(denseA.add(denseB), sparseA.add(denseB));
+        assertEquals(denseA.add(denseB), denseA.add((BaseMatrix) sparseB));
+        assertClose(denseA.multiply(denseC), (Matrix) sparseA.multiply(denseC));
+        assertClose(denseA.multiply(denseC), denseA.multiply((BaseMatrix) sparseC));
+        assertEquals(CsrMatrix.fromDense(denseA.multiplyElementWise(denseB)), sparseA.multiplyElementWise(denseB));
+        assertEquals(CsrMatrix.fromDense(denseA.multiplyElementWise(denseB)), denseA.multiplyElementWise((BaseMatrix) sparseB));
+    }
+
+    @Test
+    public void transposeShouldShareStorageAsColumnMatrix() throws Exception {
+        CscMatrix transposed = sparseA.transpose();
+
+        assertEquals(sparseA.getNonZeros(), transposed.getNonZeros());
+        assertEquals(sparseA, transposed.transpose());
+        assertEquals(sparseA, sparseA.toCsc().toCsr());
+    }
+
+    @Test(expected = AdditionCompatibleException.class)
+    public void shouldThrowAdditionCompatibleException() throws Exception {
+        sparseA.add(sparseC);
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void shouldThrowMultiplicationCompatibleException() throws Exception {
+        sparseA.multiply(sparseB);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnsortedColumnIndices() throws Exception {
+        new CsrMatrix(1, 3, new int[]{0, 2}, new int[]{2, 1}, new double[]{1, 1});
+    }
+
+    static Matrix randomSparse(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        double[][] d = new double[rows][columns];
+        for (double[] row : d) {
+            for (int j = 0; j < columns; j++) {
+                if (random.nextInt(5) == 0) row[j] = random.nextInt(19) - 9;
+            }
+        }
+        return new Matrix(d);
+    }
+
+    static void assertClose(Matrix expected, Matrix actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        for (int i = 0; i < expected.getRows(); i++) {
+            for (int j = 0; j < expected.getColumns(); j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), 1e-9);
+            }
+        }
+    }
+}
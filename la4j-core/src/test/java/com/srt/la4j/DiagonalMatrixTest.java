@@ -0,0 +1,86 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class DiagonalMatrixTest {
+
+    private final DiagonalMatrix diagonal = new DiagonalMatrix(new double[]{2, -3, 0.5, 4});
+
+    @Test
+    public void identityShouldMatchDenseIdentity() throws Exception {
+        assertEquals(Matrix.identity(5), DiagonalMatrix.identity(5).toDense());
+    }
+
+    @Test
+    public void operationsShouldMatchDenseMatrix() throws Exception {
+        Matrix dense = diagonal.toDense();
+        Matrix other = Matrices.random(4, 3, 1, 0);
+        Matrix square = Matrices.random(4, 4, 2, 0);
+        DiagonalMatrix second = new DiagonalMatrix(new double[]{1, 2, 3, 4});
+
+        assertClose(dense.multiply(other), (Matrix) diagonal.multiply(other));
+        assertClose(dense.add(square), diagonal.add(square).toDense());
+        assertTrue(diagonal.add(second) instanceof DiagonalMatrix);
+        assertTrue(diagonal.multiply(second) instanceof DiagonalMatrix);
+        assertClose(dense.multiply(second.toDense()), diagonal.multiply(second).toDense());
+        assertClose(dense.multiplyElementWise(square), diagonal.multiplyElementWise(square).toDense());
+        assertClose(dense.multiply(1.5), diagonal.multiply(1.5).toDense());
+        assertEquals(diagonal, diagonal.transpose());
+        assertEquals(dense.getDeterminant(), diagonal.getDeterminant(), 1e-12);
+    }
+
+    @Test
+    public void productsShouldKeepTriangularAndBandStructure() throws Exception {
+        Matrix square = Matrices.random(4, 4, 3, 0);
+        TriangularMatrix lower = TriangularMatrix.of(square, true);
+        BandMatrix band = BandMatrix.of(square, 1, 2);
+
+        BaseMatrix triangular = diagonal.multiply(lower);
+        BaseMatrix banded = diagonal.multiply(band);
+
+        assertTrue(triangular instanceof TriangularMatrix);
+        assertTrue(banded instanceof BandMatrix);
+        assertClose(diagonal.toDense().multiply(lower.toDense()), triangular.toDense());
+        assertClose(diagonal.toDense().multiply(band.toDense()), banded.toDense());
+    }
+
+    @Test
+    public void solveAndInverseShouldMatchDenseMatrix() throws Exception {
+        Matrix b = Matrices.random(4, 2, 4, 0);
+
+        assertClose(diagonal.toDense().solve(b), diagonal.solve(b));
+        assertClose(diagonal.toDense().inverse(), diagonal.inverse().toDense());
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void solveShouldRejectZeroOnDiagonal() throws Exception {
+        new DiagonalMatrix(new double[]{1, 0}).solve(Matrix.identity(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setShouldRejectElementOutsideDiagonal() throws Exception {
+        diagonal.set(0, 1, 1);
+    }
+}
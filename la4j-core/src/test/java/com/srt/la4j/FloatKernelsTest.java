@@ -0,0 +1,112 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class FloatKernelsTest {
+
+    private final FloatKernels scalar = new ScalarFloatKernels();
+    private final FloatKernels kernels = FloatKernels.INSTANCE;
+    private float[] first;
+    private float[] second;
+    private double[] wide;
+
+    @Before
+    public void setUp() throws Exception {
+        first = Matrices.floats(131, 7);
+        second = Matrices.floats(131, 8);
+        wide = Matrices.values(131, 9);
+    }
+
+    @Test
+    public void elementWiseKernelsShouldMatchScalarLoops() throws Exception {
+        float[] expected = new float[134];
+        float[] actual = new float[134];
+
+        scalar.add(first, 1, second, 2, expected, 3, 127);
+        kernels.add(first, 1, second, 2, actual, 3, 127);
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+
+        scalar.multiply(first, 0, second, 4, expected, 1, 125);
+        kernels.multiply(first, 0, second, 4, actual, 1, 125);
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+
+        scalar.scale(first, 2, 0.37f, expected, 0, 129);
+        kernels.scale(first, 2, 0.37f, actual, 0, 129);
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+
+    @Test
+    public void axpyShouldMatchScalarLoop() throws Exception {
+        float[] expected = second.clone();
+        float[] actual = second.clone();
+
+        scalar.axpy(1.5f, first, 1, expected, 0, 127);
+        kernels.axpy(1.5f, first, 1, actual, 0, 127);
+
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+
+    @Test
+    public void conversionsShouldMatchCasts() throws Exception {
+        float[] narrow = new float[131];
+        double[] back = new double[131];
+
+        kernels.toFloat(wide, 2, narrow, 1, 127);
+        kernels.toDouble(first, 3, back, 0, 128);
+
+        for (int i = 0; i < 127; i++) {
+            assertEquals((float) wide[i + 2], narrow[i + 1]);
+        }
+        for (int i = 0; i < 128; i++) {
+            assertEquals((double) first[i + 3], back[i]);
+        }
+    }
+
+    @Test
+    public void microKernelShouldAccumulateTileProduct() throws Exception {
+        int mr = kernels.mr(), nr = kernels.nr(), depth = 9;
+        float[] a = new float[mr * depth];
+        float[] b = new float[nr * depth];
+        for (int i = 0; i < a.length; i++) a[i] = i % 5 - 2;
+        for (int i = 0; i < b.length; i++) b[i] = i % 3 - 1;
+        int stride = nr + 3;
+        float[] c = new float[mr * stride];
+        Arrays.fill(c, 1);
+
+        kernels.microKernel(depth, a, 0, b, 0, c, 0, stride);
+
+        for (int i = 0; i < mr; i++) {
+            for (int j = 0; j < nr; j++) {
+                float sum = 1;
+                for (int p = 0; p < depth; p++) sum += a[p * mr + i] * b[p * nr + j];
+                assertEquals(sum, c[i * stride + j]);
+            }
+            for (int j = nr; j < stride; j++) {
+                assertEquals(1f, c[i * stride + j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class FloatMatrixTest {
+
+    private static void assertClose(Matrix expected, FloatMatrix actual, double tolerance) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        for (int i = 0; i < expected.getRows(); i++) {
+            for (int j = 0; j < expected.getColumns(); j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void conversionShouldRoundToNearestFloatAndBackExactly() throws Exception {
+        Matrix matrix = Matrices.random(13, 21, 1, 0);
+
+        FloatMatrix single = matrix.toFloat();
+        Matrix back = single.toDouble();
+
+        for (int i = 0; i < 13; i++) {
+            for (int j = 0; j < 21; j++) {
+                assertEquals((float) matrix.get(i, j), single.get(i, j));
+                assertEquals((double) single.get(i, j), back.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void conversionShouldReadTransposeViews() throws Exception {
+        Matrix matrix = Matrices.random(9, 5, 2, 0);
+
+        assertEquals(matrix.toFloat().transpose(), matrix.transpose().toFloat());
+    }
+
+    @Test
+    public void operationsShouldMatchDoublePrecisionWithinFloatRounding() throws Exception {
+        Matrix a = Matrices.random(37, 37, 3, 0);
+        Matrix b = Matrices.random(37, 37, 4, 0);
+        FloatMatrix fa = a.toFloat(), fb = b.toFloat();
+
+        assertClose(a.add(b), fa.add(fb), 1e-6);
+        assertClose(a.multiplyElementWise(b), fa.multiplyElementWise(fb), 1e-6);
+        assertClose(a.multiply(0.5), fa.multiply(0.5f), 1e-6);
+        assertClose(a.multiply(b), fa.multiply(fb), 1e-4);
+    }
+
+    @Test
+    public void multiplyShouldHandleEdgeTilesOfLargeProducts() throws Exception {
+        Matrix a = Matrices.random(131, 300, 5, 0);
+        Matrix b = Matrices.random(300, 77, 6, 0);
+
+        assertClose(a.multiply(b), a.toFloat().multiply(b.toFloat()), 1e-3);
+    }
+
+    @Test
+    public void transposeShouldSwapRowsAndColumns() throws Exception {
+        Matrix a = Matrices.random(150, 70, 7, 0);
+
+        FloatMatrix transpose = a.toFloat().transpose();
+
+        assertEquals(a.transpose().toFloat(), transpose);
+        assertEquals(70, transpose.getRows());
+    }
+
+    @Test
+    public void determinantAndInverseShouldMatchDoublePrecision() throws Exception {
+        Matrix a = Matrices.random(20, 20, 8, 4);
+        FloatMatrix single = a.toFloat();
+
+        assertEquals(single.toDouble().getDeterminant(), single.getDeterminant(), 1e-9);
+        FloatMatrix product = single.multiply(single.inverse());
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                assertEquals(i == j ? 1 : 0, product.get(i, j), 1e-5);
+            }
+        }
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void inverseShouldRejectSingularMatrix() throws Exception {
+        new FloatMatrix(new float[][]{{1, 2}, {2, 4}}).inverse();
+    }
+
+    @Test(expected = AdditionCompatibleException.class)
+    public void addShouldRejectDifferentDimensions() throws Exception {
+        new FloatMatrix(2, 3).add(new FloatMatrix(3, 2));
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void multiplyShouldRejectIncompatibleMatrices() throws Exception {
+        new FloatMatrix(2, 3).multiply(new FloatMatrix(2, 3));
+    }
+
+    @Test
+    public void identityShouldBeNeutralForMultiply() throws Exception {
+        FloatMatrix a = Matrices.random(6, 4, 9, 0).toFloat();
+
+        assertEquals(a, FloatMatrix.identity(6).multiply(a));
+        assertEquals(a.hashCode(), a.multiply(1f).hashCode());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class GemmTest {
+
+    private final int mc = Gemm.getRowBlockSize();
+    private final int kc = Gemm.getDepthBlockSize();
+    private final int nc = Gemm.getColumnBlockSize();
+
+    @After
+    public void tearDown() throws Exception {
+        Gemm.setBlockSizes(mc, kc, nc);
+    }
+
+    @Test
+    public void blockedProductShouldMatchDotProductsForEdgeSizes() throws Exception {
+        Gemm.setBlockSizes(8, 16, 12);
+        assertProductMatches(37, 45, 29);
+        assertProductMatches(64, 3, 70);
+        assertProductMatches(5, 71, 66);
+    }
+
+    @Test
+    public void blockedProductShouldMatchDotProductsWithDefaultBlockSizes() throws Exception {
+        assertProductMatches(150, 131, 270);
+    }
+
+    @Test
+    public void blockSizesShouldBeRoundedToRegisterTile() throws Exception {
+        Gemm.setBlockSizes(10, 7, 13);
+
+        assertEquals(12, Gemm.getRowBlockSize());
+        assertEquals(7, Gemm.getDepthBlockSize());
+        assertEquals(16, Gemm.getColumnBlockSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveBlockSizes() throws Exception {
+        Gemm.setBlockSizes(0, 16, 16);
+    }
+
+    private static void assertProductMatches(int m, int n, int k) throws Exception {
+        Matrix a = Matrices.random(m, k, m * 31 + n * 7 + k, 0);
+        Matrix b = Matrices.random(k, n, m * 31 + n * 7 + k + 1, 0);
+
+        Matrix product = a.multiply(b);
+
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = 0;
+                for (int p = 0; p < k; p++) sum += a.get(i, p) * b.get(p, j);
+                assertEquals(sum, product.get(i, j), 1e-12);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class InstrumentationTest {
+
+    private final boolean enabled = Instrumentation.isEnabled();
+    private final OperationStatistics statistics = new OperationStatistics();
+
+    @Before
+    public void setUp() throws Exception {
+        Instrumentation.addListener(statistics);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Instrumentation.removeListener(statistics);
+        Instrumentation.setEnabled(enabled);
+    }
+
+    @Test
+    public void operationsShouldBeCountedWhileEnabled() throws Exception {
+        Instrumentation.setEnabled(true);
+        Matrix a = Matrices.random(4, 6, 1, 0);
+        Matrix b = Matrices.random(6, 3, 2, 0);
+
+        a.multiply(b);
+        a.add(a).addInPlace(a);
+        a.transpose();
+        Matrix square = Matrices.random(5, 5, 3, 2);
+        square.inverse();
+
+        assertEquals(1, statistics.getInvocations(MatrixOperation.MULTIPLY));
+        assertEquals(2L * 4 * 6 * 3, statistics.getFlops(MatrixOperation.MULTIPLY));
+        assertEquals(8L * 4 * 3, statistics.getBytes(MatrixOperation.MULTIPLY));
+        assertEquals(24, statistics.getElements(MatrixOperation.MULTIPLY));
+        assertEquals(2, statistics.getInvocations(MatrixOperation.ADD));
+        assertEquals(8L * 24, statistics.getBytes(MatrixOperation.ADD));
+        assertEquals(1, statistics.getInvocations(MatrixOperation.TRANSPOSE));
+        assertEquals(1, statistics.getInvocations(MatrixOperation.INVERSE));
+        assertEquals(1, statistics.getInvocations(MatrixOperation.LU));
+        assertTrue(statistics.getNanos(MatrixOperation.INVERSE) >= statistics.getNanos(MatrixOperation.LU));
+        assertTrue(statistics.toString().contains("MULTIPLY invocations=1"));
+    }
+
+    @Test
+    public void nothingShouldBeReportedWhileDisabled() throws Exception {
+        Instrumentation.setEnabled(false);
+
+        Matrices.random(4, 4, 1, 2).inverse();
+
+        for (MatrixOperation operation : MatrixOperation.values()) {
+            assertEquals(0, statistics.getInvocations(operation));
+        }
+    }
+
+    @Test
+    public void removedListenerShouldNotBeCalled() throws Exception {
+        Instrumentation.setEnabled(true);
+        Instrumentation.removeListener(statistics);
+
+        Matrices.random(3, 3, 1, 0).multiply(2);
+
+        assertEquals(0, statistics.getInvocations(MatrixOperation.SCALE));
+    }
+
+    @Test
+    public void latenciesShouldFillHistogram() throws Exception {
+        statistics.operationCompleted(MatrixOperation.ADD, 1, 1, 1, 8, 0);
+        statistics.operationCompleted(MatrixOperation.ADD, 1, 1, 1, 8, 1000);
+        statistics.operationCompleted(MatrixOperation.ADD, 1, 1, 1, 8, 600);
+
+        long[] histogram = statistics.getLatencyHistogram(MatrixOperation.ADD);
+
+        assertEquals(1, histogram[0]);
+        assertEquals(2, histogram[10]);
+        assertEquals(0, statistics.getLatencyPercentile(MatrixOperation.ADD, 0.3));
+        assertEquals(1024, statistics.getLatencyPercentile(MatrixOperation.ADD, 0.5));
+        assertEquals(0, statistics.getLatencyPercentile(MatrixOperation.MULTIPLY, 0.5));
+
+        statistics.reset();
+        assertEquals(0, statistics.getInvocations(MatrixOperation.ADD));
+    }
+
+    @Test
+    public void operationsShouldBeRecordedAsFlightRecorderEvents() throws Exception {
+        Instrumentation.setEnabled(true);
+        Path file = Files.createTempFile("la4j", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.srt.la4j.MatrixOperation");
+            recording.start();
+            Matrices.random(3, 4, 1, 0).multiply(Matrices.random(4, 2, 2, 0));
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals("com.srt.la4j.MatrixOperation")) {
+                    events.add(event);
+                }
+            }
+
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("MULTIPLY", event.getString("operation"));
+            assertEquals(3, event.getInt("rows"));
+            assertEquals(4, event.getInt("columns"));
+            assertEquals(2L * 3 * 4 * 2, event.getLong("flops"));
+            assertEquals(8L * 3 * 2, event.getLong("bytes"));
+            assertFalse(event.getDuration().isZero());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
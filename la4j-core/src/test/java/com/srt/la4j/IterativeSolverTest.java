@@ -0,0 +1,239 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class IterativeSolverTest {
+
+    private static final int GRID = 30;
+
+    @After
+    public void tearDown() throws Exception {
+        Parallelism.setEnabled(false);
+        Parallelism.setThreshold(1 << 16);
+        Parallelism.setPool(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @return five point discretization of -laplace(u) + convection * du/dx on a GRID x GRID
+     *          grid, symmetric positive definite when convection is 0.
+     */
+    private static CsrMatrix operator(double convection) {
+        int n = GRID * GRID;
+        List<int[]> positions = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < GRID; i++) {
+            for (int j = 0; j < GRID; j++) {
+                int row = i * GRID + j;
+                positions.add(new int[]{row, row});
+                values.add(4.0);
+                int[][] neighbours = {{i - 1, j, 0}, {i + 1, j, 0}, {i, j - 1, -1}, {i, j + 1, 1}};
+                for (int[] neighbour : neighbours) {
+                    if (neighbour[0] >= 0 && neighbour[0] < GRID && neighbour[1] >= 0 && neighbour[1] < GRID) {
+                        positions.add(new int[]{row, neighbour[0] * GRID + neighbour[1]});
+                        values.add(-1 + convection * neighbour[2]);
+                    }
+                }
+            }
+        }
+        int[] rows = new int[values.size()], columns = new int[values.size()];
+        double[] v = new double[values.size()];
+        for (int k = 0; k < v.length; k++) {
+            rows[k] = positions.get(k)[0];
+            columns[k] = positions.get(k)[1];
+            v[k] = values.get(k);
+        }
+        return CsrMatrix.fromTriplets(n, n, rows, columns, v);
+    }
+
+    /**
+     * @return |b - A*x| / |b|.
+     */
+    private static double residual(BaseMatrix a, double[] b, double[] x) {
+        double[] ax = new double[b.length];
+        LinearOperator.of(a).apply(x, ax);
+        double r = 0, norm = 0;
+        for (int i = 0; i < b.length; i++) {
+            r += (b[i] - ax[i]) * (b[i] - ax[i]);
+            norm += b[i] * b[i];
+        }
+        return Math.sqrt(r / norm);
+    }
+
+    @Test
+    public void everyMethodShouldSolveSymmetricSystem() throws Exception {
+        CsrMatrix a = operator(0);
+        double[] b = Matrices.values(a.getRows(), 1);
+        for (IterativeSolver.Method method : IterativeSolver.Method.values()) {
+            IterativeSolver solver = new IterativeSolver(method);
+            solver.setMaxIterations(5000);
+            double[] x = new double[b.length];
+
+            assertTrue(method.name(), solver.solve(a, b, x));
+            assertTrue(solver.isConverged());
+            assertTrue(residual(a, b, x) <= 1e-9);
+            assertTrue(solver.getResidual() <= 1e-10);
+        }
+    }
+
+    @Test
+    public void nonSymmetricSystemShouldBeSolvedByGmresAndBiCgStab() throws Exception {
+        CsrMatrix a = operator(0.8);
+        double[] b = Matrices.values(a.getRows(), 2);
+        for (IterativeSolver.Method method : new IterativeSolver.Method[]{
+                IterativeSolver.Method.GMRES, IterativeSolver.Method.BICGSTAB}) {
+            IterativeSolver solver = new IterativeSolver(method);
+            solver.setTolerance(1e-8);
+            solver.setMaxIterations(5000);
+            double[] x = new double[b.length];
+
+            assertTrue(method.name(), solver.solve(a, b, x));
+            assertTrue(residual(a, b, x) <= 1e-7);
+        }
+    }
+
+    @Test
+    public void preconditionersShouldReduceIterations() throws Exception {
+        CsrMatrix a = operator(0.5);
+        double[] b = Matrices.values(a.getRows(), 3);
+        for (IterativeSolver.Method method : new IterativeSolver.Method[]{
+                IterativeSolver.Method.GMRES, IterativeSolver.Method.BICGSTAB}) {
+            IterativeSolver solver = new IterativeSolver(method);
+            solver.setMaxIterations(5000);
+            solver.solve(a, b, new double[b.length]);
+            int plain = solver.getIterations();
+
+            solver.setPreconditioner(new IncompleteLUPreconditioner(a));
+            double[] x = new double[b.length];
+
+            assertTrue(solver.solve(a, b, x));
+            assertTrue(method.name(), solver.getIterations() < plain / 2);
+            assertTrue(residual(a, b, x) <= 1e-9);
+        }
+        IterativeSolver cg = new IterativeSolver(IterativeSolver.Method.CG);
+        cg.setPreconditioner(new JacobiPreconditioner(operator(0)));
+        assertTrue(cg.solve(operator(0), b, new double[b.length]));
+    }
+
+    @Test
+    public void incompleteLuShouldBeExactForTridiagonalMatrix() throws Exception {
+        Matrix dense = BandMatrix.of(Matrices.random(20, 20, 4, 3), 1, 1).toDense();
+        double[] r = Matrices.values(20, 5), z = new double[20];
+
+        new IncompleteLUPreconditioner(CsrMatrix.fromDense(dense)).apply(r, z);
+
+        Matrix expected = dense.solve(new Matrix(new double[][]{r}).transpose());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(expected.get(i, 0), z[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void denseAndBandOperatorsShouldBeSolved() throws Exception {
+        Matrix dense = Matrices.random(60, 60, 6, 0);
+        dense = dense.transpose().multiply(dense).add(Matrix.identity(60));
+        BandMatrix band = BandMatrix.of(Matrices.random(80, 80, 7, 6), 2, 3);
+        IterativeSolver solver = new IterativeSolver(IterativeSolver.Method.GMRES);
+        solver.setRestart(10);
+        solver.setMaxIterations(5000);
+
+        double[] b = Matrices.values(60, 8), x = new double[60];
+        assertTrue(solver.solve(dense, b, x));
+        assertTrue(residual(dense, b, x) <= 1e-9);
+
+        b = Matrices.values(80, 9);
+        x = new double[80];
+        assertTrue(solver.solve(band, b, x));
+        assertTrue(residual(band, b, x) <= 1e-9);
+    }
+
+    @Test
+    public void listenerShouldReceiveEveryIteration() throws Exception {
+        CsrMatrix a = operator(0);
+        List<Double> residuals = new ArrayList<>();
+        IterativeSolver solver = new IterativeSolver(IterativeSolver.Method.CG);
+        solver.setListener((iteration, residual) -> {
+            assertEquals(residuals.size() + 1, iteration);
+            residuals.add(residual);
+        });
+
+        solver.solve(a, Matrices.values(a.getRows(), 10), new double[a.getRows()]);
+
+        assertEquals(solver.getIterations(), residuals.size());
+        assertEquals(solver.getResidual(), residuals.get(residuals.size() - 1));
+    }
+
+    @Test
+    public void parallelProductsShouldGiveSameSolution() throws Exception {
+        CsrMatrix a = operator(0.3);
+        double[] b = Matrices.values(a.getRows(), 11), serial = new double[b.length], parallel = new double[b.length];
+        IterativeSolver solver = new IterativeSolver(IterativeSolver.Method.BICGSTAB);
+        solver.solve(a, b, serial);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Parallelism.setPool(pool);
+        Parallelism.setThreshold(64);
+        Parallelism.setEnabled(true);
+
+        solver.solve(a, b, parallel);
+        pool.shutdown();
+
+        for (int i = 0; i < b.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(serial[i]), Double.doubleToRawLongBits(parallel[i]));
+        }
+    }
+
+    @Test
+    public void solverShouldStopAtMaximumIterations() throws Exception {
+        CsrMatrix a = operator(0);
+        IterativeSolver solver = new IterativeSolver(IterativeSolver.Method.CG);
+        solver.setMaxIterations(3);
+
+        assertFalse(solver.solve(a, Matrices.values(a.getRows(), 12), new double[a.getRows()]));
+        assertEquals(3, solver.getIterations());
+        assertFalse(solver.isConverged());
+    }
+
+    @Test
+    public void zeroRightHandSideShouldGiveZeroSolution() throws Exception {
+        double[] x = {1, 2, 3, 4};
+        assertTrue(new IterativeSolver(IterativeSolver.Method.GMRES).solve(Matrix.identity(4), new double[4], x));
+        assertEquals(0d, x[2]);
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void solveShouldRejectVectorOfWrongLength() throws Exception {
+        new IterativeSolver(IterativeSolver.Method.CG).solve(Matrix.identity(4), new double[3], new double[4]);
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void incompleteLuShouldRejectMissingDiagonal() throws Exception {
+        new IncompleteLUPreconditioner(CsrMatrix.fromDense(new Matrix(new double[][]{{0, 1}, {1, 0}})));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class KernelsTest {
+
+    private final Kernels scalar = new ScalarKernels();
+    private final Kernels kernels = Kernels.INSTANCE;
+    private double[] first;
+    private double[] second;
+
+    @Before
+    public void setUp() throws Exception {
+        first = Matrices.values(67, 7);
+        second = Matrices.values(67, 8);
+        first[5] = 1e-12;
+        first[40] = -1e-11;
+    }
+
+    @Test
+    public void elementWiseKernelsShouldMatchScalarLoops() throws Exception {
+        double[] expected = new double[70];
+        double[] actual = new double[70];
+
+        scalar.add(first, 1, second, 2, expected, 3, 63);
+        kernels.add(first, 1, second, 2, actual, 3, 63);
+        assertSame(expected, actual);
+
+        scalar.multiply(first, 0, second, 4, expected, 1, 61);
+        kernels.multiply(first, 0, second, 4, actual, 1, 61);
+        assertSame(expected, actual);
+
+        scalar.scale(first, 2, 0.37, expected, 0, 65);
+        kernels.scale(first, 2, 0.37, actual, 0, 65);
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void approximateShouldOnlyZeroSmallElements() throws Exception {
+        double[] expected = first.clone();
+        double[] actual = first.clone();
+
+        scalar.approximate(expected, 3, 60, 9.9E-10);
+        kernels.approximate(actual, 3, 60, 9.9E-10);
+
+        assertSame(expected, actual);
+        assertEquals(0d, actual[5]);
+        assertEquals(0d, actual[40]);
+    }
+
+    @Test
+    public void axpyShouldMatchScalarLoop() throws Exception {
+        double[] expected = second.clone();
+        double[] actual = second.clone();
+
+        scalar.axpy(1.5, first, 1, expected, 0, 66);
+        kernels.axpy(1.5, first, 1, actual, 0, 66);
+
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void dotShouldMatchScalarLoopWithinRounding() throws Exception {
+        assertEquals(scalar.dot(first, 1, second, 0, 66), kernels.dot(first, 1, second, 0, 66), 1e-14);
+        assertEquals(0d, kernels.dot(first, 0, second, 0, 0));
+    }
+
+    @Test
+    public void rotateShouldMatchScalarLoop() throws Exception {
+        double c = Math.cos(0.3), s = Math.sin(0.3);
+        double[] x = first.clone(), y = second.clone();
+        double[] expectedX = first.clone(), expectedY = second.clone();
+
+        kernels.rotate(c, s, x, 1, y, 2, 61);
+        scalar.rotate(c, s, expectedX, 1, expectedY, 2, 61);
+
+        assertSame(expectedX, x);
+        assertSame(expectedY, y);
+    }
+
+    @Test
+    public void microKernelShouldAccumulateTileProduct() throws Exception {
+        int mr = kernels.mr(), nr = kernels.nr(), depth = 9;
+        double[] a = new double[mr * depth];
+        double[] b = new double[nr * depth];
+        for (int i = 0; i < a.length; i++) a[i] = i % 5 - 2;
+        for (int i = 0; i < b.length; i++) b[i] = i % 3 - 1;
+        int stride = nr + 3;
+        double[] c = new double[mr * stride];
+        Arrays.fill(c, 1);
+
+        kernels.microKernel(depth, a, 0, b, 0, c, 0, stride);
+
+        for (int i = 0; i < mr; i++) {
+            for (int j = 0; j < nr; j++) {
+                double sum = 1;
+                for (int p = 0; p < depth; p++) sum += a[p * mr + i] * b[p * nr + j];
+                assertEquals(sum, c[i * stride + j], 1e-12);
+            }
+            for (int j = nr; j < stride; j++) {
+                assertEquals(1d, c[i * stride + j]);
+            }
+        }
+    }
+
+    @Test
+    public void batchKernelsShouldMatchScalarLoopsWithinRounding() throws Exception {
+        int count = 37;
+        double[] a = Matrices.values(16 * count, 11);
+        double[] b = Matrices.values(16 * count, 12);
+        for (int n = 1; n <= 4; n++) {
+            double[] expected = new double[16 * count];
+            double[] actual = new double[16 * count];
+            scalar.batchMultiply(n, n, n, a, b, expected, count, 0, count);
+            kernels.batchMultiply(n, n, n, a, b, actual, count, 0, count);
+            assertSame(expected, actual);
+
+            double[] expectedDet = new double[count];
+            double[] actualDet = new double[count];
+            scalar.batchInverse(n, a, expected, expectedDet, count, 2, count);
+            kernels.batchInverse(n, a, actual, actualDet, count, 2, count);
+            assertClose(expected, actual);
+            assertClose(expectedDet, actualDet);
+            assertEquals(0d, actualDet[1]);
+
+            kernels.batchDeterminant(n, a, actualDet, count, 0, count);
+            scalar.batchDeterminant(n, a, expectedDet, count, 0, count);
+            assertClose(expectedDet, actualDet);
+        }
+        double[] expected = new double[6 * count];
+        double[] actual = new double[6 * count];
+        scalar.batchMultiply(2, 3, 3, a, b, expected, count, 0, count);
+        kernels.batchMultiply(2, 3, 3, a, b, actual, count, 0, count);
+        assertSame(expected, actual);
+    }
+
+    private static void assertClose(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-9 * Math.max(1, Math.abs(expected[i])));
+        }
+    }
+
+    private static void assertSame(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class LUDecompositionTest {
+
+    private Matrix matrix4x4;
+
+    @Before
+    public void setUp() throws Exception {
+        matrix4x4 = new Matrix(new double[][]{{1, 4, 3, 7}, {7, 2, 3, 12}, {15, 21, 3, 34}, {12, 45, 5, 9}});
+    }
+
+    @Test
+    public void productOfLowerAndUpperShouldBePermutedMatrix() throws Exception {
+        LUDecomposition lu = matrix4x4.lu();
+        Matrix lower = lu.getL();
+        Matrix upper = lu.getU();
+        Matrix permuted = lu.getP().multiply(matrix4x4);
+        Matrix product = lower.multiply(upper);
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(permuted.get(i, j), product.get(i, j), 1e-9);
+                if (j > i) assertEquals(0d, lower.get(i, j));
+                if (j < i) assertEquals(0d, upper.get(i, j));
+            }
+            assertEquals(1d, lower.get(i, i));
+        }
+    }
+
+    @Test
+    public void shouldReturnDeterminantWithSignOfPermutation() throws Exception {
+        Matrix matrix = new Matrix(new double[][]{{0, 1}, {1, 0}});
+
+        assertEquals(-1d, matrix.lu().getDeterminant());
+    }
+
+    @Test
+    public void shouldDetectSingularMatrix() throws Exception {
+        Matrix matrix = new Matrix(new double[][]{{1, 2, 3}, {2, 4, 6}, {1, 0, 1}});
+
+        assertTrue(matrix.lu().isSingular());
+        assertEquals(0d, matrix.lu().getDeterminant(), 0d);
+        assertFalse(matrix4x4.lu().isSingular());
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void inverseShouldThrowSingularMatrixExceptionForSingularMatrix() throws Exception {
+        new Matrix(new double[][]{{1, 2}, {2, 4}}).lu().inverse();
+    }
+
+    @Test
+    public void solveShouldMatchInverseForSeveralRightHandSides() throws Exception {
+        // Large enough to go through the blocked triangular solves.
+        Matrix a = Matrices.random(150, 150, 1, 150);
+        Matrix b = Matrices.random(150, 20, 2, 0);
+
+        Matrix x = a.lu().solve(b);
+
+        CsrMatrixTest.assertClose(b, a.multiply(x));
+        CsrMatrixTest.assertClose(a.inverse().multiply(b), x);
+    }
+
+    @Test
+    public void solveShouldHandleSingleRightHandSide() throws Exception {
+        Matrix b = new Matrix(new double[][]{{1}, {2}, {3}, {4}});
+
+        CsrMatrixTest.assertClose(b, matrix4x4.multiply(matrix4x4.lu().solve(b)));
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void solveShouldThrowSingularMatrixExceptionForSingularMatrix() throws Exception {
+        new Matrix(new double[][]{{1, 2}, {2, 4}}).lu().solve(new Matrix(2, 1));
+    }
+
+    @Test(expected = NotASqaureMatrixException.class)
+    public void shouldThrowNotASqaureMatrixException() throws Exception {
+        new Matrix(new double[][]{{1, 2}, {1, 2}, {1, 2}}).lu();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class MappedMatrixTest {
+
+    // Small chunks and tiles so that the tests cross chunk boundaries and partial tiles.
+    private static final int CHUNK_SHIFT = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int tileSize;
+    private Matrix denseA;
+    private Matrix denseB;
+    private MappedMatrix mappedA;
+    private MappedMatrix mappedB;
+
+    @Before
+    public void setUp() throws Exception {
+        tileSize = MappedMatrix.getTileSize();
+        MappedMatrix.setTileSize(7);
+        denseA = Matrices.integers(19, 23, 1);
+        denseB = Matrices.integers(23, 17, 2);
+        mappedA = MappedMatrix.copyOf(denseA, file("a"), CHUNK_SHIFT);
+        mappedB = MappedMatrix.copyOf(denseB, file("b"), CHUNK_SHIFT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        MappedMatrix.setTileSize(tileSize);
+        mappedA.close();
+        mappedB.close();
+    }
+
+    @Test
+    public void shouldReadAndWriteElements() throws Exception {
+        assertEquals(denseA, mappedA.toDense());
+        mappedA.set(18, 22, 42);
+        assertEquals(42d, mappedA.get(18, 22));
+    }
+
+    @Test
+    public void shouldReopenFile() throws Exception {
+        mappedA.set(3, 4, -1);
+        mappedA.flush();
+        try (MappedMatrix reopened = MappedMatrix.open(mappedA.getPath())) {
+            assertEquals(19, reopened.getRows());
+            assertEquals(23, reopened.getColumns());
+            assertEquals(-1d, reopened.get(3, 4));
+            assertEquals(denseA.get(18, 22), reopened.get(18, 22));
+        }
+    }
+
+    @Test
+    public void readOnlyMatrixShouldSupportOperations() throws Exception {
+        mappedA.flush();
+        assertTrue(mappedA.getPath().toFile().setReadOnly());
+        try (MappedMatrix readOnly = MappedMatrix.openReadOnly(mappedA.getPath());
+             MappedMatrix product = readOnly.multiply(mappedB, file("product"));
+             MappedMatrix transposed = readOnly.transpose()) {
+            assertTrue(readOnly.isReadOnly());
+            assertEquals(denseA, readOnly.toDense());
+            assertClose(denseA.multiply(denseB), product.toDense());
+            assertEquals(denseA.transpose(), transposed.toDense());
+            assertFalse(transposed.getPath().startsWith(folder.getRoot().toPath()));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnlyMatrixShouldRejectSet() throws Exception {
+        try (MappedMatrix readOnly = MappedMatrix.openReadOnly(mappedA.getPath())) {
+            readOnly.set(0, 0, 1);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectFileWithoutHeader() throws Exception {
+        Path path = file("garbage");
+        Files.write(path, new byte[]{1, 2, 3});
+        MappedMatrix.open(path);
+    }
+
+    @Test
+    public void operationsShouldMatchDenseOperations() throws Exception {
+        Matrix other = Matrices.integers(19, 23, 3);
+        assertClose(denseA.multiply(denseB), mappedA.multiply(mappedB, file("ab")).toDense());
+        assertClose(denseA.multiply(denseB), mappedA.multiply(denseB).toDense());
+        assertEquals(denseA.add(other), mappedA.add(other, file("sum")).toDense());
+        assertEquals(denseA.multiplyElementWise(other), mappedA.multiplyElementWise(other).toDense());
+        assertEquals(denseA.multiply(0.5), mappedA.multiply(0.5, file("half")).toDense());
+        assertEquals(denseA.transpose(), mappedA.transpose(file("t")).toDense());
+        assertEquals(denseA.transpose(), mappedA.transpose().toDense());
+    }
+
+    @Test
+    public void inverseAndDeterminantShouldMatchDenseOperations() throws Exception {
+        Matrix square = Matrices.random(12, 12, 4, 12);
+        try (MappedMatrix mapped = MappedMatrix.copyOf(square, file("square"), CHUNK_SHIFT);
+             MappedMatrix inverse = mapped.inverse(file("inverse"));
+             MappedMatrix adjoint = mapped.adjoint()) {
+            assertEquals(square.getDeterminant(), mapped.getDeterminant(), 1e-9 * Math.abs(square.getDeterminant()));
+            assertClose(square.inverse(), inverse.toDense());
+            assertClose(square.adjoint(), adjoint.toDense());
+            assertEquals(square.cofactor(2, 3), mapped.cofactor(2, 3), 1e-9 * Math.abs(square.getDeterminant()));
+        }
+    }
+
+    @Test
+    public void denseMatrixShouldMultiplyWithMappedMatrix() throws Exception {
+        assertClose(denseA.multiply(denseB), denseA.multiply((BaseMatrix) mappedB));
+        assertEquals(denseA.add(denseA), denseA.add((BaseMatrix) mappedA));
+    }
+
+    @Test
+    public void productShouldNotWriteThroughSharedDestination() throws Exception {
+        Matrix dest = new Matrix(19, 17);
+        Matrix view = dest.transpose();
+
+        MappedMatrix.multiply(mappedA, mappedB, dest);
+
+        assertClose(denseA.multiply(denseB), dest);
+        assertEquals(new Matrix(17, 19), view);
+    }
+
+    @Test
+    public void closeShouldDeleteTemporaryResult() throws Exception {
+        MappedMatrix result = mappedA.multiply(2);
+        Path path = result.getPath();
+        result.close();
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    public void deletionShouldCloseAndDeleteFile() throws Exception {
+        Path path = file("orphan");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        new MappedMatrix.Deletion(path, channel).run();
+
+        assertFalse(channel.isOpen());
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    public void buffersShouldNotExceedOperands() throws Exception {
+        // Full tiles at this size would need 16 GB each.
+        MappedMatrix.setTileSize(46340);
+        assertClose(denseA.multiply(denseB), mappedA.multiply(mappedB, file("ab")).toDense());
+        assertEquals(denseA.transpose(), mappedA.transpose(file("t")).toDense());
+        try (MappedMatrix copy = MappedMatrix.copyOf(denseA, file("copy"))) {
+            assertEquals(denseA, copy.toDense());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTileSizeThatOverflows() throws Exception {
+        MappedMatrix.setTileSize(46341);
+    }
+
+    @Test(expected = AdditionCompatibleException.class)
+    public void shouldThrowAdditionCompatibleException() throws Exception {
+        mappedA.add(mappedB);
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void shouldThrowMultiplicationCompatibleException() throws Exception {
+        mappedA.multiply(mappedA, file("c"));
+    }
+
+    private Path file(String name) {
+        return folder.getRoot().toPath().resolve(name);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+final class Matrices {
+
+    private Matrices() {
+    }
+
+    /**
+     * @return matrix with elements in [-1, 1) and diagonal added to each diagonal element.
+     */
+    static Matrix random(int rows, int columns, long seed, double diagonal) {
+        Random random = new Random(seed);
+        double[][] d = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                d[i][j] = 2 * random.nextDouble() - 1;
+            }
+            if (i < columns) {
+                d[i][i] += diagonal;
+            }
+        }
+        return new Matrix(d);
+    }
+
+    /**
+     * @return matrix with integer elements in [-10, 10], so products and sums are exact.
+     */
+    static Matrix integers(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        double[][] d = new double[rows][columns];
+        for (double[] row : d) {
+            for (int j = 0; j < columns; j++) {
+                row[j] = random.nextInt(21) - 10;
+            }
+        }
+        return new Matrix(d);
+    }
+
+    /**
+     * @return array with elements in [-0.5, 0.5).
+     */
+    static double[] values(int length, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = random.nextDouble() - 0.5;
+        }
+        return x;
+    }
+
+    /**
+     * @return array with elements in [-0.5, 0.5).
+     */
+    static float[] floats(int length, long seed) {
+        Random random = new Random(seed);
+        float[] x = new float[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = random.nextFloat() - 0.5f;
+        }
+        return x;
+    }
+
+    /**
+     * Asserts equal dimensions and elements equal to within 1e-9.
+     */
+    static void assertClose(Matrix expected, Matrix actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        for (int i = 0; i < expected.getRows(); i++) {
+            for (int j = 0; j < expected.getColumns(); j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), 1e-9);
+            }
+        }
+    }
+}
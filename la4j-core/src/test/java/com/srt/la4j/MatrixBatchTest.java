@@ -0,0 +1,142 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+
+public class MatrixBatchTest {
+
+    private static final int SIZE = 37;
+
+    private static MatrixBatch random(int rows, int columns, long seed, double diagonal) throws Exception {
+        MatrixBatch batch = new MatrixBatch(SIZE, rows, columns);
+        for (int e = 0; e < SIZE; e++) {
+            batch.setMatrix(e, Matrices.random(rows, columns, seed + e, diagonal));
+        }
+        return batch;
+    }
+
+    @Test
+    public void storageShouldBePlanar() throws Exception {
+        double[] data = new double[3 * 2 * 2];
+        MatrixBatch batch = new MatrixBatch(3, 2, 2, data);
+
+        batch.set(1, 1, 0, 5);
+        data[3 + 2] = 7;
+
+        assertEquals(5d, data[2 * 3 + 1]);
+        assertEquals(7d, batch.get(2, 0, 1));
+        assertEquals(7d, batch.getMatrix(2).get(0, 1));
+    }
+
+    @Test
+    public void multiplyShouldMatchMatrixProducts() throws Exception {
+        int[][] shapes = {{3, 3, 3}, {4, 4, 4}, {2, 3, 5}, {1, 1, 1}};
+        for (int[] shape : shapes) {
+            MatrixBatch a = random(shape[0], shape[1], 1, 0);
+            MatrixBatch b = random(shape[1], shape[2], 100, 0);
+
+            MatrixBatch product = a.multiply(b);
+
+            assertEquals(shape[0], product.getRows());
+            assertEquals(shape[2], product.getColumns());
+            for (int e = 0; e < SIZE; e++) {
+                assertClose(a.getMatrix(e).multiply(b.getMatrix(e)), product.getMatrix(e));
+            }
+        }
+    }
+
+    @Test
+    public void addShouldMatchMatrixSums() throws Exception {
+        MatrixBatch a = random(3, 2, 1, 0);
+        MatrixBatch b = random(3, 2, 100, 0);
+
+        MatrixBatch sum = a.add(b);
+
+        for (int e = 0; e < SIZE; e++) {
+            assertClose(a.getMatrix(e).add(b.getMatrix(e)), sum.getMatrix(e));
+        }
+    }
+
+    @Test
+    public void determinantsAndInversesShouldMatchMatrix() throws Exception {
+        for (int n = 1; n <= 5; n++) {
+            MatrixBatch batch = random(n, n, 7 * n, 2);
+
+            double[] det = batch.getDeterminants();
+            MatrixBatch inverse = batch.inverse();
+
+            for (int e = 0; e < SIZE; e++) {
+                Matrix matrix = batch.getMatrix(e);
+                assertEquals(matrix.getDeterminant(), det[e], 1e-9);
+                assertClose(matrix.inverse(), inverse.getMatrix(e));
+            }
+        }
+    }
+
+    @Test
+    public void inverseIntoShouldWriteInversesIntoDestination() throws Exception {
+        MatrixBatch batch = random(3, 3, 5, 2);
+        MatrixBatch dest = new MatrixBatch(SIZE, 3, 3);
+
+        MatrixBatch product = batch.multiply(MatrixBatch.inverseInto(batch, dest));
+
+        for (int e = 0; e < SIZE; e++) {
+            assertClose(Matrix.identity(3), product.getMatrix(e));
+        }
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void inverseShouldRejectSingularMatrix() throws Exception {
+        MatrixBatch batch = random(4, 4, 3, 2);
+        for (int j = 0; j < 4; j++) {
+            batch.set(SIZE - 1, 3, j, 0);
+        }
+
+        batch.inverse();
+    }
+
+    @Test(expected = NotASqaureMatrixException.class)
+    public void determinantsShouldRejectNonSquareMatrices() throws Exception {
+        new MatrixBatch(2, 2, 3).getDeterminants();
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void multiplyShouldRejectDifferentSizes() throws Exception {
+        new MatrixBatch(2, 3, 3).multiply(new MatrixBatch(3, 3, 3));
+    }
+
+    @Test(expected = AdditionCompatibleException.class)
+    public void addShouldRejectDifferentDimensions() throws Exception {
+        new MatrixBatch(2, 3, 3).add(new MatrixBatch(2, 3, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiplyIntoShouldRejectDestinationSharingOperand() throws Exception {
+        MatrixBatch a = random(3, 3, 1, 0);
+        MatrixBatch.multiplyInto(a, random(3, 3, 2, 0), a);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+
+public class MatrixExpressionTest {
+
+    private Matrix a;
+    private Matrix b;
+    private Matrix c;
+    private Matrix square;
+
+    @Before
+    public void setUp() throws Exception {
+        // Large enough for the packed product kernel, with a partial run per row.
+        a = Matrices.integers(45, 300, 1);
+        b = Matrices.integers(300, 37, 2);
+        c = Matrices.integers(45, 37, 3);
+        square = Matrices.integers(45, 45, 4);
+    }
+
+    @Test
+    public void shouldFuseProductSumAndScale() throws Exception {
+        Matrix expected = a.multiply(b).add(c).multiply(0.5);
+
+        assertClose(expected, a.lazy().multiply(b).add(c).multiply(0.5).evaluate());
+        assertClose(expected, c.lazy().add(a.lazy().multiply(b)).multiply(0.5).evaluate());
+    }
+
+    @Test
+    public void shouldFuseElementWiseChain() throws Exception {
+        Matrix expected = c.add(c.multiplyElementWise(c)).multiply(3).add(c);
+
+        assertEquals(expected, c.lazy().add(c.lazy().multiplyElementWise(c)).multiply(3).add(c).evaluate());
+    }
+
+    @Test
+    public void shouldFoldTransposes() throws Exception {
+        assertClose(b.transpose().multiply(a.transpose()), a.lazy().multiply(b).transpose().evaluate());
+        assertClose(a.multiply(a.transpose()), a.lazy().multiply(a.lazy().transpose()).evaluate());
+        assertEquals(square.add(square.transpose()), square.lazy().add(square.lazy().transpose()).evaluate());
+        assertEquals(c, c.lazy().transpose().transpose().evaluate());
+        assertEquals(c.transpose(), c.lazy().transpose().evaluate());
+    }
+
+    @Test
+    public void shouldEvaluateOperandsOfProducts() throws Exception {
+        Matrix expected = square.add(square).multiply(a.multiply(2)).multiply(b)
+                .multiplyElementWise(a.multiply(b).multiply(c.transpose()).multiply(c));
+
+        assertClose(expected, square.lazy().add(square).multiply(a.lazy().multiply(2)).multiply(b)
+                .multiplyElementWise(a.lazy().multiply(b).multiply(c.lazy().transpose()).multiply(c)).evaluate());
+    }
+
+    @Test
+    public void shouldCheckDimensionsWhenBuilding() throws Exception {
+        try {
+            a.lazy().add(b);
+            throw new AssertionError();
+        } catch (AdditionCompatibleException e) {
+            // Expected.
+        }
+        try {
+            a.lazy().multiply(c);
+            throw new AssertionError();
+        } catch (MultiplicationCompatibleException e) {
+            // Expected.
+        }
+    }
+}
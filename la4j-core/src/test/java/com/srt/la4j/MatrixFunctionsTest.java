@@ -0,0 +1,125 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+
+public class MatrixFunctionsTest {
+
+    @Test
+    public void powShouldMatchRepeatedProducts() throws Exception {
+        Matrix a = Matrices.random(9, 9, 1, 0).multiply(0.4);
+        Matrix expected = Matrix.identity(9);
+
+        for (int k = 0; k <= 21; k++) {
+            assertClose(expected, a.pow(k));
+            expected = expected.multiply(a);
+        }
+    }
+
+    @Test
+    public void powShouldReadTransposedView() throws Exception {
+        Matrix a = Matrices.random(40, 40, 2, 0).multiply(0.1);
+        Matrix transposed = a.transpose();
+
+        assertClose(a.pow(13).transpose(), transposed.pow(13));
+    }
+
+    @Test
+    public void powOfStochasticMatrixShouldKeepRowSums() throws Exception {
+        Matrix chain = new Matrix(new double[][]{{0.9, 0.1, 0}, {0.2, 0.7, 0.1}, {0, 0.3, 0.7}});
+
+        Matrix power = chain.pow(1000);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1d, power.get(i, 0) + power.get(i, 1) + power.get(i, 2), 1e-12);
+            // Every row converges to the stationary distribution.
+            assertEquals(power.get(0, i), power.get(2, i), 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void powShouldRejectNegativeExponent() throws Exception {
+        Matrix.identity(2).pow(-1);
+    }
+
+    @Test(expected = NotASqaureMatrixException.class)
+    public void powShouldRejectNonSquareMatrix() throws Exception {
+        new Matrix(2, 3).pow(2);
+    }
+
+    @Test
+    public void expmShouldMatchClosedForms() throws Exception {
+        Matrix nilpotent = new Matrix(new double[][]{{0, 1}, {0, 0}});
+        Matrix diagonal = new Matrix(new double[][]{{1, 0}, {0, -2}});
+        double t = 10;
+        Matrix rotation = new Matrix(new double[][]{{0, -t}, {t, 0}});
+
+        assertClose(Matrix.identity(4), new Matrix(4, 4).expm());
+        assertClose(new Matrix(new double[][]{{1, 1}, {0, 1}}), nilpotent.expm());
+        assertClose(new Matrix(new double[][]{{Math.E, 0}, {0, Math.exp(-2)}}), diagonal.expm());
+        assertClose(new Matrix(new double[][]{{Math.cos(t), -Math.sin(t)}, {Math.sin(t), Math.cos(t)}}),
+                rotation.expm());
+    }
+
+    @Test
+    public void expmShouldMatchEigenDecompositionOverAllDegrees() throws Exception {
+        Matrix a = Matrices.random(30, 30, 3, 0);
+        Matrix symmetric = a.add(a.transpose()).multiply(1d / 60);
+        // The 1-norms fall into the ranges of the Pade approximants of degree 3 to 13 and beyond.
+        for (double scale : new double[]{0.01, 0.1, 0.5, 1, 2, 4, 20}) {
+            Matrix s = symmetric.multiply(scale);
+            SymmetricEigenDecomposition eigen = s.eigen();
+            double[] lambda = eigen.getEigenvalues();
+            double[] exp = new double[lambda.length];
+            for (int i = 0; i < lambda.length; i++) {
+                exp[i] = Math.exp(lambda[i]);
+            }
+            Matrix v = eigen.getV();
+
+            Matrix expected = v.multiply(new DiagonalMatrix(exp)).multiply(v.transpose());
+            Matrix actual = s.expm();
+
+            for (int i = 0; i < 30; i++) {
+                for (int j = 0; j < 30; j++) {
+                    assertEquals(expected.get(i, j), actual.get(i, j), 1e-12 * Math.max(1, Math.abs(expected.get(i, j))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void expmOfNegatedMatrixShouldBeInverse() throws Exception {
+        Matrix a = Matrices.random(50, 50, 4, 0);
+
+        assertClose(Matrix.identity(50), a.expm().multiply(a.multiply(-1).expm()));
+    }
+
+    @Test
+    public void expmShouldPropagateNonFiniteElements() throws Exception {
+        Matrix a = Matrix.identity(3);
+        a.set(1, 2, Double.NaN);
+
+        assertEquals(Double.NaN, a.expm().get(0, 0));
+    }
+}
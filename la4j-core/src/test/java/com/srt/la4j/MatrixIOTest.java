@@ -0,0 +1,214 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class MatrixIOTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static InputStream text(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void binaryShouldRoundTripExactly() throws Exception {
+        Matrix matrix = Matrices.random(37, 23, 1, 0);
+        matrix.set(0, 0, Double.NaN);
+        matrix.set(1, 1, -0.0);
+        Path path = folder.newFile().toPath();
+
+        MatrixIO.write(matrix.transpose(), path);
+        Matrix read = MatrixIO.read(path);
+
+        assertEquals(8L * 37 * 23 + 16, Files.size(path));
+        assertEquals(23, read.getRows());
+        for (int i = 0; i < 37; i++) {
+            for (int j = 0; j < 23; j++) {
+                assertEquals(Double.doubleToRawLongBits(matrix.get(i, j)), Double.doubleToRawLongBits(read.get(j, i)));
+            }
+        }
+    }
+
+    @Test
+    public void binaryShouldRoundTripAcrossSeveralBuffers() throws Exception {
+        Matrix matrix = Matrices.random(400, 401, 7, 0);
+        Path path = folder.newFile().toPath();
+
+        MatrixIO.write(matrix, path);
+
+        assertEquals(matrix, MatrixIO.read(path));
+    }
+
+    @Test
+    public void binaryFilesShouldBeSharedWithMappedMatrix() throws Exception {
+        Matrix matrix = Matrices.random(9, 5, 2, 0);
+        Path written = folder.newFile().toPath();
+        Path mapped = folder.newFile().toPath();
+
+        MatrixIO.write(matrix, written);
+        try (MappedMatrix opened = MappedMatrix.open(written)) {
+            assertEquals(matrix, opened.toDense());
+        }
+        MappedMatrix.copyOf(matrix, mapped).close();
+        assertEquals(matrix, MatrixIO.read(mapped));
+    }
+
+    @Test
+    public void byteBuffersShouldRoundTripAndAdvance() throws Exception {
+        Matrix a = Matrices.random(3, 4, 3, 0);
+        Matrix b = Matrices.random(2, 2, 4, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        MatrixIO.write(a, buffer);
+        MatrixIO.write(b, buffer);
+        buffer.flip();
+
+        assertEquals(a, MatrixIO.read(buffer));
+        assertEquals(b, MatrixIO.read(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedBinaryShouldBeRejected() throws Exception {
+        Path path = folder.newFile().toPath();
+        MatrixIO.write(Matrices.random(4, 4, 5, 0), path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        MatrixIO.read(path);
+    }
+
+    @Test
+    public void csvShouldRoundTripExactly() throws Exception {
+        Matrix matrix = Matrices.random(50, 7, 6, 0);
+        matrix.set(3, 3, 1e-300);
+        matrix.set(4, 4, -12345.678e20);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        MatrixIO.writeCsv(matrix, out);
+
+        assertEquals(matrix, MatrixIO.readCsv(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void csvShouldAcceptSpacesCarriageReturnsAndBlankLines() throws Exception {
+        Matrix read = MatrixIO.readCsv(text("1, -2.5 ,3e2\r\n\n 4,.5,-0.125\n\n"));
+
+        assertEquals(new Matrix(new double[][]{{1, -2.5, 300}, {4, 0.5, -0.125}}), read);
+    }
+
+    @Test(expected = IOException.class)
+    public void csvShouldRejectRaggedRows() throws Exception {
+        MatrixIO.readCsv(text("1,2\n3\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void csvShouldRejectMalformedNumbers() throws Exception {
+        MatrixIO.readCsv(text("1,2x\n"));
+    }
+
+    @Test
+    public void matrixMarketCoordinateShouldExpandSymmetry() throws Exception {
+        BaseMatrix read = MatrixIO.readMatrixMarket(text(
+                "%%MatrixMarket matrix coordinate real symmetric\n" +
+                "% comment\n" +
+                "3 3 3\n" +
+                "1 1 2.0\n" +
+                "3 1 -1\n" +
+                "3 2 4.5\n"));
+
+        assertEquals(new Matrix(new double[][]{{2, 0, -1}, {0, 0, 4.5}, {-1, 4.5, 0}}), read.toDense());
+    }
+
+    @Test
+    public void matrixMarketShouldReadSkewSymmetricArrays() throws Exception {
+        BaseMatrix read = MatrixIO.readMatrixMarket(text(
+                "%%MatrixMarket matrix array real skew-symmetric\n" +
+                "3 3\n" +
+                "1\n2\n3\n"));
+
+        assertEquals(new Matrix(new double[][]{{0, -1, -2}, {1, 0, -3}, {2, 3, 0}}), read);
+    }
+
+    @Test
+    public void matrixMarketShouldReadPatterns() throws Exception {
+        BaseMatrix read = MatrixIO.readMatrixMarket(text(
+                "%%MatrixMarket matrix coordinate pattern general\n" +
+                "2 3 2\n" +
+                "1 3\n" +
+                "2 1\n"));
+
+        assertEquals(new Matrix(new double[][]{{0, 0, 1}, {1, 0, 0}}), read.toDense());
+    }
+
+    @Test
+    public void matrixMarketShouldRoundTripDenseAndSparse() throws Exception {
+        Matrix dense = Matrices.random(6, 4, 7, 0);
+        CsrMatrix sparse = CsrMatrix.fromDense(CsrMatrixTest.randomSparse(8, 5, 8));
+        ByteArrayOutputStream denseOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream sparseOut = new ByteArrayOutputStream();
+
+        MatrixIO.writeMatrixMarket(dense, denseOut);
+        MatrixIO.writeMatrixMarket(sparse, sparseOut);
+
+        assertEquals(dense, MatrixIO.readMatrixMarket(new ByteArrayInputStream(denseOut.toByteArray())));
+        assertEquals(sparse, MatrixIO.readMatrixMarket(new ByteArrayInputStream(sparseOut.toByteArray())));
+    }
+
+    @Test
+    public void matrixMarketShouldWriteTransposeViewsAndOtherMatrices() throws Exception {
+        Matrix dense = Matrices.random(6, 4, 9, 0);
+        ByteArrayOutputStream viewOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream diagonalOut = new ByteArrayOutputStream();
+
+        MatrixIO.writeMatrixMarket(dense.transpose(), viewOut);
+        MatrixIO.writeMatrixMarket(new DiagonalMatrix(new double[]{1, -2, 3}), diagonalOut);
+
+        assertEquals(dense.transpose(), MatrixIO.readMatrixMarket(new ByteArrayInputStream(viewOut.toByteArray())));
+        assertEquals(new DiagonalMatrix(new double[]{1, -2, 3}).toDense(),
+                MatrixIO.readMatrixMarket(new ByteArrayInputStream(diagonalOut.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void matrixMarketShouldRejectComplexMatrices() throws Exception {
+        MatrixIO.readMatrixMarket(text("%%MatrixMarket matrix coordinate complex general\n1 1 0\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void matrixMarketShouldRejectEntriesOutsideTheMatrix() throws Exception {
+        MatrixIO.readMatrixMarket(text("%%MatrixMarket matrix coordinate real general\n2 2 1\n3 1 1.0\n"));
+    }
+}
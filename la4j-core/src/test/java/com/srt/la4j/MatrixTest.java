@@ -0,0 +1,483 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.AdditionCompatibleException;
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class MatrixTest {
+
+    private Matrix matrix3x3;
+    private Matrix first2x2Matrix;
+    private Matrix second2x2Matrix;
+    private Matrix matrix3x2;
+
+
+    @Before
+    public void setUp() throws Exception {
+        double[][] array2x2 = {{1, 2}, {1, 2}};
+        double[][] secondArray2x2 = {{1, 2}, {1, 2}};
+        double[][] array3x2 = {{1, 2}, {1, 2}, {1, 2}};
+        double[][] array3x3 = {{1, 2, 3}, {1, 2, 3}, {1, 2, 3}};
+
+        matrix3x3 = new Matrix(array3x3);
+        matrix3x2 = new Matrix(array3x2);
+        first2x2Matrix = new Matrix(array2x2);
+        second2x2Matrix = new Matrix(secondArray2x2);
+
+    }
+
+    @Test
+    public void shouldCreateMatrixWithElements() throws Exception {
+        assertEquals(1d, matrix3x3.get(0, 0));
+        assertEquals(3d, matrix3x3.get(2, 2));
+        assertEquals(2d, matrix3x3.get(1, 1));
+        assertEquals(1d, matrix3x3.get(2, 0));
+    }
+
+    @Test
+    public void shouldSetCorrectValuesAtCorrectLocations() throws Exception {
+        matrix3x3.set(1, 1, 10);
+
+        assertEquals(10d, matrix3x3.get(1, 1));
+    }
+
+    @Test
+    public void shouldAddCorrespondingElementsOfOneMatrixToAnother() throws Exception {
+        Matrix result = first2x2Matrix.add(second2x2Matrix);
+
+        assertEquals(2d, result.get(0, 0));
+        assertEquals(4d, result.get(0, 1));
+        assertEquals(2d, result.get(1, 0));
+        assertEquals(4d, result.get(1, 1));
+    }
+
+    @Test(expected = AdditionCompatibleException.class)
+    public void shouldThrowAdditionCompatibleExceptionIfMatricsAreNotAdditionCompatible() throws Exception {
+        first2x2Matrix.add(matrix3x2);
+    }
+
+    @Test
+    public void multiplicationOfMatrixToANumberShouldMultiplyEachElementWithThatNumber() throws Exception {
+        Matrix result = first2x2Matrix.multiply(2);
+
+        assertEquals(2d, result.get(0, 0));
+        assertEquals(4d, result.get(0, 1));
+        assertEquals(2d, result.get(1, 0));
+        assertEquals(4d, result.get(1, 1));
+    }
+
+    @Test
+    public void multiplicationOfMatrixShouldFollowTheMatrixMultiplicationRule() throws Exception {
+        Matrix result = first2x2Matrix.multiply(second2x2Matrix);
+
+        assertEquals(3d, result.get(0, 0));
+        assertEquals(6d, result.get(0, 1));
+        assertEquals(3d, result.get(1, 0));
+        assertEquals(6d, result.get(1, 1));
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void multiplicationShouldThrowMultiplicationCompatibileExceptionInMatrixAreNotCompatible() throws Exception {
+        first2x2Matrix.multiply(matrix3x2);
+    }
+
+    @Test
+    public void shouldGiveIdentityMatrixOn2x2() throws Exception {
+        Matrix matrix2x2 = Matrix.identity(2);
+
+        assertEquals(matrix2x2.get(0,0),1d);
+        assertEquals(matrix2x2.get(0,1),0d);
+        assertEquals(matrix2x2.get(1,1),1d);
+        assertEquals(matrix2x2.get(1,0),0d);
+    }
+
+    @Test
+    public void shouldReturnDeterminantOf1x1() throws Exception {
+        double determinant =new Matrix(new double[][]{{4}}).getDeterminant();
+
+        assertEquals(determinant,4d);
+    }
+
+    @Test
+    public void shouldReturnDeterminantOf2x2() throws Exception {
+        double determinant = first2x2Matrix.getDeterminant();
+
+        assertEquals(determinant,0d);
+    }
+
+    @Test
+    public void shouldReturnDeterminantOf3x3() throws Exception {
+        double determinant = matrix3x3.getDeterminant();
+
+        assertEquals(determinant,0d);
+    }
+
+    @Test
+    public void shouldReturnDeterminantOf4x4() throws Exception {
+        Matrix matrix = new Matrix(new double[][]{{1, 4, 3, 7}, {7, 2, 3, 12}, {15, 21, 3, 34}, {12, 45, 5, 9}});
+        double determinant = matrix.getDeterminant();
+
+        assertEquals(determinant,-15929d);
+    }
+
+    @Test(expected = NotASqaureMatrixException.class)
+    public void shouldThrowNotASqaureMatrixException() throws Exception {
+        matrix3x2.getDeterminant();
+    }
+
+    @Test
+    public void shouldReturnDeterminantOfLargeMatrix() throws Exception {
+        double[][] array = new double[60][60];
+        for (int i = 0; i < 60; i++) {
+            array[i][i] = 2;
+            if (i > 0) array[i][i - 1] = 1;
+        }
+        double determinant = new Matrix(array).getDeterminant();
+
+        assertEquals(Math.pow(2, 60), determinant, 1e-6);
+    }
+
+    @Test
+    public void shouldReturnInverseWhoseProductWithMatrixIsIdentity() throws Exception {
+        Matrix matrix = new Matrix(new double[][]{{1, 4, 3, 7}, {7, 2, 3, 12}, {15, 21, 3, 34}, {12, 45, 5, 9}});
+        Matrix product = matrix.multiply(matrix.inverse());
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(i == j ? 1d : 0d, product.get(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void inverseShouldThrowSingularMatrixExceptionForSingularMatrix() throws Exception {
+        matrix3x3.inverse();
+    }
+
+    @Test
+    public void shouldReturnCofactorOf3x3() throws Exception {
+        Matrix matrix = new Matrix(new double[][]{{2, 0, 1}, {1, 3, 2}, {1, 1, 1}});
+
+        assertEquals(1d, matrix.cofactor(0, 0), 1e-12);
+        assertEquals(1d, matrix.cofactor(0, 1), 1e-12);
+        assertEquals(-2d, matrix.cofactor(0, 2), 1e-12);
+        assertEquals(-2d, matrix.cofactor(1, 2), 1e-12);
+    }
+
+    @Test
+    public void adjointOfSingularMatrixShouldBeMadeOfCofactors() throws Exception {
+        Matrix adjoint = matrix3x3.adjoint();
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(matrix3x3.cofactor(i, j), adjoint.get(i, j), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void multiplicationOfNonSquareMatricesShouldHaveRowsOfFirstAndColumnsOfSecond() throws Exception {
+        Matrix result = matrix3x2.multiply(new Matrix(new double[][]{{1, 0, 2, 1}, {0, 1, 1, 1}}));
+
+        assertEquals(3, result.getRows());
+        assertEquals(4, result.getColumns());
+        assertEquals(1d, result.get(2, 0));
+        assertEquals(2d, result.get(2, 1));
+        assertEquals(4d, result.get(2, 2));
+        assertEquals(3d, result.get(2, 3));
+    }
+
+    @Test
+    public void transposeOfNonSquareMatrixShouldSwapRowsAndColumns() throws Exception {
+        Matrix result = matrix3x2.transpose();
+
+        assertEquals(2, result.getRows());
+        assertEquals(3, result.getColumns());
+        assertEquals(1d, result.get(0, 2));
+        assertEquals(2d, result.get(1, 0));
+    }
+
+    @Test
+    public void shouldCopyTheArrayItIsCreatedFrom() throws Exception {
+        double[][] array = {{1, 2}, {3, 4}};
+        Matrix matrix = new Matrix(array);
+        array[1][0] = 10;
+
+        assertEquals(3d, matrix.get(1, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreateMatrixFromRowsOfDifferentLength() throws Exception {
+        new Matrix(new double[][]{{1, 2}, {3}});
+    }
+
+    @Test
+    public void addInPlaceShouldAddIntoTheSameMatrix() throws Exception {
+        Matrix result = first2x2Matrix.addInPlace(second2x2Matrix);
+
+        assertTrue(result == first2x2Matrix);
+        assertEquals(2d, first2x2Matrix.get(0, 0));
+        assertEquals(4d, first2x2Matrix.get(1, 1));
+        assertEquals(2d, second2x2Matrix.get(1, 1));
+    }
+
+    @Test
+    public void axpyShouldAddScaledMatrixInPlace() throws Exception {
+        first2x2Matrix.axpy(-0.5, second2x2Matrix);
+
+        assertEquals(0.5d, first2x2Matrix.get(0, 0));
+        assertEquals(1d, first2x2Matrix.get(0, 1));
+    }
+
+    @Test
+    public void scaleAndMultiplyElementWiseInPlaceShouldModifyTheMatrix() throws Exception {
+        first2x2Matrix.scaleInPlace(3).multiplyElementWiseInPlace(second2x2Matrix);
+
+        assertEquals(3d, first2x2Matrix.get(1, 0));
+        assertEquals(12d, first2x2Matrix.get(1, 1));
+    }
+
+    @Test
+    public void multiplyIntoShouldOverwriteDestinationWithProduct() throws Exception {
+        Matrix dest = new Matrix(new double[][]{{9, 9}, {9, 9}});
+
+        Matrix.multiplyInto(first2x2Matrix, second2x2Matrix, dest);
+
+        assertEquals(first2x2Matrix.multiply(second2x2Matrix), dest);
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void multiplyIntoShouldRejectDestinationOfWrongDimensions() throws Exception {
+        Matrix.multiplyInto(first2x2Matrix, second2x2Matrix, new Matrix(3, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiplyIntoShouldRejectDestinationThatIsAnOperand() throws Exception {
+        Matrix.multiplyInto(first2x2Matrix, second2x2Matrix, first2x2Matrix);
+    }
+
+    @Test
+    public void transposeIntoShouldWriteTransposeIntoDestination() throws Exception {
+        Matrix dest = new Matrix(2, 3);
+
+        matrix3x2.transposeInto(dest);
+
+        assertEquals(matrix3x2.transpose(), dest);
+    }
+
+    @Test
+    public void axpyShouldNotCopyOnceTransposeViewIsCollected() throws Exception {
+        Matrix w = Matrices.random(64, 64, 1, 0);
+        Matrix g = Matrices.random(64, 64, 2, 0);
+        Matrix dest = new Matrix(64, 64);
+        double[] storage = w.data();
+
+        for (int i = 0; i < 3; i++) {
+            Matrix.multiplyInto(w.transpose(), g, dest);
+            w.releaseViews();
+            w.axpy(-0.1, g);
+
+            assertTrue(w.data() == storage);
+        }
+    }
+
+    @Test
+    public void axpyShouldNotChangeReachableTransposeView() throws Exception {
+        Matrix w = Matrices.random(5, 3, 1, 0);
+        Matrix copy = new Matrix(3, 5);
+        w.transposeInto(copy);
+        Matrix view = w.transpose();
+
+        w.axpy(-0.1, Matrices.random(5, 3, 2, 0));
+
+        assertEquals(copy, view);
+        assertFalse(w.storage() == view.storage());
+    }
+
+    @Test
+    public void solveShouldKeepFactorizationUntilMatrixChanges() throws Exception {
+        Matrix a = new Matrix(new double[][]{{4, 1}, {2, 3}});
+        Matrix b = new Matrix(new double[][]{{1}, {2}});
+
+        LUDecomposition lu = a.lu();
+        assertEquals(0.6, a.solve(b).get(1, 0), 1e-12);
+        assertTrue(lu == a.lu());
+
+        a.set(0, 0, 5);
+        assertFalse(lu == a.lu());
+        CsrMatrixTest.assertClose(b, a.multiply(a.solve(b)));
+    }
+
+    @Test
+    public void solveShouldUseLeastSquaresForTallMatrix() throws Exception {
+        Matrix a = new Matrix(new double[][]{{1, 0}, {0, 1}, {1, 1}});
+        Matrix b = new Matrix(new double[][]{{1}, {1}, {3}});
+
+        Matrix x = a.solve(b);
+
+        assertEquals(4 / 3d, x.get(0, 0), 1e-12);
+        assertEquals(4 / 3d, x.get(1, 0), 1e-12);
+    }
+
+    @Test
+    public void transposeShouldBeViewOverSameStorage() throws Exception {
+        Matrix transposed = matrix3x2.transpose();
+
+        assertTrue(transposed.storage() == matrix3x2.storage());
+        assertEquals(2, transposed.getRows());
+        assertEquals(3, transposed.getColumns());
+        assertEquals(matrix3x2.get(2, 1), transposed.get(1, 2));
+        assertTrue(transposed.transpose().equals(matrix3x2));
+    }
+
+    @Test
+    public void writesShouldNotBeSharedBetweenMatrixAndTransposeView() throws Exception {
+        Matrix source = new Matrix(new double[][]{{1, 2, 3}, {4, 5, 6}});
+        Matrix transposed = source.transpose();
+
+        transposed.set(0, 1, 40);
+        source.set(1, 2, 60);
+
+        assertEquals(4d, source.get(1, 0));
+        assertEquals(40d, transposed.get(0, 1));
+        assertEquals(60d, source.get(1, 2));
+        assertEquals(3d, transposed.get(2, 0));
+        assertEquals(6d, transposed.get(2, 1));
+    }
+
+    @Test
+    public void operationsShouldReadTransposeViews() throws Exception {
+        Matrix a = Matrices.random(70, 45, 1, 0);
+        Matrix b = Matrices.random(70, 45, 2, 0);
+        Matrix copy = new Matrix(45, 70);
+        a.transposeInto(copy);
+
+        CsrMatrixTest.assertClose(copy.multiply(b), a.transpose().multiply(b));
+        CsrMatrixTest.assertClose(b.multiply(copy), b.multiply(a.transpose()));
+        assertEquals(copy.add(copy), a.transpose().add(a.transpose()));
+        assertEquals(copy, a.transpose());
+        assertEquals(a, copy.transpose().transpose().transpose());
+        Matrix square = copy.multiply(a);
+        assertEquals(square.lu().getDeterminant(), square.transpose().lu().getDeterminant(), 1e-6 * Math.abs(square.lu().getDeterminant()));
+    }
+
+    @Test
+    public void inPlaceOperationShouldNotChangeSourceOfView() throws Exception {
+        Matrix square = new Matrix(new double[][]{{1, 2}, {3, 4}});
+        Matrix transposed = square.transpose();
+
+        square.addInPlace(transposed);
+
+        assertEquals(new Matrix(new double[][]{{2, 5}, {5, 8}}), square);
+        assertEquals(new Matrix(new double[][]{{1, 3}, {2, 4}}), transposed);
+    }
+
+    @Test
+    public void setShouldApproximateOnlyTheWrittenValue() throws Exception {
+        Matrix matrix = new Matrix(new double[][]{{1e-12, 1}, {2, 3}}, true);
+
+        matrix.set(1, 1, -1e-11);
+        matrix.set(1, 0, 1e-9);
+
+        assertEquals(new Matrix(new double[][]{{0, 1}, {1e-9, 0}}), matrix);
+    }
+
+    @Test
+    public void operationsShouldApproximateTheirResults() throws Exception {
+        Matrix a = new Matrix(new double[][]{{1, 2}, {3, 4}}, true);
+        Matrix nearlyA = new Matrix(new double[][]{{1 + 1e-12, 2}, {3, 4 - 1e-12}});
+        Matrix zero = new Matrix(2, 2);
+
+        assertEquals(zero, a.add(nearlyA.multiply(-1)));
+        assertEquals(zero, a.multiply(1e-11));
+        assertEquals(zero, a.multiplyElementWise(new Matrix(new double[][]{{1e-11, 1e-11}, {1e-11, 1e-11}})));
+        assertEquals(zero, a.multiply(Matrix.identity(2).multiply(1e-11)));
+        assertEquals(zero, a.lazy().add(nearlyA.lazy().multiply(-1)).evaluate());
+        assertEquals(zero, a.lazy().multiply(Matrix.identity(2)).add(nearlyA.lazy().multiply(-1)).evaluate());
+        assertEquals(zero, a.add(zero).scaleInPlace(1e-11));
+    }
+
+    @Test
+    public void approximationThresholdShouldBeConfigurable() throws Exception {
+        double threshold = Matrix.getApproximationThreshold();
+        try {
+            Matrix.setApproximationThreshold(1e-3);
+            Matrix matrix = new Matrix(new double[][]{{1e-4, 1}}, true);
+            matrix.set(0, 1, 5e-4);
+
+            assertEquals(new Matrix(new double[][]{{0, 0}}), matrix);
+            assertEquals(new Matrix(new double[][]{{0, 2e-3}}),
+                    new Matrix(new double[][]{{1e-4, 2e-3}}, true).multiply(1));
+        } finally {
+            Matrix.setApproximationThreshold(threshold);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void approximationThresholdShouldNotBeNegative() throws Exception {
+        Matrix.setApproximationThreshold(-1);
+    }
+
+    @Test
+    public void equalMatricesShouldHaveEqualHashCodes() throws Exception {
+        Matrix a = Matrices.random(7, 5, 1, 0);
+        Matrix copy = a.add(new Matrix(7, 5));
+        Matrix transpose = a.transpose().transpose();
+
+        assertEquals(a.hashCode(), copy.hashCode());
+        assertEquals(a.hashCode(), transpose.hashCode());
+        assertEquals(a.transpose().hashCode(), copy.transpose().add(new Matrix(5, 7)).hashCode());
+        assertEquals(new Matrix(new double[][]{{0}}).hashCode(), new Matrix(new double[][]{{-0.0}}).hashCode());
+        assertFalse(a.hashCode() == a.transpose().hashCode());
+    }
+
+    @Test
+    public void setShouldUpdateHashIncrementally() throws Exception {
+        Matrix a = Matrices.random(6, 6, 2, 0);
+        a.hashCode();
+
+        a.set(2, 3, 42);
+        a.set(5, 0, -1e-3);
+        Matrix expected = a.add(new Matrix(6, 6));
+
+        assertEquals(expected.hashCode(), a.hashCode());
+        assertEquals(expected.contentHash(), a.contentHash());
+    }
+
+    @Test
+    public void writesShouldChangeHash() throws Exception {
+        Matrix a = Matrices.random(4, 4, 3, 0);
+        int hash = a.hashCode();
+
+        a.scaleInPlace(2);
+        assertFalse(hash == a.hashCode());
+
+        a.scaleInPlace(0.5);
+        assertEquals(hash, a.hashCode());
+    }
+}
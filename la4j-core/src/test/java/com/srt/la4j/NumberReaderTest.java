@@ -0,0 +1,94 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class NumberReaderTest {
+
+    private static NumberReader reader(String s) {
+        return new NumberReader(new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void numbersShouldBeReadToTheNearestDouble() throws Exception {
+        Random random = new Random(1);
+        StringBuilder text = new StringBuilder();
+        String[] numbers = new String[4000];
+        for (int k = 0; k < numbers.length; k++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            switch (k % 4) {
+                case 0: numbers[k] = Double.toString(value); break;
+                case 1: numbers[k] = String.format(Locale.ROOT, "%.6f", random.nextDouble() * 1000); break;
+                case 2: numbers[k] = String.format(Locale.ROOT, "%.12e", random.nextGaussian()); break;
+                default: numbers[k] = Long.toString(random.nextLong() >> random.nextInt(64)); break;
+            }
+            text.append(numbers[k]).append(k % 10 == 9 ? "\n" : ",");
+        }
+        NumberReader reader = reader(text.toString());
+
+        for (String number : numbers) {
+            double expected = Double.parseDouble(number);
+            assertEquals(number, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(reader.nextDouble()));
+            reader.next();
+        }
+    }
+
+    @Test
+    public void specialValuesShouldBeRead() throws Exception {
+        NumberReader reader = reader("NaN -Infinity +7 -0 0.000000000000000000000000001 1e-400");
+
+        assertEquals(Double.NaN, reader.nextDouble());
+        assertEquals(Double.NEGATIVE_INFINITY, reader.nextDouble());
+        assertEquals(7d, reader.nextDouble());
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(reader.nextDouble()));
+        assertEquals(1e-27, reader.nextDouble());
+        assertEquals(0d, reader.nextDouble());
+    }
+
+    @Test
+    public void integersShouldBeReadAndLinesCounted() throws Exception {
+        NumberReader reader = reader("12 -3\n%x\n2147483647");
+
+        assertEquals(12, reader.nextInt());
+        assertEquals(-3, reader.nextInt());
+        reader.endLine();
+        reader.skipLine();
+        assertEquals(3, reader.line());
+        assertEquals(Integer.MAX_VALUE, reader.nextInt());
+    }
+
+    @Test(expected = IOException.class)
+    public void integersShouldNotOverflow() throws Exception {
+        reader("2147483648").nextInt();
+    }
+
+    @Test(expected = IOException.class)
+    public void numbersShouldEndAtADelimiter() throws Exception {
+        reader("1.5;2").nextDouble();
+    }
+}
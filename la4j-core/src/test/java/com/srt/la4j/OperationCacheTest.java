@@ -0,0 +1,141 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+
+public class OperationCacheTest {
+
+    @Test
+    public void equalMatricesShouldHitTheCache() throws Exception {
+        OperationCache cache = new OperationCache(1000);
+        Matrix a = Matrices.random(5, 5, 1, 2);
+
+        Matrix inverse = cache.inverse(a);
+        Matrix cached = cache.inverse(a.add(new Matrix(5, 5)));
+        double det = cache.getDeterminant(a);
+
+        assertClose(a.inverse(), inverse);
+        assertEquals(inverse, cached);
+        assertEquals(a.getDeterminant(), det);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+        assertEquals(25 + 25 + 25, cache.getWeight());
+    }
+
+    @Test
+    public void writesShouldNotChangeCachedResults() throws Exception {
+        OperationCache cache = new OperationCache(1000);
+        Matrix a = Matrices.random(4, 4, 2, 2);
+        Matrix expected = a.adjoint();
+
+        cache.adjoint(a).set(0, 0, 100);
+        a.set(1, 1, 5);
+        Matrix changed = cache.adjoint(a);
+
+        assertClose(a.adjoint(), changed);
+        assertEquals(0, cache.getHits());
+        assertEquals(expected, cache.adjoint(Matrices.random(4, 4, 2, 2)));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesShouldBeEvicted() throws Exception {
+        OperationCache cache = new OperationCache(3 * 18);
+        Matrix a = Matrices.random(3, 3, 1, 2);
+        Matrix b = Matrices.random(3, 3, 2, 2);
+        Matrix c = Matrices.random(3, 3, 3, 2);
+        Matrix d = Matrices.random(3, 3, 4, 2);
+
+        cache.inverse(a);
+        cache.inverse(b);
+        cache.inverse(c);
+        cache.inverse(a);
+        cache.inverse(d);
+
+        assertEquals(3, cache.size());
+        assertEquals(3 * 18, cache.getWeight());
+        cache.inverse(a);
+        assertEquals(2, cache.getHits());
+        cache.inverse(b);
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void resultsLargerThanCapacityShouldNotBeCached() throws Exception {
+        OperationCache cache = new OperationCache(10);
+
+        cache.inverse(Matrices.random(3, 3, 1, 2));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void failuresShouldNotBeCached() throws Exception {
+        OperationCache cache = new OperationCache(100);
+        Matrix singular = new Matrix(new double[][]{{1, 2}, {2, 4}});
+        try {
+            cache.inverse(singular);
+        } catch (SingularMatrixException e) {
+            assertEquals(0, cache.size());
+        }
+        cache.inverse(singular);
+    }
+
+    @Test
+    public void concurrentLookupsShouldAgree() throws Exception {
+        OperationCache cache = new OperationCache(10 * 2 * 36);
+        List<Matrix> operands = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            operands.add(Matrices.random(6, 6, i, 3));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Matrix>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                Matrix operand = operands.get(i % 10);
+                results.add(executor.submit(() -> cache.inverse(operand)));
+            }
+            for (int i = 0; i < 400; i++) {
+                assertClose(operands.get(i % 10).inverse(), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(400, cache.getHits() + cache.getMisses());
+        assertEquals(10, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveCapacity() throws Exception {
+        new OperationCache(0);
+    }
+}
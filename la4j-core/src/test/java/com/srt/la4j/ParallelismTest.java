@@ -0,0 +1,99 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class ParallelismTest {
+
+    private ForkJoinPool pool;
+    private Matrix first;
+    private Matrix second;
+    private Matrix tall;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+        first = Matrices.random(97, 83, 1, 0);
+        second = Matrices.random(97, 83, 2, 0);
+        tall = Matrices.random(83, 130, 3, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Parallelism.setEnabled(false);
+        Parallelism.setThreshold(1 << 16);
+        Parallelism.setPool(ForkJoinPool.commonPool());
+        pool.shutdown();
+    }
+
+    @Test
+    public void parallelResultsShouldBeIdenticalToSerialResults() throws Exception {
+        Matrix sum = first.add(second);
+        Matrix product = first.multiply(tall);
+        Matrix elementWise = first.multiplyElementWise(second);
+        Matrix scaled = first.multiply(0.3);
+        Matrix transposed = tall.transpose();
+
+        Parallelism.setPool(pool);
+        Parallelism.setThreshold(64);
+        Parallelism.setEnabled(true);
+
+        assertIdentical(sum, first.add(second));
+        assertIdentical(product, first.multiply(tall));
+        assertIdentical(elementWise, first.multiplyElementWise(second));
+        assertIdentical(scaled, first.multiply(0.3));
+        assertIdentical(transposed, tall.transpose());
+    }
+
+    @Test
+    public void shouldOnlyRunInParallelAboveThreshold() throws Exception {
+        Parallelism.setPool(pool);
+        Parallelism.setThreshold(1000);
+        Parallelism.setEnabled(true);
+
+        assertTrue(Parallelism.isParallel(1000));
+        assertTrue(!Parallelism.isParallel(999));
+        Parallelism.setEnabled(false);
+        assertTrue(!Parallelism.isParallel(1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveThreshold() throws Exception {
+        Parallelism.setThreshold(0);
+    }
+
+    private static void assertIdentical(Matrix expected, Matrix actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        for (int i = 0; i < expected.getRows(); i++) {
+            for (int j = 0; j < expected.getColumns(); j++) {
+                assertEquals(Double.doubleToRawLongBits(expected.get(i, j)),
+                        Double.doubleToRawLongBits(actual.get(i, j)));
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MatrixCompatibleException;
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+
+public class QRDecompositionTest {
+
+    private Matrix tall;
+
+    @Before
+    public void setUp() throws Exception {
+        tall = Matrices.random(90, 40, 1, 0);
+    }
+
+    @Test
+    public void productOfFactorsShouldBeMatrix() throws Exception {
+        QRDecomposition qr = tall.qr();
+        Matrix q = qr.getQ();
+        Matrix r = qr.getR();
+
+        assertClose(tall, q.multiply(r));
+        assertClose(Matrix.identity(40), q.transpose().multiply(q));
+        assertEquals(0d, r.get(5, 2));
+    }
+
+    @Test
+    public void solveShouldMatchNormalEquations() throws Exception {
+        Matrix b = Matrices.random(90, 3, 2, 0);
+
+        Matrix x = tall.qr().solve(b);
+        Matrix normal = tall.transpose().multiply(tall).lu().solve(tall.transpose().multiply(b));
+
+        assertClose(normal, x);
+    }
+
+    @Test
+    public void solveShouldBeExactForSquareMatrix() throws Exception {
+        Matrix a = Matrices.random(30, 30, 3, 2);
+        Matrix b = Matrices.random(30, 2, 4, 0);
+
+        assertClose(b, a.multiply(a.qr().solve(b)));
+    }
+
+    @Test
+    public void blockedFactorizationShouldSpanSeveralPanels() throws Exception {
+        Matrix a = Matrices.random(300, 3 * QRDecomposition.BLOCK + 7, 5, 0);
+        Matrix b = Matrices.random(300, 2, 6, 0);
+        QRDecomposition qr = a.qr();
+        Matrix q = qr.getQ();
+
+        assertClose(a, q.multiply(qr.getR()));
+        assertClose(Matrix.identity(a.getColumns()), q.transpose().multiply(q));
+        assertClose(a.transpose().multiply(a).lu().solve(a.transpose().multiply(b)), qr.solve(b));
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void solveShouldThrowSingularMatrixExceptionForRankDeficientMatrix() throws Exception {
+        Matrix a = new Matrix(new double[][]{{1, 0}, {2, 0}, {3, 0}});
+
+        assertFalse(a.qr().isFullRank());
+        a.qr().solve(new Matrix(3, 1));
+    }
+
+    @Test(expected = MatrixCompatibleException.class)
+    public void shouldRejectWideMatrix() throws Exception {
+        tall.transpose().qr();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.MultiplicationCompatibleException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class SingularValueDecompositionTest {
+
+    @After
+    public void tearDown() throws Exception {
+        Parallelism.setEnabled(false);
+        Parallelism.setThreshold(1 << 16);
+        Parallelism.setPool(ForkJoinPool.commonPool());
+    }
+
+    private static void assertDecomposes(Matrix a, SingularValueDecomposition svd) throws Exception {
+        Matrix u = svd.getU(), v = svd.getV();
+        int p = Math.min(a.getRows(), a.getColumns());
+        double[] sigma = svd.getSingularValues();
+
+        assertEquals(p, sigma.length);
+        for (int i = 1; i < p; i++) {
+            assertTrue(sigma[i - 1] >= sigma[i]);
+        }
+        assertClose(a, u.multiply(svd.getS()).multiply(v.transpose()));
+        assertClose(Matrix.identity(p), u.transpose().multiply(u));
+        assertClose(Matrix.identity(p), v.transpose().multiply(v));
+    }
+
+    @Test
+    public void tallMatrixShouldDecompose() throws Exception {
+        Matrix a = Matrices.random(150, 70, 1, 0);
+
+        assertDecomposes(a, a.svd());
+    }
+
+    @Test
+    public void squareAndWideMatricesShouldDecompose() throws Exception {
+        Matrix square = Matrices.random(45, 45, 2, 0);
+        Matrix wide = Matrices.random(30, 80, 3, 0);
+
+        assertDecomposes(square, square.svd());
+        assertDecomposes(wide, wide.svd());
+    }
+
+    @Test
+    public void singularValuesShouldBeSquareRootsOfGramEigenvalues() throws Exception {
+        Matrix a = Matrices.random(60, 25, 4, 0);
+
+        double[] sigma = a.svd().getSingularValues();
+        double[] eigenvalues = a.transpose().multiply(a).eigenvalues();
+
+        for (int i = 0; i < sigma.length; i++) {
+            assertEquals(Math.sqrt(eigenvalues[eigenvalues.length - 1 - i]), sigma[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void diagonalMatrixShouldGiveSortedAbsoluteValues() throws Exception {
+        Matrix a = new Matrix(new double[][]{{1, 0, 0}, {0, -3, 0}, {0, 0, 2}, {0, 0, 0}});
+
+        SingularValueDecomposition svd = a.svd();
+
+        assertEquals(3d, svd.getSingularValues()[0], 1e-15);
+        assertEquals(2d, svd.getSingularValues()[1], 1e-15);
+        assertEquals(1d, svd.getSingularValues()[2], 1e-15);
+        assertEquals(3d, svd.norm2(), 1e-15);
+        assertEquals(3d, svd.cond(), 1e-15);
+        assertEquals(3, svd.rank());
+    }
+
+    @Test
+    public void solveShouldGiveMinimumNormSolutionForRankDeficientMatrix() throws Exception {
+        // Both columns are equal, so x1 + x2 is determined and x1 = x2 has the smallest norm.
+        Matrix a = new Matrix(new double[][]{{1, 1}, {2, 2}, {3, 3}});
+        Matrix b = new Matrix(new double[][]{{2}, {4}, {6}});
+
+        SingularValueDecomposition svd = a.svd();
+        Matrix x = svd.solve(b);
+
+        assertEquals(1, svd.rank());
+        assertEquals(1d, x.get(0, 0), 1e-12);
+        assertEquals(1d, x.get(1, 0), 1e-12);
+    }
+
+    @Test
+    public void solveShouldMatchQRForFullRankMatrix() throws Exception {
+        Matrix a = Matrices.random(80, 20, 5, 0);
+        Matrix b = Matrices.random(80, 3, 6, 0);
+
+        assertClose(a.qr().solve(b), a.svd().solve(b));
+    }
+
+    @Test(expected = MultiplicationCompatibleException.class)
+    public void solveShouldRejectRightHandSideWithOtherRows() throws Exception {
+        Matrices.random(5, 3, 1, 0).svd().solve(new Matrix(4, 1));
+    }
+
+    @Test
+    public void randomizedShouldRecoverLowRankMatrix() throws Exception {
+        Matrix a = Matrices.random(3000, 5, 7, 0).multiply(Matrices.random(5, 60, 8, 0));
+
+        SingularValueDecomposition exact = a.svd();
+        SingularValueDecomposition randomized = SingularValueDecomposition.randomized(a, 5, 5, 1, 42);
+
+        assertEquals(3000, randomized.getU().getRows());
+        assertEquals(5, randomized.getU().getColumns());
+        assertEquals(60, randomized.getV().getRows());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(exact.getSingularValues()[i], randomized.getSingularValues()[i], 1e-8);
+        }
+        assertClose(a, randomized.getU().multiply(randomized.getS()).multiply(randomized.getV().transpose()));
+    }
+
+    @Test
+    public void randomizedShouldAcceptSparseMatrix() throws Exception {
+        Matrix dense = Matrices.random(200, 4, 9, 0).multiply(Matrices.random(4, 50, 10, 0));
+        CsrMatrix sparse = CsrMatrix.fromDense(dense);
+
+        SingularValueDecomposition randomized = SingularValueDecomposition.randomized(sparse, 4, 3, 0, 1);
+
+        assertClose(dense, randomized.getU().multiply(randomized.getS()).multiply(randomized.getV().transpose()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void randomizedShouldRejectRankAboveSmallerDimension() throws Exception {
+        SingularValueDecomposition.randomized(Matrices.random(10, 4, 1, 0), 5, 0, 0, 1);
+    }
+
+    @Test
+    public void parallelSweepsShouldGiveSameSingularValues() throws Exception {
+        Matrix a = Matrices.random(120, 90, 11, 0);
+        double[] serial = a.svd().getSingularValues();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Parallelism.setPool(pool);
+        Parallelism.setThreshold(64);
+        Parallelism.setEnabled(true);
+
+        double[] parallel = new SingularValueDecomposition(a).getSingularValues();
+        pool.shutdown();
+
+        for (int i = 0; i < serial.length; i++) {
+            assertEquals(serial[i], parallel[i], 1e-12);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static com.srt.la4j.Matrices.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class StrassenTest {
+
+    private final boolean enabled = Strassen.isEnabled();
+    private final int cutoff = Strassen.getCutoff();
+
+    @After
+    public void tearDown() throws Exception {
+        Strassen.setEnabled(enabled);
+        Strassen.setCutoff(cutoff);
+    }
+
+    private static Matrix standard(Matrix a, Matrix b) throws Exception {
+        Strassen.setEnabled(false);
+        Matrix product = a.multiply(b);
+        Strassen.setEnabled(true);
+        return product;
+    }
+
+    @Test
+    public void recursionShouldMatchStandardProduct() throws Exception {
+        Strassen.setCutoff(16);
+        int[][] shapes = {{64, 64, 64}, {37, 45, 29}, {70, 33, 101}, {128, 96, 40}};
+        for (int[] shape : shapes) {
+            Matrix a = Matrices.random(shape[0], shape[2], 1, 0);
+            Matrix b = Matrices.random(shape[2], shape[1], 2, 0);
+
+            Matrix expected = standard(a, b);
+
+            assertClose(expected, a.multiply(b));
+        }
+    }
+
+    @Test
+    public void recursionShouldReadTransposedOperands() throws Exception {
+        Strassen.setCutoff(8);
+        Matrix a = Matrices.random(50, 40, 3, 0).transpose();
+        Matrix b = Matrices.random(50, 45, 4, 0);
+
+        Matrix expected = standard(a, b);
+
+        assertClose(expected, a.multiply(b));
+    }
+
+    @Test
+    public void errorShouldStayWithinBound() throws Exception {
+        Strassen.setCutoff(8);
+        int n = 128;
+        Matrix a = Matrices.random(n, n, 5, 0);
+        Matrix b = Matrices.random(n, n, 6, 0);
+
+        Matrix actual = a.multiply(b);
+
+        double error = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                error = Math.max(error, Math.abs(accurateProduct(a, b, i, j) - actual.get(i, j)));
+            }
+        }
+        double u = Math.ulp(1.0) / 2;
+        assertTrue(error > 0);
+        assertTrue(error <= Strassen.errorBound(n, 8) * u * largest(a) * largest(b));
+    }
+
+    /**
+     * Element (i, j) of a * b as accurate as in twice the working precision (Dot2 of Ogita,
+     * Rump and Oishi), so that the error of the reference is negligible against the bound.
+     */
+    private static double accurateProduct(Matrix a, Matrix b, int i, int j) {
+        double sum = 0, compensation = 0;
+        for (int p = 0; p < a.getColumns(); p++) {
+            double x = a.get(i, p), y = b.get(p, j);
+            double product = x * y;
+            double t = sum + product, z = t - sum;
+            compensation += (sum - (t - z)) + (product - z) + Math.fma(x, y, -product);
+            sum = t;
+        }
+        return sum + compensation;
+    }
+
+    private static double largest(Matrix matrix) {
+        double largest = 0;
+        for (int i = 0; i < matrix.getRows(); i++) {
+            for (int j = 0; j < matrix.getColumns(); j++) {
+                largest = Math.max(largest, Math.abs(matrix.get(i, j)));
+            }
+        }
+        return largest;
+    }
+
+    @Test
+    public void errorBoundShouldReduceToStandardBelowCutoff() throws Exception {
+        assertEquals(100 * 100 + 6 * 100 - 6 * 100d, Strassen.errorBound(100, 64), 1e-9);
+        assertTrue(Strassen.errorBound(1024, 64) > Strassen.errorBound(1024, 512));
+    }
+
+    @Test
+    public void shouldOnlyApplyWhenEnabledAndLargeEnough() throws Exception {
+        Strassen.setCutoff(32);
+        Strassen.setEnabled(false);
+        assertFalse(Strassen.applies(64, 64, 64));
+
+        Strassen.setEnabled(true);
+        assertTrue(Strassen.applies(64, 64, 64));
+        assertFalse(Strassen.applies(64, 63, 64));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveCutoff() throws Exception {
+        Strassen.setCutoff(0);
+    }
+}
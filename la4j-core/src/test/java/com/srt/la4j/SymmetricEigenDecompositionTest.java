@@ -0,0 +1,115 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.NotASqaureMatrixException;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class SymmetricEigenDecompositionTest {
+
+    private static Matrix symmetric(int n, long seed) throws Exception {
+        Matrix a = Matrices.random(n, n, seed, 0);
+        return a.add(a.transpose());
+    }
+
+    @Test
+    public void decompositionShouldDiagonalizeMatrixOverSeveralPanels() throws Exception {
+        Matrix a = symmetric(3 * SymmetricEigenDecomposition.BLOCK + 5, 1);
+
+        SymmetricEigenDecomposition eigen = a.eigen();
+        Matrix v = eigen.getV();
+        double[] lambda = eigen.getEigenvalues();
+
+        for (int i = 1; i < lambda.length; i++) {
+            assertTrue(lambda[i - 1] <= lambda[i]);
+        }
+        assertClose(a.multiply(v), v.multiply(eigen.getD()));
+        assertClose(Matrix.identity(a.getRows()), v.transpose().multiply(v));
+    }
+
+    @Test
+    public void eigenvaluesAloneShouldMatchFullDecomposition() throws Exception {
+        Matrix a = symmetric(50, 2);
+
+        double[] alone = a.eigenvalues();
+        double[] full = a.eigen().getEigenvalues();
+
+        for (int i = 0; i < alone.length; i++) {
+            assertEquals(full[i], alone[i], 1e-10);
+        }
+    }
+
+    @Test
+    public void smallMatricesShouldHaveKnownEigenvalues() throws Exception {
+        double[] pair = new Matrix(new double[][]{{2, 1}, {1, 2}}).eigenvalues();
+        double[] single = new Matrix(new double[][]{{-4}}).eigenvalues();
+        double[] diagonal = new Matrix(new double[][]{{3, 0, 0}, {0, -1, 0}, {0, 0, 2}}).eigenvalues();
+
+        assertEquals(1d, pair[0], 1e-15);
+        assertEquals(3d, pair[1], 1e-15);
+        assertEquals(-4d, single[0]);
+        assertEquals(-1d, diagonal[0]);
+        assertEquals(2d, diagonal[1]);
+        assertEquals(3d, diagonal[2]);
+    }
+
+    @Test
+    public void onlyLowerTriangleShouldBeRead() throws Exception {
+        Matrix a = symmetric(40, 3);
+        Matrix lower = new Matrix(a.getRows(), a.getColumns());
+        for (int i = 0; i < a.getRows(); i++) {
+            for (int j = 0; j <= i; j++) {
+                lower.set(i, j, a.get(i, j));
+            }
+        }
+
+        double[] expected = a.eigenvalues();
+        double[] actual = lower.eigenvalues();
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void symmetricMatrixShouldMatchDenseDecomposition() throws Exception {
+        Matrix a = symmetric(30, 4);
+
+        double[] expected = a.eigenvalues();
+        double[] actual = SymmetricMatrix.of(a).eigen().getEigenvalues();
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void eigenvectorsShouldNotBeAvailableWithoutComputingThem() throws Exception {
+        new SymmetricEigenDecomposition(symmetric(5, 5), false).getV();
+    }
+
+    @Test(expected = NotASqaureMatrixException.class)
+    public void shouldRejectNonSquareMatrix() throws Exception {
+        Matrices.random(3, 4, 1, 0).eigen();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.NotPositiveDefiniteMatrixException;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class SymmetricMatrixTest {
+
+    private static SymmetricMatrix random(int n, long seed, double diagonal) throws Exception {
+        return SymmetricMatrix.of(Matrices.random(n, n, seed, diagonal));
+    }
+
+    @Test
+    public void elementsShouldBeShared() throws Exception {
+        SymmetricMatrix symmetric = new SymmetricMatrix(3);
+
+        symmetric.set(0, 2, 5);
+
+        assertEquals(5d, symmetric.get(2, 0));
+        assertEquals(symmetric.toDense(), symmetric.toDense().transpose().toDense());
+    }
+
+    @Test
+    public void operationsShouldMatchDenseMatrix() throws Exception {
+        SymmetricMatrix first = random(140, 1, 0);
+        SymmetricMatrix second = random(140, 2, 0);
+        Matrix x = first.toDense(), y = second.toDense();
+        Matrix c = Matrices.random(140, 5, 3, 0);
+
+        assertClose(x.multiply(c), first.multiply(c));
+        assertClose(x.multiply(y), first.multiply(second));
+        assertTrue(first.add(second) instanceof SymmetricMatrix);
+        assertClose(x.add(y), first.add(second).toDense());
+        assertClose(x.add(c.multiply(c.transpose())), first.add(c.multiply(c.transpose())).toDense());
+        assertTrue(first.multiplyElementWise(second) instanceof SymmetricMatrix);
+        assertClose(x.multiplyElementWise(y), first.multiplyElementWise(second).toDense());
+        assertClose(x.multiply(-2), first.multiply(-2).toDense());
+        assertEquals(first, first.transpose());
+    }
+
+    @Test
+    public void choleskyShouldFactorizePositiveDefiniteMatrix() throws Exception {
+        Matrix a = Matrices.random(20, 10, 4, 0);
+        SymmetricMatrix gram = SymmetricMatrix.of(a.transpose().multiply(a).add(Matrix.identity(10)));
+
+        TriangularMatrix l = gram.cholesky();
+
+        assertTrue(l.isLower());
+        assertClose(gram.toDense(), l.multiply(l.transpose()).toDense());
+        assertEquals(gram.toDense().getDeterminant(), gram.getDeterminant(), 1e-9 * gram.getDeterminant());
+        Matrix b = Matrices.random(10, 2, 5, 0);
+        assertClose(gram.toDense().solve(b), gram.solve(b));
+        Matrix wide = Matrices.random(10, 9, 6, 0);
+        assertClose(gram.toDense().solve(wide), gram.solve(wide));
+    }
+
+    @Test
+    public void indefiniteMatrixShouldFallBackToLu() throws Exception {
+        SymmetricMatrix indefinite = random(12, 6, 0);
+        Matrix b = Matrices.random(12, 2, 7, 0);
+
+        assertEquals(indefinite.toDense().getDeterminant(), indefinite.getDeterminant(), 1e-9);
+        assertClose(indefinite.toDense().solve(b), indefinite.solve(b));
+    }
+
+    @Test(expected = NotPositiveDefiniteMatrixException.class)
+    public void choleskyShouldRejectIndefiniteMatrix() throws Exception {
+        SymmetricMatrix indefinite = new SymmetricMatrix(2);
+        indefinite.set(0, 1, 1);
+        indefinite.cholesky();
+    }
+}
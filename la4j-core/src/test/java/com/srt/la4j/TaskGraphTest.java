@@ -0,0 +1,87 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+
+package com.srt.la4j;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class TaskGraphTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() throws Exception {
+        Parallelism.setEnabled(false);
+        Parallelism.setThreshold(1 << 16);
+        Parallelism.setPool(ForkJoinPool.commonPool());
+        pool.shutdown();
+    }
+
+    @Test
+    public void tasksShouldRunAfterTheirDependencies() throws Exception {
+        Parallelism.setPool(pool);
+        Parallelism.setThreshold(1);
+        Parallelism.setEnabled(true);
+        for (int run = 0; run < 20; run++) {
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            TaskGraph graph = new TaskGraph();
+            TaskGraph.Task[] level = new TaskGraph.Task[4];
+            for (int step = 0; step < 5; step++) {
+                TaskGraph.Task[] next = new TaskGraph.Task[4];
+                for (int t = 0; t < 4; t++) {
+                    int value = step;
+                    next[t] = graph.add(() -> order.add(value), level);
+                }
+                level = next;
+            }
+
+            graph.run(1000);
+
+            assertEquals(20, order.size());
+            for (int i = 1; i < order.size(); i++) {
+                assertTrue(order.get(i - 1) <= order.get(i));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failingTaskShouldBeThrown() throws Exception {
+        Parallelism.setPool(pool);
+        Parallelism.setThreshold(1);
+        Parallelism.setEnabled(true);
+        TaskGraph graph = new TaskGraph();
+        TaskGraph.Task first = graph.add(() -> {
+            throw new IllegalStateException();
+        });
+        graph.add(() -> {
+        }, first);
+        graph.add(() -> {
+        });
+
+        graph.run(1000);
+    }
+}
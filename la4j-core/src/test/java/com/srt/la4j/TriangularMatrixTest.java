@@ -0,0 +1,111 @@
+/*
+ *     Copyright (C) 2016  Prateek Srivastava
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see https://www.gnu.org/licenses/gpl.html.
+ *
+ */
+package com.srt.la4j;
+
+import com.srt.la4j.exceptions.SingularMatrixException;
+import org.junit.Test;
+
+import static com.srt.la4j.CsrMatrixTest.assertClose;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class TriangularMatrixTest {
+
+    @Test
+    public void packedStorageShouldHoldOnlyTheTriangle() throws Exception {
+        Matrix dense = Matrices.random(6, 6, 1, 0);
+        for (boolean lower : new boolean[]{true, false}) {
+            TriangularMatrix triangular = TriangularMatrix.of(dense, lower);
+
+            assertEquals(21, triangular.data().length);
+            for (int i = 0; i < 6; i++) {
+                for (int j = 0; j < 6; j++) {
+                    assertEquals(lower == j <= i || i == j ? dense.get(i, j) : 0, triangular.get(i, j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void operationsShouldMatchDenseMatrix() throws Exception {
+        // Larger than a block of rows, so that products span several blocks.
+        Matrix a = Matrices.random(150, 150, 1, 0);
+        Matrix b = Matrices.random(150, 150, 2, 0);
+        Matrix c = Matrices.random(150, 7, 3, 0);
+        for (boolean lower : new boolean[]{true, false}) {
+            TriangularMatrix first = TriangularMatrix.of(a, lower);
+            TriangularMatrix second = TriangularMatrix.of(b, lower);
+            Matrix x = first.toDense(), y = second.toDense();
+
+            BaseMatrix product = first.multiply(second);
+            assertTrue(product instanceof TriangularMatrix);
+            assertClose(x.multiply(y), product.toDense());
+            assertClose(x.multiply(c), (Matrix) first.multiply(c));
+            assertClose(x.multiply(c.transpose().transpose()), (Matrix) first.multiply(c));
+            assertClose(x.multiply(b), first.multiply(b).toDense());
+            assertClose(x.add(y), first.add(second).toDense());
+            assertClose(x.add(b), first.add(b).toDense());
+            assertClose(x.multiplyElementWise(b), first.multiplyElementWise(b).toDense());
+            assertClose(x.multiply(2.5), first.multiply(2.5).toDense());
+            assertClose(x.transpose(), first.transpose().toDense());
+            assertEquals(!lower, first.transpose().isLower());
+        }
+    }
+
+    @Test
+    public void determinantAndSolveShouldMatchDenseMatrix() throws Exception {
+        Matrix a = Matrices.random(30, 30, 4, 4);
+        Matrix b = Matrices.random(30, 3, 5, 0);
+        for (boolean lower : new boolean[]{true, false}) {
+            TriangularMatrix triangular = TriangularMatrix.of(a, lower);
+            Matrix dense = triangular.toDense();
+
+            assertEquals(dense.getDeterminant(), triangular.getDeterminant(),
+                    1e-9 * Math.abs(triangular.getDeterminant()));
+            assertClose(dense.solve(b), triangular.solve(b));
+            Matrix wide = Matrices.random(30, 12, 6, 0);
+            assertClose(dense.solve(wide), triangular.solve(wide));
+        }
+    }
+
+    @Test
+    public void productWithDiagonalShouldStayTriangular() throws Exception {
+        TriangularMatrix upper = TriangularMatrix.of(Matrices.random(5, 5, 6, 0), false);
+        DiagonalMatrix diagonal = new DiagonalMatrix(new double[]{1, 2, 3, 4, 5});
+
+        BaseMatrix product = upper.multiply(diagonal);
+        BaseMatrix sum = upper.add(diagonal);
+
+        assertTrue(product instanceof TriangularMatrix);
+        assertTrue(sum instanceof TriangularMatrix);
+        assertFalse(((TriangularMatrix) sum).isLower());
+        assertClose(upper.toDense().multiply(diagonal.toDense()), product.toDense());
+        assertClose(upper.toDense().add(diagonal.toDense()), sum.toDense());
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void solveShouldRejectZeroOnDiagonal() throws Exception {
+        new TriangularMatrix(3, true).solve(Matrix.identity(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setShouldRejectElementOutsideTriangle() throws Exception {
+        new TriangularMatrix(3, true).set(0, 2, 1);
+    }
+}